@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller;
+
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.address.model.CertSpec;
+import io.enmasse.address.model.EndpointSpec;
+import io.enmasse.address.model.EndpointStatus;
+
+import java.util.*;
+
+/**
+ * A normalized copy of the parts of an {@link AddressSpace} that are written by the controller chain, used to detect
+ * whether the result of a pass differs from what was last written.
+ *
+ * Server populated metadata (resource version, self link and creation timestamp) is ignored, and endpoints, endpoint
+ * statuses, messages, labels and annotations are compared regardless of order. The snapshot is a deep copy, as
+ * controllers modify the status of the address space they are given.
+ */
+final class AddressSpaceSnapshot {
+    private final Map<String, Object> fields;
+
+    private AddressSpaceSnapshot(Map<String, Object> fields) {
+        this.fields = fields;
+    }
+
+    static AddressSpaceSnapshot of(AddressSpace addressSpace) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", addressSpace.getName());
+        fields.put("namespace", addressSpace.getNamespace());
+        fields.put("uid", addressSpace.getUid());
+        fields.put("type", addressSpace.getType());
+        fields.put("plan", addressSpace.getPlan());
+        fields.put("labels", copy(addressSpace.getLabels()));
+        fields.put("annotations", copy(addressSpace.getAnnotations()));
+        fields.put("authenticationServiceType", addressSpace.getAuthenticationService().getType());
+        fields.put("authenticationServiceDetails", copy(addressSpace.getAuthenticationService().getDetails()));
+
+        Map<String, Object> endpoints = new HashMap<>();
+        for (EndpointSpec endpoint : addressSpace.getEndpoints()) {
+            endpoints.put(endpoint.getName(), Arrays.asList(
+                    endpoint.getService(),
+                    endpoint.getServicePort(),
+                    endpoint.getHost().orElse(null),
+                    endpoint.getCertSpec().map(CertSpec::getProvider).orElse(null),
+                    endpoint.getCertSpec().map(CertSpec::getSecretName).orElse(null)));
+        }
+        fields.put("endpoints", endpoints);
+
+        fields.put("ready", addressSpace.getStatus().isReady());
+        fields.put("messages", new HashSet<>(addressSpace.getStatus().getMessages()));
+        Map<String, Object> endpointStatuses = new HashMap<>();
+        for (EndpointStatus endpointStatus : addressSpace.getStatus().getEndpointStatuses()) {
+            endpointStatuses.put(endpointStatus.getName(), Arrays.asList(
+                    endpointStatus.getServiceHost(),
+                    copy(endpointStatus.getServicePorts()),
+                    endpointStatus.getHost(),
+                    endpointStatus.getPort()));
+        }
+        fields.put("endpointStatuses", endpointStatuses);
+        return new AddressSpaceSnapshot(fields);
+    }
+
+    private static <K, V> Map<K, V> copy(Map<K, V> map) {
+        return map == null ? Collections.emptyMap() : new HashMap<>(map);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AddressSpaceSnapshot that = (AddressSpaceSnapshot) o;
+        return fields.equals(that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+}
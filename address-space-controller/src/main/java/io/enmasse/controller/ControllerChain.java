@@ -19,8 +19,19 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static io.enmasse.controller.common.ControllerReason.AddressSpaceDeleteFailed;
@@ -30,7 +41,14 @@ import static io.enmasse.k8s.api.EventLogger.Type.Normal;
 import static io.enmasse.k8s.api.EventLogger.Type.Warning;
 
 /**
- * The main controller loop that monitors k8s address spaces
+ * The main controller loop that monitors k8s address spaces.
+ *
+ * Address spaces are reconciled concurrently by a bounded pool of workers, so that a slow address space does not hold
+ * up the others. An address space is never reconciled by more than one worker at a time: if it is still being
+ * reconciled when the next pass starts, it is skipped in that pass. A pass waits for its address spaces up to the
+ * reconcile deadline, after which unfinished address spaces continue in the background.
+ *
+ * The result of the chain is only written back if it differs from what was last written for that address space.
  */
 public class ControllerChain extends AbstractVerticle implements Watcher<AddressSpace> {
     private static final Logger log = LoggerFactory.getLogger(ControllerChain.class.getName());
@@ -45,19 +63,34 @@ public class ControllerChain extends AbstractVerticle implements Watcher<Address
     private final EventLogger eventLogger;
     private final Duration recheckInterval;
     private final Duration resyncInterval;
+    private final Duration reconcileDeadline;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<?>> inProgress = new ConcurrentHashMap<>();
+    private final Map<String, AddressSpaceSnapshot> lastWritten = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong suppressedWrites = new AtomicLong();
 
     public ControllerChain(Kubernetes kubernetes,
                            AddressSpaceApi addressSpaceApi,
                            SchemaProvider schemaProvider,
                            EventLogger eventLogger,
                            Duration recheckInterval,
-                           Duration resyncInterval) {
+                           Duration resyncInterval,
+                           int reconcileWorkers,
+                           Duration reconcileDeadline) {
         this.kubernetes = kubernetes;
         this.addressSpaceApi = addressSpaceApi;
         this.schemaProvider = schemaProvider;
         this.eventLogger = eventLogger;
         this.recheckInterval = recheckInterval;
         this.resyncInterval = resyncInterval;
+        this.reconcileDeadline = reconcileDeadline;
+        AtomicInteger workerId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(reconcileWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "controller-worker-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public void addController(Controller controller) {
@@ -91,6 +124,7 @@ public class ControllerChain extends AbstractVerticle implements Watcher<Address
                 if (watch != null) {
                     watch.close();
                 }
+                executor.shutdownNow();
                 promise.complete();
             } catch (Exception e) {
                 promise.fail(e);
@@ -113,22 +147,85 @@ public class ControllerChain extends AbstractVerticle implements Watcher<Address
             return;
         }
 
+        inProgress.values().removeIf(CompletableFuture::isDone);
+
+        List<CompletableFuture<?>> pass = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
         for (AddressSpace addressSpace : resources) {
+            String key = addressSpace.getNamespace() + ":" + addressSpace.getName();
+            keys.add(key);
+            if (inProgress.containsKey(key)) {
+                log.info("Address space {} is still being reconciled, skipping", key);
+                continue;
+            }
+            CompletableFuture<?> result = CompletableFuture.runAsync(() -> reconcile(key, addressSpace), executor);
+            inProgress.put(key, result);
+            pass.add(result);
+        }
+        lastWritten.keySet().retainAll(keys);
+
+        long deadline = System.nanoTime() + reconcileDeadline.toNanos();
+        int unfinished = 0;
+        for (CompletableFuture<?> result : pass) {
             try {
-                for (Controller controller : chain) {
-                    log.debug("Controller {} input: {}", controller.getClass().getName(), addressSpace);
-                    addressSpace = controller.handle(addressSpace);
-                }
+                result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                unfinished++;
+            } catch (ExecutionException e) {
+                log.warn("Error reconciling address space", e.getCause());
+            }
+        }
+        if (unfinished > 0) {
+            log.warn("{} of {} address spaces not reconciled within {}, continuing in background", unfinished, pass.size(), reconcileDeadline);
+        }
+        log.info("Address space writes: {}, unchanged writes suppressed: {}", writes.get(), suppressedWrites.get());
+        retainAddressSpaces(resources);
+    }
 
-                log.debug("Controller chain output: {}", addressSpace);
+    private void reconcile(String key, AddressSpace addressSpace) {
+        try {
+            // The controllers modify the address space in place
+            AddressSpaceSnapshot stored = AddressSpaceSnapshot.of(addressSpace);
+            for (Controller controller : chain) {
+                log.debug("Controller {} input: {}", controller.getClass().getName(), addressSpace);
+                addressSpace = controller.handle(addressSpace);
+            }
 
-                addressSpaceApi.replaceAddressSpace(addressSpace);
-            } catch (KubernetesClientException e) {
-                log.warn("Error syncing address space {}", addressSpace.getName(), e);
-                eventLogger.log(AddressSpaceSyncFailed, "Error syncing address space: " + e.getMessage(), Warning, ControllerKind.AddressSpace, addressSpace.getName());
+            log.debug("Controller chain output: {}", addressSpace);
+
+            AddressSpaceSnapshot snapshot = AddressSpaceSnapshot.of(addressSpace);
+            // The stored address space may have been replaced by someone else since it was last written
+            if (snapshot.equals(lastWritten.get(key)) && snapshot.equals(stored)) {
+                log.debug("Address space {} unchanged, not writing", key);
+                suppressedWrites.incrementAndGet();
+                return;
+            }
+
+            lastWritten.remove(key);
+            writes.incrementAndGet();
+            if (addressSpaceApi.replaceAddressSpace(addressSpace)) {
+                lastWritten.put(key, snapshot);
             }
+        } catch (KubernetesClientException e) {
+            log.warn("Error syncing address space {}", addressSpace.getName(), e);
+            eventLogger.log(AddressSpaceSyncFailed, "Error syncing address space: " + e.getMessage(), Warning, ControllerKind.AddressSpace, addressSpace.getName());
+        } catch (Exception e) {
+            log.warn("Error reconciling address space {}", addressSpace.getName(), e);
         }
-        retainAddressSpaces(resources);
+    }
+
+    /**
+     * @return the number of address spaces written back
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * @return the number of writes skipped because the address space was unchanged since it was last written
+     */
+    public long getSuppressedWrites() {
+        return suppressedWrites.get();
     }
 
     private void retainAddressSpaces(Set<AddressSpace> desiredAddressSpaces) {
@@ -28,10 +28,16 @@ public final class ControllerOptions {
 
     private final Duration resyncInterval;
     private final Duration recheckInterval;
+    private final int reconcileWorkers;
+    private final Duration reconcileDeadline;
+
+    private final String certManager;
+    private final String certKeyAlgorithm;
+    private final int certKeyPoolSize;
 
     private final String impersonateUser;
 
-    private ControllerOptions(File templateDir, NoneAuthServiceInfo noneAuthService, StandardAuthServiceInfo standardAuthService, boolean enableRbac, boolean enableEventLogger, boolean exposeEndpointsByDefault, String environment, String addressControllerSa, String addressSpaceAdminSa, String wildcardCertSecret, Duration resyncInterval, Duration recheckInterval, String impersonateUser) {
+    private ControllerOptions(File templateDir, NoneAuthServiceInfo noneAuthService, StandardAuthServiceInfo standardAuthService, boolean enableRbac, boolean enableEventLogger, boolean exposeEndpointsByDefault, String environment, String addressControllerSa, String addressSpaceAdminSa, String wildcardCertSecret, Duration resyncInterval, Duration recheckInterval, int reconcileWorkers, Duration reconcileDeadline, String certManager, String certKeyAlgorithm, int certKeyPoolSize, String impersonateUser) {
         this.templateDir = templateDir;
         this.noneAuthService = noneAuthService;
         this.standardAuthService = standardAuthService;
@@ -44,6 +50,11 @@ public final class ControllerOptions {
         this.wildcardCertSecret = wildcardCertSecret;
         this.resyncInterval = resyncInterval;
         this.recheckInterval = recheckInterval;
+        this.reconcileWorkers = reconcileWorkers;
+        this.reconcileDeadline = reconcileDeadline;
+        this.certManager = certManager;
+        this.certKeyAlgorithm = certKeyAlgorithm;
+        this.certKeyPoolSize = certKeyPoolSize;
         this.impersonateUser = impersonateUser;
     }
 
@@ -91,6 +102,26 @@ public final class ControllerOptions {
         return recheckInterval;
     }
 
+    public int getReconcileWorkers() {
+        return reconcileWorkers;
+    }
+
+    public Duration getReconcileDeadline() {
+        return reconcileDeadline;
+    }
+
+    public String getCertManager() {
+        return certManager;
+    }
+
+    public String getCertKeyAlgorithm() {
+        return certKeyAlgorithm;
+    }
+
+    public int getCertKeyPoolSize() {
+        return certKeyPoolSize;
+    }
+
     public String getImpersonateUser() {
         return impersonateUser;
     }
@@ -129,6 +160,25 @@ public final class ControllerOptions {
                 .map(i -> Duration.ofSeconds(Long.parseLong(i)))
                 .orElse(Duration.ofSeconds(30));
 
+        int reconcileWorkers = getEnv(env, "RECONCILE_WORKERS")
+                .map(Integer::parseInt)
+                .orElse(4);
+
+        Duration reconcileDeadline = getEnv(env, "RECONCILE_DEADLINE")
+                .map(i -> Duration.ofSeconds(Long.parseLong(i)))
+                .orElse(Duration.ofSeconds(60));
+
+        String certManager = getEnv(env, "CERT_MANAGER").orElse("openssl");
+        if (!"bouncycastle".equals(certManager) && !"openssl".equals(certManager)) {
+            throw new IllegalArgumentException("Unknown certificate manager '" + certManager + "', must be bouncycastle or openssl");
+        }
+
+        String certKeyAlgorithm = getEnv(env, "CERT_KEY_ALGORITHM").orElse("RSA");
+
+        int certKeyPoolSize = getEnv(env, "CERT_KEY_POOL_SIZE")
+                .map(Integer::parseInt)
+                .orElse(4);
+
         String impersonateUser = getEnv(env, "IMPERSONATE_USER").orElse("");
         if (impersonateUser.isEmpty()) {
             impersonateUser = null;
@@ -147,6 +197,11 @@ public final class ControllerOptions {
                 wildcardCertSecret,
                 resyncInterval,
                 recheckInterval,
+                reconcileWorkers,
+                reconcileDeadline,
+                certManager,
+                certKeyAlgorithm,
+                certKeyPoolSize,
                 impersonateUser);
     }
 
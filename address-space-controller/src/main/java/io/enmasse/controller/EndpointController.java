@@ -8,10 +8,13 @@ import io.enmasse.address.model.AddressSpace;
 import io.enmasse.address.model.EndpointSpec;
 import io.enmasse.address.model.EndpointStatus;
 import io.enmasse.config.AnnotationKeys;
+import io.enmasse.config.LabelKeys;
+import io.enmasse.controller.common.ResourceInventory;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.ServiceBuilder;
 import io.fabric8.kubernetes.api.model.ServicePort;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.openshift.api.model.Route;
 import io.fabric8.openshift.api.model.RouteBuilder;
 import io.fabric8.openshift.client.OpenShiftClient;
@@ -26,16 +29,23 @@ import java.util.stream.Collectors;
 
 public class EndpointController implements Controller {
     private static final Logger log = LoggerFactory.getLogger(EndpointController.class.getName());
+    private static final int HTTP_CONFLICT = 409;
     private final KubernetesClient client;
+    private final ResourceInventory inventory;
     private final boolean exposeServicesByDefault;
 
-    public EndpointController(KubernetesClient client, boolean exposeServicesByDefault) {
+    public EndpointController(KubernetesClient client, ResourceInventory inventory, boolean exposeServicesByDefault) {
         this.client = client;
+        this.inventory = inventory;
         this.exposeServicesByDefault = exposeServicesByDefault;
     }
 
     @Override
     public AddressSpace handle(AddressSpace addressSpace) {
+        if (!inventory.hasSynced()) {
+            log.debug("Resource inventory not synced yet, keeping endpoints of {}", addressSpace.getName());
+            return addressSpace;
+        }
         updateEndpoints(addressSpace);
         return addressSpace;
     }
@@ -46,7 +56,7 @@ public class EndpointController implements Controller {
         annotations.put(AnnotationKeys.ADDRESS_SPACE, addressSpace.getName());
 
         String namespace = addressSpace.getAnnotation(AnnotationKeys.NAMESPACE);
-        List<Service> services = client.services().inNamespace(namespace).list().getItems();
+        List<Service> services = inventory.getServices(namespace);
         List<EndpointInfo> endpoints = collectEndpoints(addressSpace, services);
 
         /* Watch for routes and lb services */
@@ -144,7 +154,7 @@ public class EndpointController implements Controller {
     private Route ensureRouteExists(AddressSpace addressSpace, EndpointSpec endpointSpec) {
         OpenShiftClient openShiftClient = client.adapt(OpenShiftClient.class);
         String infraNamespace = addressSpace.getAnnotation(AnnotationKeys.NAMESPACE);
-        Route existingRoute = openShiftClient.routes().inNamespace(infraNamespace).withName(endpointSpec.getName()).get();
+        Route existingRoute = inventory.getRoute(infraNamespace, endpointSpec.getName());
         if (existingRoute != null) {
             return existingRoute;
         }
@@ -153,6 +163,7 @@ public class EndpointController implements Controller {
                 .editOrNewMetadata()
                 .withName(endpointSpec.getName())
                 .withNamespace(infraNamespace)
+                .addToLabels(LabelKeys.APP, "enmasse")
                 .addToAnnotations(AnnotationKeys.ADDRESS_SPACE, addressSpace.getName())
                 .addToAnnotations(AnnotationKeys.SERVICE_NAME, endpointSpec.getService())
                 .endMetadata()
@@ -177,19 +188,27 @@ public class EndpointController implements Controller {
                     .endSpec();
         }
 
-        return openShiftClient.routes().inNamespace(infraNamespace).create(route.build());
+        try {
+            return openShiftClient.routes().inNamespace(infraNamespace).create(route.build());
+        } catch (KubernetesClientException e) {
+            // Created in an earlier pass, but not yet seen by the inventory
+            if (e.getCode() == HTTP_CONFLICT) {
+                return openShiftClient.routes().inNamespace(infraNamespace).withName(endpointSpec.getName()).get();
+            }
+            throw e;
+        }
     }
 
     private Service ensureExternalServiceExists(AddressSpace addressSpace, EndpointSpec endpointSpec) {
         String infraNamespace = addressSpace.getAnnotation(AnnotationKeys.NAMESPACE);
         String serviceName = endpointSpec.getName() + "-external";
 
-        Service existingService = client.services().inNamespace(infraNamespace).withName(serviceName).get();
+        Service existingService = inventory.getService(infraNamespace, serviceName);
         if (existingService != null) {
             return existingService;
         }
 
-        Service service = client.services().inNamespace(infraNamespace).withName(endpointSpec.getService()).get();
+        Service service = inventory.getService(infraNamespace, endpointSpec.getService());
         if (service == null) {
             return null;
         }
@@ -210,6 +229,7 @@ public class EndpointController implements Controller {
                 .editOrNewMetadata()
                 .withName(serviceName)
                 .withNamespace(infraNamespace)
+                .addToLabels(LabelKeys.APP, "enmasse")
                 .addToAnnotations(AnnotationKeys.ADDRESS_SPACE, addressSpace.getName())
                 .addToAnnotations(AnnotationKeys.SERVICE_NAME, endpointSpec.getService())
                 .endMetadata()
@@ -219,7 +239,15 @@ public class EndpointController implements Controller {
                 .withType("LoadBalancer")
                 .endSpec();
 
-        return client.services().inNamespace(infraNamespace).create(svc.build());
+        try {
+            return client.services().inNamespace(infraNamespace).create(svc.build());
+        } catch (KubernetesClientException e) {
+            // Created in an earlier pass, but not yet seen by the inventory
+            if (e.getCode() == HTTP_CONFLICT) {
+                return client.services().inNamespace(infraNamespace).withName(serviceName).get();
+            }
+            throw e;
+        }
     }
 
     @Override
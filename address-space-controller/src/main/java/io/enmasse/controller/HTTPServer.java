@@ -4,6 +4,7 @@
  */
 package io.enmasse.controller;
 
+import io.enmasse.metrics.PrometheusTextBuilder;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
@@ -11,20 +12,36 @@ import io.vertx.core.http.HttpServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.Supplier;
+
 public class HTTPServer extends AbstractVerticle {
     private static final Logger log = LoggerFactory.getLogger(HTTPServer.class);
 
     private HttpServer server;
     private final int port;
+    private final Supplier<String> metrics;
 
-    public HTTPServer(int port) {
+    /**
+     * @param metrics metrics served on /metrics, in the Prometheus text exposition format
+     */
+    public HTTPServer(int port, Supplier<String> metrics) {
         this.port = port;
+        this.metrics = metrics;
     }
 
     @Override
     public void start(Future<Void> startPromise) {
         server = vertx.createHttpServer();
-        server.requestHandler(request -> request.response().setStatusCode(HttpResponseStatus.OK.code()).end());
+        server.requestHandler(request -> {
+            if ("/metrics".equals(request.path())) {
+                request.response()
+                        .putHeader("Content-Type", PrometheusTextBuilder.CONTENT_TYPE)
+                        .setStatusCode(HttpResponseStatus.OK.code())
+                        .end(metrics.get());
+            } else {
+                request.response().setStatusCode(HttpResponseStatus.OK.code()).end();
+            }
+        });
         server.listen(port, result -> {
             if (result.succeeded()) {
                 log.info("Started HTTP server listening on {}", port);
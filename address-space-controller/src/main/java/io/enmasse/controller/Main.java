@@ -42,28 +42,40 @@ public class Main extends AbstractVerticle {
         schemaApi.watchSchema(schemaProvider, options.getResyncInterval());
         Kubernetes kubernetes = new KubernetesHelper(controllerClient.getNamespace(), controllerClient, controllerClient.getConfiguration().getOauthToken(), options.getEnvironment(), options.getTemplateDir(), options.getAddressControllerSa(), options.getAddressSpaceAdminSa(), options.isEnableRbac(), options.getImpersonateUser());
 
-        AddressSpaceApi addressSpaceApi = new ConfigMapAddressSpaceApi(controllerClient);
+        ConfigMapAddressSpaceApi addressSpaceApi = new ConfigMapAddressSpaceApi(controllerClient);
         EventLogger eventLogger = options.isEnableEventLogger() ? new KubeEventLogger(controllerClient, controllerClient.getNamespace(), Clock.systemUTC(), "enmasse-controller")
                 : new LogEventLogger();
 
-        CertManager certManager = OpenSSLCertManager.create(controllerClient);
+        CertManager certManager = createCertManager(options);
         AuthenticationServiceResolverFactory resolverFactory = createResolverFactory(options);
         CertProviderFactory certProviderFactory = createCertProviderFactory(options, certManager);
         AuthController authController = new AuthController(certManager, eventLogger, certProviderFactory);
 
         InfraResourceFactory infraResourceFactory = new TemplateInfraResourceFactory(kubernetes, schemaProvider, resolverFactory);
 
-        ControllerChain controllerChain = new ControllerChain(kubernetes, addressSpaceApi, schemaProvider, eventLogger, options.getRecheckInterval(), options.getResyncInterval());
+        ResourceInventory inventory = ResourceInventory.create(controllerClient, options.getResyncInterval());
+        inventory.start();
+
+        ControllerChain controllerChain = new ControllerChain(kubernetes, addressSpaceApi, schemaProvider, eventLogger, options.getRecheckInterval(), options.getResyncInterval(), options.getReconcileWorkers(), options.getReconcileDeadline());
         controllerChain.addController(new CreateController(kubernetes, schemaProvider, infraResourceFactory, kubernetes.getNamespace(), eventLogger, authController.getDefaultCertProvider()));
-        controllerChain.addController(new StatusController(kubernetes, infraResourceFactory));
-        controllerChain.addController(new EndpointController(controllerClient, options.isExposeEndpointsByDefault()));
+        controllerChain.addController(new StatusController(inventory, infraResourceFactory));
+        controllerChain.addController(new EndpointController(controllerClient, inventory, options.isExposeEndpointsByDefault()));
         controllerChain.addController(authController);
 
-        HTTPServer httpServer = new HTTPServer(8080);
+        HTTPServer httpServer = new HTTPServer(8080, () -> addressSpaceApi.getWorkQueueMetrics().toPrometheusText("addressspaces"));
 
         deployVerticles(startPromise, new Deployment(controllerChain), new Deployment(httpServer));
     }
 
+    private CertManager createCertManager(ControllerOptions options) {
+        if ("openssl".equals(options.getCertManager())) {
+            return OpenSSLCertManager.create(controllerClient);
+        }
+        KeyPool keyPool = new KeyPool(options.getCertKeyAlgorithm(), options.getCertKeyPoolSize());
+        keyPool.start();
+        return new BouncyCastleCertManager(controllerClient, keyPool);
+    }
+
     private CertProviderFactory createCertProviderFactory(ControllerOptions options, CertManager certManager) {
         return new CertProviderFactory() {
             @Override
@@ -6,23 +6,31 @@ package io.enmasse.controller;
 
 import io.enmasse.address.model.AddressSpace;
 import io.enmasse.config.AnnotationKeys;
-import io.enmasse.controller.common.Kubernetes;
 import io.enmasse.controller.common.KubernetesHelper;
+import io.enmasse.controller.common.ResourceInventory;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class StatusController implements Controller {
-    private final Kubernetes kubernetes;
+    private static final Logger log = LoggerFactory.getLogger(StatusController.class.getName());
+    private final ResourceInventory inventory;
     private final InfraResourceFactory infraResourceFactory;
 
-    public StatusController(Kubernetes kubernetes, InfraResourceFactory infraResourceFactory) {
-        this.kubernetes = kubernetes;
+    public StatusController(ResourceInventory inventory, InfraResourceFactory infraResourceFactory) {
+        this.inventory = inventory;
         this.infraResourceFactory = infraResourceFactory;
     }
 
     @Override
     public AddressSpace handle(AddressSpace addressSpace) throws Exception {
+        if (!inventory.hasSynced()) {
+            log.debug("Resource inventory not synced yet, keeping status of {}", addressSpace.getName());
+            return addressSpace;
+        }
         boolean isReady = isReady(addressSpace);
         if (addressSpace.getStatus().isReady() != isReady) {
             addressSpace.getStatus().setReady(isReady);
@@ -31,7 +39,8 @@ public class StatusController implements Controller {
     }
 
     private boolean isReady(AddressSpace addressSpace) {
-        Set<String> readyDeployments = kubernetes.withNamespace(addressSpace.getAnnotation(AnnotationKeys.NAMESPACE)).getReadyDeployments().stream()
+        Set<String> readyDeployments = inventory.getDeployments(addressSpace.getAnnotation(AnnotationKeys.NAMESPACE)).stream()
+                .filter(StatusController::isReady)
                 .map(deployment -> deployment.getMetadata().getName())
                 .collect(Collectors.toSet());
 
@@ -43,6 +52,11 @@ public class StatusController implements Controller {
         return readyDeployments.containsAll(requiredDeployments);
     }
 
+    private static boolean isReady(Deployment deployment) {
+        Integer unavailableReplicas = deployment.getStatus().getUnavailableReplicas();
+        return unavailableReplicas == null || unavailableReplicas == 0;
+    }
+
     @Override
     public String toString() {
         return "EndpointController";
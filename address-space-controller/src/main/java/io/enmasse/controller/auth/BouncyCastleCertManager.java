@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.auth;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Certificate manager that generates keys, certificate signing requests and certificates in memory, without running
+ * openssl or writing temporary files. Keys are taken from a {@link KeyPool}.
+ */
+public class BouncyCastleCertManager extends CertManagerBase {
+    private final KeyPool keyPool;
+    private final CertGenerator generator;
+
+    public BouncyCastleCertManager(KubernetesClient client, KeyPool keyPool) {
+        this(client, keyPool, Clock.systemUTC());
+    }
+
+    BouncyCastleCertManager(KubernetesClient client, KeyPool keyPool, Clock clock) {
+        super(client);
+        this.keyPool = keyPool;
+        this.generator = new CertGenerator(clock);
+    }
+
+    @Override
+    public CertSigningRequest createCsr(CertComponent component) {
+        KeyPair keyPair = keyPool.take();
+        return new InMemoryCertSigningRequest(component, generator.createCsr(keyPair, component.getName()), keyPair.getPrivate());
+    }
+
+    @Override
+    public Cert signCsr(CertSigningRequest request, Secret secret, Collection<String> sans) {
+        if (!(request instanceof InMemoryCertSigningRequest)) {
+            throw new IllegalArgumentException("Certificate signing request for " + request.getCertComponent() + " was not created by this certificate manager");
+        }
+        InMemoryCertSigningRequest csr = (InMemoryCertSigningRequest) request;
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] cert = generator.signCsr(csr.csr,
+                CertGenerator.readPrivateKey(decoder.decode(secret.getData().get("tls.key"))),
+                CertGenerator.readCertificate(decoder.decode(secret.getData().get("tls.crt"))),
+                sans);
+        return new InMemoryCert(csr.getCertComponent(), CertGenerator.privateKeyToPem(csr.key), CertGenerator.certificateToPem(cert));
+    }
+
+    @Override
+    public Secret createSecret(Cert cert, Secret caSecret) {
+        if (!(cert instanceof InMemoryCert)) {
+            throw new IllegalArgumentException("Certificate for " + cert.getComponent() + " was not created by this certificate manager");
+        }
+        InMemoryCert inMemoryCert = (InMemoryCert) cert;
+        return createComponentSecret(cert.getComponent(), inMemoryCert.key, inMemoryCert.cert, caSecret);
+    }
+
+    @Override
+    public Secret createSelfSignedCertSecret(String namespace, String secretName) {
+        KeyPair keyPair = keyPool.take();
+        byte[] cert = generator.createSelfSigned(keyPair, secretName);
+        return createCertSecret(namespace, secretName, CertGenerator.privateKeyToPem(keyPair.getPrivate()), CertGenerator.certificateToPem(cert));
+    }
+
+    private static class InMemoryCertSigningRequest extends CertSigningRequest {
+        private final PKCS10CertificationRequest csr;
+        private final PrivateKey key;
+
+        private InMemoryCertSigningRequest(CertComponent component, PKCS10CertificationRequest csr, PrivateKey key) {
+            super(component, null, null);
+            this.csr = csr;
+            this.key = key;
+        }
+    }
+
+    private static class InMemoryCert extends Cert {
+        private final byte[] key;
+        private final byte[] cert;
+
+        private InMemoryCert(CertComponent component, byte[] key, byte[] cert) {
+            super(component, null, null);
+            this.key = key;
+            this.cert = cert;
+        }
+    }
+}
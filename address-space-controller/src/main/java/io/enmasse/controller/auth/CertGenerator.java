@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.auth;
+
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.PEMKeyPair;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Creates certificate signing requests and X.509 certificates in memory with the BouncyCastle PKIX builders. Keys are
+ * generated and signatures are created with the default JCA providers, the BouncyCastle provider is not needed.
+ *
+ * Certificates are issued with the same subject and validity as the ones created by {@link OpenSSLCertManager}.
+ */
+final class CertGenerator {
+    private static final Duration VALIDITY = Duration.ofDays(11000);
+    private static final String ORGANIZATION = "io.enmasse";
+
+    private final SecureRandom random = new SecureRandom();
+    private final Clock clock;
+
+    CertGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
+    PKCS10CertificationRequest createCsr(KeyPair keyPair, String cn) {
+        return new JcaPKCS10CertificationRequestBuilder(subject(cn), keyPair.getPublic())
+                .build(signer(keyPair.getPrivate()));
+    }
+
+    /**
+     * @return the DER encoded certificate for the request, signed by the CA
+     */
+    byte[] signCsr(PKCS10CertificationRequest csr, PrivateKey caKey, X509Certificate caCert, Collection<String> sans) {
+        X509v3CertificateBuilder builder = new X509v3CertificateBuilder(
+                X500Name.getInstance(caCert.getSubjectX500Principal().getEncoded()),
+                serialNumber(),
+                notBefore(),
+                notAfter(),
+                csr.getSubject(),
+                csr.getSubjectPublicKeyInfo());
+        return issue(builder, csr.getSubjectPublicKeyInfo(), caCert.getPublicKey(), caKey, false, sans);
+    }
+
+    /**
+     * @return the DER encoded self-signed CA certificate for the key pair
+     */
+    byte[] createSelfSigned(KeyPair keyPair, String cn) {
+        X500Name subject = subject(cn);
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(subject, serialNumber(), notBefore(), notAfter(), subject, keyPair.getPublic());
+        return issue(builder, SubjectPublicKeyInfo.getInstance(keyPair.getPublic().getEncoded()), keyPair.getPublic(), keyPair.getPrivate(), true, Collections.emptySet());
+    }
+
+    private byte[] issue(X509v3CertificateBuilder builder, SubjectPublicKeyInfo publicKey, PublicKey issuerPublicKey, PrivateKey signingKey, boolean ca, Collection<String> sans) {
+        try {
+            JcaX509ExtensionUtils extensionUtils = new JcaX509ExtensionUtils();
+            builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(ca));
+            if (ca) {
+                builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign));
+            }
+            builder.addExtension(Extension.subjectKeyIdentifier, false, extensionUtils.createSubjectKeyIdentifier(publicKey));
+            builder.addExtension(Extension.authorityKeyIdentifier, false, extensionUtils.createAuthorityKeyIdentifier(issuerPublicKey));
+            if (!sans.isEmpty()) {
+                GeneralName[] names = sans.stream()
+                        .map(san -> new GeneralName(GeneralName.dNSName, san))
+                        .toArray(GeneralName[]::new);
+                builder.addExtension(Extension.subjectAlternativeName, false, new GeneralNames(names));
+            }
+            return builder.build(signer(signingKey)).getEncoded();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BigInteger serialNumber() {
+        return new BigInteger(64, random).add(BigInteger.ONE);
+    }
+
+    private Date notBefore() {
+        return Date.from(clock.instant());
+    }
+
+    private Date notAfter() {
+        return Date.from(clock.instant().plus(VALIDITY));
+    }
+
+    private static X500Name subject(String cn) {
+        X500NameBuilder builder = new X500NameBuilder(BCStyle.INSTANCE);
+        builder.addRDN(BCStyle.O, ORGANIZATION);
+        // Longer common names are not allowed, the OpenSSLCertManager leaves them out as well
+        if (cn.length() <= 64) {
+            builder.addRDN(BCStyle.CN, cn);
+        }
+        return builder.build();
+    }
+
+    private ContentSigner signer(PrivateKey key) {
+        try {
+            return new JcaContentSignerBuilder(signatureName(key))
+                    .setSecureRandom(random)
+                    .build(key);
+        } catch (OperatorCreationException e) {
+            throw new IllegalStateException("Error signing with " + key.getAlgorithm() + " key", e);
+        }
+    }
+
+    private static String signatureName(PrivateKey key) {
+        switch (key.getAlgorithm()) {
+            case "RSA":
+                return "SHA256withRSA";
+            case "EC":
+                return "SHA256withECDSA";
+            default:
+                throw new IllegalArgumentException("Unsupported key algorithm " + key.getAlgorithm());
+        }
+    }
+
+    static byte[] toPem(String type, byte[] der) {
+        try {
+            StringWriter writer = new StringWriter();
+            try (PemWriter pemWriter = new PemWriter(writer)) {
+                pemWriter.writeObject(new PemObject(type, der));
+            }
+            return writer.toString().getBytes(StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] privateKeyToPem(PrivateKey key) {
+        return toPem("PRIVATE KEY", key.getEncoded());
+    }
+
+    static byte[] certificateToPem(byte[] der) {
+        return toPem("CERTIFICATE", der);
+    }
+
+    /**
+     * Reads a PEM encoded RSA or EC private key, either in PKCS#8 format or in the traditional format written by openssl.
+     */
+    static PrivateKey readPrivateKey(byte[] pem) {
+        try (PEMParser parser = new PEMParser(new InputStreamReader(new ByteArrayInputStream(pem), StandardCharsets.US_ASCII))) {
+            JcaPEMKeyConverter converter = new JcaPEMKeyConverter();
+            Object object;
+            while ((object = parser.readObject()) != null) {
+                if (object instanceof PEMKeyPair) {
+                    return converter.getPrivateKey(((PEMKeyPair) object).getPrivateKeyInfo());
+                } else if (object instanceof PrivateKeyInfo) {
+                    return converter.getPrivateKey((PrivateKeyInfo) object);
+                }
+            }
+            throw new IllegalArgumentException("No private key found");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error reading private key", e);
+        }
+    }
+
+    static X509Certificate readCertificate(byte[] pem) {
+        try {
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(pem));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Error reading certificate", e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.auth;
+
+import io.enmasse.config.AnnotationKeys;
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Kubernetes operations shared by the certificate managers: finding the components that need certificates and
+ * storing certificates in secrets.
+ */
+abstract class CertManagerBase implements CertManager {
+    protected final KubernetesClient client;
+
+    protected CertManagerBase(KubernetesClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Collection<CertComponent> listComponents(String namespace) {
+        List<HasMetadata> components = new ArrayList<>();
+
+        components.addAll(client.extensions().deployments().inNamespace(namespace).list().getItems());
+        components.addAll(client.apps().statefulSets().inNamespace(namespace).list().getItems());
+
+        return components.stream()
+                .filter(object -> object.getMetadata().getAnnotations() != null && object.getMetadata().getAnnotations().containsKey(AnnotationKeys.CERT_SECRET_NAME))
+                .map(object -> {
+                    Map<String, String> annotations = object.getMetadata().getAnnotations();
+                    String cn = annotations.getOrDefault(AnnotationKeys.CERT_CN, object.getMetadata().getName());
+                    return new CertComponent(cn, namespace, annotations.get(AnnotationKeys.CERT_SECRET_NAME));
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean certExists(CertComponent component) {
+        return client.secrets().inNamespace(component.getNamespace()).withName(component.getSecretName()).get() != null;
+    }
+
+    @Override
+    public Secret getCertSecret(String namespace, String name) {
+        return client.secrets().inNamespace(namespace).withName(name).get();
+    }
+
+    @Override
+    public void grantServiceAccountAccess(Secret secret, String saName, String saNamespace) {
+        ServiceAccount defaultAccount = client.serviceAccounts().inNamespace(saNamespace).withName(saName).get();
+        for (ObjectReference reference : defaultAccount.getSecrets()) {
+            if (reference.getName().equals(secret.getMetadata().getName())) {
+                return;
+            }
+        }
+
+        client.serviceAccounts().inNamespace(saNamespace).withName(saName).edit()
+                .addToSecrets(new ObjectReferenceBuilder()
+                        .withKind(secret.getKind())
+                        .withName(secret.getMetadata().getName())
+                        .withApiVersion(secret.getApiVersion())
+                        .build())
+                .done();
+    }
+
+    /**
+     * Create or replace a secret with a PEM encoded key and certificate.
+     */
+    protected Secret createCertSecret(String namespace, String secretName, byte[] key, byte[] cert) {
+        Map<String, String> data = new LinkedHashMap<>();
+        Base64.Encoder encoder = Base64.getEncoder();
+        data.put("tls.key", encoder.encodeToString(key));
+        data.put("tls.crt", encoder.encodeToString(cert));
+        return client.secrets().inNamespace(namespace).withName(secretName).createOrReplaceWithNew()
+                .editOrNewMetadata()
+                .withName(secretName)
+                .endMetadata()
+                .addToData(data)
+                .done();
+    }
+
+    /**
+     * Create the TLS secret of a component with a PEM encoded key and certificate and the certificate of its CA.
+     */
+    protected Secret createComponentSecret(CertComponent component, byte[] key, byte[] cert, Secret caSecret) {
+        Map<String, String> data = new LinkedHashMap<>();
+        Base64.Encoder encoder = Base64.getEncoder();
+        data.put("tls.key", encoder.encodeToString(key));
+        data.put("tls.crt", encoder.encodeToString(cert));
+        data.put("ca.crt", caSecret.getData().get("tls.crt"));
+
+        return client.secrets().inNamespace(component.getNamespace()).createNew()
+                .editOrNewMetadata()
+                .withName(component.getSecretName())
+                .endMetadata()
+                .withType("kubernetes.io/tls")
+                .addToData(data)
+                .done();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of key pairs that are generated in the background, so that issuing a certificate does not have to wait for
+ * key generation. When the pool is empty, keys are generated by the caller.
+ */
+public class KeyPool implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(KeyPool.class.getName());
+
+    private final String algorithm;
+    private final int size;
+    private final BlockingQueue<KeyPair> keys;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private Thread filler;
+
+    /**
+     * @param algorithm the key algorithm, RSA (2048 bits) or EC (P-256)
+     * @param size the number of keys to keep generated, 0 to generate all keys on demand
+     */
+    public KeyPool(String algorithm, int size) {
+        if (!"RSA".equals(algorithm) && !"EC".equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported key algorithm " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.size = size;
+        this.keys = new LinkedBlockingQueue<>(Math.max(1, size));
+    }
+
+    public synchronized void start() {
+        if (size <= 0 || filler != null) {
+            return;
+        }
+        filler = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    keys.put(generate());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Error generating keys, stopping key pool", e);
+            }
+        }, "key-pool");
+        filler.setDaemon(true);
+        filler.start();
+        log.info("Started pool of {} {} keys", size, algorithm);
+    }
+
+    /**
+     * @return a key pair from the pool, or a newly generated one if the pool is empty
+     */
+    public KeyPair take() {
+        KeyPair keyPair = keys.poll();
+        if (keyPair != null) {
+            hits.incrementAndGet();
+            return keyPair;
+        }
+        misses.incrementAndGet();
+        return generate();
+    }
+
+    KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+            if ("EC".equals(algorithm)) {
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                generator.initialize(2048);
+            }
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error generating " + algorithm + " key", e);
+        }
+    }
+
+    public int available() {
+        return keys.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (filler != null) {
+            filler.interrupt();
+            filler = null;
+        }
+    }
+}
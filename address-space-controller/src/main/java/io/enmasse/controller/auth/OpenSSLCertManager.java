@@ -9,7 +9,6 @@ import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import io.enmasse.config.AnnotationKeys;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.openshift.client.OpenShiftClient;
 import org.apache.commons.io.FileUtils;
@@ -19,14 +18,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Controller that creates self-signed certificates for instances.
  */
-public class OpenSSLCertManager implements CertManager {
+public class OpenSSLCertManager extends CertManagerBase {
     private static final Logger log = LoggerFactory.getLogger(OpenSSLCertManager.class.getName());
-    private final OpenShiftClient client;
     private final File certDir;
 
     public OpenSSLCertManager(OpenShiftClient controllerClient,
                               File certDir) {
-        this.client = controllerClient;
+        super(controllerClient);
         this.certDir = certDir;
     }
 
@@ -35,35 +33,6 @@ public class OpenSSLCertManager implements CertManager {
                 "-out", certFile.getAbsolutePath(), "-keyout", keyFile.getAbsolutePath());
     }
 
-    private static Secret createSecretFromCertAndKeyFiles(final String secretName,
-                                                        final String namespace,
-                                                        final File keyFile,
-                                                        final File certFile,
-                                                        final OpenShiftClient client)
-            throws IOException {
-        return createSecretFromCertAndKeyFiles(secretName, namespace, "tls.key", "tls.crt", keyFile, certFile, client);
-    }
-
-    private static Secret createSecretFromCertAndKeyFiles(final String secretName,
-                                                          final String namespace,
-                                                          final String keyKey,
-                                                          final String certKey,
-                                                          final File keyFile,
-                                                          final File certFile,
-                                                          final OpenShiftClient client)
-            throws IOException {
-        Map<String, String> data = new LinkedHashMap<>();
-        Base64.Encoder encoder = Base64.getEncoder();
-        data.put(keyKey, encoder.encodeToString(FileUtils.readFileToByteArray(keyFile)));
-        data.put(certKey, encoder.encodeToString(FileUtils.readFileToByteArray(certFile)));
-        return client.secrets().inNamespace(namespace).withName(secretName).createOrReplaceWithNew()
-                .editOrNewMetadata()
-                .withName(secretName)
-                .endMetadata()
-                .addToData(data)
-                .done();
-    }
-
     private static void runCommand(String... cmd) {
         ProcessBuilder keyGenBuilder = new ProcessBuilder(cmd).redirectErrorStream(true);
 
@@ -87,34 +56,6 @@ public class OpenSSLCertManager implements CertManager {
         }
     }
 
-    @Override
-    public Collection<CertComponent> listComponents(String namespace) {
-        List<HasMetadata> components = new ArrayList<>();
-
-        components.addAll(client.extensions().deployments().inNamespace(namespace).list().getItems());
-        components.addAll(client.apps().statefulSets().inNamespace(namespace).list().getItems());
-
-        return components.stream()
-                .filter(object -> object.getMetadata().getAnnotations() != null && object.getMetadata().getAnnotations().containsKey(AnnotationKeys.CERT_SECRET_NAME))
-                .map(object -> {
-                    Map<String, String> annotations = object.getMetadata().getAnnotations();
-                    String cn = annotations.getOrDefault(AnnotationKeys.CERT_CN, object.getMetadata().getName());
-                    return new CertComponent(cn, namespace, annotations.get(AnnotationKeys.CERT_SECRET_NAME));
-                })
-                .collect(Collectors.toList());
-    }
-
-    @Override
-    public boolean certExists(CertComponent component) {
-        return client.secrets().inNamespace(component.getNamespace()).withName(component.getSecretName()).get() != null;
-    }
-
-    @Override
-    public Secret getCertSecret(String namespace, String name) {
-        return client.secrets().inNamespace(namespace).withName(name).get();
-    }
-
-
     @Override
     public CertSigningRequest createCsr(CertComponent component) {
         File keyFile = new File(certDir, component.getNamespace() + "." + component.getName() + ".key");
@@ -184,19 +125,10 @@ public class OpenSSLCertManager implements CertManager {
     @Override
     public Secret createSecret(Cert cert, Secret caSecret) {
         try {
-            Map<String, String> data = new LinkedHashMap<>();
-            Base64.Encoder encoder = Base64.getEncoder();
-            data.put("tls.key", encoder.encodeToString(FileUtils.readFileToByteArray(cert.getKeyFile())));
-            data.put("tls.crt", encoder.encodeToString(FileUtils.readFileToByteArray(cert.getCertFile())));
-            data.put("ca.crt", caSecret.getData().get("tls.crt"));
-
-            return client.secrets().inNamespace(cert.getComponent().getNamespace()).createNew()
-                    .editOrNewMetadata()
-                    .withName(cert.getComponent().getSecretName())
-                    .endMetadata()
-                    .withType("kubernetes.io/tls")
-                    .addToData(data)
-                    .done();
+            return createComponentSecret(cert.getComponent(),
+                    FileUtils.readFileToByteArray(cert.getKeyFile()),
+                    FileUtils.readFileToByteArray(cert.getCertFile()),
+                    caSecret);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -209,7 +141,7 @@ public class OpenSSLCertManager implements CertManager {
             File cert = File.createTempFile("tls", "crt");
             try {
                 createSelfSignedCert(key, cert);
-                return createSecretFromCertAndKeyFiles(secretName, namespace, key, cert, this.client);
+                return createCertSecret(namespace, secretName, FileUtils.readFileToByteArray(key), FileUtils.readFileToByteArray(cert));
             } finally {
                 key.delete();
                 cert.delete();
@@ -219,24 +151,6 @@ public class OpenSSLCertManager implements CertManager {
         }
     }
 
-    @Override
-    public void grantServiceAccountAccess(Secret secret, String saName, String saNamespace) {
-        ServiceAccount defaultAccount = client.serviceAccounts().inNamespace(saNamespace).withName(saName).get();
-        for (ObjectReference reference : defaultAccount.getSecrets()) {
-            if (reference.getName().equals(secret.getMetadata().getName())) {
-                return;
-            }
-        }
-
-        client.serviceAccounts().inNamespace(saNamespace).withName(saName).edit()
-                .addToSecrets(new ObjectReferenceBuilder()
-                        .withKind(secret.getKind())
-                        .withName(secret.getMetadata().getName())
-                        .withApiVersion(secret.getApiVersion())
-                        .build())
-                .done();
-    }
-
     public static OpenSSLCertManager create(OpenShiftClient controllerClient) {
         return new OpenSSLCertManager(controllerClient, new File("/tmp"));
     }
@@ -7,7 +7,6 @@ package io.enmasse.controller.common;
 import io.enmasse.address.model.AddressSpace;
 import io.enmasse.address.model.EndpointSpec;
 import io.fabric8.kubernetes.api.model.*;
-import io.fabric8.kubernetes.api.model.extensions.Deployment;
 import io.fabric8.openshift.client.ParameterValue;
 
 import java.util.*;
@@ -32,7 +31,6 @@ public interface Kubernetes {
 
     boolean hasService(String service);
 
-    Set<Deployment> getReadyDeployments();
 
     Optional<Secret> getSecret(String secretName);
 
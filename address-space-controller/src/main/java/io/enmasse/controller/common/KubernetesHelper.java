@@ -10,7 +10,6 @@ import io.enmasse.address.model.EndpointSpec;
 import io.enmasse.config.AnnotationKeys;
 import io.enmasse.config.LabelKeys;
 import io.fabric8.kubernetes.api.model.*;
-import io.fabric8.kubernetes.api.model.extensions.Deployment;
 import io.fabric8.kubernetes.client.utils.ImpersonatorInterceptor;
 import io.fabric8.openshift.api.model.*;
 import io.fabric8.openshift.client.NamespacedOpenShiftClient;
@@ -33,7 +32,7 @@ import java.util.stream.Collectors;
  */
 public class KubernetesHelper implements Kubernetes {
     private static final Logger log = LoggerFactory.getLogger(KubernetesHelper.class.getName());
-    private static final String TEMPLATE_SUFFIX = ".yaml";
+    private static final int TEMPLATE_CACHE_SIZE = 256;
 
     private final NamespacedOpenShiftClient client;
     private final String namespace;
@@ -44,8 +43,13 @@ public class KubernetesHelper implements Kubernetes {
     private final String addressSpaceAdminSa;
     private final boolean enableRbac;
     private final String impersonateUser;
+    private final TemplateRenderer templateRenderer;
 
     public KubernetesHelper(String namespace, NamespacedOpenShiftClient client, String token, String environment, File templateDir, String addressControllerSa, String addressSpaceAdminSa, boolean enableRbac, String impersonateUser) {
+        this(namespace, client, token, environment, templateDir, addressControllerSa, addressSpaceAdminSa, enableRbac, impersonateUser, new TemplateRenderer(templateDir, TEMPLATE_CACHE_SIZE));
+    }
+
+    private KubernetesHelper(String namespace, NamespacedOpenShiftClient client, String token, String environment, File templateDir, String addressControllerSa, String addressSpaceAdminSa, boolean enableRbac, String impersonateUser, TemplateRenderer templateRenderer) {
         this.client = client;
         this.namespace = namespace;
         this.controllerToken = token;
@@ -55,6 +59,7 @@ public class KubernetesHelper implements Kubernetes {
         this.addressSpaceAdminSa = addressSpaceAdminSa;
         this.enableRbac = enableRbac;
         this.impersonateUser = impersonateUser;
+        this.templateRenderer = templateRenderer;
     }
 
     @Override
@@ -114,13 +119,12 @@ public class KubernetesHelper implements Kubernetes {
 
     @Override
     public Kubernetes withNamespace(String namespace) {
-        return new KubernetesHelper(namespace, client, controllerToken, environment, templateDir, addressControllerSa, addressSpaceAdminSa, enableRbac, impersonateUser);
+        return new KubernetesHelper(namespace, client, controllerToken, environment, templateDir, addressControllerSa, addressSpaceAdminSa, enableRbac, impersonateUser, templateRenderer);
     }
 
     @Override
     public KubernetesList processTemplate(String templateName, ParameterValue... parameterValues) {
-        File templateFile = new File(templateDir, templateName + TEMPLATE_SUFFIX);
-        return client.templates().load(templateFile).processLocally(parameterValues);
+        return templateRenderer.render(templateName, parameterValues);
     }
 
     @Override
@@ -181,12 +185,6 @@ public class KubernetesHelper implements Kubernetes {
         return client.services().inNamespace(namespace).withName(service).get() != null;
     }
 
-    public Set<Deployment> getReadyDeployments() {
-        return client.extensions().deployments().inNamespace(namespace).list().getItems().stream()
-                .filter(KubernetesHelper::isReady)
-                .collect(Collectors.toSet());
-    }
-
     public static boolean isDeployment(HasMetadata res) {
         return res.getKind().equals("Deployment");  // TODO: is there an existing constant for this somewhere?
     }
@@ -351,11 +349,6 @@ public class KubernetesHelper implements Kubernetes {
         return doRawHttpRequest(apiPath + "/clusterroles/" + roleName, "GET", null, true, null) != null;
     }
 
-    private static boolean isReady(Deployment deployment) {
-        Integer unavailableReplicas = deployment.getStatus().getUnavailableReplicas();
-        return unavailableReplicas == null || unavailableReplicas == 0;
-    }
-
     private static class Subject {
         private final String kind;
         private final String name;
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import io.enmasse.config.LabelKeys;
+import io.enmasse.k8s.api.cache.*;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceList;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentList;
+import io.fabric8.kubernetes.client.RequestConfig;
+import io.fabric8.kubernetes.client.RequestConfigBuilder;
+import io.fabric8.openshift.api.model.Route;
+import io.fabric8.openshift.api.model.RouteList;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.fabric8.openshift.client.OpenShiftClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local copy of the deployments, services and routes of the address spaces, shared by the controllers. It is kept
+ * up to date by watching the resources labeled app=enmasse in all namespaces, so that the controllers can look them
+ * up on every pass without listing them from the API server.
+ */
+public class ResourceInventory {
+    private static final String APP = "enmasse";
+
+    private final ResourceIndex<Deployment> deployments;
+    private final ResourceIndex<Service> services;
+    private final ResourceIndex<Route> routes;
+    private final List<Controller> controllers = new ArrayList<>();
+
+    /**
+     * @param routeListerWatcher lister watcher for routes, or null if routes are not supported
+     */
+    public ResourceInventory(ListerWatcher<Deployment, DeploymentList> deploymentListerWatcher,
+                             ListerWatcher<Service, ServiceList> serviceListerWatcher,
+                             ListerWatcher<Route, RouteList> routeListerWatcher,
+                             Duration resyncInterval) {
+        this.deployments = createIndex(Deployment.class, deploymentListerWatcher, resyncInterval);
+        this.services = createIndex(Service.class, serviceListerWatcher, resyncInterval);
+        this.routes = routeListerWatcher != null ? createIndex(Route.class, routeListerWatcher, resyncInterval) : null;
+    }
+
+    public static ResourceInventory create(NamespacedOpenShiftClient client, Duration resyncInterval) {
+        return new ResourceInventory(new DeploymentListerWatcher(client),
+                new ServiceListerWatcher(client),
+                client.isAdaptable(OpenShiftClient.class) ? new RouteListerWatcher(client) : null,
+                resyncInterval);
+    }
+
+    private <T extends HasMetadata, LT extends KubernetesResourceList> ResourceIndex<T> createIndex(Class<T> type, ListerWatcher<T, LT> listerWatcher, Duration resyncInterval) {
+        WorkQueue<T> queue = new FifoQueue<>(resource -> resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName());
+        ResourceIndex<T> index = new ResourceIndex<>(queue);
+
+        Reflector.Config<T, LT> config = new Reflector.Config<>();
+        config.setClock(Clock.systemUTC());
+        config.setExpectedType(type);
+        config.setListerWatcher(listerWatcher);
+        config.setResyncInterval(resyncInterval);
+        config.setWorkQueue(queue);
+        config.setProcessor(index);
+        controllers.add(new Controller(new Reflector<>(config)));
+        return index;
+    }
+
+    public void start() {
+        for (Controller controller : controllers) {
+            controller.start();
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        for (Controller controller : controllers) {
+            controller.stop();
+        }
+    }
+
+    /**
+     * @return true once the initial list of every resource type has been received
+     */
+    public boolean hasSynced() {
+        return deployments.hasSynced() && services.hasSynced() && (routes == null || routes.hasSynced());
+    }
+
+    public List<Deployment> getDeployments(String namespace) {
+        return deployments.list(namespace);
+    }
+
+    public List<Service> getServices(String namespace) {
+        return services.list(namespace);
+    }
+
+    public Service getService(String namespace, String name) {
+        return services.get(namespace, name);
+    }
+
+    public Route getRoute(String namespace, String name) {
+        return routes != null ? routes.get(namespace, name) : null;
+    }
+
+    private static RequestConfig requestConfig(ListOptions listOptions) {
+        return new RequestConfigBuilder()
+                .withRequestTimeout(listOptions.getTimeoutSeconds())
+                .build();
+    }
+
+    private static class DeploymentListerWatcher implements ListerWatcher<Deployment, DeploymentList> {
+        private final NamespacedOpenShiftClient client;
+
+        private DeploymentListerWatcher(NamespacedOpenShiftClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public DeploymentList list(ListOptions listOptions) {
+            return client.extensions().deployments()
+                    .inAnyNamespace()
+                    .withLabel(LabelKeys.APP, APP)
+                    .list();
+        }
+
+        @Override
+        public io.fabric8.kubernetes.client.Watch watch(io.fabric8.kubernetes.client.Watcher<Deployment> watcher, ListOptions listOptions) {
+            return client.withRequestConfig(requestConfig(listOptions)).call(c ->
+                    c.extensions().deployments()
+                            .inAnyNamespace()
+                            .withLabel(LabelKeys.APP, APP)
+                            .withResourceVersion(listOptions.getResourceVersion())
+                            .watch(watcher));
+        }
+    }
+
+    private static class ServiceListerWatcher implements ListerWatcher<Service, ServiceList> {
+        private final NamespacedOpenShiftClient client;
+
+        private ServiceListerWatcher(NamespacedOpenShiftClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public ServiceList list(ListOptions listOptions) {
+            return client.services()
+                    .inAnyNamespace()
+                    .withLabel(LabelKeys.APP, APP)
+                    .list();
+        }
+
+        @Override
+        public io.fabric8.kubernetes.client.Watch watch(io.fabric8.kubernetes.client.Watcher<Service> watcher, ListOptions listOptions) {
+            return client.withRequestConfig(requestConfig(listOptions)).call(c ->
+                    c.services()
+                            .inAnyNamespace()
+                            .withLabel(LabelKeys.APP, APP)
+                            .withResourceVersion(listOptions.getResourceVersion())
+                            .watch(watcher));
+        }
+    }
+
+    private static class RouteListerWatcher implements ListerWatcher<Route, RouteList> {
+        private final NamespacedOpenShiftClient client;
+
+        private RouteListerWatcher(NamespacedOpenShiftClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public RouteList list(ListOptions listOptions) {
+            return client.routes()
+                    .inAnyNamespace()
+                    .withLabel(LabelKeys.APP, APP)
+                    .list();
+        }
+
+        @Override
+        public io.fabric8.kubernetes.client.Watch watch(io.fabric8.kubernetes.client.Watcher<Route> watcher, ListOptions listOptions) {
+            return client.withRequestConfig(requestConfig(listOptions)).call(c ->
+                    c.routes()
+                            .inAnyNamespace()
+                            .withLabel(LabelKeys.APP, APP)
+                            .withResourceVersion(listOptions.getResourceVersion())
+                            .watch(watcher));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.openshift.api.model.Parameter;
+import io.fabric8.openshift.api.model.Template;
+import io.fabric8.openshift.client.ParameterValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders OpenShift templates from the template directory in process, substituting parameters the same way as
+ * processLocally of the OpenShift client.
+ *
+ * Parsed templates are kept until the template file changes, and rendered lists are cached by template name,
+ * template version and a hash of the parameters, so rendering an unchanged address space again does not parse,
+ * substitute or deserialize anything. The returned lists are shared between callers and must not be modified.
+ */
+public class TemplateRenderer {
+    private static final Logger log = LoggerFactory.getLogger(TemplateRenderer.class.getName());
+    private static final String TEMPLATE_SUFFIX = ".yaml";
+
+    private final File templateDir;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, ParsedTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<String, KubernetesList> rendered;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param templateDir the directory containing the templates as &lt;name&gt;.yaml
+     * @param cacheSize the maximum number of rendered lists to keep
+     */
+    public TemplateRenderer(File templateDir, int cacheSize) {
+        this.templateDir = templateDir;
+        this.rendered = Collections.synchronizedMap(new LinkedHashMap<String, KubernetesList>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, KubernetesList> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public KubernetesList render(String templateName, ParameterValue... parameterValues) {
+        ParsedTemplate template = getTemplate(templateName);
+
+        Map<String, String> values = new TreeMap<>();
+        for (ParameterValue parameterValue : parameterValues) {
+            values.put(parameterValue.getName(), parameterValue.getValue());
+        }
+
+        String key = templateName + "@" + template.version + "#" + hash(values);
+        KubernetesList list = rendered.get(key);
+        if (list != null) {
+            hits.incrementAndGet();
+            return list;
+        }
+
+        misses.incrementAndGet();
+        list = template.render(values);
+        rendered.put(key, list);
+        return list;
+    }
+
+    private ParsedTemplate getTemplate(String templateName) {
+        File templateFile = new File(templateDir, templateName + TEMPLATE_SUFFIX);
+        String version = templateFile.lastModified() + "-" + templateFile.length();
+        return templates.compute(templateName, (name, existing) -> {
+            if (existing != null && existing.version.equals(version)) {
+                return existing;
+            }
+            log.debug("Loading template {} version {}", name, version);
+            return parse(templateFile, version);
+        });
+    }
+
+    private ParsedTemplate parse(File templateFile, String version) {
+        try (InputStream is = new FileInputStream(templateFile)) {
+            Template template = Serialization.unmarshal(is, Template.class);
+            KubernetesList objects = new KubernetesListBuilder()
+                    .withItems(template.getObjects() != null ? template.getObjects() : Collections.emptyList())
+                    .build();
+            List<Parameter> parameters = template.getParameters() != null ? template.getParameters() : Collections.emptyList();
+            return new ParsedTemplate(version, mapper.writeValueAsString(objects), parameters);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading template " + templateFile, e);
+        }
+    }
+
+    private static String hash(Map<String, String> values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                if (entry.getValue() != null) {
+                    digest.update(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private class ParsedTemplate {
+        private final String version;
+        private final String objectsJson;
+        private final List<Parameter> parameters;
+
+        private ParsedTemplate(String version, String objectsJson, List<Parameter> parameters) {
+            this.version = version;
+            this.objectsJson = objectsJson;
+            this.parameters = parameters;
+        }
+
+        private KubernetesList render(Map<String, String> values) {
+            String json = objectsJson;
+            for (Parameter parameter : parameters) {
+                String name = parameter.getName();
+                String value;
+                if (values.containsKey(name)) {
+                    value = values.get(name);
+                } else if (parameter.getValue() != null && !parameter.getValue().isEmpty()) {
+                    value = parameter.getValue();
+                } else if (Boolean.TRUE.equals(parameter.getRequired())) {
+                    throw new KubernetesClientException("Required parameter: " + name + " has no value");
+                } else {
+                    value = "";
+                }
+                json = json.replace("${" + name + "}", escape(value));
+            }
+            try {
+                return mapper.readValue(json, KubernetesList.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error rendering template", e);
+            }
+        }
+
+        private String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            try {
+                String quoted = mapper.writeValueAsString(value);
+                return quoted.substring(1, quoted.length() - 1);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -6,7 +6,9 @@ package io.enmasse.controller;
 
 import io.enmasse.address.model.AddressSpace;
 import io.enmasse.address.model.AddressSpaceStatus;
+import io.enmasse.address.model.EndpointStatus;
 import io.enmasse.address.model.Status;
+import io.enmasse.config.AnnotationKeys;
 import io.enmasse.controller.common.Kubernetes;
 import io.enmasse.k8s.api.EventLogger;
 import io.enmasse.k8s.api.TestAddressSpaceApi;
@@ -20,7 +22,18 @@ import org.junit.runner.RunWith;
 import org.mockito.internal.util.collections.Sets;
 
 import java.time.Duration;
-
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -49,7 +62,7 @@ public class ControllerChainTest {
     @Test
     public void testController(TestContext context) throws Exception {
         EventLogger testLogger = mock(EventLogger.class);
-        ControllerChain controllerChain = new ControllerChain(kubernetes, testApi, new TestSchemaProvider(), testLogger, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        ControllerChain controllerChain = new ControllerChain(kubernetes, testApi, new TestSchemaProvider(), testLogger, Duration.ofSeconds(5), Duration.ofSeconds(5), 2, Duration.ofSeconds(5));
         Controller mockController = mock(Controller.class);
         controllerChain.addController(mockController);
 
@@ -79,5 +92,128 @@ public class ControllerChainTest {
         verify(mockController).handle(eq(a2));
     }
 
-}
+    @Test
+    public void testSlowAddressSpaceDoesNotBlockOthers(TestContext context) throws Exception {
+        EventLogger testLogger = mock(EventLogger.class);
+        ControllerChain controllerChain = new ControllerChain(kubernetes, testApi, new TestSchemaProvider(), testLogger, Duration.ofSeconds(5), Duration.ofSeconds(5), 2, Duration.ofMillis(500));
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, AtomicInteger> handled = new ConcurrentHashMap<>();
+        controllerChain.addController(addressSpace -> {
+            handled.computeIfAbsent(addressSpace.getName(), k -> new AtomicInteger()).incrementAndGet();
+            if (addressSpace.getName().equals("slow")) {
+                release.await();
+            }
+            return addressSpace;
+        });
+
+        vertx.deployVerticle(controllerChain, context.asyncAssertSuccess());
+
+        AddressSpace slow = createAddressSpace("slow");
+        AddressSpace fast1 = createAddressSpace("fast1");
+        AddressSpace fast2 = createAddressSpace("fast2");
+        AddressSpace fast3 = createAddressSpace("fast3");
+
+        long start = System.nanoTime();
+        controllerChain.onUpdate(Sets.newSet(slow, fast1, fast2, fast3));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertThat(handled.get("fast1").get(), is(1));
+        assertThat(handled.get("fast2").get(), is(1));
+        assertThat(handled.get("fast3").get(), is(1));
+        assertThat(handled.get("slow").get(), is(1));
+
+        // The slow address space is still being reconciled, so it is not handled again
+        controllerChain.onUpdate(Sets.newSet(slow, fast1, fast2, fast3));
+        assertThat(handled.get("fast1").get(), is(2));
+        assertThat(handled.get("fast2").get(), is(2));
+        assertThat(handled.get("fast3").get(), is(2));
+        assertThat(handled.get("slow").get(), is(1));
+
+        release.countDown();
+    }
+
+    @Test
+    public void testUnchangedAddressSpacesNotWritten(TestContext context) throws Exception {
+        CountingAddressSpaceApi countingApi = new CountingAddressSpaceApi();
+        ControllerChain controllerChain = new ControllerChain(kubernetes, countingApi, new TestSchemaProvider(), mock(EventLogger.class), Duration.ofSeconds(5), Duration.ofSeconds(5), 2, Duration.ofSeconds(5));
+        AtomicInteger pass = new AtomicInteger();
+        controllerChain.addController(addressSpace -> {
+            // Modifies the status in place, like the status and endpoint controllers do
+            addressSpace.getStatus().setReady(true);
+            List<EndpointStatus> endpointStatuses = Arrays.asList(
+                    new EndpointStatus("messaging", "messaging.svc", null, 0, Collections.singletonMap("amqps", 5671)),
+                    new EndpointStatus("console", "console.svc", null, 0, Collections.singletonMap("https", 8081)));
+            if (pass.get() == 0) {
+                Collections.reverse(endpointStatuses);
+            }
+            addressSpace.getStatus().setEndpointStatuses(endpointStatuses);
+            if (pass.get() >= 3 && addressSpace.getName().equals("space1")) {
+                addressSpace.getStatus().setReady(false);
+            }
+            return addressSpace;
+        });
+
+        vertx.deployVerticle(controllerChain, context.asyncAssertSuccess());
+
+        AddressSpace space1 = createAddressSpace("space1");
+        AddressSpace space2 = createAddressSpace("space2");
+        countingApi.createAddressSpace(space1);
+        countingApi.createAddressSpace(space2);
+
+        for (; pass.get() < 3; pass.incrementAndGet()) {
+            controllerChain.onUpdate(Sets.newSet(space1, space2));
+        }
+        assertThat(countingApi.replaced.get(), is(2));
+        assertThat(controllerChain.getWrites(), is(2L));
+        assertThat(controllerChain.getSuppressedWrites(), is(4L));
+
+        controllerChain.onUpdate(Sets.newSet(space1, space2));
+        assertThat(countingApi.replaced.get(), is(3));
+        assertThat(controllerChain.getSuppressedWrites(), is(5L));
+    }
+
+    @Test
+    public void testExternallyReplacedAddressSpaceWritten(TestContext context) throws Exception {
+        CountingAddressSpaceApi countingApi = new CountingAddressSpaceApi();
+        ControllerChain controllerChain = new ControllerChain(kubernetes, countingApi, new TestSchemaProvider(), mock(EventLogger.class), Duration.ofSeconds(5), Duration.ofSeconds(5), 2, Duration.ofSeconds(5));
+        controllerChain.addController(addressSpace -> {
+            addressSpace.getStatus().setReady(true);
+            return addressSpace;
+        });
 
+        vertx.deployVerticle(controllerChain, context.asyncAssertSuccess());
+
+        AddressSpace space1 = createAddressSpace("space1");
+        countingApi.createAddressSpace(space1);
+
+        controllerChain.onUpdate(Sets.newSet(space1));
+        controllerChain.onUpdate(Sets.newSet(space1));
+        assertThat(countingApi.replaced.get(), is(1));
+
+        // Replaced from outside with a stale status, the chain computes the same output as before
+        AddressSpace replaced = createAddressSpace("space1");
+        countingApi.replaceAddressSpace(replaced);
+        controllerChain.onUpdate(Sets.newSet(replaced));
+        assertThat(countingApi.replaced.get(), is(3));
+        assertTrue(countingApi.getAddressSpaceWithName(replaced.getNamespace(), "space1").get().getStatus().isReady());
+    }
+
+    private static class CountingAddressSpaceApi extends TestAddressSpaceApi {
+        private final AtomicInteger replaced = new AtomicInteger();
+
+        @Override
+        public boolean replaceAddressSpace(AddressSpace addressSpace) {
+            replaced.incrementAndGet();
+            return super.replaceAddressSpace(addressSpace);
+        }
+    }
+
+    private static AddressSpace createAddressSpace(String name) {
+        return new AddressSpace.Builder()
+                .setName(name)
+                .setType("type1")
+                .setPlan("myplan")
+                .putAnnotation(AnnotationKeys.NAMESPACE, "ns-" + name)
+                .setStatus(new AddressSpaceStatus(false))
+                .build();
+    }
+}
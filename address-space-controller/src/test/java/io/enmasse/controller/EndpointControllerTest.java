@@ -7,12 +7,17 @@ package io.enmasse.controller;
 import io.enmasse.address.model.AddressSpace;
 import io.enmasse.address.model.EndpointSpec;
 import io.enmasse.config.AnnotationKeys;
+import io.enmasse.controller.common.ResourceInventory;
+import io.enmasse.controller.common.TestListerWatcher;
+import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.time.Duration;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 
@@ -29,7 +34,7 @@ public class EndpointControllerTest {
     }
 
     @Test
-    public void testRoutesNotCreated() {
+    public void testRoutesNotCreated() throws Exception {
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
                 .setNamespace("mynamespace")
@@ -44,9 +49,10 @@ public class EndpointControllerTest {
                 .build();
 
 
-        client.services().inNamespace("myns").createNew()
+        Service service = client.services().inNamespace("myns").createNew()
                 .editOrNewMetadata()
                 .withName("messaging")
+                .withNamespace("myns")
                 .addToAnnotations(AnnotationKeys.SERVICE_PORT_PREFIX + "amqps", "5671")
                 .endMetadata()
                 .editOrNewSpec()
@@ -59,9 +65,12 @@ public class EndpointControllerTest {
                 .endSpec()
                 .done();
 
-        EndpointController controller = new EndpointController(client, false);
+        ResourceInventory inventory = new ResourceInventory(TestListerWatcher.deployments(), TestListerWatcher.services(service), null, Duration.ofHours(1));
+        TestListerWatcher.startAndSync(inventory);
+        EndpointController controller = new EndpointController(client, inventory, false);
 
         AddressSpace newspace = controller.handle(addressSpace);
+        inventory.stop();
 
         assertThat(newspace.getStatus().getEndpointStatuses().size(), is(1));
         assertThat(newspace.getStatus().getEndpointStatuses().get(0).getName(), is("myendpoint"));
@@ -72,7 +81,7 @@ public class EndpointControllerTest {
     }
 
     @Test
-    public void testExternalCreated() {
+    public void testExternalCreated() throws Exception {
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
                 .setNamespace("mynamespace")
@@ -87,9 +96,10 @@ public class EndpointControllerTest {
                 .build();
 
 
-        client.services().inNamespace("myns").createNew()
+        Service service = client.services().inNamespace("myns").createNew()
                 .editOrNewMetadata()
                 .withName("messaging")
+                .withNamespace("myns")
                 .addToAnnotations(AnnotationKeys.SERVICE_PORT_PREFIX + "amqps", "5671")
                 .endMetadata()
                 .editOrNewSpec()
@@ -102,9 +112,12 @@ public class EndpointControllerTest {
                 .endSpec()
                 .done();
 
-        EndpointController controller = new EndpointController(client, true);
+        ResourceInventory inventory = new ResourceInventory(TestListerWatcher.deployments(), TestListerWatcher.services(service), null, Duration.ofHours(1));
+        TestListerWatcher.startAndSync(inventory);
+        EndpointController controller = new EndpointController(client, inventory, true);
 
         AddressSpace newspace = controller.handle(addressSpace);
+        inventory.stop();
 
         assertThat(newspace.getStatus().getEndpointStatuses().size(), is(1));
         assertThat(newspace.getStatus().getEndpointStatuses().get(0).getName(), is("myendpoint"));
@@ -7,11 +7,13 @@ package io.enmasse.controller;
 
 import io.enmasse.address.model.AddressSpace;
 import io.enmasse.config.AnnotationKeys;
-import io.enmasse.controller.common.Kubernetes;
+import io.enmasse.controller.common.ResourceInventory;
+import io.enmasse.controller.common.TestListerWatcher;
 import io.fabric8.kubernetes.api.model.extensions.Deployment;
 import io.fabric8.kubernetes.api.model.extensions.DeploymentBuilder;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.Collections;
 
 import static org.junit.Assert.assertFalse;
@@ -25,21 +27,20 @@ public class StatusControllerTest {
     @Test
     public void testStatusControllerSetsReady() throws Exception {
         InfraResourceFactory infraResourceFactory = mock(InfraResourceFactory.class);
-        Kubernetes kubernetes = mock(Kubernetes.class);
-        when(kubernetes.withNamespace(eq("enmasse-mynamespace-myspace"))).thenReturn(kubernetes);
-
         Deployment deployment = new DeploymentBuilder()
                 .withNewMetadata()
                 .withName("mydepl1")
+                .withNamespace("enmasse-mynamespace-myspace")
                 .endMetadata()
                 .withNewStatus()
                 .withAvailableReplicas(1)
                 .endStatus()
                 .build();
 
-        when(kubernetes.getReadyDeployments()).thenReturn(Collections.singleton(deployment));
+        ResourceInventory inventory = new ResourceInventory(TestListerWatcher.deployments(deployment), TestListerWatcher.services(), null, Duration.ofHours(1));
+        TestListerWatcher.startAndSync(inventory);
 
-        StatusController controller = new StatusController(kubernetes,  infraResourceFactory);
+        StatusController controller = new StatusController(inventory, infraResourceFactory);
 
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
@@ -53,17 +54,16 @@ public class StatusControllerTest {
         assertFalse(addressSpace.getStatus().isReady());
         controller.handle(addressSpace);
         assertTrue(addressSpace.getStatus().isReady());
+        inventory.stop();
     }
 
     @Test
     public void testStatusControllerSetsNotReady() throws Exception {
         InfraResourceFactory infraResourceFactory = mock(InfraResourceFactory.class);
-        Kubernetes kubernetes = mock(Kubernetes.class);
-        when(kubernetes.withNamespace(eq("enmasse-mynamespace-myspace"))).thenReturn(kubernetes);
-
         Deployment deployment = new DeploymentBuilder()
                 .withNewMetadata()
                 .withName("mydepl1")
+                .withNamespace("enmasse-mynamespace-myspace")
                 .endMetadata()
                 .withNewStatus()
                 .withUnavailableReplicas(1)
@@ -71,9 +71,10 @@ public class StatusControllerTest {
                 .endStatus()
                 .build();
 
-        when(kubernetes.getReadyDeployments()).thenReturn(Collections.emptySet());
+        ResourceInventory inventory = new ResourceInventory(TestListerWatcher.deployments(deployment), TestListerWatcher.services(), null, Duration.ofHours(1));
+        TestListerWatcher.startAndSync(inventory);
 
-        StatusController controller = new StatusController(kubernetes,  infraResourceFactory);
+        StatusController controller = new StatusController(inventory, infraResourceFactory);
 
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
@@ -87,5 +88,6 @@ public class StatusControllerTest {
         assertFalse(addressSpace.getStatus().isReady());
         controller.handle(addressSpace);
         assertFalse(addressSpace.getStatus().isReady());
+        inventory.stop();
     }
 }
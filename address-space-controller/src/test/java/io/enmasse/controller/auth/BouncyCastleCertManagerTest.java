@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.auth;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class BouncyCastleCertManagerTest {
+    @Rule
+    public KubernetesServer server = new KubernetesServer(true, true);
+
+    private KubernetesClient client;
+
+    @Before
+    public void setup() {
+        client = server.getClient();
+    }
+
+    @Test
+    public void testSelfSignedCa() throws Exception {
+        CertManager certManager = new BouncyCastleCertManager(client, new KeyPool("RSA", 0));
+        certManager.createSelfSignedCertSecret("ns", "address-space-ca");
+
+        Secret secret = client.secrets().inNamespace("ns").withName("address-space-ca").get();
+        X509Certificate ca = readCert(secret, "tls.crt");
+        ca.verify(ca.getPublicKey());
+        assertTrue(ca.getBasicConstraints() >= 0);
+        assertThat(ca.getSubjectX500Principal().getName(), is("CN=address-space-ca,O=io.enmasse"));
+        assertKeyMatches(readKey(secret), ca);
+    }
+
+    @Test
+    public void testSignedCertChainAndSans() throws Exception {
+        CertManager certManager = new BouncyCastleCertManager(client, new KeyPool("RSA", 0));
+        Secret caSecret = certManager.createSelfSignedCertSecret("ns", "address-space-ca");
+
+        CertComponent component = new CertComponent("messaging", "ns", "messaging-cert");
+        Cert cert = certManager.signCsr(certManager.createCsr(component), caSecret, Arrays.asList("messaging.example.com", "messaging-ns.apps.example.com"));
+        certManager.createSecret(cert, caSecret);
+
+        Secret secret = client.secrets().inNamespace("ns").withName("messaging-cert").get();
+        assertThat(secret.getType(), is("kubernetes.io/tls"));
+        assertThat(secret.getData().get("ca.crt"), is(caSecret.getData().get("tls.crt")));
+
+        X509Certificate ca = readCert(caSecret, "tls.crt");
+        X509Certificate leaf = readCert(secret, "tls.crt");
+        leaf.verify(ca.getPublicKey());
+        assertThat(leaf.getIssuerX500Principal(), is(ca.getSubjectX500Principal()));
+        assertThat(leaf.getSubjectX500Principal().getName(), is("CN=messaging,O=io.enmasse"));
+        assertThat(leaf.getBasicConstraints(), is(-1));
+        assertThat(dnsNames(leaf), is(new HashSet<>(Arrays.asList("messaging.example.com", "messaging-ns.apps.example.com"))));
+        assertKeyMatches(readKey(secret), leaf);
+    }
+
+    @Test
+    public void testComponentCertWithoutSans() throws Exception {
+        CertManager certManager = new BouncyCastleCertManager(client, new KeyPool("EC", 0));
+        Secret caSecret = certManager.createSelfSignedCertSecret("ns", "address-space-ca");
+
+        String longName = String.join("", Collections.nCopies(10, "component"));
+        Cert cert = certManager.signCsr(certManager.createCsr(new CertComponent(longName, "ns", "component-cert")), caSecret, Collections.emptySet());
+        certManager.createSecret(cert, caSecret);
+
+        Secret secret = client.secrets().inNamespace("ns").withName("component-cert").get();
+        X509Certificate leaf = readCert(secret, "tls.crt");
+        leaf.verify(readCert(caSecret, "tls.crt").getPublicKey());
+        assertNull(leaf.getSubjectAlternativeNames());
+        // Common names longer than 64 characters are left out
+        assertThat(leaf.getSubjectX500Principal().getName(), is("O=io.enmasse"));
+        assertKeyMatches(readKey(secret), leaf);
+    }
+
+    @Test
+    public void testCaWithTraditionalKeyFormat() throws Exception {
+        CertGenerator generator = new CertGenerator(Clock.systemUTC());
+        KeyPair caKeyPair = new KeyPool("RSA", 0).generate();
+        byte[] pkcs1 = PrivateKeyInfo.getInstance(caKeyPair.getPrivate().getEncoded()).parsePrivateKey().toASN1Primitive().getEncoded();
+        Secret caSecret = new SecretBuilder()
+                .editOrNewMetadata()
+                .withName("address-space-ca")
+                .endMetadata()
+                .addToData("tls.key", Base64.getEncoder().encodeToString(CertGenerator.toPem("RSA PRIVATE KEY", pkcs1)))
+                .addToData("tls.crt", Base64.getEncoder().encodeToString(CertGenerator.certificateToPem(generator.createSelfSigned(caKeyPair, "address-space-ca"))))
+                .build();
+
+        CertManager certManager = new BouncyCastleCertManager(client, new KeyPool("RSA", 0));
+        Cert cert = certManager.signCsr(certManager.createCsr(new CertComponent("broker", "ns", "broker-cert")), caSecret, Collections.singleton("broker.ns.svc"));
+        Secret secret = certManager.createSecret(cert, caSecret);
+
+        readCert(secret, "tls.crt").verify(caKeyPair.getPublic());
+    }
+
+    @Test
+    public void testKeyPool() throws Exception {
+        KeyPool keyPool = new KeyPool("EC", 2);
+        keyPool.start();
+        try {
+            long deadline = System.currentTimeMillis() + 30000;
+            while (keyPool.available() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(keyPool.available(), is(2));
+
+            KeyPair first = keyPool.take();
+            KeyPair second = keyPool.take();
+            assertThat(first.getPublic().equals(second.getPublic()), is(false));
+            assertThat(keyPool.getHits(), is(2L));
+        } finally {
+            keyPool.close();
+        }
+
+        KeyPool onDemand = new KeyPool("RSA", 0);
+        onDemand.start();
+        onDemand.take();
+        assertThat(onDemand.getMisses(), is(1L));
+        assertThat(onDemand.available(), is(0));
+    }
+
+    private static X509Certificate readCert(Secret secret, String entry) {
+        return CertGenerator.readCertificate(Base64.getDecoder().decode(secret.getData().get(entry)));
+    }
+
+    private static PrivateKey readKey(Secret secret) {
+        return CertGenerator.readPrivateKey(Base64.getDecoder().decode(secret.getData().get("tls.key")));
+    }
+
+    private static Set<String> dnsNames(X509Certificate cert) throws Exception {
+        Set<String> names = new HashSet<>();
+        Collection<List<?>> sans = cert.getSubjectAlternativeNames();
+        for (List<?> san : sans) {
+            if (Integer.valueOf(2).equals(san.get(0))) {
+                names.add((String) san.get(1));
+            }
+        }
+        return names;
+    }
+
+    private static void assertKeyMatches(PrivateKey key, X509Certificate cert) throws Exception {
+        String algorithm = "RSA".equals(key.getAlgorithm()) ? "SHA256withRSA" : "SHA256withECDSA";
+        byte[] data = "enmasse".getBytes();
+        Signature signer = Signature.getInstance(algorithm);
+        signer.initSign(key);
+        signer.update(data);
+        Signature verifier = Signature.getInstance(algorithm);
+        verifier.initVerify(cert.getPublicKey());
+        verifier.update(data);
+        assertTrue(verifier.verify(signer.sign()));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.auth;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the number of component certificates per second issued by running openssl with issuing them in memory,
+ * with and without a pool of pre-generated keys. The pool takes key generation off the calling thread, so it only
+ * increases throughput when there are spare cores to fill it.
+ *
+ * The openssl variant requires the openssl binary and bash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CertManagerBenchmark {
+
+    @Param({"openssl", "bouncycastle-rsa", "bouncycastle-rsa-pooled", "bouncycastle-ec"})
+    private String manager;
+
+    private CertManager certManager;
+    private KeyPool keyPool;
+    private File certDir;
+    private Secret caSecret;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        KeyPair ca = new KeyPool("RSA", 0).generate();
+        Base64.Encoder encoder = Base64.getEncoder();
+        caSecret = new SecretBuilder()
+                .editOrNewMetadata()
+                .withName("address-space-ca")
+                .endMetadata()
+                .addToData("tls.key", encoder.encodeToString(CertGenerator.privateKeyToPem(ca.getPrivate())))
+                .addToData("tls.crt", encoder.encodeToString(CertGenerator.certificateToPem(new CertGenerator(Clock.systemUTC()).createSelfSigned(ca, "address-space-ca"))))
+                .build();
+
+        switch (manager) {
+            case "openssl":
+                certDir = Files.createTempDirectory("certs").toFile();
+                certManager = new OpenSSLCertManager(null, certDir);
+                break;
+            case "bouncycastle-rsa":
+                keyPool = new KeyPool("RSA", 0);
+                break;
+            case "bouncycastle-rsa-pooled":
+                keyPool = new KeyPool("RSA", 16);
+                break;
+            case "bouncycastle-ec":
+                keyPool = new KeyPool("EC", 0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown manager " + manager);
+        }
+        if (keyPool != null) {
+            keyPool.start();
+            certManager = new BouncyCastleCertManager(null, keyPool);
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        if (keyPool != null) {
+            keyPool.close();
+        }
+        if (certDir != null) {
+            FileUtils.deleteDirectory(certDir);
+        }
+    }
+
+    @Benchmark
+    public Cert issueCert() {
+        int id = next++;
+        CertComponent component = new CertComponent("component" + id, "ns", "component" + id + "-cert");
+        return certManager.signCsr(certManager.createCsr(component), caSecret, Collections.singleton("component" + id + ".ns.svc"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CertManagerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
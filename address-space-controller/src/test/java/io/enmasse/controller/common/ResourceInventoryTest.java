@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.address.model.EndpointSpec;
+import io.enmasse.config.AnnotationKeys;
+import io.enmasse.controller.EndpointController;
+import io.enmasse.controller.InfraResourceFactory;
+import io.enmasse.controller.StatusController;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.ServiceList;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResourceInventoryTest {
+    private TestListerWatcher<Deployment, DeploymentList> deployments;
+    private TestListerWatcher<Service, ServiceList> services;
+    private ResourceInventory inventory;
+
+    @Before
+    public void setup() throws Exception {
+        deployments = TestListerWatcher.deployments(deployment("myns", "admin"), deployment("otherns", "admin"));
+        services = TestListerWatcher.services(service("myns", "messaging"), service("otherns", "messaging"));
+        inventory = new ResourceInventory(deployments, services, null, Duration.ofHours(1));
+        TestListerWatcher.startAndSync(inventory);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        inventory.stop();
+    }
+
+    @Test
+    public void testIndexedByNamespace() {
+        assertThat(inventory.getDeployments("myns").size(), is(1));
+        assertThat(inventory.getServices("otherns").size(), is(1));
+        assertThat(inventory.getService("myns", "messaging").getMetadata().getNamespace(), is("myns"));
+        assertThat(inventory.getDeployments("unknown").size(), is(0));
+        assertNull(inventory.getRoute("myns", "messaging"));
+    }
+
+    @Test
+    public void testNoListCallsInSteadyState() throws Exception {
+        Deployment broker = deployment("myns", "broker");
+        InfraResourceFactory infraResourceFactory = mock(InfraResourceFactory.class);
+        List<HasMetadata> required = Arrays.asList(deployment("myns", "admin"), broker);
+        when(infraResourceFactory.createResourceList(any())).thenReturn(required);
+
+        StatusController statusController = new StatusController(inventory, infraResourceFactory);
+        EndpointController endpointController = new EndpointController(null, inventory, false);
+        AddressSpace addressSpace = new AddressSpace.Builder()
+                .setName("myspace")
+                .setNamespace("mynamespace")
+                .putAnnotation(AnnotationKeys.NAMESPACE, "myns")
+                .appendEndpoint(new EndpointSpec.Builder()
+                        .setName("messaging")
+                        .setService("messaging")
+                        .setServicePort("amqps")
+                        .build())
+                .setType("type1")
+                .setPlan("myplan")
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            endpointController.handle(statusController.handle(addressSpace));
+        }
+        assertFalse(addressSpace.getStatus().isReady());
+        assertThat(addressSpace.getStatus().getEndpointStatuses().size(), is(1));
+        assertThat(addressSpace.getStatus().getEndpointStatuses().get(0).getServiceHost(), is("messaging.myns.svc"));
+
+        // Changes arrive through the watch
+        deployments.add(broker);
+        long deadline = System.currentTimeMillis() + 30000;
+        while (inventory.getDeployments("myns").size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            endpointController.handle(statusController.handle(addressSpace));
+        }
+        assertTrue(addressSpace.getStatus().isReady());
+
+        assertThat(deployments.getListCalls(), is(1));
+        assertThat(services.getListCalls(), is(1));
+        assertThat(deployments.getWatchCalls(), is(1));
+        assertThat(services.getWatchCalls(), is(1));
+    }
+
+    static Deployment deployment(String namespace, String name) {
+        return new DeploymentBuilder()
+                .editOrNewMetadata()
+                .withNamespace(namespace)
+                .withName(name)
+                .withResourceVersion("1")
+                .addToLabels("app", "enmasse")
+                .endMetadata()
+                .withNewStatus()
+                .withAvailableReplicas(1)
+                .endStatus()
+                .build();
+    }
+
+    static Service service(String namespace, String name) {
+        return new ServiceBuilder()
+                .editOrNewMetadata()
+                .withNamespace(namespace)
+                .withName(name)
+                .withResourceVersion("1")
+                .addToLabels("app", "enmasse")
+                .addToAnnotations(AnnotationKeys.SERVICE_PORT_PREFIX + "amqps", "5671")
+                .endMetadata()
+                .editOrNewSpec()
+                .addNewPort()
+                .withName("amqps")
+                .withPort(5671)
+                .endPort()
+                .endSpec()
+                .build();
+    }
+}
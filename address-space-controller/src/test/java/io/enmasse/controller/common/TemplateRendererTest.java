@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.openshift.api.model.Parameter;
+import io.fabric8.openshift.api.model.Template;
+import io.fabric8.openshift.client.DefaultOpenShiftClient;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.fabric8.openshift.client.OpenShiftConfig;
+import io.fabric8.openshift.client.ParameterValue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class TemplateRendererTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(true, true);
+
+    private File templateDir;
+
+    @Before
+    public void setup() throws Exception {
+        templateDir = folder.newFolder("templates");
+    }
+
+    @Test
+    public void testBundledTemplatesMatchProcessLocally() throws Exception {
+        ConfigMap definitions;
+        try (InputStream is = new FileInputStream("../templates/include/address-space-definitions.yaml")) {
+            definitions = Serialization.unmarshal(is, ConfigMap.class);
+        }
+        assertFalse(definitions.getData().isEmpty());
+
+        ObjectMapper mapper = new ObjectMapper();
+        TemplateRenderer renderer = new TemplateRenderer(templateDir, 10);
+        // Templates are loaded and processed locally, without asking the server for the OpenShift API groups
+        OpenShiftConfig config = new OpenShiftConfig(server.getClient().getConfiguration());
+        config.setDisableApiGroupCheck(true);
+        try (OpenShiftClient client = new DefaultOpenShiftClient(config)) {
+            for (Map.Entry<String, String> entry : definitions.getData().entrySet()) {
+                File templateFile = new File(templateDir, entry.getKey());
+                Files.write(templateFile.toPath(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+                String templateName = entry.getKey().replace(".yaml", "");
+
+                ParameterValue[] parameterValues = parameterValues(templateFile);
+                KubernetesList expected = client.templates().load(templateFile).processLocally(parameterValues);
+                KubernetesList actual = renderer.render(templateName, parameterValues);
+
+                assertFalse(actual.getItems().isEmpty());
+                JsonNode expectedTree = mapper.valueToTree(expected);
+                JsonNode actualTree = mapper.valueToTree(actual);
+                assertThat(templateName, actualTree, is(expectedTree));
+            }
+        }
+    }
+
+    @Test
+    public void testRenderedListIsCached() throws Exception {
+        writeTemplate("test", "value1");
+        TemplateRenderer renderer = new TemplateRenderer(templateDir, 10);
+
+        KubernetesList first = renderer.render("test", new ParameterValue("NAME", "myname"));
+        KubernetesList second = renderer.render("test", new ParameterValue("NAME", "myname"));
+        KubernetesList other = renderer.render("test", new ParameterValue("NAME", "othername"));
+
+        assertThat(second, sameInstance(first));
+        assertThat(other, not(sameInstance(first)));
+        assertThat(first.getItems().get(0).getMetadata().getName(), is("myname"));
+        assertThat(other.getItems().get(0).getMetadata().getName(), is("othername"));
+        assertThat(renderer.getHits(), is(1L));
+        assertThat(renderer.getMisses(), is(2L));
+    }
+
+    @Test
+    public void testTemplateChangeInvalidatesCache() throws Exception {
+        File templateFile = writeTemplate("test", "value1");
+        TemplateRenderer renderer = new TemplateRenderer(templateDir, 10);
+
+        KubernetesList first = renderer.render("test", new ParameterValue("NAME", "myname"));
+        writeTemplate("test", "value22");
+        templateFile.setLastModified(templateFile.lastModified() + 1000);
+        KubernetesList second = renderer.render("test", new ParameterValue("NAME", "myname"));
+
+        assertThat(((ConfigMap) first.getItems().get(0)).getData().get("key"), is("value1"));
+        assertThat(((ConfigMap) second.getItems().get(0)).getData().get("key"), is("value22"));
+        assertThat(renderer.getMisses(), is(2L));
+    }
+
+    @Test
+    public void testDefaultsAndEscaping() throws Exception {
+        writeTemplate("test", "${VALUE}");
+        TemplateRenderer renderer = new TemplateRenderer(templateDir, 10);
+
+        KubernetesList list = renderer.render("test", new ParameterValue("NAME", "myname"));
+        assertThat(((ConfigMap) list.getItems().get(0)).getData().get("key"), is("default"));
+
+        list = renderer.render("test", new ParameterValue("NAME", "myname"), new ParameterValue("VALUE", "a \"quoted\" value"));
+        assertThat(((ConfigMap) list.getItems().get(0)).getData().get("key"), is("a \"quoted\" value"));
+    }
+
+    private File writeTemplate(String name, String value) throws Exception {
+        File templateFile = new File(templateDir, name + ".yaml");
+        String template = "apiVersion: v1\n" +
+                "kind: Template\n" +
+                "metadata:\n" +
+                "  name: " + name + "\n" +
+                "objects:\n" +
+                "- apiVersion: v1\n" +
+                "  kind: ConfigMap\n" +
+                "  metadata:\n" +
+                "    name: ${NAME}\n" +
+                "  data:\n" +
+                "    key: \"" + value + "\"\n" +
+                "parameters:\n" +
+                "- name: NAME\n" +
+                "  required: true\n" +
+                "- name: VALUE\n" +
+                "  value: default\n";
+        Files.write(templateFile.toPath(), template.getBytes(StandardCharsets.UTF_8));
+        return templateFile;
+    }
+
+    private static ParameterValue[] parameterValues(File templateFile) throws Exception {
+        Template template;
+        try (InputStream is = new FileInputStream(templateFile)) {
+            template = Serialization.unmarshal(is, Template.class);
+        }
+        List<ParameterValue> values = new ArrayList<>();
+        for (Parameter parameter : template.getParameters()) {
+            if (parameter.getValue() == null || parameter.getValue().isEmpty()) {
+                values.add(new ParameterValue(parameter.getName(), parameter.getName().toLowerCase().replace('_', '-')));
+            }
+        }
+        return values.toArray(new ParameterValue[0]);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import io.enmasse.k8s.api.cache.ListOptions;
+import io.enmasse.k8s.api.cache.ListerWatcher;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceList;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentList;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentListBuilder;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Lister watcher serving resources from memory, counting the list and watch calls made on it.
+ */
+public class TestListerWatcher<T extends HasMetadata, LT extends KubernetesResourceList> implements ListerWatcher<T, LT> {
+    private final Function<List<T>, LT> listFactory;
+    private final List<T> items = new ArrayList<>();
+    private final AtomicInteger listCalls = new AtomicInteger();
+    private final AtomicInteger watchCalls = new AtomicInteger();
+    private volatile Watcher<T> watcher;
+
+    /**
+     * @param listFactory creates the list returned by list, with a resource version set
+     */
+    public TestListerWatcher(Function<List<T>, LT> listFactory) {
+        this.listFactory = listFactory;
+    }
+
+    public static TestListerWatcher<Deployment, DeploymentList> deployments(Deployment ... deployments) {
+        TestListerWatcher<Deployment, DeploymentList> listerWatcher = new TestListerWatcher<>(items -> new DeploymentListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("1")
+                .endMetadata()
+                .withItems(items)
+                .build());
+        listerWatcher.items.addAll(Arrays.asList(deployments));
+        return listerWatcher;
+    }
+
+    public static TestListerWatcher<Service, ServiceList> services(Service ... services) {
+        TestListerWatcher<Service, ServiceList> listerWatcher = new TestListerWatcher<>(items -> new ServiceListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("1")
+                .endMetadata()
+                .withItems(items)
+                .build());
+        listerWatcher.items.addAll(Arrays.asList(services));
+        return listerWatcher;
+    }
+
+    /**
+     * Start the inventory and wait until it has received the initial lists.
+     */
+    public static void startAndSync(ResourceInventory inventory) throws InterruptedException {
+        inventory.start();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!inventory.hasSynced() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        if (!inventory.hasSynced()) {
+            throw new IllegalStateException("Inventory not synced");
+        }
+    }
+
+    @Override
+    public synchronized LT list(ListOptions listOptions) {
+        listCalls.incrementAndGet();
+        return listFactory.apply(new ArrayList<>(items));
+    }
+
+    @Override
+    public Watch watch(Watcher<T> watcher, ListOptions listOptions) {
+        watchCalls.incrementAndGet();
+        this.watcher = watcher;
+        return () -> this.watcher = null;
+    }
+
+    /**
+     * Add a resource, notifying the current watch if any.
+     */
+    public synchronized void add(T item) {
+        items.add(item);
+        Watcher<T> current = watcher;
+        if (current != null) {
+            current.eventReceived(Watcher.Action.ADDED, item);
+        }
+    }
+
+    public int getListCalls() {
+        return listCalls.get();
+    }
+
+    public int getWatchCalls() {
+        return watchCalls.get();
+    }
+}
@@ -5,8 +5,10 @@
 
 package io.enmasse.amqp;
 
+import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
+import io.vertx.proton.ProtonConnection;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
 import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 import org.apache.qpid.proton.message.Message;
@@ -14,8 +16,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Represents an Artemis broker that may be managed
@@ -24,6 +32,7 @@ public class Artemis implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(Artemis.class.getName());
     private final String brokerContainerId;
     private long requestTimeoutMillis = 10_000;
+    private int maxBulkRequests = 100;
     private final SyncRequestClient syncRequestClient;
 
     public Artemis(SyncRequestClient syncRequestClient) {
@@ -31,6 +40,21 @@ public class Artemis implements AutoCloseable {
         this.brokerContainerId = syncRequestClient.getRemoteContainer();
     }
 
+    /**
+     * Manage the broker over a connection it opened to us.
+     */
+    public static CompletableFuture<Artemis> createFromConnection(Vertx vertx, ProtonConnection connection) {
+        ProtonRequestClient client = new ProtonRequestClient(vertx);
+        CompletableFuture<Void> connected = new CompletableFuture<>();
+        client.connect(connection, "activemq.management", connected);
+        return connected.thenApply(v -> new Artemis(client));
+    }
+
+    public Artemis setRequestTimeout(long timeout, TimeUnit timeUnit) {
+        this.requestTimeoutMillis = timeUnit.toMillis(timeout);
+        return this;
+    }
+
     private Message doOperation(String resource, String operation, Object ... parameters) throws TimeoutException {
         Message message = createOperationMessage(resource, operation);
         Message response = doRequestResponse(message, parameters);
@@ -54,6 +78,36 @@ public class Artemis implements AutoCloseable {
     }
 
     private Message doRequestResponse(long timeout, TimeUnit timeUnit, Message message, Object ... parameters) throws TimeoutException {
+        message.setBody(encodeParameters(parameters));
+        return syncRequestClient.request(message, timeout, timeUnit);
+    }
+
+    private CompletableFuture<Void> doOperationAsync(String resource, String operation, Object ... parameters) {
+        Message message = createOperationMessage(resource, operation);
+        return doRequestResponseAsync(message, resource + "." + operation, parameters).thenApply(response -> (Void) null);
+    }
+
+    private CompletableFuture<Message> doAttributeAsync(String resource, String attribute) {
+        Message message = createAttributeMessage(resource, attribute);
+        return doRequestResponseAsync(message, resource + "." + attribute);
+    }
+
+    private CompletableFuture<Message> doRequestResponseAsync(Message message, String target, Object ... parameters) {
+        message.setBody(encodeParameters(parameters));
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        syncRequestClient.requestAsync(message, requestTimeoutMillis, TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+            if (response == null && (error == null || unwrap(error) instanceof TimeoutException)) {
+                result.completeExceptionally(new TimeoutException("Timed out getting response from broker " + brokerContainerId + " on " + target + " with parameters: " + Arrays.toString(parameters)));
+            } else if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(response);
+            }
+        });
+        return result;
+    }
+
+    private static AmqpValue encodeParameters(Object ... parameters) {
         JsonArray params = new JsonArray();
         for (Object param : parameters) {
             if (param == null) {
@@ -62,9 +116,52 @@ public class Artemis implements AutoCloseable {
                 params.add(param);
             }
         }
+        return new AmqpValue(Json.encode(params));
+    }
 
-        message.setBody(new AmqpValue(Json.encode(params)));
-        return syncRequestClient.request(message, timeout, timeUnit);
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Run an operation for each of the names, with up to maxBulkRequests requests in flight on the management link
+     * at the same time, and wait for all of them to complete.
+     *
+     * @return the failures by name, empty if all operations succeeded
+     */
+    public Map<String, Throwable> doBulk(Collection<String> names, Function<String, CompletableFuture<Void>> operation) {
+        Set<String> unique = new LinkedHashSet<>(names);
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        Semaphore window = new Semaphore(maxBulkRequests);
+        CountDownLatch done = new CountDownLatch(unique.size());
+        try {
+            for (String name : unique) {
+                window.acquire();
+                CompletableFuture<Void> result;
+                try {
+                    result = operation.apply(name);
+                } catch (Exception e) {
+                    result = new CompletableFuture<>();
+                    result.completeExceptionally(e);
+                }
+                result.whenComplete((v, error) -> {
+                    if (error != null) {
+                        failures.put(name, unwrap(error));
+                    }
+                    window.release();
+                    done.countDown();
+                });
+            }
+            // Every request has its own deadline, so this always completes
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return failures;
     }
 
     private Message createOperationMessage(String resource, String operation) {
@@ -95,22 +192,61 @@ public class Artemis implements AutoCloseable {
         doOperation("broker", "createQueue", address, "ANYCAST", name, null, true, -1, false, true);
     }
 
+    public CompletableFuture<Void> createQueueAsync(String name, String address) {
+        log.debug("Creating queue {} with address {} on broker {}", name, address, brokerContainerId);
+        return doOperationAsync("broker", "createQueue", address, "ANYCAST", name, null, true, -1, false, true);
+    }
+
+    /**
+     * Create queues with the same name as their address.
+     *
+     * @return the failures by queue name, empty if all queues were created
+     */
+    public Map<String, Throwable> createQueues(Collection<String> names) {
+        log.info("Creating {} queues on broker {}", names.size(), brokerContainerId);
+        return doBulk(names, name -> createQueueAsync(name, name));
+    }
+
     public void createConnectorService(String name, Map<String, String> connParams) throws TimeoutException {
         log.info("Creating connector service {} on broker {}", name, brokerContainerId);
         String factoryName = "org.apache.activemq.artemis.integration.amqp.AMQPConnectorServiceFactory";
         doOperation("broker", "createConnectorService", name, factoryName, connParams);
     }
 
+    public CompletableFuture<Void> createConnectorServiceAsync(String name, Map<String, String> connParams) {
+        log.debug("Creating connector service {} on broker {}", name, brokerContainerId);
+        String factoryName = "org.apache.activemq.artemis.integration.amqp.AMQPConnectorServiceFactory";
+        return doOperationAsync("broker", "createConnectorService", name, factoryName, connParams);
+    }
+
     public void destroyQueue(String name) throws TimeoutException {
         log.info("Destroying queue {} on broker {}", name, brokerContainerId);
         doOperation("broker", "destroyQueue", name, true);
     }
 
+    public CompletableFuture<Void> destroyQueueAsync(String name) {
+        log.debug("Destroying queue {} on broker {}", name, brokerContainerId);
+        return doOperationAsync("broker", "destroyQueue", name, true);
+    }
+
+    /**
+     * @return the failures by queue name, empty if all queues were destroyed
+     */
+    public Map<String, Throwable> destroyQueues(Collection<String> names) {
+        log.info("Destroying {} queues on broker {}", names.size(), brokerContainerId);
+        return doBulk(names, this::destroyQueueAsync);
+    }
+
     public void destroyConnectorService(String address) throws TimeoutException {
         doOperation("broker", "destroyConnectorService", address);
         log.info("Destroyed connector service {} on broker {}", address, brokerContainerId);
     }
 
+    public CompletableFuture<Void> destroyConnectorServiceAsync(String address) {
+        log.debug("Destroying connector service {} on broker {}", address, brokerContainerId);
+        return doOperationAsync("broker", "destroyConnectorService", address);
+    }
+
     public long getNumQueues() throws TimeoutException {
         return getQueueNames().size();
     }
@@ -124,6 +260,23 @@ public class Artemis implements AutoCloseable {
     }
 
 
+    public CompletableFuture<Long> getQueueMessageCountAsync(String queueName) {
+        return doAttributeAsync("queue." + queueName, "messageCount").thenApply(Artemis::getLongResult);
+    }
+
+    /**
+     * Returns the number of messages added to the queue since it was created (or the broker started).
+     */
+    public CompletableFuture<Long> getQueueMessagesAddedAsync(String queueName) {
+        return doAttributeAsync("queue." + queueName, "messagesAdded").thenApply(Artemis::getLongResult);
+    }
+
+    private static long getLongResult(Message response) {
+        String payload = (String) ((AmqpValue)response.getBody()).getValue();
+        JsonArray json = new JsonArray(payload);
+        return json.getLong(0);
+    }
+
     public String getQueueAddress(String queueName) throws TimeoutException {
         log.info("Checking queue address for queue {} on broker {}", queueName, brokerContainerId);
         Message response = doOperation("queue." + queueName, "getAddress");
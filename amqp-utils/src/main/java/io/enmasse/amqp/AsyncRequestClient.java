@@ -0,0 +1,299 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.amqp;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.*;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.message.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A non-blocking client for doing request-response over AMQP.
+ *
+ * Many requests can be in flight at the same time on the same link. Each request gets a message id and a
+ * correlation id (unless it already has them), and its response is matched by the correlation id, which the router
+ * and the broker copy from the request. Responses without a correlation id can't be matched and are dropped. Each request has its own deadline after which its future fails with a
+ * {@link TimeoutException}.
+ *
+ * All link state is confined to the context of the connection. Futures are completed on that context, so
+ * callbacks attached to them must not block.
+ */
+public class AsyncRequestClient implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncRequestClient.class);
+    private final Vertx vertx;
+    private final int maxRetries;
+    private final String messageIdPrefix = UUID.randomUUID().toString() + "-";
+    private final Map<Object, CompletableFuture<Message>> pending = new LinkedHashMap<>();
+    private volatile Context context;
+    private ProtonConnection connection;
+    private ProtonSender sender;
+    private ProtonReceiver receiver;
+    private volatile String replyTo;
+    private String replyAddress;
+    private long nextMessageId = 0;
+    private volatile boolean closed = false;
+
+    public AsyncRequestClient(Vertx vertx) {
+        this(vertx, 0);
+    }
+
+    public AsyncRequestClient(Vertx vertx, int maxRetries) {
+        this.vertx = vertx;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Use a fixed address for the responses instead of a dynamic one assigned by the peer.
+     */
+    public AsyncRequestClient setReplyAddress(String replyAddress) {
+        this.replyAddress = replyAddress;
+        return this;
+    }
+
+    public String getRemoteContainer() {
+        return connection.getRemoteContainer();
+    }
+
+    public String getReplyTo() {
+        return replyTo;
+    }
+
+    /**
+     * Returns true if the client was closed, or its connection failed or was lost. A new client has to be created
+     * for sending more requests.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void connect(String host, int port, CompletableFuture<Void> promise) {
+        connect(host, port, new ProtonClientOptions(), null, promise);
+    }
+
+    public void connect(String host, int port, ProtonClientOptions clientOptions, String address, CompletableFuture<Void> promise) {
+        if (connection != null) {
+            log.info("Already connected");
+            promise.complete(null);
+            return;
+        }
+        ProtonClient client = ProtonClient.create(vertx);
+        log.info("Connecting to {}:{}", host, port);
+        client.connect(clientOptions, host, port, result -> {
+            if (result.succeeded()) {
+                log.info("Connected to {}:{}", host, port);
+                if (attach(result.result(), host + ":" + port, address, promise)) {
+                    connection.open();
+                }
+            } else {
+                log.info("Connection to {}:{} failed", host, port);
+                closed = true;
+                promise.completeExceptionally(result.cause());
+            }
+        });
+    }
+
+    /**
+     * Send the requests over a connection that is already open, such as one accepted from the peer.
+     */
+    public void connect(ProtonConnection connection, String address, CompletableFuture<Void> promise) {
+        if (this.connection != null) {
+            log.info("Already connected");
+            promise.complete(null);
+            return;
+        }
+        attach(connection, connection.getRemoteContainer(), address, promise);
+    }
+
+    /**
+     * @return false if the client was closed in the meantime, and the connection is closed as well
+     */
+    private boolean attach(ProtonConnection connection, String peer, String address, CompletableFuture<Void> promise) {
+        this.connection = connection;
+        if (closed) {
+            connection.close();
+            promise.completeExceptionally(new IllegalStateException("Request client closed"));
+            return false;
+        }
+        connection.closeHandler(remoteClose -> {
+            log.info("Connection to {} closed", peer);
+            closed = true;
+            connection.close();
+            failPending(new IllegalStateException("Connection to " + peer + " closed"));
+        });
+        connection.disconnectHandler(conn -> {
+            log.info("Disconnected from {}", peer);
+            closed = true;
+            failPending(new IllegalStateException("Disconnected from " + peer));
+        });
+        createSender(address, promise, 0);
+        return true;
+    }
+
+    private void createSender(String address, CompletableFuture<Void> promise, int retries) {
+        sender = connection.createSender(address);
+        sender.openHandler(result -> {
+            if (result.succeeded()) {
+                createReceiver(address, promise, 0);
+            } else {
+                if (retries > maxRetries) {
+                    closed = true;
+                    promise.completeExceptionally(result.cause());
+                } else {
+                    log.info("Error creating sender, retries = {}", retries);
+                    vertx.setTimer(1000, id -> createSender(address, promise, retries + 1));
+                }
+            }
+        });
+        sender.open();
+    }
+
+    private void createReceiver(String address, CompletableFuture<Void> promise, int retries) {
+        if (replyAddress != null) {
+            receiver = connection.createReceiver(replyAddress);
+        } else {
+            receiver = connection.createReceiver(address);
+            Source source = new Source();
+            source.setDynamic(true);
+            receiver.setSource(source);
+        }
+        receiver.openHandler(h -> {
+            if (h.succeeded()) {
+                if (closed) {
+                    // closed while connecting
+                    connection.close();
+                    promise.completeExceptionally(new IllegalStateException("Request client closed"));
+                    return;
+                }
+                replyTo = replyAddress != null ? replyAddress : receiver.getRemoteSource().getAddress();
+                context = vertx.getOrCreateContext();
+                promise.complete(null);
+            } else {
+                if (retries > maxRetries) {
+                    closed = true;
+                    promise.completeExceptionally(h.cause());
+                } else {
+                    log.info("Error creating receiver, retries = {}", retries);
+                    vertx.setTimer(1000, id -> createReceiver(address, promise, retries + 1));
+                }
+            }
+        });
+        receiver.handler((protonDelivery, message) -> {
+            ProtonHelper.accepted(protonDelivery, true);
+            Object correlationId = message.getCorrelationId();
+            if (correlationId == null) {
+                log.warn("Dropping response without correlation id on {}", replyTo);
+                return;
+            }
+            CompletableFuture<Message> response = pending.remove(correlationId);
+            if (response != null) {
+                response.complete(message);
+            } else {
+                log.debug("Ignoring response with unknown correlation id {}", correlationId);
+            }
+        });
+        receiver.open();
+    }
+
+    /**
+     * Send a request without waiting for the responses of the previous ones.
+     *
+     * @return future completed with the response, or failed if no response was received before the timeout
+     */
+    public CompletableFuture<Message> request(Message message, long timeout, TimeUnit timeUnit) {
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        Context context = this.context;
+        if (context == null) {
+            response.completeExceptionally(new IllegalStateException("Not connected"));
+            return response;
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        if (message.getApplicationProperties() != null) {
+            properties.putAll(message.getApplicationProperties().getValue());
+        }
+        message.setApplicationProperties(new ApplicationProperties(properties));
+
+        if (message.getReplyTo() == null) {
+            message.setReplyTo(replyTo);
+        }
+        long timeoutMillis = Math.max(1, timeUnit.toMillis(timeout));
+        context.runOnContext(v -> send(message, timeoutMillis, response));
+        return response;
+    }
+
+    /**
+     * Same as {@link #request(Message, long, TimeUnit)}, completing a Vert.x handler.
+     */
+    public void request(Message message, long timeout, TimeUnit timeUnit, Handler<AsyncResult<Message>> handler) {
+        request(message, timeout, timeUnit).whenComplete((response, error) -> {
+            if (error != null) {
+                handler.handle(Future.failedFuture(error));
+            } else {
+                handler.handle(Future.succeededFuture(response));
+            }
+        });
+    }
+
+    private void send(Message message, long timeoutMillis, CompletableFuture<Message> response) {
+        if (closed) {
+            response.completeExceptionally(new IllegalStateException("Request client closed"));
+            return;
+        }
+        Object messageId = message.getMessageId();
+        if (messageId == null) {
+            messageId = messageIdPrefix + nextMessageId++;
+            message.setMessageId(messageId);
+        }
+        if (message.getCorrelationId() == null) {
+            message.setCorrelationId(messageId);
+        }
+        Object correlationId = message.getCorrelationId();
+        if (pending.putIfAbsent(correlationId, response) != null) {
+            response.completeExceptionally(new IllegalArgumentException("Request with correlation id " + correlationId + " already in flight"));
+            return;
+        }
+
+        long timerId = vertx.setTimer(timeoutMillis, id -> {
+            if (pending.remove(correlationId, response)) {
+                response.completeExceptionally(new TimeoutException("Timed out waiting for response to " + correlationId));
+            }
+        });
+        response.whenComplete((result, error) -> vertx.cancelTimer(timerId));
+        sender.send(message);
+    }
+
+    private void failPending(Throwable cause) {
+        List<CompletableFuture<Message>> responses = new ArrayList<>(pending.values());
+        pending.clear();
+        for (CompletableFuture<Message> response : responses) {
+            response.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Context context = this.context;
+        if (context != null) {
+            context.runOnContext(v -> {
+                failPending(new IllegalStateException("Request client closed"));
+                connection.close();
+            });
+        }
+    }
+}
@@ -28,6 +28,8 @@ public class PubSubBroker extends AbstractVerticle {
     private final String containerId;
     private final Map<String, Queue<Message>> queues = new HashMap<>();
     private final Map<String, SenderInfo> subscribers = new HashMap<>();
+    // Messages sent to a subscriber but not yet settled by it, which are still counted as queued
+    private final Map<String, Integer> delivering = new HashMap<>();
 
     public PubSubBroker(String containerId) {
         this.containerId = containerId;
@@ -157,10 +159,19 @@ public class PubSubBroker extends AbstractVerticle {
 
     private void checkQueue(Context senderContext, ProtonSender sender) {
         String address = sender.getSource().getAddress();
-        log.debug("[{}]: Has {} messages in store on address {}", containerId, queues.get(address).size(), address);
-        Message message = queues.get(address).poll();
+        Message message;
+        synchronized (this) {
+            log.debug("[{}]: Has {} messages in store on address {}", containerId, queues.get(address).size(), address);
+            message = queues.get(address).poll();
+            if (message != null) {
+                delivering.merge(address, 1, Integer::sum);
+            }
+        }
         if (message != null) {
             senderContext.runOnContext(v -> sender.send(message, delivery -> {
+                synchronized (this) {
+                    delivering.merge(address, -1, Integer::sum);
+                }
                 checkQueue(senderContext, sender);
             }));
         }
@@ -200,7 +211,7 @@ public class PubSubBroker extends AbstractVerticle {
     }
 
     public synchronized  int numMessages(String address) {
-        return queues.get(address).size();
+        return queues.get(address).size() + delivering.getOrDefault(address, 0);
     }
 
     public synchronized void sendMessages(String address, List<String> messages) {
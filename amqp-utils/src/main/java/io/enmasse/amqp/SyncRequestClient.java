@@ -9,6 +9,7 @@ import org.apache.qpid.proton.message.Message;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public interface SyncRequestClient {
     void connect(String host, int port, ProtonClientOptions clientOptions, String address, CompletableFuture<Void> connectedPromise);
@@ -17,4 +18,23 @@ public interface SyncRequestClient {
     void close();
 
     Message request(Message message, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Send a request without waiting for the response, if supported by the client. The default implementation
+     * blocks on {@link #request(Message, long, TimeUnit)}.
+     */
+    default CompletableFuture<Message> requestAsync(Message message, long timeout, TimeUnit timeUnit) {
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        try {
+            Message result = request(message, timeout, timeUnit);
+            if (result == null) {
+                response.completeExceptionally(new TimeoutException("Timed out waiting for response"));
+            } else {
+                response.complete(result);
+            }
+        } catch (Exception e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
 }
@@ -5,18 +5,29 @@
 
 package io.enmasse.amqp;
 
+import io.vertx.core.Vertx;
 import io.vertx.proton.ProtonClientOptions;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonSession;
 import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
 import org.apache.qpid.proton.message.Message;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ArtemisTest {
 
@@ -88,4 +99,88 @@ public class ArtemisTest {
         assertEquals("queue.q1", testClient.request.getApplicationProperties().getValue().get("_AMQ_ResourceName"));
         assertEquals("messageCount", testClient.request.getApplicationProperties().getValue().get("_AMQ_Attribute"));
     }
+
+    @Test
+    public void testBulkOperations() {
+        TestClient testClient = new TestClient();
+        Artemis artemis = new Artemis(testClient);
+
+        testClient.response = Proton.message();
+        Map<String, Throwable> failures = artemis.createQueues(Arrays.asList("queue1", "queue2"));
+        assertTrue(failures.isEmpty());
+        String body = (String)((AmqpValue)testClient.request.getBody()).getValue();
+        assertEquals("[\"queue2\",\"ANYCAST\",\"queue2\",null,true,-1,false,true]", body);
+        assertEquals("createQueue", testClient.request.getApplicationProperties().getValue().get("_AMQ_OperationName"));
+
+        testClient.response = null;
+        failures = artemis.destroyQueues(Arrays.asList("queue1", "queue2"));
+        assertEquals(2, failures.size());
+        assertTrue(failures.get("queue1") instanceof TimeoutException);
+        assertTrue(failures.get("queue2") instanceof TimeoutException);
+        assertEquals("destroyQueue", testClient.request.getApplicationProperties().getValue().get("_AMQ_OperationName"));
+    }
+
+    @Test
+    public void testBulkResponsesCorrelated() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        ProtonServer server = ProtonServer.create(vertx);
+        try {
+            // Answers the message count requests in batches of 10, in reverse order, with the number of the queue
+            CompletableFuture<ProtonSender> replySender = new CompletableFuture<>();
+            List<Message> batch = new ArrayList<>();
+            CompletableFuture<Void> listening = new CompletableFuture<>();
+            server.connectHandler(conn -> {
+                conn.openHandler(o -> conn.open());
+                conn.sessionOpenHandler(ProtonSession::open);
+                conn.receiverOpenHandler(receiver -> {
+                    receiver.setTarget(receiver.getRemoteTarget());
+                    receiver.handler((delivery, request) -> {
+                        batch.add(request);
+                        if (batch.size() == 10) {
+                            Collections.reverse(batch);
+                            for (Message pending : batch) {
+                                String resource = (String) pending.getApplicationProperties().getValue().get("_AMQ_ResourceName");
+                                Message response = Proton.message();
+                                response.setBody(new AmqpValue("[" + resource.substring("queue.q".length()) + "]"));
+                                response.setCorrelationId(pending.getCorrelationId());
+                                response.setAddress(pending.getReplyTo());
+                                replySender.join().send(response);
+                            }
+                            batch.clear();
+                        }
+                    });
+                    receiver.open();
+                });
+                conn.senderOpenHandler(sender -> {
+                    sender.setSource(sender.getRemoteSource());
+                    sender.open();
+                    replySender.complete(sender);
+                });
+            }).listen(0, "127.0.0.1", result -> listening.complete(null));
+            listening.get(10, TimeUnit.SECONDS);
+
+            ProtonRequestClient client = new ProtonRequestClient(vertx);
+            CompletableFuture<Void> connected = new CompletableFuture<>();
+            client.connect("127.0.0.1", server.actualPort(), new ProtonClientOptions(), "activemq.management", connected);
+            connected.get(10, TimeUnit.SECONDS);
+            Artemis artemis = new Artemis(client);
+
+            List<String> queues = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                queues.add("q" + i);
+            }
+            Map<String, Long> counts = new ConcurrentHashMap<>();
+            Map<String, Throwable> failures = artemis.doBulk(queues, queue ->
+                    artemis.getQueueMessageCountAsync(queue).thenAccept(count -> counts.put(queue, count)));
+
+            assertTrue(failures.isEmpty());
+            for (int i = 0; i < 30; i++) {
+                assertEquals(Long.valueOf(i), counts.get("q" + i));
+            }
+            artemis.close();
+        } finally {
+            server.close();
+            vertx.close();
+        }
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.amqp;
+
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonSession;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncRequestClientTest {
+    private static final int BATCH_SIZE = 10;
+
+    private Vertx vertx;
+    private ProtonServer server;
+    private AsyncRequestClient client;
+
+    @Before
+    public void setup() throws Exception {
+        vertx = Vertx.vertx();
+        server = ProtonServer.create(vertx);
+        CountDownLatch latch = new CountDownLatch(1);
+        CompletableFuture<ProtonSender> futureSender = new CompletableFuture<>();
+        List<Message> batch = new ArrayList<>();
+        server.connectHandler(conn -> {
+            conn.closeHandler(c -> {
+                conn.close();
+                conn.disconnect();
+            });
+            conn.disconnectHandler(c -> conn.disconnect()).open();
+
+            conn.sessionOpenHandler(ProtonSession::open);
+
+            // Responds to requests in batches, in reverse order, never to the "ignore" ones and at once without
+            // correlation id to the "uncorrelated" ones
+            conn.receiverOpenHandler(receiver -> {
+                receiver.setTarget(receiver.getRemoteTarget());
+                receiver.handler((delivery, message) -> {
+                    if ("ignore".equals(message.getSubject())) {
+                        return;
+                    }
+                    if ("uncorrelated".equals(message.getSubject())) {
+                        Message response = Message.Factory.create();
+                        response.setBody(message.getBody());
+                        response.setAddress(message.getReplyTo());
+                        futureSender.join().send(response);
+                        return;
+                    }
+                    batch.add(message);
+                    if (batch.size() == BATCH_SIZE) {
+                        Collections.reverse(batch);
+                        for (Message request : batch) {
+                            Message response = Message.Factory.create();
+                            response.setBody(request.getBody());
+                            response.setCorrelationId(request.getCorrelationId());
+                            response.setAddress(request.getReplyTo());
+                            futureSender.join().send(response);
+                        }
+                        batch.clear();
+                    }
+                });
+                receiver.open();
+            });
+
+            conn.senderOpenHandler(sender -> {
+                sender.setSource(sender.getRemoteSource());
+                sender.open();
+                futureSender.complete(sender);
+            });
+        }).listen(0, res -> latch.countDown());
+        latch.await();
+
+        client = new AsyncRequestClient(vertx);
+        CompletableFuture<Void> connected = new CompletableFuture<>();
+        client.connect("127.0.0.1", server.actualPort(), connected);
+        connected.get(10, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void teardown() {
+        client.close();
+        server.close();
+        vertx.close();
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        List<CompletableFuture<Message>> responses = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE * 5; i++) {
+            responses.add(client.request(createRequest("request", i), 10, TimeUnit.SECONDS));
+        }
+
+        for (int i = 0; i < responses.size(); i++) {
+            Message response = responses.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals(i, ((AmqpValue) response.getBody()).getValue());
+        }
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        CompletableFuture<Message> ignored = client.request(createRequest("ignore", -1), 100, TimeUnit.MILLISECONDS);
+        List<CompletableFuture<Message>> responses = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            responses.add(client.request(createRequest("request", i), 10, TimeUnit.SECONDS));
+        }
+
+        try {
+            ignored.get(10, TimeUnit.SECONDS);
+            fail("Expected request to time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        // The expired request does not affect the ones still in flight
+        for (int i = 0; i < responses.size(); i++) {
+            assertEquals(i, ((AmqpValue) responses.get(i).get(10, TimeUnit.SECONDS).getBody()).getValue());
+        }
+    }
+
+    @Test
+    public void testResponseWithoutCorrelationIdDropped() throws Exception {
+        List<CompletableFuture<Message>> responses = new ArrayList<>();
+        responses.add(client.request(createRequest("request", 0), 10, TimeUnit.SECONDS));
+        CompletableFuture<Message> uncorrelated = client.request(createRequest("uncorrelated", -1), 500, TimeUnit.MILLISECONDS);
+        for (int i = 1; i < BATCH_SIZE; i++) {
+            responses.add(client.request(createRequest("request", i), 10, TimeUnit.SECONDS));
+        }
+
+        try {
+            uncorrelated.get(10, TimeUnit.SECONDS);
+            fail("Expected request to time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        // The response without correlation id was not given to the oldest pending request
+        for (int i = 0; i < responses.size(); i++) {
+            assertEquals(i, ((AmqpValue) responses.get(i).get(10, TimeUnit.SECONDS).getBody()).getValue());
+        }
+    }
+
+    @Test
+    public void testPendingRequestsFailOnClose() throws Exception {
+        CompletableFuture<Message> response = client.request(createRequest("ignore", -1), 10, TimeUnit.SECONDS);
+        client.close();
+        assertTrue(client.isClosed());
+
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            fail("Expected request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private static Message createRequest(String subject, int value) {
+        Message request = Message.Factory.create();
+        request.setAddress("requests");
+        request.setSubject(subject);
+        request.setBody(new AmqpValue(value));
+        return request;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.amqp.benchmark;
+
+import io.enmasse.amqp.AsyncRequestClient;
+import io.enmasse.amqp.DispatchRouterJ;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonClientOptions;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonReceiver;
+import io.vertx.proton.ProtonSender;
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.message.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures request-response throughput through the {@link DispatchRouterJ} to a responder, depending on how many
+ * requests are in flight at the same time. With a single request in flight, the client behaves like the blocking
+ * client which waits for each response before sending the next request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestClientBenchmark {
+    private static final String REQUEST_ADDRESS = "requests";
+    private static final String REPLY_ADDRESS = "replies";
+    private static final int REQUESTS = 1000;
+
+    @Param({"1", "10", "100", "1000"})
+    private int inFlight;
+
+    private Vertx vertx;
+    private ProtonConnection responderConnection;
+    private AsyncRequestClient client;
+
+    @Setup
+    public void setup() throws Exception {
+        vertx = Vertx.vertx();
+        DispatchRouterJ router = new DispatchRouterJ(null);
+        CompletableFuture<String> deployed = new CompletableFuture<>();
+        vertx.deployVerticle(router, result -> {
+            if (result.succeeded()) {
+                deployed.complete(result.result());
+            } else {
+                deployed.completeExceptionally(result.cause());
+            }
+        });
+        deployed.get(1, TimeUnit.MINUTES);
+
+        startResponder(router.getNormalPort()).get(1, TimeUnit.MINUTES);
+
+        client = new AsyncRequestClient(vertx).setReplyAddress(REPLY_ADDRESS);
+        CompletableFuture<Void> connected = new CompletableFuture<>();
+        client.connect("localhost", router.getNormalPort(), new ProtonClientOptions(), REQUEST_ADDRESS, connected);
+        connected.get(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Echoes the body of every request back to its reply address, correlated by message id.
+     */
+    private CompletableFuture<Void> startResponder(int port) {
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        ProtonClient.create(vertx).connect("localhost", port, result -> {
+            if (result.failed()) {
+                started.completeExceptionally(result.cause());
+                return;
+            }
+            responderConnection = result.result();
+            responderConnection.open();
+
+            ProtonSender sender = responderConnection.createSender(REPLY_ADDRESS);
+            sender.open();
+
+            ProtonReceiver receiver = responderConnection.createReceiver(REQUEST_ADDRESS);
+            receiver.handler((delivery, message) -> {
+                Message response = Proton.message();
+                response.setCorrelationId(message.getMessageId());
+                response.setBody(message.getBody());
+                sender.send(response);
+            });
+            receiver.openHandler(h -> started.complete(null));
+            receiver.open();
+        });
+        return started;
+    }
+
+    @TearDown
+    public void teardown() {
+        client.close();
+        vertx.runOnContext(v -> responderConnection.close());
+        vertx.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int requests() throws Exception {
+        Semaphore window = new Semaphore(inFlight);
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < REQUESTS; i++) {
+            window.acquire();
+            Message request = Proton.message();
+            request.setBody(new AmqpValue(i));
+            client.request(request, 10, TimeUnit.SECONDS).whenComplete((response, error) -> {
+                if (error != null) {
+                    failed.incrementAndGet();
+                }
+                window.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        if (failed.get() > 0) {
+            throw new IllegalStateException(failed.get() + " requests failed");
+        }
+        return REQUESTS;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestClientBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
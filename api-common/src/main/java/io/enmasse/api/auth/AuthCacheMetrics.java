@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import io.enmasse.metrics.PrometheusTextBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Hits and misses of the {@link CachingAuthApi}, and the time spent on reviews that missed the cache, per kind of
+ * review.
+ */
+public class AuthCacheMetrics {
+    private final Map<String, ReviewMetrics> reviews = new ConcurrentSkipListMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final IntSupplier size;
+
+    public AuthCacheMetrics(IntSupplier size) {
+        this.size = size;
+    }
+
+    void recordHit(String review) {
+        getReview(review).hits.incrementAndGet();
+    }
+
+    void recordMiss(String review, long nanos) {
+        ReviewMetrics metrics = getReview(review);
+        metrics.misses.incrementAndGet();
+        metrics.latencyNanos.addAndGet(nanos);
+    }
+
+    void recordEviction() {
+        evictions.incrementAndGet();
+    }
+
+    private ReviewMetrics getReview(String review) {
+        return reviews.computeIfAbsent(review, r -> new ReviewMetrics());
+    }
+
+    public long getHits(String review) {
+        ReviewMetrics metrics = reviews.get(review);
+        return metrics != null ? metrics.hits.get() : 0;
+    }
+
+    public long getMisses(String review) {
+        ReviewMetrics metrics = reviews.get(review);
+        return metrics != null ? metrics.misses.get() : 0;
+    }
+
+    /**
+     * @return the fraction of reviews of the given kind served from the cache
+     */
+    public double getHitRate(String review) {
+        long hits = getHits(review);
+        long total = hits + getMisses(review);
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text exposition format.
+     */
+    public String toPrometheusText() {
+        PrometheusTextBuilder builder = new PrometheusTextBuilder();
+        builder.type("auth_cache_requests_total", "counter");
+        for (Map.Entry<String, ReviewMetrics> entry : reviews.entrySet()) {
+            builder.sample("auth_cache_requests_total", PrometheusTextBuilder.labels("review", entry.getKey(), "result", "hit"), entry.getValue().hits.get());
+            builder.sample("auth_cache_requests_total", PrometheusTextBuilder.labels("review", entry.getKey(), "result", "miss"), entry.getValue().misses.get());
+        }
+        builder.type("auth_cache_hit_ratio", "gauge");
+        for (String review : reviews.keySet()) {
+            builder.sample("auth_cache_hit_ratio", PrometheusTextBuilder.labels("review", review), getHitRate(review));
+        }
+        builder.type("auth_review_duration_seconds", "summary");
+        for (Map.Entry<String, ReviewMetrics> entry : reviews.entrySet()) {
+            builder.summary("auth_review_duration_seconds", PrometheusTextBuilder.labels("review", entry.getKey()), entry.getValue().latencyNanos.get() / 1e9, entry.getValue().misses.get());
+        }
+        return builder.type("auth_cache_evictions_total", "counter")
+                .sample("auth_cache_evictions_total", evictions.get())
+                .type("auth_cache_entries", "gauge")
+                .sample("auth_cache_entries", size.getAsInt())
+                .build();
+    }
+
+    private static class ReviewMetrics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong latencyNanos = new AtomicLong();
+    }
+}
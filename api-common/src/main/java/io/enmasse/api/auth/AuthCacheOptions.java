@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Settings of the {@link CachingAuthApi}. A TTL of zero disables caching of the corresponding results.
+ */
+public class AuthCacheOptions {
+    private Duration positiveTtl = Duration.ofSeconds(60);
+    private Duration negativeTtl = Duration.ofSeconds(10);
+    private int maxEntries = 10000;
+
+    public static AuthCacheOptions fromEnv(Map<String, String> env) {
+        AuthCacheOptions options = new AuthCacheOptions();
+
+        getEnv(env, "AUTH_CACHE_TTL")
+                .map(ttl -> Duration.ofSeconds(Long.parseLong(ttl)))
+                .ifPresent(options::setPositiveTtl);
+
+        getEnv(env, "AUTH_CACHE_NEGATIVE_TTL")
+                .map(ttl -> Duration.ofSeconds(Long.parseLong(ttl)))
+                .ifPresent(options::setNegativeTtl);
+
+        getEnv(env, "AUTH_CACHE_SIZE")
+                .map(Integer::parseInt)
+                .ifPresent(options::setMaxEntries);
+
+        return options;
+    }
+
+    private static Optional<String> getEnv(Map<String, String> env, String envVar) {
+        return Optional.ofNullable(env.get(envVar));
+    }
+
+    /**
+     * How long successful token reviews and allowed access reviews are cached.
+     */
+    public Duration getPositiveTtl() {
+        return positiveTtl;
+    }
+
+    public AuthCacheOptions setPositiveTtl(Duration positiveTtl) {
+        this.positiveTtl = positiveTtl;
+        return this;
+    }
+
+    /**
+     * How long failed token reviews and denied access reviews are cached.
+     */
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public AuthCacheOptions setNegativeTtl(Duration negativeTtl) {
+        this.negativeTtl = negativeTtl;
+        return this;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public AuthCacheOptions setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+}
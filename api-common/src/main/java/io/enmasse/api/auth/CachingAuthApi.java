@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of token reviews and subject access reviews of another {@link AuthApi}.
+ *
+ * Tokens are cached by their SHA-256 hash, access reviews by user and the attributes of the review. Successful
+ * reviews are kept for the positive TTL and failed ones for the (usually shorter) negative TTL, so a revoked token or
+ * role binding may be honoured for up to the positive TTL. The cache is bounded, evicting the least recently used
+ * entries. Errors are not cached.
+ */
+public class CachingAuthApi implements AuthApi {
+    static final String TOKEN_REVIEW = "token";
+    static final String RESOURCE_REVIEW = "resource";
+    static final String PATH_REVIEW = "path";
+
+    private final AuthApi delegate;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final Map<String, Entry> cache;
+    private final AuthCacheMetrics metrics;
+
+    public CachingAuthApi(AuthApi delegate, AuthCacheOptions options) {
+        this(delegate, options, Clock.systemUTC());
+    }
+
+    CachingAuthApi(AuthApi delegate, AuthCacheOptions options, Clock clock) {
+        this.delegate = delegate;
+        this.positiveTtl = options.getPositiveTtl();
+        this.negativeTtl = options.getNegativeTtl();
+        this.clock = clock;
+        this.metrics = new AuthCacheMetrics(this::size);
+        int maxEntries = options.getMaxEntries();
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    metrics.recordEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public AuthCacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    @Override
+    public TokenReview performTokenReview(String token) {
+        return lookup(TOKEN_REVIEW, TOKEN_REVIEW + ":" + hash(token),
+                () -> delegate.performTokenReview(token),
+                TokenReview::isAuthenticated);
+    }
+
+    @Override
+    public SubjectAccessReview performSubjectAccessReviewResource(String user, String namespace, String resource, String verb, String apiGroup) {
+        return lookup(RESOURCE_REVIEW, key(RESOURCE_REVIEW, user, namespace, resource, verb, apiGroup),
+                () -> delegate.performSubjectAccessReviewResource(user, namespace, resource, verb, apiGroup),
+                SubjectAccessReview::isAllowed);
+    }
+
+    @Override
+    public SubjectAccessReview performSubjectAccessReviewPath(String user, String path, String verb) {
+        return lookup(PATH_REVIEW, key(PATH_REVIEW, user, path, verb),
+                () -> delegate.performSubjectAccessReviewPath(user, path, verb),
+                SubjectAccessReview::isAllowed);
+    }
+
+    @Override
+    public String getCert(String secretName, String namespace) {
+        return delegate.getCert(secretName, namespace);
+    }
+
+    @Override
+    public String getNamespace() {
+        return delegate.getNamespace();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(String review, String key, Supplier<T> perform, Predicate<T> isPositive) {
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (clock.instant().isBefore(entry.expires)) {
+                    metrics.recordHit(review);
+                    return (T) entry.value;
+                }
+                cache.remove(key);
+            }
+        }
+
+        // The review is performed without holding the lock, so concurrent misses for the same key may both go to
+        // the API server
+        long start = System.nanoTime();
+        T value = perform.get();
+        metrics.recordMiss(review, System.nanoTime() - start);
+
+        Duration ttl = isPositive.test(value) ? positiveTtl : negativeTtl;
+        if (!ttl.isZero() && !ttl.isNegative()) {
+            synchronized (cache) {
+                cache.put(key, new Entry(value, clock.instant().plus(ttl)));
+            }
+        }
+        return value;
+    }
+
+    private static String key(String review, String ... attributes) {
+        StringBuilder sb = new StringBuilder(review);
+        for (String attribute : attributes) {
+            // Separate with a character that cannot occur in user names or resource attributes
+            sb.append('\u0000').append(attribute);
+        }
+        return sb.toString();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final Instant expires;
+
+        private Entry(Object value, Instant expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
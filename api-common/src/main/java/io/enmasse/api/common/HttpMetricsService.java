@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.common;
+
+import io.enmasse.metrics.PrometheusTextBuilder;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import java.util.function.Supplier;
+
+/**
+ * Serves metrics in the Prometheus text exposition format.
+ */
+@Path(HttpMetricsService.BASE_URI)
+public class HttpMetricsService {
+    public static final String BASE_URI = "/metrics";
+    private final Supplier<String> metrics;
+
+    public HttpMetricsService(Supplier<String> metrics) {
+        this.metrics = metrics;
+    }
+
+    @GET
+    @Produces({PrometheusTextBuilder.CONTENT_TYPE})
+    public Response getMetrics() {
+        return Response.ok(metrics.get(), PrometheusTextBuilder.CONTENT_TYPE).build();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingAuthApiTest {
+    private static final Instant START = Instant.ofEpochSecond(1000);
+
+    private AuthApi delegate;
+    private Clock clock;
+    private CachingAuthApi authApi;
+
+    @Before
+    public void setup() {
+        delegate = mock(AuthApi.class);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(START);
+        authApi = new CachingAuthApi(delegate, new AuthCacheOptions()
+                .setPositiveTtl(Duration.ofSeconds(60))
+                .setNegativeTtl(Duration.ofSeconds(10))
+                .setMaxEntries(2), clock);
+    }
+
+    @Test
+    public void testTokenReviewCached() {
+        when(delegate.performTokenReview(eq("token1"))).thenReturn(new TokenReview("user1", "uid1", true));
+        when(delegate.performTokenReview(eq("token2"))).thenReturn(new TokenReview(null, null, false));
+
+        assertTrue(authApi.performTokenReview("token1").isAuthenticated());
+        assertThat(authApi.performTokenReview("token1").getUserName(), is("user1"));
+        assertFalse(authApi.performTokenReview("token2").isAuthenticated());
+        assertFalse(authApi.performTokenReview("token2").isAuthenticated());
+        verify(delegate, times(1)).performTokenReview(eq("token1"));
+        verify(delegate, times(1)).performTokenReview(eq("token2"));
+
+        // Negative results expire first
+        when(clock.instant()).thenReturn(START.plusSeconds(10));
+        authApi.performTokenReview("token1");
+        authApi.performTokenReview("token2");
+        verify(delegate, times(1)).performTokenReview(eq("token1"));
+        verify(delegate, times(2)).performTokenReview(eq("token2"));
+
+        when(clock.instant()).thenReturn(START.plusSeconds(60));
+        authApi.performTokenReview("token1");
+        verify(delegate, times(2)).performTokenReview(eq("token1"));
+
+        assertThat(authApi.getMetrics().getHits(CachingAuthApi.TOKEN_REVIEW), is(3L));
+        assertThat(authApi.getMetrics().getMisses(CachingAuthApi.TOKEN_REVIEW), is(4L));
+    }
+
+    @Test
+    public void testAccessReviewCachedPerAttributes() {
+        when(delegate.performSubjectAccessReviewResource(any(), any(), any(), any(), any())).thenReturn(new SubjectAccessReview("user1", true));
+
+        assertTrue(authApi.performSubjectAccessReviewResource("user1", "ns", "addresses", "list", "enmasse.io").isAllowed());
+        assertTrue(authApi.performSubjectAccessReviewResource("user1", "ns", "addresses", "list", "enmasse.io").isAllowed());
+        verify(delegate, times(1)).performSubjectAccessReviewResource(any(), any(), any(), any(), any());
+
+        authApi.performSubjectAccessReviewResource("user1", "ns", "addresses", "create", "enmasse.io");
+        authApi.performSubjectAccessReviewResource("user2", "ns", "addresses", "list", "enmasse.io");
+        verify(delegate, times(3)).performSubjectAccessReviewResource(any(), any(), any(), any(), any());
+
+        assertThat(authApi.getMetrics().getHitRate(CachingAuthApi.RESOURCE_REVIEW), is(0.25));
+    }
+
+    @Test
+    public void testBounded() {
+        when(delegate.performSubjectAccessReviewPath(any(), any(), any())).thenReturn(new SubjectAccessReview("user1", true));
+
+        authApi.performSubjectAccessReviewPath("user1", "/a", "get");
+        authApi.performSubjectAccessReviewPath("user1", "/b", "get");
+        authApi.performSubjectAccessReviewPath("user1", "/a", "get");
+        authApi.performSubjectAccessReviewPath("user1", "/c", "get");
+        assertThat(authApi.size(), is(2));
+        assertThat(authApi.getMetrics().getEvictions(), is(1L));
+
+        // The least recently used entry was evicted
+        authApi.performSubjectAccessReviewPath("user1", "/a", "get");
+        verify(delegate, times(1)).performSubjectAccessReviewPath(eq("user1"), eq("/a"), eq("get"));
+        authApi.performSubjectAccessReviewPath("user1", "/b", "get");
+        verify(delegate, times(2)).performSubjectAccessReviewPath(eq("user1"), eq("/b"), eq("get"));
+    }
+
+    @Test
+    public void testErrorsNotCached() {
+        when(delegate.performTokenReview(eq("token1")))
+                .thenThrow(new RuntimeException("unavailable"))
+                .thenReturn(new TokenReview("user1", "uid1", true));
+
+        try {
+            authApi.performTokenReview("token1");
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), is("unavailable"));
+        }
+        assertTrue(authApi.performTokenReview("token1").isAuthenticated());
+        assertThat(authApi.size(), is(1));
+    }
+
+    @Test
+    public void testMetricsText() {
+        when(delegate.performTokenReview(eq("token1"))).thenReturn(new TokenReview("user1", "uid1", true));
+        authApi.performTokenReview("token1");
+        authApi.performTokenReview("token1");
+
+        String text = authApi.getMetrics().toPrometheusText();
+        assertThat(text, containsString("auth_cache_requests_total{review=\"token\",result=\"hit\"} 1\n"));
+        assertThat(text, containsString("auth_cache_requests_total{review=\"token\",result=\"miss\"} 1\n"));
+        assertThat(text, containsString("auth_cache_hit_ratio{review=\"token\"} 0.5\n"));
+        assertThat(text, containsString("auth_review_duration_seconds_count{review=\"token\"} 1\n"));
+        assertThat(text, containsString("auth_cache_entries 1\n"));
+    }
+}
@@ -6,8 +6,10 @@
 package io.enmasse.api.server;
 
 import io.enmasse.api.auth.AuthApi;
+import io.enmasse.api.auth.CachingAuthApi;
 import io.enmasse.api.auth.KubeAuthApi;
 import io.enmasse.api.common.CachingSchemaProvider;
+import io.enmasse.api.v1.AddressCache;
 import io.enmasse.k8s.api.AddressSpaceApi;
 import io.enmasse.k8s.api.ConfigMapAddressSpaceApi;
 import io.enmasse.k8s.api.ConfigMapSchemaApi;
@@ -44,7 +46,9 @@ public class ApiServer extends AbstractVerticle {
 
         AddressSpaceApi addressSpaceApi = new ConfigMapAddressSpaceApi(controllerClient);
 
-        AuthApi authApi = new KubeAuthApi(controllerClient, null, controllerClient.getConfiguration().getOauthToken());
+        AddressCache addressCache = new AddressCache(addressSpaceApi, options.getResyncInterval(), options.getAddressCachePendingTimeout());
+
+        AuthApi authApi = new CachingAuthApi(new KubeAuthApi(controllerClient, null, controllerClient.getConfiguration().getOauthToken()), options.getAuthCacheOptions());
 
         UserApi userApi = null;
         if (options.getKeycloakUri() != null) {
@@ -54,7 +58,7 @@ public class ApiServer extends AbstractVerticle {
         }
 
         deployVerticles(startPromise,
-                new Deployment(new HTTPServer(addressSpaceApi, schemaProvider, options.getCertDir(), options.getClientCa(), options.getRequestHeaderClientCa(), authApi, userApi, options.isEnableRbac()), new DeploymentOptions().setWorker(true)));
+                new Deployment(new HTTPServer(addressSpaceApi, schemaProvider, options.getCertDir(), options.getClientCa(), options.getRequestHeaderClientCa(), authApi, userApi, options.isEnableRbac(), addressCache), new DeploymentOptions().setWorker(true)));
     }
 
     private void deployVerticles(Future<Void> startPromise, Deployment ... deployments) {
@@ -4,6 +4,7 @@
  */
 package io.enmasse.api.server;
 
+import io.enmasse.api.auth.AuthCacheOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +25,7 @@ public class ApiServerOptions {
     private String namespace;
     private String certDir;
     private Duration resyncInterval;
+    private Duration addressCachePendingTimeout;
     private String clientCa;
     private String requestHeaderClientCa;
     private boolean enableRbac;
@@ -31,6 +33,7 @@ public class ApiServerOptions {
     private String keycloakAdminUser;
     private String keycloakAdminPassword;
     private KeyStore keycloakTrustStore;
+    private AuthCacheOptions authCacheOptions;
 
     public static ApiServerOptions fromEnv(Map<String, String> env) {
 
@@ -48,6 +51,10 @@ public class ApiServerOptions {
                 .map(i -> Duration.ofSeconds(Long.parseLong(i)))
                 .orElse(Duration.ofMinutes(5)));
 
+        options.setAddressCachePendingTimeout(getEnv(env, "ADDRESS_CACHE_PENDING_TIMEOUT")
+                .map(i -> Duration.ofSeconds(Long.parseLong(i)))
+                .orElse(Duration.ofSeconds(30)));
+
         options.setEnableRbac(Boolean.parseBoolean(getEnv(env, "ENABLE_RBAC").orElse("false")));
 
         getEnv(env, "KEYCLOAK_URI").ifPresent(options::setKeycloakUri);
@@ -56,6 +63,8 @@ public class ApiServerOptions {
         getEnv(env, "KEYCLOAK_URI").ifPresent(options::setKeycloakUri);
         getEnv(env, "KEYCLOAK_CERT").ifPresent(ca -> options.setKeycloakTrustStore(createKeyStore(ca)));
 
+        options.setAuthCacheOptions(AuthCacheOptions.fromEnv(env));
+
         return options;
     }
 
@@ -111,6 +120,14 @@ public class ApiServerOptions {
         this.resyncInterval = resyncInterval;
     }
 
+    public Duration getAddressCachePendingTimeout() {
+        return addressCachePendingTimeout;
+    }
+
+    public void setAddressCachePendingTimeout(Duration addressCachePendingTimeout) {
+        this.addressCachePendingTimeout = addressCachePendingTimeout;
+    }
+
     private void setKeycloakUri(String keycloakUri) {
         this.keycloakUri = keycloakUri;
     }
@@ -167,4 +184,12 @@ public class ApiServerOptions {
     public void setKeycloakTrustStore(KeyStore keycloakTrustStore) {
         this.keycloakTrustStore = keycloakTrustStore;
     }
+
+    public AuthCacheOptions getAuthCacheOptions() {
+        return authCacheOptions;
+    }
+
+    public void setAuthCacheOptions(AuthCacheOptions authCacheOptions) {
+        this.authCacheOptions = authCacheOptions;
+    }
 }
@@ -7,10 +7,14 @@ package io.enmasse.api.server;
 
 import io.enmasse.api.auth.AllowAllAuthInterceptor;
 import io.enmasse.api.auth.AuthApi;
+import io.enmasse.api.auth.AuthCacheMetrics;
 import io.enmasse.api.auth.AuthInterceptor;
+import io.enmasse.api.auth.CachingAuthApi;
 import io.enmasse.api.common.DefaultExceptionMapper;
+import io.enmasse.api.common.HttpMetricsService;
 import io.enmasse.api.common.JacksonConfig;
 import io.enmasse.api.common.SchemaProvider;
+import io.enmasse.api.v1.AddressCache;
 import io.enmasse.api.v1.http.*;
 import io.enmasse.k8s.api.AddressSpaceApi;
 import io.enmasse.user.api.UserApi;
@@ -47,11 +51,16 @@ public class HTTPServer extends AbstractVerticle {
     private final AuthApi authApi;
     private final UserApi userApi;
     private final boolean isRbacEnabled;
+    private final AddressCache addressCache;
 
     private HttpServer httpServer;
     private HttpServer httpsServer;
 
     public HTTPServer(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, String certDir, String clientCa, String requestHeaderClientCa, AuthApi authApi, UserApi userApi, boolean isRbacEnabled) {
+        this(addressSpaceApi, schemaProvider, certDir, clientCa, requestHeaderClientCa, authApi, userApi, isRbacEnabled, null);
+    }
+
+    public HTTPServer(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, String certDir, String clientCa, String requestHeaderClientCa, AuthApi authApi, UserApi userApi, boolean isRbacEnabled, AddressCache addressCache) {
         this.addressSpaceApi = addressSpaceApi;
         this.schemaProvider = schemaProvider;
         this.certDir = certDir;
@@ -60,6 +69,7 @@ public class HTTPServer extends AbstractVerticle {
         this.authApi = authApi;
         this.userApi = userApi;
         this.isRbacEnabled = isRbacEnabled;
+        this.addressCache = addressCache;
     }
 
     @Override
@@ -74,6 +84,7 @@ public class HTTPServer extends AbstractVerticle {
             log.info("Enabling RBAC for REST API");
             deployment.getProviderFactory().registerProviderInstance(new AuthInterceptor(authApi, path ->
                     path.equals(HttpHealthService.BASE_URI) ||
+                            path.equals(HttpMetricsService.BASE_URI) ||
                             path.equals("/swagger.json")));
         } else {
             log.info("Disabling authentication and authorization for REST API");
@@ -82,8 +93,8 @@ public class HTTPServer extends AbstractVerticle {
 
         deployment.getRegistry().addSingletonResource(new SwaggerSpecEndpoint());
         deployment.getRegistry().addSingletonResource(new HttpOpenApiService());
-        deployment.getRegistry().addSingletonResource(new HttpNestedAddressService(addressSpaceApi, schemaProvider));
-        deployment.getRegistry().addSingletonResource(new HttpAddressService(addressSpaceApi, schemaProvider));
+        deployment.getRegistry().addSingletonResource(new HttpNestedAddressService(addressSpaceApi, schemaProvider, addressCache));
+        deployment.getRegistry().addSingletonResource(new HttpAddressService(addressSpaceApi, schemaProvider, addressCache));
         deployment.getRegistry().addSingletonResource(new HttpSchemaService(schemaProvider));
         deployment.getRegistry().addSingletonResource(new HttpAddressSpaceService(addressSpaceApi, schemaProvider));
         if (userApi != null) {
@@ -92,6 +103,10 @@ public class HTTPServer extends AbstractVerticle {
             log.info("User API not available, disabling");
         }
         deployment.getRegistry().addSingletonResource(new HttpHealthService());
+        if (authApi instanceof CachingAuthApi) {
+            AuthCacheMetrics authCacheMetrics = ((CachingAuthApi) authApi).getMetrics();
+            deployment.getRegistry().addSingletonResource(new HttpMetricsService(authCacheMetrics::toPrometheusText));
+        }
         deployment.getRegistry().addSingletonResource(new HttpRootService());
         deployment.getRegistry().addSingletonResource(new HttpApiRootService());
 
@@ -5,11 +5,19 @@
 package io.enmasse.api.v1;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 
 import io.enmasse.address.model.*;
+import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.common.SchemaProvider;
 import io.enmasse.k8s.api.AddressApi;
 import io.enmasse.k8s.api.AddressSpaceApi;
@@ -22,52 +30,113 @@ import org.slf4j.LoggerFactory;
  */
 public class AddressApiHelper {
     private static final Logger log = LoggerFactory.getLogger(AddressApiHelper.class.getName());
+    private static final int BULK_CREATE_PARALLELISM = 8;
     private final AddressSpaceApi addressSpaceApi;
     private final SchemaProvider schemaProvider;
+    private final AddressCache addressCache;
+    private final ExecutorService bulkCreateExecutor;
 
     public AddressApiHelper(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider) {
+        this(addressSpaceApi, schemaProvider, null);
+    }
+
+    /**
+     * @param addressCache cache to serve address reads from, or null to read from Kubernetes
+     */
+    public AddressApiHelper(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, AddressCache addressCache) {
         this.addressSpaceApi = addressSpaceApi;
         this.schemaProvider = schemaProvider;
+        this.addressCache = addressCache;
+        AtomicInteger workerId = new AtomicInteger();
+        this.bulkCreateExecutor = Executors.newFixedThreadPool(BULK_CREATE_PARALLELISM, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-create-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public AddressList getAddresses(String namespace, String addressSpaceId) throws Exception {
         AddressList list = new AddressList();
         if (addressSpaceId == null) {
             for (AddressSpace addressSpace : addressSpaceApi.listAddressSpaces(namespace)) {
-                list.addAll(addressSpaceApi.withAddressSpace(addressSpace).listAddresses(namespace));
+                list.addAll(listAddresses(addressSpace, namespace));
             }
         } else {
             AddressSpace addressSpace = getAddressSpace(namespace, addressSpaceId);
-            list.addAll(addressSpaceApi.withAddressSpace(addressSpace).listAddresses(namespace));
+            list.addAll(listAddresses(addressSpace, namespace));
         }
         return list;
     }
 
+    private Set<Address> listAddresses(AddressSpace addressSpace, String namespace) {
+        if (addressCache != null) {
+            return addressCache.listAddresses(addressSpace, namespace);
+        }
+        return addressSpaceApi.withAddressSpace(addressSpace).listAddresses(namespace);
+    }
+
+    private Set<Address> listAddressesWithLabels(AddressSpace addressSpace, String namespace, Map<String, String> labels) {
+        if (addressCache != null) {
+            return addressCache.listAddressesWithLabels(addressSpace, namespace, labels);
+        }
+        return addressSpaceApi.withAddressSpace(addressSpace).listAddressesWithLabels(namespace, labels);
+    }
+
     public AddressList getAddressesWithLabels(String namespace, String addressSpaceId, Map<String, String> labels) throws Exception {
         AddressList list = new AddressList();
         if (addressSpaceId == null) {
             for (AddressSpace addressSpace : addressSpaceApi.listAddressSpaces(namespace)) {
-                list.addAll(addressSpaceApi.withAddressSpace(addressSpace).listAddressesWithLabels(namespace, labels));
+                list.addAll(listAddressesWithLabels(addressSpace, namespace, labels));
             }
         } else {
             AddressSpace addressSpace = getAddressSpace(namespace, addressSpaceId);
-            list.addAll(addressSpaceApi.withAddressSpace(addressSpace).listAddressesWithLabels(namespace, labels));
+            list.addAll(listAddressesWithLabels(addressSpace, namespace, labels));
         }
         return list;
     }
 
-    private void validateAddress(AddressSpace addressSpace, Address address) {
-        Schema schema = schemaProvider.getSchema();
-        AddressSpaceType type = schema.findAddressSpaceType(addressSpace.getType()).orElseThrow(() -> new UnresolvedAddressSpaceException("Unable to resolve address space type " + addressSpace.getType()));
+    /**
+     * Look up an address by its address rather than by its resource name.
+     */
+    public Optional<Address> getAddressWithAddress(String namespace, String addressSpaceId, String address) throws Exception {
+        if (addressSpaceId == null) {
+            for (AddressSpace addressSpace : addressSpaceApi.listAddressSpaces(namespace)) {
+                Optional<Address> found = getAddressWithAddress(addressSpace, namespace, address);
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+            return Optional.empty();
+        } else {
+            return getAddressWithAddress(getAddressSpace(namespace, addressSpaceId), namespace, address);
+        }
+    }
 
-        AddressResolver addressResolver = new AddressResolver(schema, type);
-        Set<Address> existingAddresses = addressSpaceApi.withAddressSpace(addressSpace).listAddresses(address.getNamespace());
-        addressResolver.validate(address);
-        for (Address existing : existingAddresses) {
-            if (address.getAddress().equals(existing.getAddress()) && !address.getName().equals(existing.getName())) {
-                throw new BadRequestException("Address '" + address.getAddress() + "' already exists with resource name '" + existing.getName() + "'");
+    private Optional<Address> getAddressWithAddress(AddressSpace addressSpace, String namespace, String address) {
+        if (addressCache != null) {
+            return addressCache.getAddressWithAddress(addressSpace, namespace, address);
+        }
+        for (Address existing : addressSpaceApi.withAddressSpace(addressSpace).listAddresses(namespace)) {
+            if (existing.getAddress().equals(address)) {
+                return Optional.of(existing);
             }
         }
+        return Optional.empty();
+    }
+
+    private void validateAddress(AddressSpace addressSpace, Address address) {
+        AddressResolver addressResolver = getAddressResolver(addressSpace);
+        addressResolver.validate(address);
+        Optional<Address> existing = getAddressWithAddress(addressSpace, address.getNamespace(), address.getAddress());
+        if (existing.isPresent() && !address.getName().equals(existing.get().getName())) {
+            throw new BadRequestException("Address '" + address.getAddress() + "' already exists with resource name '" + existing.get().getName() + "'");
+        }
+    }
+
+    private AddressResolver getAddressResolver(AddressSpace addressSpace) {
+        Schema schema = schemaProvider.getSchema();
+        AddressSpaceType type = schema.findAddressSpaceType(addressSpace.getType()).orElseThrow(() -> new UnresolvedAddressSpaceException("Unable to resolve address space type " + addressSpace.getType()));
+        return new AddressResolver(schema, type);
     }
 
     private AddressSpace getAddressSpace(String namespace, String addressSpaceId) throws Exception {
@@ -77,6 +146,9 @@ public class AddressApiHelper {
 
     public Optional<Address> getAddress(String namespace, String addressSpaceId, String address) throws Exception {
         AddressSpace addressSpace = getAddressSpace(namespace, addressSpaceId);
+        if (addressCache != null) {
+            return addressCache.getAddressWithName(addressSpace, namespace, address);
+        }
         return addressSpaceApi.withAddressSpace(addressSpace).getAddressWithName(namespace, address);
     }
 
@@ -85,14 +157,14 @@ public class AddressApiHelper {
         AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
 
         Optional<Address> addressOptional = addressApi.getAddressWithName(namespace, name);
-        return addressOptional.filter(addressApi::deleteAddress).isPresent();
+        return addressOptional.filter(address -> delete(addressSpace, name, () -> addressApi.deleteAddress(address))).isPresent();
     }
 
     public Address createAddress(String addressSpaceId, Address address) throws Exception {
         AddressSpace addressSpace = getAddressSpace(address.getNamespace(), addressSpaceId);
         validateAddress(addressSpace, address);
         AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
-        addressApi.createAddress(address);
+        write(addressSpace, address.getName(), () -> Optional.ofNullable(addressApi.createAddress(address)));
         return address;
     }
 
@@ -100,12 +172,116 @@ public class AddressApiHelper {
         AddressSpace addressSpace = getAddressSpace(address.getNamespace(), addressSpaceId);
         validateAddress(addressSpace, address);
         AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
-        if (!addressApi.replaceAddress(address)) {
+        if (!write(addressSpace, address.getName(), () -> addressApi.replaceAddress(address))) {
             throw new NotFoundException("Address " + address.getName() + " not found");
         }
         return address;
     }
 
+    /**
+     * Create a list of addresses. All addresses are validated against one snapshot of the existing addresses, and the
+     * valid ones are created concurrently. At most BULK_CREATE_PARALLELISM creates are in progress at a time, across
+     * all requests.
+     *
+     * @return the created address or the reason it was not created, for each address in the order of the list
+     */
+    @SuppressWarnings("unchecked")
+    public List<Either<Address, Exception>> createAddresses(String addressSpaceId, String namespace, List<Address> addresses) throws Exception {
+        AddressSpace addressSpace = getAddressSpace(namespace, addressSpaceId);
+        AddressResolver addressResolver = getAddressResolver(addressSpace);
+
+        Map<String, String> namesByAddress = new HashMap<>();
+        for (Address existing : listAddresses(addressSpace, namespace)) {
+            namesByAddress.put(existing.getAddress(), existing.getName());
+        }
+
+        List<Either<Address, Exception>> results = new ArrayList<>(Collections.nCopies(addresses.size(), null));
+        List<Integer> valid = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < addresses.size(); i++) {
+            Address address = addresses.get(i);
+            try {
+                addressResolver.validate(address);
+                if (!names.add(address.getName())) {
+                    throw new BadRequestException("Address resource name '" + address.getName() + "' is given more than once");
+                }
+                String existingName = namesByAddress.putIfAbsent(address.getAddress(), address.getName());
+                if (existingName != null && !existingName.equals(address.getName())) {
+                    throw new BadRequestException("Address '" + address.getAddress() + "' already exists with resource name '" + existingName + "'");
+                }
+                valid.add(i);
+            } catch (Exception e) {
+                results.set(i, Either.createRight(e));
+            }
+        }
+
+        if (valid.isEmpty()) {
+            return results;
+        }
+
+        AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i : valid) {
+            Address address = addresses.get(i);
+            futures.add(bulkCreateExecutor.submit(() -> write(addressSpace, address.getName(), () -> Optional.ofNullable(addressApi.createAddress(address)))));
+        }
+        for (int j = 0; j < valid.size(); j++) {
+            int i = valid.get(j);
+            try {
+                futures.get(j).get();
+                results.set(i, Either.createLeft(addresses.get(i)));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                results.set(i, Either.createRight(cause instanceof Exception ? (Exception) cause : e));
+            }
+        }
+        log.info("Created {} of {} addresses in address space {}", results.stream().filter(Either::isLeft).count(), addresses.size(), addressSpaceId);
+        return results;
+    }
+
+    /**
+     * Perform a create or replace, keeping cached reads of the address away from the store until the watch has seen
+     * the written resource version.
+     *
+     * @param write performs the write and returns the written resource version, or empty if nothing was written
+     */
+    private boolean write(AddressSpace addressSpace, String name, Supplier<Optional<String>> write) {
+        if (addressCache == null) {
+            return write.get().isPresent();
+        }
+        addressCache.writePending(addressSpace, name);
+        Optional<String> resourceVersion = Optional.empty();
+        try {
+            resourceVersion = write.get();
+            return resourceVersion.isPresent();
+        } finally {
+            if (resourceVersion.isPresent()) {
+                addressCache.writeCompleted(addressSpace, name, resourceVersion.get());
+            } else {
+                addressCache.writeFailed(addressSpace, name);
+            }
+        }
+    }
+
+    /**
+     * Perform a delete, keeping cached reads of the address away from the store until the watch has seen the deletion.
+     */
+    private boolean delete(AddressSpace addressSpace, String name, BooleanSupplier delete) {
+        if (addressCache == null) {
+            return delete.getAsBoolean();
+        }
+        addressCache.writePending(addressSpace, name);
+        boolean deleted = false;
+        try {
+            deleted = delete.getAsBoolean();
+            return deleted;
+        } finally {
+            if (!deleted) {
+                addressCache.writeFailed(addressSpace, name);
+            }
+        }
+    }
+
     public static Map<String,String> parseLabelSelector(String labelSelector) {
         Map<String, String> labels = new HashMap<>();
         String [] pairs = labelSelector.split(",");
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.v1;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.k8s.api.AddressApi;
+import io.enmasse.k8s.api.AddressSpaceApi;
+import io.enmasse.k8s.api.Watch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Serves address reads from watch-fed {@link AddressStore}s, one per address space. A store is started on the first
+ * read of its address space and stopped when the address space has not been read for the idle timeout. Until a store
+ * has synced, and while it has writes pending, reads go to Kubernetes.
+ */
+public class AddressCache implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AddressCache.class.getName());
+
+    private final AddressSpaceApi addressSpaceApi;
+    private final Duration resyncInterval;
+    private final Duration pendingTimeout;
+    private final Duration idleTimeout;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public AddressCache(AddressSpaceApi addressSpaceApi, Duration resyncInterval, Duration pendingTimeout) {
+        this(addressSpaceApi, resyncInterval, pendingTimeout, Duration.ofMinutes(10), Clock.systemUTC());
+    }
+
+    public AddressCache(AddressSpaceApi addressSpaceApi, Duration resyncInterval, Duration pendingTimeout, Duration idleTimeout, Clock clock) {
+        this.addressSpaceApi = addressSpaceApi;
+        this.resyncInterval = resyncInterval;
+        this.pendingTimeout = pendingTimeout;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+    }
+
+    public Set<Address> listAddresses(AddressSpace addressSpace, String namespace) {
+        AddressStore store = getStore(addressSpace);
+        if (store.isCurrent()) {
+            return store.listAddresses(namespace);
+        }
+        return addressSpaceApi.withAddressSpace(addressSpace).listAddresses(namespace);
+    }
+
+    public Set<Address> listAddressesWithLabels(AddressSpace addressSpace, String namespace, Map<String, String> labels) {
+        AddressStore store = getStore(addressSpace);
+        if (store.isCurrent()) {
+            return store.listAddressesWithLabels(namespace, labels);
+        }
+        return addressSpaceApi.withAddressSpace(addressSpace).listAddressesWithLabels(namespace, labels);
+    }
+
+    public Optional<Address> getAddressWithName(AddressSpace addressSpace, String namespace, String name) {
+        AddressStore store = getStore(addressSpace);
+        if (store.isCurrent(name)) {
+            return store.getAddressWithName(namespace, name);
+        }
+        return addressSpaceApi.withAddressSpace(addressSpace).getAddressWithName(namespace, name);
+    }
+
+    public Optional<Address> getAddressWithAddress(AddressSpace addressSpace, String namespace, String address) {
+        AddressStore store = getStore(addressSpace);
+        if (store.isCurrent()) {
+            return store.getAddressWithAddress(namespace, address);
+        }
+        for (Address existing : addressSpaceApi.withAddressSpace(addressSpace).listAddresses(namespace)) {
+            if (existing.getAddress().equals(address)) {
+                return Optional.of(existing);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Mark an address as being written, so that reads go to Kubernetes until the watch has seen the change.
+     */
+    public void writePending(AddressSpace addressSpace, String name) {
+        getStore(addressSpace).writePending(name);
+    }
+
+    /**
+     * Record the resource version written for an address, so that its reads return to the store once the watch has
+     * seen that version.
+     */
+    public void writeCompleted(AddressSpace addressSpace, String name, String resourceVersion) {
+        getStore(addressSpace).writeCompleted(name, resourceVersion);
+    }
+
+    public void writeFailed(AddressSpace addressSpace, String name) {
+        getStore(addressSpace).writeFailed(name);
+    }
+
+    private synchronized AddressStore getStore(AddressSpace addressSpace) {
+        Instant now = clock.instant();
+        expireIdle(now);
+
+        String key = addressSpace.getNamespace() + "/" + addressSpace.getName();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            AddressStore store = new AddressStore(clock, pendingTimeout);
+            AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
+            Watch watch = null;
+            try {
+                watch = addressApi.watchAddressDeltas(store, resyncInterval);
+                log.info("Started address store for address space {}", key);
+            } catch (Exception e) {
+                log.warn("Error watching addresses of address space {}, reading from Kubernetes", key, e);
+            }
+            entry = new Entry(store, watch);
+            entries.put(key, entry);
+        }
+        entry.lastAccess = now;
+        return entry.store;
+    }
+
+    private void expireIdle(Instant now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (!now.isBefore(entry.getValue().lastAccess.plus(idleTimeout))) {
+                log.info("Stopping idle address store for address space {}", entry.getKey());
+                entry.getValue().close();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of address spaces with a running store
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Entry entry : entries.values()) {
+            entry.close();
+        }
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final AddressStore store;
+        private final Watch watch;
+        private Instant lastAccess;
+
+        private Entry(AddressStore store, Watch watch) {
+            this.store = store;
+            this.watch = watch;
+        }
+
+        private void close() {
+            if (watch != null) {
+                try {
+                    watch.close();
+                } catch (Exception e) {
+                    log.warn("Error stopping address watch", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.v1;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.k8s.api.Delta;
+import io.enmasse.k8s.api.DeltaWatcher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * In-memory copy of the addresses of an address space, kept up to date by a watch and indexed by name, address and
+ * labels.
+ *
+ * Addresses written through the API server are marked as pending until the watch has seen the change, so that a
+ * client reading its own writes is not served an outdated copy. Reads touching pending addresses should go to
+ * Kubernetes instead. A created or replaced address stays pending until the watch reports the resource version that
+ * was written, or a newer one, so that changes made by others while the write is in flight do not clear it.
+ */
+public class AddressStore implements DeltaWatcher<Address> {
+    private final Clock clock;
+    private final Duration pendingTimeout;
+
+    private final Map<String, Address> byName = new HashMap<>();
+    private final Map<String, String> byAddress = new HashMap<>();
+    private final Map<String, Set<String>> byLabel = new HashMap<>();
+    private final Map<String, PendingWrite> pending = new HashMap<>();
+    private boolean synced = false;
+
+    public AddressStore(Clock clock, Duration pendingTimeout) {
+        this.clock = clock;
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    @Override
+    public synchronized void onUpdate(Delta<Address> delta) {
+        if (!synced) {
+            byName.clear();
+            byAddress.clear();
+            byLabel.clear();
+            for (Address address : delta.getItems()) {
+                put(address);
+                clearIfWritten(address);
+            }
+            synced = true;
+            return;
+        }
+
+        for (Address address : delta.getDeleted()) {
+            remove(address.getName());
+            pending.remove(address.getName());
+        }
+        for (Address address : delta.getAdded()) {
+            put(address);
+            clearIfWritten(address);
+        }
+        for (Address address : delta.getModified()) {
+            put(address);
+            clearIfWritten(address);
+        }
+    }
+
+    private void clearIfWritten(Address address) {
+        PendingWrite write = pending.get(address.getName());
+        if (write != null && write.resourceVersion != null && isAtLeast(address.getResourceVersion(), write.resourceVersion)) {
+            pending.remove(address.getName());
+        }
+    }
+
+    /**
+     * Resource versions are opaque, but are increasing numbers in practice. Versions that can't be compared only
+     * match when equal, leaving the pending timeout to clear the write otherwise.
+     */
+    private static boolean isAtLeast(String resourceVersion, String written) {
+        if (resourceVersion == null) {
+            return false;
+        }
+        if (resourceVersion.equals(written)) {
+            return true;
+        }
+        try {
+            return Long.parseLong(resourceVersion) >= Long.parseLong(written);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void put(Address address) {
+        remove(address.getName());
+        byName.put(address.getName(), address);
+        byAddress.put(addressKey(address.getNamespace(), address.getAddress()), address.getName());
+        for (Map.Entry<String, String> label : address.getLabels().entrySet()) {
+            byLabel.computeIfAbsent(labelKey(label.getKey(), label.getValue()), k -> new HashSet<>()).add(address.getName());
+        }
+    }
+
+    private void remove(String name) {
+        Address previous = byName.remove(name);
+        if (previous == null) {
+            return;
+        }
+        byAddress.remove(addressKey(previous.getNamespace(), previous.getAddress()), name);
+        for (Map.Entry<String, String> label : previous.getLabels().entrySet()) {
+            String key = labelKey(label.getKey(), label.getValue());
+            Set<String> names = byLabel.get(key);
+            if (names != null) {
+                names.remove(name);
+                if (names.isEmpty()) {
+                    byLabel.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String addressKey(String namespace, String address) {
+        return namespace + "/" + address;
+    }
+
+    private static String labelKey(String key, String value) {
+        return key + "=" + value;
+    }
+
+    /**
+     * Mark an address as being written, until the watch reports the written change or the pending timeout expires.
+     * A pending delete is cleared when the watch reports the address deleted.
+     */
+    public synchronized void writePending(String name) {
+        pending.put(name, new PendingWrite(clock.instant().plus(pendingTimeout)));
+    }
+
+    /**
+     * Record the resource version written for a pending address. The address stays pending until the watch reports
+     * that version or a newer one.
+     */
+    public synchronized void writeCompleted(String name, String resourceVersion) {
+        PendingWrite write = pending.get(name);
+        if (write == null || resourceVersion == null) {
+            return;
+        }
+        write.resourceVersion = resourceVersion;
+        Address current = byName.get(name);
+        if (current != null) {
+            clearIfWritten(current);
+        }
+    }
+
+    /**
+     * Clear the pending mark of an address whose write did not go through.
+     */
+    public synchronized void writeFailed(String name) {
+        pending.remove(name);
+    }
+
+    public synchronized boolean hasSynced() {
+        return synced;
+    }
+
+    /**
+     * @return true if all addresses may be read from the store
+     */
+    public synchronized boolean isCurrent() {
+        if (!synced) {
+            return false;
+        }
+        Instant now = clock.instant();
+        pending.values().removeIf(write -> !now.isBefore(write.deadline));
+        return pending.isEmpty();
+    }
+
+    /**
+     * @return true if the address with the given name may be read from the store
+     */
+    public synchronized boolean isCurrent(String name) {
+        if (!synced) {
+            return false;
+        }
+        PendingWrite write = pending.get(name);
+        if (write != null && clock.instant().isBefore(write.deadline)) {
+            return false;
+        }
+        pending.remove(name);
+        return true;
+    }
+
+    public synchronized int size() {
+        return byName.size();
+    }
+
+    public synchronized Set<Address> listAddresses(String namespace) {
+        Set<Address> addresses = new LinkedHashSet<>();
+        for (Address address : byName.values()) {
+            if (namespace.equals(address.getNamespace())) {
+                addresses.add(address);
+            }
+        }
+        return addresses;
+    }
+
+    public synchronized Set<Address> listAddressesWithLabels(String namespace, Map<String, String> labels) {
+        if (labels.isEmpty()) {
+            return listAddresses(namespace);
+        }
+
+        // Start from the label matching the fewest addresses and check the remaining labels on each candidate
+        Set<String> candidates = null;
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            Set<String> names = byLabel.getOrDefault(labelKey(label.getKey(), label.getValue()), Collections.emptySet());
+            if (candidates == null || names.size() < candidates.size()) {
+                candidates = names;
+            }
+        }
+
+        Set<Address> addresses = new LinkedHashSet<>();
+        for (String name : candidates) {
+            Address address = byName.get(name);
+            if (namespace.equals(address.getNamespace()) && address.getLabels().entrySet().containsAll(labels.entrySet())) {
+                addresses.add(address);
+            }
+        }
+        return addresses;
+    }
+
+    public synchronized Optional<Address> getAddressWithName(String namespace, String name) {
+        return Optional.ofNullable(byName.get(name))
+                .filter(address -> namespace.equals(address.getNamespace()));
+    }
+
+    public synchronized Optional<Address> getAddressWithAddress(String namespace, String address) {
+        return Optional.ofNullable(byAddress.get(addressKey(namespace, address)))
+                .map(byName::get);
+    }
+
+    private static class PendingWrite {
+        private final Instant deadline;
+        private String resourceVersion;
+
+        private PendingWrite(Instant deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
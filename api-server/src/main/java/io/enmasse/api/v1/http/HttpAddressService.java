@@ -8,6 +8,7 @@ import io.enmasse.address.model.Address;
 import io.enmasse.address.model.AddressList;
 import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.common.SchemaProvider;
+import io.enmasse.api.v1.AddressCache;
 import io.enmasse.api.common.UnprocessableEntityException;
 import io.enmasse.k8s.api.AddressSpaceApi;
 
@@ -24,6 +25,10 @@ public class HttpAddressService extends HttpAddressServiceBase {
         super(addressSpaceApi, schemaProvider);
     }
 
+    public HttpAddressService(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, AddressCache addressCache) {
+        super(addressSpaceApi, schemaProvider, addressCache);
+    }
+
     private static String parseAddressSpace(String addressName) {
         String [] parts = addressName.split("\\.");
         if (parts.length < 2) {
@@ -35,17 +40,17 @@ public class HttpAddressService extends HttpAddressServiceBase {
     @GET
     @Produces({MediaType.APPLICATION_JSON})
     @Consumes({MediaType.APPLICATION_JSON})
-    public Response getAddressList(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @QueryParam("address") String address, @QueryParam("labelSelector") String labelSelector) throws Exception {
-        return super.getAddressList(securityContext, namespace, null, address, labelSelector);
+    public Response getAddressList(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @QueryParam("address") String address, @QueryParam("labelSelector") String labelSelector, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+        return super.getAddressList(securityContext, namespace, null, address, labelSelector, ifNoneMatch);
     }
 
     @GET
     @Produces({MediaType.APPLICATION_JSON})
     @Consumes({MediaType.APPLICATION_JSON})
     @Path("{addressName}")
-    public Response getAddress(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @PathParam("addressName") String addressName) throws Exception {
+    public Response getAddress(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @PathParam("addressName") String addressName, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
         String addressSpace = parseAddressSpace(addressName);
-        return super.getAddress(securityContext, namespace, addressSpace, addressName);
+        return super.getAddress(securityContext, namespace, addressSpace, addressName, ifNoneMatch);
     }
 
     @POST
@@ -9,9 +9,14 @@ import io.enmasse.address.model.AddressList;
 import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.auth.RbacSecurityContext;
 import io.enmasse.api.auth.ResourceVerb;
+import io.enmasse.api.common.DefaultExceptionMapper;
+import io.enmasse.api.common.ErrorResponse;
 import io.enmasse.api.common.Exceptions;
 import io.enmasse.api.common.SchemaProvider;
 import io.enmasse.api.v1.AddressApiHelper;
+import io.enmasse.api.v1.AddressCache;
+import io.enmasse.api.v1.types.BulkItemStatus;
+import io.enmasse.api.v1.types.BulkStatus;
 import io.enmasse.config.LabelKeys;
 import io.enmasse.k8s.api.AddressSpaceApi;
 import org.slf4j.Logger;
@@ -19,6 +24,10 @@ import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -27,10 +36,16 @@ import java.util.concurrent.Callable;
  */
 public class HttpAddressServiceBase {
     private static final Logger log = LoggerFactory.getLogger(HttpAddressServiceBase.class.getName());
+    private static final int MULTI_STATUS = 207;
     private final AddressApiHelper apiHelper;
+    private final DefaultExceptionMapper exceptionMapper = new DefaultExceptionMapper();
 
     public HttpAddressServiceBase(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider) {
-        this.apiHelper = new AddressApiHelper(addressSpaceApi, schemaProvider);
+        this(addressSpaceApi, schemaProvider, null);
+    }
+
+    public HttpAddressServiceBase(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, AddressCache addressCache) {
+        this.apiHelper = new AddressApiHelper(addressSpaceApi, schemaProvider, addressCache);
     }
 
     private Response doRequest(String errorMessage, Callable<Response> request) throws Exception {
@@ -48,48 +63,129 @@ public class HttpAddressServiceBase {
         }
     }
 
-    Response getAddressList(SecurityContext securityContext, String namespace, String addressSpace, String address, String labelSelector) throws Exception {
+    Response getAddressList(SecurityContext securityContext, String namespace, String addressSpace, String address, String labelSelector, String ifNoneMatch) throws Exception {
         return doRequest("Error listing addresses",() -> {
             verifyAuthorized(securityContext, namespace, ResourceVerb.list);
             if (address == null) {
                 if (labelSelector != null) {
                     Map<String, String> labels = AddressApiHelper.parseLabelSelector(labelSelector);
                     AddressList list = apiHelper.getAddressesWithLabels(namespace, addressSpace, labels);
-                    return Response.ok(list).build();
+                    return conditionalResponse(list, list, ifNoneMatch);
                 } else {
                     AddressList list = apiHelper.getAddresses(namespace, addressSpace);
-                    return Response.ok(list).build();
+                    return conditionalResponse(list, list, ifNoneMatch);
                 }
             } else {
-                AddressList list = apiHelper.getAddresses(namespace, addressSpace);
-                for (Address entity : list) {
-                    if (entity.getAddress().equals(address)) {
-                        return Response.ok(entity).build();
-                    }
-                }
-                throw new NotFoundException("Address " + address + " not found");
+                Address entity = apiHelper.getAddressWithAddress(namespace, addressSpace, address)
+                        .orElseThrow(() -> new NotFoundException("Address " + address + " not found"));
+                return conditionalResponse(entity, Collections.singleton(entity), ifNoneMatch);
             }
         });
     }
 
-    Response getAddress(SecurityContext securityContext, String namespace, String addressSpace, String address) throws Exception {
+    Response getAddress(SecurityContext securityContext, String namespace, String addressSpace, String address, String ifNoneMatch) throws Exception {
         return doRequest("Error getting address", () -> {
             verifyAuthorized(securityContext, namespace, ResourceVerb.list);
-            return Response.ok(apiHelper.getAddress(namespace, addressSpace, address)
-                    .orElseThrow(() -> Exceptions.notFoundException("Address " + address + " not found")))
-                    .build();
+            Address entity = apiHelper.getAddress(namespace, addressSpace, address)
+                    .orElseThrow(() -> Exceptions.notFoundException("Address " + address + " not found"));
+            return conditionalResponse(entity, Collections.singleton(entity), ifNoneMatch);
         });
     }
 
+    /**
+     * Respond with the entity tagged by the resource versions of the addresses in it, or with 304 Not Modified if
+     * the client already has the same version.
+     */
+    private static Response conditionalResponse(Object entity, Collection<Address> addresses, String ifNoneMatch) {
+        EntityTag tag = entityTag(addresses);
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, tag)) {
+            return Response.notModified(tag).build();
+        }
+        return Response.ok(entity).tag(tag).build();
+    }
+
+    /**
+     * Compute a weak entity tag from the names and resource versions of the addresses. The tag does not depend on
+     * the order of the addresses, so it is stable across API server instances.
+     */
+    static EntityTag entityTag(Collection<Address> addresses) {
+        long hash = 0;
+        for (Address address : addresses) {
+            hash += fnv1a(address.getName(), address.getResourceVersion());
+        }
+        return new EntityTag(Long.toHexString(hash) + "-" + addresses.size(), true);
+    }
+
+    private static long fnv1a(String name, String resourceVersion) {
+        long hash = 0xcbf29ce484222325L;
+        String value = name + "/" + (resourceVersion == null ? "" : resourceVersion);
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Check If-None-Match header values using weak comparison.
+     */
+    static boolean matchesAny(String ifNoneMatch, EntityTag tag) {
+        for (String value : ifNoneMatch.split(",")) {
+            value = value.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("\"" + tag.getValue() + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     Response createAddress(SecurityContext securityContext, UriInfo uriInfo, String namespace, String addressSpace, Either<Address, AddressList> payload) throws Exception {
         if (payload.isLeft()) {
             return createAddress(securityContext, uriInfo, namespace, addressSpace, payload.getLeft());
         } else {
-            for (Address address : payload.getRight()) {
-                createAddress(securityContext, uriInfo, namespace, addressSpace, address);
-            }
-            return Response.created(uriInfo.getAbsolutePathBuilder().build()).build();
+            return createAddresses(securityContext, uriInfo, namespace, addressSpace, payload.getRight());
+        }
+    }
+
+    /**
+     * Create all addresses of a list in one go. Responds with 201 Created if all addresses were created, and with
+     * 207 Multi-Status otherwise. In both cases, the response lists the outcome for each address.
+     */
+    private Response createAddresses(SecurityContext securityContext, UriInfo uriInfo, String namespace, String addressSpace, AddressList addressList) throws Exception {
+        List<Address> addresses = new ArrayList<>();
+        for (Address address : addressList) {
+            checkRequestBodyNotNull(address);
+            addresses.add(setAddressDefaults(namespace, addressSpace, address));
         }
+        return doRequest("Error creating addresses", () -> {
+            verifyAuthorized(securityContext, namespace, ResourceVerb.create);
+            List<Either<Address, Exception>> results = apiHelper.createAddresses(addressSpace, namespace, addresses);
+
+            List<BulkItemStatus> items = new ArrayList<>();
+            boolean allCreated = true;
+            for (int i = 0; i < addresses.size(); i++) {
+                Address address = addresses.get(i);
+                Either<Address, Exception> result = results.get(i);
+                if (result.isLeft()) {
+                    items.add(new BulkItemStatus(address.getName(), address.getAddress(), Response.Status.CREATED.getStatusCode(), Response.Status.CREATED.getReasonPhrase(), null));
+                } else {
+                    ErrorResponse error = (ErrorResponse) exceptionMapper.toResponse(result.getRight()).getEntity();
+                    items.add(new BulkItemStatus(address.getName(), address.getAddress(), error.getStatusCode(), error.getReason(), error.getMessage()));
+                    allCreated = false;
+                }
+            }
+            int code = allCreated ? Response.Status.CREATED.getStatusCode() : MULTI_STATUS;
+            return Response.status(code)
+                    .location(uriInfo.getAbsolutePathBuilder().build())
+                    .entity(new BulkStatus(code, items))
+                    .build();
+        });
     }
 
     private Response createAddress(SecurityContext securityContext, UriInfo uriInfo, String namespace, String addressSpace, Address address) throws Exception {
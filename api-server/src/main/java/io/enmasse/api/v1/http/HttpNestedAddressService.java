@@ -8,6 +8,7 @@ import io.enmasse.address.model.Address;
 import io.enmasse.address.model.AddressList;
 import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.common.SchemaProvider;
+import io.enmasse.api.v1.AddressCache;
 import io.enmasse.k8s.api.AddressSpaceApi;
 
 import javax.validation.constraints.NotNull;
@@ -23,19 +24,23 @@ public class HttpNestedAddressService extends HttpAddressServiceBase {
         super(addressSpaceApi, schemaProvider);
     }
 
+    public HttpNestedAddressService(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, AddressCache addressCache) {
+        super(addressSpaceApi, schemaProvider, addressCache);
+    }
+
     @GET
     @Produces({MediaType.APPLICATION_JSON})
     @Consumes({MediaType.APPLICATION_JSON})
-    public Response getAddressList(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @PathParam("addressSpace") String addressSpace, @QueryParam("address") String address, @QueryParam("labelSelector") String labelSelector) throws Exception {
-        return super.getAddressList(securityContext, namespace, addressSpace, address, labelSelector);
+    public Response getAddressList(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @PathParam("addressSpace") String addressSpace, @QueryParam("address") String address, @QueryParam("labelSelector") String labelSelector, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+        return super.getAddressList(securityContext, namespace, addressSpace, address, labelSelector, ifNoneMatch);
     }
 
     @GET
     @Produces({MediaType.APPLICATION_JSON})
     @Consumes({MediaType.APPLICATION_JSON})
     @Path("{addressName}")
-    public Response getAddress(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @PathParam("addressSpace") String addressSpace, @PathParam("addressName") String address) throws Exception {
-        return super.getAddress(securityContext, namespace, addressSpace, address);
+    public Response getAddress(@Context SecurityContext securityContext, @PathParam("namespace") String namespace, @PathParam("addressSpace") String addressSpace, @PathParam("addressName") String address, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+        return super.getAddress(securityContext, namespace, addressSpace, address, ifNoneMatch);
     }
 
     @POST
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.v1.types;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome of one item of a bulk request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemStatus {
+    @JsonProperty("name")
+    private final String name;
+
+    @JsonProperty("address")
+    private final String address;
+
+    @JsonProperty("code")
+    private final int code;
+
+    @JsonProperty("reason")
+    private final String reason;
+
+    @JsonProperty("message")
+    private final String message;
+
+    public BulkItemStatus(String name, String address, int code, String reason, String message) {
+        this.name = name;
+        this.address = address;
+        this.code = code;
+        this.reason = reason;
+        this.message = message;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.v1.types;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Result of a bulk request, with the outcome of each item in the order of the request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "apiVersion",
+        "kind"
+})
+public class BulkStatus {
+    @JsonProperty("apiVersion")
+    private final String apiVersion = "v1";
+
+    @JsonProperty("kind")
+    private final String kind = "BulkStatus";
+
+    @JsonProperty("status")
+    private final String status;
+
+    @JsonProperty("code")
+    private final int code;
+
+    @JsonProperty("items")
+    private final List<BulkItemStatus> items;
+
+    public BulkStatus(int code, List<BulkItemStatus> items) {
+        this.status = items.stream().allMatch(item -> item.getCode() / 100 == 2) ? "Success" : "Failure";
+        this.code = code;
+        this.items = items;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public List<BulkItemStatus> getItems() {
+        return items;
+    }
+}
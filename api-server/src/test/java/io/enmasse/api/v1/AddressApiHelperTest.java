@@ -7,22 +7,29 @@ package io.enmasse.api.v1;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import io.enmasse.address.model.Address;
 import io.enmasse.address.model.AddressSpace;
+import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.server.TestSchemaProvider;
 import io.enmasse.k8s.api.AddressApi;
 import io.enmasse.k8s.api.AddressSpaceApi;
@@ -72,7 +79,7 @@ public class AddressApiHelperTest {
 
     @Test
     public void testReplaceAddress() throws Exception {
-        when(addressApi.replaceAddress(any())).thenReturn(true);
+        when(addressApi.replaceAddress(any())).thenReturn(Optional.of("2"));
 
         helper.replaceAddress("test", createAddress("q1"));
         verify(addressApi).replaceAddress(eq(createAddress("q1")));
@@ -80,7 +87,7 @@ public class AddressApiHelperTest {
 
     @Test
     public void testReplaceAddressNotFound() throws Exception {
-        when(addressApi.replaceAddress(any())).thenReturn(false);
+        when(addressApi.replaceAddress(any())).thenReturn(Optional.empty());
         expectedException.expect(NotFoundException.class);
         expectedException.expectMessage("Address q1 not found");
 
@@ -93,7 +100,7 @@ public class AddressApiHelperTest {
         addresses.add(createAddress("q1", "q1"));
         addresses.add(createAddress("q2", "q2"));
         when(addressApi.listAddresses(any())).thenReturn(addresses);
-        when(addressApi.replaceAddress(any())).thenReturn(true);
+        when(addressApi.replaceAddress(any())).thenReturn(Optional.of("2"));
         expectedException.expect(BadRequestException.class);
         expectedException.expectMessage("Address 'q2' already exists with resource name 'q2'");
 
@@ -136,6 +143,32 @@ public class AddressApiHelperTest {
         }
     }
 
+    @Test
+    public void testCreateAddresses() throws Exception {
+        when(addressApi.listAddresses(any())).thenReturn(Sets.newSet(createAddress("q1")));
+        doThrow(new RuntimeException("create failed")).when(addressApi).createAddress(eq(createAddress("q5")));
+
+        List<Address> addresses = Arrays.asList(
+                createAddress("q2"),
+                createAddress("q3", "q1"),
+                createAddress("q4"),
+                createAddress("q2", "q6"),
+                createAddress("q5"));
+        List<Either<Address, Exception>> results = helper.createAddresses("test", "ns", addresses);
+
+        assertThat(results.size(), is(5));
+        assertTrue(results.get(0).isLeft());
+        assertThat(results.get(1).getRight().getMessage(), is("Address 'q1' already exists with resource name 'q1'"));
+        assertTrue(results.get(2).isLeft());
+        assertThat(results.get(3).getRight().getMessage(), is("Address resource name 'q2' is given more than once"));
+        assertThat(results.get(4).getRight().getMessage(), is("create failed"));
+
+        verify(addressApi, times(1)).listAddresses(any());
+        verify(addressApi).createAddress(eq(createAddress("q2")));
+        verify(addressApi).createAddress(eq(createAddress("q4")));
+        verify(addressApi, never()).createAddress(eq(createAddress("q3", "q1")));
+    }
+
     @Test
     public void testParseLabelSelector() throws Exception {
         Map<String, String> labels = AddressApiHelper.parseLabelSelector("key=value");
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.v1;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.k8s.api.AddressApi;
+import io.enmasse.k8s.api.AddressSpaceApi;
+import io.enmasse.k8s.api.Delta;
+import io.enmasse.k8s.api.DeltaWatcher;
+import io.enmasse.k8s.api.Watch;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AddressCacheTest {
+    private AddressApi addressApi;
+    private Watch watch;
+    private Clock clock;
+    private AddressSpace addressSpace;
+    private AddressCache cache;
+    private DeltaWatcher<Address> watcher;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        addressSpace = new AddressSpace.Builder()
+                .setName("myspace")
+                .setNamespace("ns")
+                .setType("type1")
+                .setPlan("myplan")
+                .build();
+        AddressSpaceApi addressSpaceApi = mock(AddressSpaceApi.class);
+        addressApi = mock(AddressApi.class);
+        watch = mock(Watch.class);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(1000));
+        when(addressSpaceApi.withAddressSpace(eq(addressSpace))).thenReturn(addressApi);
+        when(addressApi.watchAddressDeltas(any(), any())).thenAnswer(invocation -> {
+            watcher = invocation.getArgument(0);
+            return watch;
+        });
+        cache = new AddressCache(addressSpaceApi, Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofMinutes(10), clock);
+    }
+
+    @Test
+    public void testReadsFromApiUntilSynced() throws Exception {
+        Address q1 = createAddress("myspace.q1", "q1", "1");
+        when(addressApi.listAddresses(eq("ns"))).thenReturn(Collections.singleton(q1));
+
+        assertThat(cache.listAddresses(addressSpace, "ns"), is(Collections.singleton(q1)));
+        verify(addressApi).listAddresses(eq("ns"));
+
+        sync(q1);
+        assertThat(cache.listAddresses(addressSpace, "ns"), is(Collections.singleton(q1)));
+        verify(addressApi, times(1)).listAddresses(eq("ns"));
+        verify(addressApi, times(1)).watchAddressDeltas(any(), any());
+    }
+
+    @Test
+    public void testIndexes() throws Exception {
+        Address q1 = createAddress("myspace.q1", "q1", "1");
+        Address q2 = createAddress("myspace.q2", "q2", "1");
+        q2.putLabel("tier", "gold");
+        cache.listAddresses(addressSpace, "ns");
+        sync(q1, q2);
+
+        assertThat(cache.getAddressWithName(addressSpace, "ns", "myspace.q2"), is(Optional.of(q2)));
+        assertThat(cache.getAddressWithName(addressSpace, "other", "myspace.q2"), is(Optional.empty()));
+        assertThat(cache.getAddressWithAddress(addressSpace, "ns", "q1"), is(Optional.of(q1)));
+        assertThat(cache.listAddressesWithLabels(addressSpace, "ns", Collections.singletonMap("tier", "gold")), is(Collections.singleton(q2)));
+        assertTrue(cache.listAddressesWithLabels(addressSpace, "ns", Collections.singletonMap("tier", "silver")).isEmpty());
+
+        // Changing the address of a resource moves it in the address index
+        Address q2Moved = createAddress("myspace.q2", "q3", "2");
+        watcher.onUpdate(new Delta<>(Collections.emptySet(), Collections.singleton(q2Moved), Collections.emptySet(), new HashSet<>(Arrays.asList(q1, q2Moved))));
+        assertThat(cache.getAddressWithAddress(addressSpace, "ns", "q2"), is(Optional.empty()));
+        assertThat(cache.getAddressWithAddress(addressSpace, "ns", "q3"), is(Optional.of(q2Moved)));
+        assertTrue(cache.listAddressesWithLabels(addressSpace, "ns", Collections.singletonMap("tier", "gold")).isEmpty());
+
+        watcher.onUpdate(new Delta<>(Collections.emptySet(), Collections.emptySet(), Collections.singleton(q1), Collections.singleton(q2Moved)));
+        assertThat(cache.listAddresses(addressSpace, "ns"), is(Collections.singleton(q2Moved)));
+
+        // Only the read starting the store went to the API
+        verify(addressApi, times(1)).listAddresses(any());
+        verify(addressApi, never()).getAddressWithName(any(), any());
+    }
+
+    @Test
+    public void testPendingWrite() throws Exception {
+        Address q1 = createAddress("myspace.q1", "q1", "1");
+        Address q2 = createAddress("myspace.q2", "q2", "2");
+        cache.listAddresses(addressSpace, "ns");
+        sync(q1);
+        verify(addressApi, times(1)).listAddresses(eq("ns"));
+
+        cache.writePending(addressSpace, "myspace.q2");
+        when(addressApi.listAddresses(eq("ns"))).thenReturn(new HashSet<>(Arrays.asList(q1, q2)));
+        assertThat(cache.listAddresses(addressSpace, "ns").size(), is(2));
+        verify(addressApi, times(2)).listAddresses(eq("ns"));
+        assertThat(cache.getAddressWithName(addressSpace, "ns", "myspace.q1"), is(Optional.of(q1)));
+        verify(addressApi, never()).getAddressWithName(any(), any());
+
+        // The write has completed, but the watch has not seen it yet
+        cache.writeCompleted(addressSpace, "myspace.q2", "2");
+        assertThat(cache.listAddresses(addressSpace, "ns").size(), is(2));
+        verify(addressApi, times(3)).listAddresses(eq("ns"));
+
+        watcher.onUpdate(new Delta<>(Collections.singleton(q2), Collections.emptySet(), Collections.emptySet(), new HashSet<>(Arrays.asList(q1, q2))));
+        assertThat(cache.listAddresses(addressSpace, "ns").size(), is(2));
+        verify(addressApi, times(3)).listAddresses(eq("ns"));
+
+        // A write that is never seen by the watch stops blocking the store after the pending timeout
+        cache.writePending(addressSpace, "myspace.q3");
+        cache.writeCompleted(addressSpace, "myspace.q3", "3");
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(1000).plus(Duration.ofSeconds(30)));
+        assertThat(cache.listAddresses(addressSpace, "ns").size(), is(2));
+        verify(addressApi, times(3)).listAddresses(eq("ns"));
+    }
+
+    @Test
+    public void testPendingWriteNotClearedByOtherChanges() throws Exception {
+        Address q1 = createAddress("myspace.q1", "q1", "1");
+        cache.listAddresses(addressSpace, "ns");
+        sync(q1);
+        when(addressApi.getAddressWithName(eq("ns"), eq("myspace.q1"))).thenReturn(Optional.of(q1));
+
+        // The controller updates the status of the address while the replace is in flight
+        cache.writePending(addressSpace, "myspace.q1");
+        Address q1Status = createAddress("myspace.q1", "q1", "2");
+        watcher.onUpdate(new Delta<>(Collections.emptySet(), Collections.singleton(q1Status), Collections.emptySet(), Collections.singleton(q1Status)));
+        cache.getAddressWithName(addressSpace, "ns", "myspace.q1");
+        verify(addressApi, times(1)).getAddressWithName(eq("ns"), eq("myspace.q1"));
+
+        // Changes older than the written one don't clear it either
+        cache.writeCompleted(addressSpace, "myspace.q1", "3");
+        cache.getAddressWithName(addressSpace, "ns", "myspace.q1");
+        verify(addressApi, times(2)).getAddressWithName(eq("ns"), eq("myspace.q1"));
+
+        Address q1Replaced = createAddress("myspace.q1", "q1", "3");
+        watcher.onUpdate(new Delta<>(Collections.emptySet(), Collections.singleton(q1Replaced), Collections.emptySet(), Collections.singleton(q1Replaced)));
+        assertThat(cache.getAddressWithName(addressSpace, "ns", "myspace.q1").get().getResourceVersion(), is("3"));
+        verify(addressApi, times(2)).getAddressWithName(eq("ns"), eq("myspace.q1"));
+
+        // A write the watch has already reported when it completes is cleared at once
+        cache.writePending(addressSpace, "myspace.q1");
+        Address q1Again = createAddress("myspace.q1", "q1", "4");
+        watcher.onUpdate(new Delta<>(Collections.emptySet(), Collections.singleton(q1Again), Collections.emptySet(), Collections.singleton(q1Again)));
+        cache.writeCompleted(addressSpace, "myspace.q1", "4");
+        assertThat(cache.getAddressWithName(addressSpace, "ns", "myspace.q1").get().getResourceVersion(), is("4"));
+        verify(addressApi, times(2)).getAddressWithName(eq("ns"), eq("myspace.q1"));
+    }
+
+    @Test
+    public void testIdleStoreIsStopped() throws Exception {
+        cache.listAddresses(addressSpace, "ns");
+        sync();
+        assertThat(cache.size(), is(1));
+
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(1000).plus(Duration.ofMinutes(10)));
+        when(addressApi.listAddresses(any())).thenReturn(Collections.emptySet());
+        assertFalse(cache.listAddresses(addressSpace, "ns").iterator().hasNext());
+
+        verify(watch).close();
+        verify(addressApi, times(2)).watchAddressDeltas(any(), any());
+        assertThat(cache.size(), is(1));
+    }
+
+    private void sync(Address ... addresses) throws Exception {
+        Set<Address> items = new HashSet<>(Arrays.asList(addresses));
+        watcher.onUpdate(new Delta<>(items, Collections.emptySet(), Collections.emptySet(), items));
+    }
+
+    private static Address createAddress(String name, String address, String resourceVersion) {
+        return new Address.Builder()
+                .setName(name)
+                .setAddress(address)
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
+                .setType("queue")
+                .setPlan("plan1")
+                .setResourceVersion(resourceVersion)
+                .build();
+    }
+}
@@ -10,19 +10,25 @@ import io.enmasse.address.model.AddressSpace;
 import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.common.DefaultExceptionMapper;
 import io.enmasse.api.server.TestSchemaProvider;
+import io.enmasse.api.v1.types.BulkStatus;
 import io.enmasse.k8s.api.TestAddressApi;
 import io.enmasse.k8s.api.TestAddressSpaceApi;
 import org.jboss.resteasy.spi.ResteasyUriInfo;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -80,7 +86,7 @@ public class HttpNestedAddressServiceTest {
 
     @Test
     public void testList() {
-        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null, null));
 
         assertThat(response.getStatus(), is(200));
         AddressList list = (AddressList) response.getEntity();
@@ -92,7 +98,7 @@ public class HttpNestedAddressServiceTest {
 
     @Test
     public void testGetByAddress() {
-        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", "A1", null));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", "A1", null, null));
 
         assertThat(response.getStatus(), is(200));
         Address address = (Address) response.getEntity();
@@ -102,7 +108,7 @@ public class HttpNestedAddressServiceTest {
 
     @Test
     public void testGetByAddressNotFound() {
-        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace","b1", null));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace","b1", null, null));
 
         assertThat(response.getStatus(), is(404));
     }
@@ -110,13 +116,13 @@ public class HttpNestedAddressServiceTest {
     @Test
     public void testListException() {
         addressApi.throwException = true;
-        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null, null));
         assertThat(response.getStatus(), is(500));
     }
 
     @Test
     public void testGet() {
-        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "q1"));
+        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "q1", null));
         assertThat(response.getStatus(), is(200));
         Address address = (Address) response.getEntity();
 
@@ -126,16 +132,45 @@ public class HttpNestedAddressServiceTest {
     @Test
     public void testGetException() {
         addressApi.throwException = true;
-        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "q1"));
+        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "q1", null));
         assertThat(response.getStatus(), is(500));
     }
 
     @Test
     public void testGetUnknown() {
-        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "doesnotexist"));
+        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "doesnotexist", null));
         assertThat(response.getStatus(), is(404));
     }
 
+    @Test
+    public void testListNotModified() {
+        Response response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null, null));
+        assertThat(response.getStatus(), is(200));
+        EntityTag tag = response.getEntityTag();
+        assertNotNull(tag);
+
+        response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null, "W/\"" + tag.getValue() + "\""));
+        assertThat(response.getStatus(), is(304));
+        assertNull(response.getEntity());
+
+        addressApi.replaceAddress(new Address.Builder(q1).setResourceVersion("2").build());
+        response = invoke(() -> addressService.getAddressList(securityContext, "ns", "myspace", null, null, "W/\"" + tag.getValue() + "\""));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getEntityTag(), is(not(tag)));
+    }
+
+    @Test
+    public void testGetNotModified() {
+        Response response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "q1", null));
+        EntityTag tag = response.getEntityTag();
+
+        response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "q1", "\"other\", \"" + tag.getValue() + "\""));
+        assertThat(response.getStatus(), is(304));
+
+        response = invoke(() -> addressService.getAddress(securityContext, "ns", "myspace", "a1", "\"" + tag.getValue() + "\""));
+        assertThat(response.getStatus(), is(200));
+    }
+
 
     @Test
     public void testCreate() {
@@ -152,6 +187,30 @@ public class HttpNestedAddressServiceTest {
         assertThat(addressApi.listAddresses("ns"), hasItem(a2ns));
     }
 
+    @Test
+    public void testCreateList() {
+        AddressList list = new AddressList();
+        for (String name : Arrays.asList("a2", "a3", "A1")) {
+            list.add(new Address.Builder()
+                    .setAddress(name)
+                    .setType("anycast")
+                    .setPlan("plan1")
+                    .setAddressSpace("myspace")
+                    .build());
+        }
+        Response response = invoke(() -> addressService.createAddress(securityContext, new ResteasyUriInfo("http://localhost:8443/", null, "/"), "ns", "myspace", Either.createRight(list)));
+        assertThat(response.getStatus(), is(207));
+
+        BulkStatus status = (BulkStatus) response.getEntity();
+        assertThat(status.getStatus(), is("Failure"));
+        assertThat(status.getItems().size(), is(3));
+        assertThat(status.getItems().get(0).getCode(), is(201));
+        assertThat(status.getItems().get(1).getCode(), is(201));
+        assertThat(status.getItems().get(2).getCode(), is(400));
+        assertThat(status.getItems().get(2).getAddress(), is("A1"));
+        assertThat(addressApi.listAddresses("ns").size(), is(4));
+    }
+
     @Test
     public void testCreateException() {
         addressApi.throwException = true;
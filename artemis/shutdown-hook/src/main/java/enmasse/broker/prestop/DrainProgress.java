@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.prestop;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Aggregate progress of draining all queues of a broker, used to report throughput and the estimated time until the
+ * broker is empty.
+ */
+public class DrainProgress {
+    private final LongSupplier nanoTime;
+    private final long startTime;
+    private final AtomicLong forwarded = new AtomicLong();
+    private volatile long initialMessages = -1;
+    private volatile long remainingMessages;
+    private volatile int remainingQueues;
+
+    public DrainProgress() {
+        this(System::nanoTime);
+    }
+
+    DrainProgress(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.startTime = nanoTime.getAsLong();
+    }
+
+    public void messageForwarded() {
+        forwarded.incrementAndGet();
+    }
+
+    /**
+     * Update the number of messages left on the broker from the latest message counts.
+     */
+    public void update(Map<String, Long> messageCounts) {
+        long messages = 0;
+        int queues = 0;
+        for (long count : messageCounts.values()) {
+            messages += count;
+            if (count > 0) {
+                queues++;
+            }
+        }
+        if (initialMessages < 0) {
+            initialMessages = messages;
+        }
+        remainingMessages = messages;
+        remainingQueues = queues;
+    }
+
+    public long getForwarded() {
+        return forwarded.get();
+    }
+
+    public long getRemainingMessages() {
+        return remainingMessages;
+    }
+
+    /**
+     * @return the average number of messages forwarded per second since the drain started
+     */
+    public double getThroughput() {
+        double elapsedSeconds = (double) (nanoTime.getAsLong() - startTime) / TimeUnit.SECONDS.toNanos(1);
+        return elapsedSeconds > 0 ? forwarded.get() / elapsedSeconds : 0;
+    }
+
+    /**
+     * @return the estimated number of seconds until all messages are forwarded, or -1 if nothing has been forwarded yet
+     */
+    public long getEstimatedSecondsLeft() {
+        double throughput = getThroughput();
+        if (remainingMessages == 0) {
+            return 0;
+        }
+        return throughput > 0 ? (long) Math.ceil(remainingMessages / throughput) : -1;
+    }
+
+    @Override
+    public String toString() {
+        long eta = getEstimatedSecondsLeft();
+        return String.format("forwarded %d of %d messages, %d messages left in %d queues, %.1f msg/s, ETA %s",
+                forwarded.get(), Math.max(initialMessages, 0), remainingMessages, remainingQueues, getThroughput(),
+                eta < 0 ? "unknown" : eta + "s");
+    }
+}
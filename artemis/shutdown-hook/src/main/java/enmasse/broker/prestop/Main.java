@@ -56,6 +56,12 @@ public class Main {
             Endpoint messagingEndpoint = new Endpoint(System.getenv("MESSAGING_SERVICE_HOST"), Integer.parseInt(System.getenv("MESSAGING_SERVICE_PORT_AMQPS_NORMAL")));
             String queueName = System.getenv("QUEUE_NAME");
             QueueDrainer client = new QueueDrainer(vertx, localHost, brokerFactory, clientOptions, debugFn);
+            if (System.getenv("DRAIN_MAX_IN_FLIGHT") != null) {
+                client.setMaxInFlight(Integer.parseInt(System.getenv("DRAIN_MAX_IN_FLIGHT")));
+            }
+            if (System.getenv("DRAIN_LINK_CREDIT") != null) {
+                client.setLinkCredit(Integer.parseInt(System.getenv("DRAIN_LINK_CREDIT")));
+            }
 
             client.drainMessages(messagingEndpoint, queueName);
         }
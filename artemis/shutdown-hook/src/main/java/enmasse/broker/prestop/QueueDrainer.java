@@ -9,21 +9,29 @@ import enmasse.discovery.Endpoint;
 import enmasse.discovery.Host;
 import io.enmasse.amqp.Artemis;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.proton.*;
+import org.apache.qpid.proton.amqp.messaging.Modified;
+import org.apache.qpid.proton.amqp.messaging.Released;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.message.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client for draining messages from an endpoint and forward to a target endpoint, until empty.
+ *
+ * All queues are drained at the same time over a single connection to each endpoint. The credit given to the source
+ * plus the deliveries not yet settled by the target is bounded by maxInFlight across all queues, and by linkCredit for
+ * each queue, so that a few large queues can not starve the others. Credit given for more messages than a queue turns
+ * out to hold is drained back, so that it does not take up the window once the queue is empty.
  */
 public class QueueDrainer {
     private final Logger log = LoggerFactory.getLogger(QueueDrainer.class);
@@ -32,6 +40,9 @@ public class QueueDrainer {
     private final BrokerFactory brokerFactory;
     private final Optional<Runnable> debugFn;
     private final ProtonClientOptions protonClientOptions;
+    private int maxInFlight = 1000;
+    private int linkCredit = 100;
+    private long checkIntervalMillis = 2000;
 
     public QueueDrainer(Vertx vertx, Host from, BrokerFactory brokerFactory, ProtonClientOptions clientOptions, Optional<Runnable> debugFn) throws Exception {
         this.vertx = vertx;
@@ -41,6 +52,21 @@ public class QueueDrainer {
         this.debugFn = debugFn;
     }
 
+    public QueueDrainer setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public QueueDrainer setLinkCredit(int linkCredit) {
+        this.linkCredit = linkCredit;
+        return this;
+    }
+
+    public QueueDrainer setCheckIntervalMillis(long checkIntervalMillis) {
+        this.checkIntervalMillis = checkIntervalMillis;
+        return this;
+    }
+
     private Set<String> getQueues(Artemis broker) throws Exception {
         Set<String> addresses = new HashSet<>(broker.getQueueNames());
         addresses.removeIf(a -> a.startsWith("activemq.management"));
@@ -50,115 +76,377 @@ public class QueueDrainer {
     public void drainMessages(Endpoint to, String queueName) throws Exception {
         Artemis broker = brokerFactory.createClient(vertx, protonClientOptions, fromHost.amqpEndpoint());
 
+        Set<String> queues;
         if (queueName != null && !queueName.isEmpty()) {
             broker.destroyConnectorService("amqp-connector");
-            startDrain(to, queueName);
-            log.info("Waiting.....");
-            waitUntilEmpty(broker, Collections.singleton(queueName));
+            queues = Collections.singleton(queueName);
         } else {
-            Set<String> addresses = getQueues(broker);
-
-            for (String address : addresses) {
-                broker.destroyConnectorService(address);
-                startDrain(to, address);
+            queues = getQueues(broker);
+            Map<String, Throwable> failures = broker.doBulk(queues, broker::destroyConnectorServiceAsync);
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("Error destroying connector services for " + failures.keySet(), failures.values().iterator().next());
             }
+        }
+
+        DrainProgress progress = new DrainProgress();
+        Map<String, Long> messageCounts = getMessageCounts(broker, queues);
+        progress.update(messageCounts);
+        log.info("Draining {} messages from {} queues", progress.getRemainingMessages(), queues.size());
+
+        if (progress.getRemainingMessages() > 0) {
+            DrainSession session = new DrainSession(to, messageCounts, progress);
+            session.start();
             log.info("Waiting.....");
-            waitUntilEmpty(broker, addresses);
+            waitUntilEmpty(broker, queues, session, progress);
+            session.close();
         }
-        log.info("Done waiting!");
-        broker.forceShutdown();;
+        log.info("Done waiting! Drained {}", progress);
+        broker.forceShutdown();
         vertx.close();
     }
 
-    private void startDrain(Endpoint to, String address) {
-        AtomicBoolean first = new AtomicBoolean(false);
-        Endpoint from = fromHost.amqpEndpoint();
-        ProtonClient client = ProtonClient.create(vertx);
-        log.info("Connecting to destination {}:{}", to.hostname(), to.port());
-        client.connect(protonClientOptions, to.hostname(), to.port(), sendHandle -> {
-            if (sendHandle.succeeded()) {
+    /**
+     * Get the message count of all queues, querying them in parallel and retrying until all queries succeed.
+     */
+    private Map<String, Long> getMessageCounts(Artemis broker, Collection<String> queues) throws InterruptedException {
+        while (true) {
+            try {
+                Map<String, Long> counts = new ConcurrentHashMap<>();
+                Map<String, Throwable> failures = broker.doBulk(queues, queue -> broker.getQueueMessageCountAsync(queue)
+                        .thenAccept(count -> counts.put(queue, count)));
+                if (failures.isEmpty()) {
+                    return counts;
+                }
+                log.warn("Queue check failed for {}: {}", failures.keySet(), failures.values().iterator().next().getMessage());
+            } catch (Exception e) {
+                // Retry
+                log.warn("Queue check failed: " + e.getMessage());
+            }
+            Thread.sleep(checkIntervalMillis);
+        }
+    }
+
+    /**
+     * Wait until the queues are empty and the target has settled all forwarded messages, as closing the session
+     * releases the deliveries which are not settled.
+     */
+    private void waitUntilEmpty(Artemis broker, Collection<String> queues, DrainSession session, DrainProgress progress) throws Exception {
+        while (progress.getRemainingMessages() > 0 || session.getUnsettled() > 0) {
+            Thread.sleep(checkIntervalMillis);
+            Map<String, Long> messageCounts = getMessageCounts(broker, queues);
+            progress.update(messageCounts);
+            session.updateMessageCounts(messageCounts);
+            log.info("Drain progress: {}", progress);
+        }
+    }
+
+    /**
+     * Forwards messages of all queues from a single connection to the local broker to a single connection to the
+     * destination. All state is confined to the context of the session.
+     */
+    private class DrainSession {
+        private final Endpoint to;
+        private final DrainProgress progress;
+        private final Context context;
+        private final Map<String, Link> links = new LinkedHashMap<>();
+        private final Deque<Link> waiting = new ArrayDeque<>();
+        private ProtonConnection sendConn;
+        private ProtonConnection recvConn;
+        private int inFlight;
+        private boolean forwardedFirst;
+        private boolean reconnecting;
+        private boolean closed;
+
+        DrainSession(Endpoint to, Map<String, Long> messageCounts, DrainProgress progress) {
+            this.to = to;
+            this.progress = progress;
+            this.context = vertx.getOrCreateContext();
+            for (Map.Entry<String, Long> entry : messageCounts.entrySet()) {
+                links.put(entry.getKey(), new Link(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        void start() {
+            context.runOnContext(v -> connect());
+        }
+
+        void close() throws Exception {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            context.runOnContext(v -> {
+                closed = true;
+                closeConnections();
+                done.complete(null);
+            });
+            done.get(30, TimeUnit.SECONDS);
+        }
+
+        /**
+         * @return the number of messages forwarded but not yet settled by the target
+         */
+        int getUnsettled() throws Exception {
+            CompletableFuture<Integer> unsettled = new CompletableFuture<>();
+            context.runOnContext(v -> unsettled.complete(links.values().stream().mapToInt(link -> link.unsettled).sum()));
+            return unsettled.get(30, TimeUnit.SECONDS);
+        }
+
+        void updateMessageCounts(Map<String, Long> messageCounts) {
+            context.runOnContext(v -> {
+                for (Link link : links.values()) {
+                    Long count = messageCounts.get(link.queue);
+                    if (count != null) {
+                        link.remaining = count;
+                        if (link.credit + link.unsettled > link.remaining) {
+                            link.drain();
+                        }
+                        schedule(link);
+                    }
+                }
+                refill();
+            });
+        }
+
+        private void connect() {
+            if (closed) {
+                return;
+            }
+            ProtonClient client = ProtonClient.create(vertx);
+            log.info("Connecting to destination {}:{}", to.hostname(), to.port());
+            client.connect(protonClientOptions, to.hostname(), to.port(), sendHandle -> {
+                if (sendHandle.failed()) {
+                    log.warn("Error connecting to sender " + to.hostname() + ":" + to.port() + ": " + sendHandle.cause().getMessage());
+                    reset();
+                    return;
+                }
                 ProtonConnection sendConn = sendHandle.result();
+                this.sendConn = sendConn;
                 sendConn.setContainer("shutdown-hook-sender");
-                sendConn.openHandler(ev -> {
-                    log.info("Connected to sender: " +  sendConn.getRemoteContainer());
-                });
+                sendConn.openHandler(ev -> log.info("Connected to sender: " + sendConn.getRemoteContainer()));
+                sendConn.closeHandler(h -> connectionLost(sendConn));
+                sendConn.disconnectHandler(h -> connectionLost(sendConn));
                 sendConn.open();
-                ProtonSender sender = sendConn.createSender(address);
-                sender.openHandler(handle -> {
-                    if (handle.succeeded()) {
-                        log.info("Connecting to source {}:{}", from.hostname(), from.port());
-                        client.connect(protonClientOptions, from.hostname(), from.port(), recvHandle -> {
-                            if (recvHandle.succeeded()) {
-                                ProtonConnection recvConn = recvHandle.result();
-                                recvConn.setContainer("shutdown-hook-recv");
-                                recvConn.closeHandler(h -> {
-                                    log.info("Receiver closed: " + h.succeeded());
-                                });
-                                log.info("Connected to receiver: " + recvConn.getRemoteContainer());
-                                ProtonReceiver receiver = recvConn.createReceiver(address);
-                                receiver.setPrefetch(0);
-                                receiver.openHandler(handler -> {
-                                    log.info("Receiver open: " + handle.succeeded());
-                                    receiver.flow(1);
-                                });
-                                receiver.handler((protonDelivery, message) -> {
-                                    //System.out.println("Got Message to forwarder: " + ((AmqpValue)message.getBody()).getValue());
-                                    sender.send(message, targetDelivery -> {
-                                            log.info("Got delivery confirmation, id = " + message.getMessageId() + ", remoteState = " + targetDelivery.getRemoteState() + ", remoteSettle = " + targetDelivery.remotelySettled());
-                                            receiver.flow(1);
-                                            protonDelivery.disposition(targetDelivery.getRemoteState(), targetDelivery.remotelySettled()); });
-
-                                    // This is for debugging only
-                                    if (!first.getAndSet(true)) {
-                                        log.info("Forwarded first message");
-                                        if (debugFn.isPresent()) {
-                                            vertx.executeBlocking((Future<Integer> future) -> {
-                                                debugFn.get().run();
-                                                future.complete(0);
-                                            }, (AsyncResult<Integer> result) -> {
-                                            });
-                                        }
-                                    }
-                                });
-                                receiver.open();
-                                recvConn.open();
-                            } else {
-                                log.warn("Error connecting to receiver " + from.hostname() + ":" + from.port() + ": " + recvHandle.cause().getMessage());
-                                sendConn.close();
-                                vertx.setTimer(5000, id -> startDrain(to, address));
-                            }
-                        });
-                    } else {
-                        log.warn("Failed to open sender: " + handle.cause().getMessage());
-                        vertx.setTimer(5000, id -> startDrain(to, address));
+
+                Endpoint from = fromHost.amqpEndpoint();
+                log.info("Connecting to source {}:{}", from.hostname(), from.port());
+                client.connect(protonClientOptions, from.hostname(), from.port(), recvHandle -> {
+                    if (recvHandle.failed()) {
+                        log.warn("Error connecting to receiver " + from.hostname() + ":" + from.port() + ": " + recvHandle.cause().getMessage());
+                        reset();
+                        return;
+                    }
+                    ProtonConnection recvConn = recvHandle.result();
+                    this.recvConn = recvConn;
+                    recvConn.setContainer("shutdown-hook-recv");
+                    recvConn.openHandler(ev -> log.info("Connected to receiver: " + recvConn.getRemoteContainer()));
+                    recvConn.closeHandler(h -> connectionLost(recvConn));
+                    recvConn.disconnectHandler(h -> connectionLost(recvConn));
+                    recvConn.open();
+
+                    for (Link link : links.values()) {
+                        link.open(sendConn, recvConn);
                     }
                 });
-                sender.open();
-            } else {
-                log.warn("Error connecting to sender " + to.hostname() + ":" + to.port() + ": " + sendHandle.cause().getMessage()); ;
-                vertx.setTimer(5000, id -> startDrain(to, address));
+            });
+        }
+
+        private void connectionLost(ProtonConnection connection) {
+            if (connection == sendConn || connection == recvConn) {
+                log.warn("Connection to {} lost, reconnecting", connection == sendConn ? "sender" : "receiver");
+                reset();
             }
-        });
-    }
+        }
 
-    private void waitUntilEmpty(Artemis broker, Collection<String> queues) throws InterruptedException {
-        while (true) {
-            try {
-                long count = 0;
-                for (String queue : queues) {
-                    count += broker.getQueueMessageCount(queue);
-                    log.info("Found " + count + " messages in queue " + queue);
+        /**
+         * Start over with new connections. The source releases all deliveries which were not settled.
+         */
+        private void reset() {
+            closeConnections();
+            for (Link link : links.values()) {
+                link.sender = null;
+                link.receiver = null;
+                link.credit = 0;
+                link.unsettled = 0;
+                link.waiting = false;
+                link.draining = false;
+            }
+            waiting.clear();
+            inFlight = 0;
+            if (!closed && !reconnecting) {
+                reconnecting = true;
+                vertx.setTimer(5000, id -> {
+                    reconnecting = false;
+                    connect();
+                });
+            }
+        }
+
+        private void closeConnections() {
+            ProtonConnection sendConn = this.sendConn;
+            ProtonConnection recvConn = this.recvConn;
+            this.sendConn = null;
+            this.recvConn = null;
+            if (recvConn != null) {
+                recvConn.close();
+            }
+            if (sendConn != null) {
+                sendConn.close();
+            }
+        }
+
+        private void forward(Link link, ProtonReceiver receiver, ProtonDelivery sourceDelivery, Message message) {
+            if (link.receiver != receiver) {
+                return;
+            }
+            link.credit--;
+            link.unsettled++;
+            link.sender.send(message, targetDelivery -> {
+                // Deliveries of a previous connection have already been released by the source
+                if (link.receiver != receiver) {
+                    return;
                 }
-                if (count == 0) {
-                    break;
+                link.unsettled--;
+                inFlight--;
+                DeliveryState state = targetDelivery.getRemoteState();
+                sourceDelivery.disposition(state, targetDelivery.remotelySettled());
+                if (!(state instanceof Released || state instanceof Modified)) {
+                    link.remaining = Math.max(0, link.remaining - 1);
+                    progress.messageForwarded();
+                }
+                schedule(link);
+                refill();
+            });
+
+            // This is for debugging only
+            if (!forwardedFirst) {
+                forwardedFirst = true;
+                log.info("Forwarded first message");
+                if (debugFn.isPresent()) {
+                    vertx.executeBlocking((Future<Integer> future) -> {
+                        debugFn.get().run();
+                        future.complete(0);
+                    }, (AsyncResult<Integer> result) -> {
+                    });
                 }
-            } catch (Exception e) {
-                // Retry
-                e.printStackTrace();
-                log.warn("Queue check failed: " + e.getMessage());
             }
-            Thread.sleep(2000);
         }
-    }
 
+        private void schedule(Link link) {
+            if (!link.waiting && link.wantedCredit() > 0) {
+                link.waiting = true;
+                waiting.add(link);
+            }
+        }
+
+        /**
+         * Hand out the available credit to the waiting links in turn.
+         */
+        private void refill() {
+            while (inFlight < maxInFlight && !waiting.isEmpty()) {
+                Link link = waiting.poll();
+                link.waiting = false;
+                int credit = Math.min(link.wantedCredit(), maxInFlight - inFlight);
+                if (credit > 0) {
+                    link.credit += credit;
+                    inFlight += credit;
+                    link.receiver.flow(credit);
+                }
+                schedule(link);
+            }
+        }
+
+        private class Link {
+            private final String queue;
+            private long remaining;
+            private int credit;
+            private int unsettled;
+            private boolean waiting;
+            private boolean draining;
+            private ProtonSender sender;
+            private ProtonReceiver receiver;
+
+            private Link(String queue, long remaining) {
+                this.queue = queue;
+                this.remaining = remaining;
+            }
+
+            /**
+             * Credit is never given for more messages than the queue is known to hold, so that it is not held up
+             * by queues which are already empty.
+             */
+            private int wantedCredit() {
+                if (receiver == null || draining || sender.sendQueueFull()) {
+                    return 0;
+                }
+                long outstanding = credit + unsettled;
+                return (int) Math.max(0, Math.min(linkCredit - outstanding, remaining - outstanding));
+            }
+
+            /**
+             * Take back the credit of the link. The source sends what it still has up to the credit and then gives
+             * up the rest, which is returned to the window. If the source does not answer in time, the credit is
+             * kept and the drain is retried on the next count update.
+             */
+            private void drain() {
+                if (receiver == null || draining || credit <= 0) {
+                    return;
+                }
+                ProtonReceiver receiver = this.receiver;
+                draining = true;
+                receiver.drain(checkIntervalMillis, result -> {
+                    if (this.receiver != receiver) {
+                        return;
+                    }
+                    draining = false;
+                    if (result.succeeded()) {
+                        log.debug("Drained {} credit from {}", credit, queue);
+                        inFlight -= Math.max(0, credit);
+                        credit = 0;
+                    }
+                    schedule(this);
+                    refill();
+                });
+            }
+
+            private void open(ProtonConnection sendConn, ProtonConnection recvConn) {
+                ProtonSender sender = sendConn.createSender(queue);
+                sender.sendQueueDrainHandler(s -> {
+                    schedule(this);
+                    refill();
+                });
+                sender.openHandler(handle -> {
+                    if (handle.failed()) {
+                        log.warn("Failed to open sender for {}: {}", queue, handle.cause().getMessage());
+                        retry(sendConn, recvConn);
+                        return;
+                    }
+                    ProtonReceiver receiver = recvConn.createReceiver(queue);
+                    receiver.setPrefetch(0);
+                    receiver.setAutoAccept(false);
+                    receiver.handler((delivery, message) -> forward(this, receiver, delivery, message));
+                    receiver.openHandler(result -> {
+                        if (result.failed()) {
+                            log.warn("Failed to open receiver for {}: {}", queue, result.cause().getMessage());
+                            sender.close();
+                            retry(sendConn, recvConn);
+                            return;
+                        }
+                        log.debug("Receiver for {} open", queue);
+                        this.sender = sender;
+                        this.receiver = receiver;
+                        schedule(this);
+                        refill();
+                    });
+                    receiver.open();
+                });
+                sender.open();
+            }
+
+            private void retry(ProtonConnection sendConn, ProtonConnection recvConn) {
+                vertx.setTimer(5000, id -> {
+                    if (sendConn == DrainSession.this.sendConn && recvConn == DrainSession.this.recvConn) {
+                        open(sendConn, recvConn);
+                    }
+                });
+            }
+        }
+    }
 }
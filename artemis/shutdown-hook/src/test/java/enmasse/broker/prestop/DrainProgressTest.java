@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.prestop;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DrainProgressTest {
+    @Test
+    public void testThroughputAndEstimate() {
+        AtomicLong now = new AtomicLong(0);
+        DrainProgress progress = new DrainProgress(now::get);
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("queue1", 300L);
+        counts.put("queue2", 100L);
+        progress.update(counts);
+        assertThat(progress.getEstimatedSecondsLeft(), is(-1L));
+
+        now.set(TimeUnit.SECONDS.toNanos(2));
+        for (int i = 0; i < 200; i++) {
+            progress.messageForwarded();
+        }
+        counts.put("queue1", 200L);
+        counts.put("queue2", 0L);
+        progress.update(counts);
+
+        assertThat(progress.getForwarded(), is(200L));
+        assertThat(progress.getRemainingMessages(), is(200L));
+        assertThat(progress.getThroughput(), is(100.0));
+        assertThat(progress.getEstimatedSecondsLeft(), is(2L));
+        assertThat(progress.toString(), containsString("ETA 2s"));
+
+        counts.put("queue1", 0L);
+        progress.update(counts);
+        assertThat(progress.getEstimatedSecondsLeft(), is(0L));
+    }
+}
@@ -110,6 +110,45 @@ public class QueueDrainerTest {
         System.out.println("Checking shutdown");
     }
 
+    @Test
+    public void testDrainManyQueuesWithSmallWindow() throws Exception {
+        List<String> queues = IntStream.range(0, 20)
+                .mapToObj(i -> "queue" + i)
+                .collect(Collectors.toList());
+        for (String queue : queues) {
+            sendMessages(fromServer, queue, queue + "from", 50);
+            sendMessages(toServer, queue, queue + "to", 1);
+        }
+
+        localBroker.setHandler(message -> {
+            Map<String, Object> props = message.getApplicationProperties().getValue();
+            Message response = Proton.message();
+            String resourceName = (String) props.get("_AMQ_ResourceName");
+            if ("broker".equals(resourceName) &&
+                    "getQueueNames".equals(props.get("_AMQ_OperationName"))) {
+                response.setBody(new AmqpValue(queues.stream()
+                        .map(queue -> "[\"" + queue + "\"]")
+                        .collect(Collectors.joining(",", "[", "]"))));
+            } else if (resourceName.startsWith("queue.") &&
+                    "messageCount".equals(props.get("_AMQ_Attribute"))) {
+                response.setBody(new AmqpValue("[" + fromServer.numMessages(resourceName.substring("queue.".length())) + "]"));
+            } else {
+                response.setBody(new AmqpValue("[]"));
+            }
+            return response;
+        });
+
+        // Less credit than queues, so that queues have to wait for others to settle their deliveries
+        client.setMaxInFlight(5).setLinkCredit(2).setCheckIntervalMillis(500);
+        client.drainMessages(to.amqpEndpoint(), "");
+
+        for (String queue : queues) {
+            assertThat(toServer.numMessages(queue), is(51));
+            assertReceive(toServer, queue, queue + "to", 1);
+            assertReceive(toServer, queue, queue + "from", 50);
+        }
+    }
+
     private static void sendMessages(PubSubBroker broker, String address, String prefix, int numMessages) throws IOException, InterruptedException {
         List<String> messages = IntStream.range(0, numMessages)
                 .mapToObj(i -> prefix + i)
@@ -9,40 +9,63 @@ import io.enmasse.address.model.Address;
 import io.enmasse.address.model.Status;
 
 import java.time.Duration;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TestAddressApi implements AddressApi {
     public boolean throwException = false;
 
     private final Set<Address> addresses = new LinkedHashSet<>();
+    private final List<DeltaWatcher<Address>> deltaWatchers = new CopyOnWriteArrayList<>();
+    private long resourceVersion = 0;
 
     @Override
-    public void createAddress(Address destination) {
+    public synchronized String createAddress(Address destination) {
         if (throwException) {
             throw new RuntimeException("exception");
         }
-        addresses.add(destination);
+        Address created = withNextResourceVersion(destination);
+        boolean added = addresses.add(created);
+        if (added) {
+            notifyDeltaWatchers(Collections.singleton(created), Collections.emptySet(), Collections.emptySet());
+        }
+        return created.getResourceVersion();
     }
 
     @Override
-    public boolean replaceAddress(Address destination) {
+    public synchronized Optional<String> replaceAddress(Address destination) {
         if (addresses.stream().noneMatch(d -> d.getName().equals(destination.getName()))) {
-            return false;
+            return Optional.empty();
         }
-        deleteAddress(destination); // necessary, because a simple set.add() doesn't replace the element
-        createAddress(destination);
-        return true;
+        if (throwException) {
+            throw new RuntimeException("exception");
+        }
+        Address replaced = withNextResourceVersion(destination);
+        addresses.remove(replaced); // necessary, because a simple set.add() doesn't replace the element
+        addresses.add(replaced);
+        notifyDeltaWatchers(Collections.emptySet(), Collections.singleton(replaced), Collections.emptySet());
+        return Optional.of(replaced.getResourceVersion());
+    }
+
+    private Address withNextResourceVersion(Address address) {
+        return new Address.Builder(address).setResourceVersion(String.valueOf(++resourceVersion)).build();
     }
 
     @Override
-    public boolean deleteAddress(Address destination) {
+    public synchronized boolean deleteAddress(Address destination) {
         if (throwException) {
             throw new RuntimeException("exception");
         }
-        return addresses.remove(destination);
+        boolean deleted = addresses.remove(destination);
+        if (deleted) {
+            notifyDeltaWatchers(Collections.emptySet(), Collections.emptySet(), Collections.singleton(destination));
+        }
+        return deleted;
     }
 
     @Override
@@ -51,7 +74,25 @@ public class TestAddressApi implements AddressApi {
     }
 
     @Override
-    public Optional<Address> getAddressWithName(String namespace, String address) {
+    public synchronized Watch watchAddressDeltas(DeltaWatcher<Address> watcher, Duration resyncInterval) throws Exception {
+        watcher.onUpdate(new Delta<>(new LinkedHashSet<>(addresses), Collections.emptySet(), Collections.emptySet(), new LinkedHashSet<>(addresses)));
+        deltaWatchers.add(watcher);
+        return () -> deltaWatchers.remove(watcher);
+    }
+
+    private void notifyDeltaWatchers(Set<Address> added, Set<Address> modified, Set<Address> deleted) {
+        Delta<Address> delta = new Delta<>(added, modified, deleted, new LinkedHashSet<>(addresses));
+        for (DeltaWatcher<Address> watcher : deltaWatchers) {
+            try {
+                watcher.onUpdate(delta);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Optional<Address> getAddressWithName(String namespace, String address) {
         if (throwException) {
             throw new RuntimeException("exception");
         }
@@ -59,7 +100,7 @@ public class TestAddressApi implements AddressApi {
     }
 
     @Override
-    public Set<Address> listAddresses(String namespace) {
+    public synchronized Set<Address> listAddresses(String namespace) {
         if (throwException) {
             throw new RuntimeException("exception");
         }
@@ -78,8 +119,17 @@ public class TestAddressApi implements AddressApi {
     }
 
     @Override
-    public void deleteAddresses(String namespace) {
-        addresses.removeIf(address -> namespace.equals(address.getNamespace()));
+    public synchronized void deleteAddresses(String namespace) {
+        Set<Address> deleted = new LinkedHashSet<>();
+        for (Address address : addresses) {
+            if (namespace.equals(address.getNamespace())) {
+                deleted.add(address);
+            }
+        }
+        addresses.removeAll(deleted);
+        if (!deleted.isEmpty()) {
+            notifyDeltaWatchers(Collections.emptySet(), Collections.emptySet(), deleted);
+        }
     }
 
     public void setAllAddressesReady(boolean ready) {
@@ -16,7 +16,7 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     public boolean throwException = false;
 
     @Override
-    public Optional<AddressSpace> getAddressSpaceWithName(String namespace, String addressSpaceId) {
+    public synchronized Optional<AddressSpace> getAddressSpaceWithName(String namespace, String addressSpaceId) {
         if (throwException) {
             throw new RuntimeException("foo");
         }
@@ -24,7 +24,7 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     }
 
     @Override
-    public void createAddressSpace(AddressSpace addressSpace) {
+    public synchronized void createAddressSpace(AddressSpace addressSpace) {
         if (throwException) {
             throw new RuntimeException("foo");
         }
@@ -32,7 +32,7 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     }
 
     @Override
-    public boolean replaceAddressSpace(AddressSpace addressSpace) {
+    public synchronized boolean replaceAddressSpace(AddressSpace addressSpace) {
         if (!addressSpaces.containsKey(addressSpace.getName())) {
             return false;
         }
@@ -41,7 +41,7 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     }
 
     @Override
-    public boolean deleteAddressSpace(AddressSpace addressSpace) {
+    public synchronized boolean deleteAddressSpace(AddressSpace addressSpace) {
         if (throwException) {
             throw new RuntimeException("foo");
         }
@@ -49,7 +49,7 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     }
 
     @Override
-    public Set<AddressSpace> listAddressSpaces(String namespace) {
+    public synchronized Set<AddressSpace> listAddressSpaces(String namespace) {
         if (throwException) {
             throw new RuntimeException("foo");
         }
@@ -57,12 +57,12 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     }
 
     @Override
-    public Set<AddressSpace> listAddressSpacesWithLabels(String namespace, Map<String, String> labels) {
+    public synchronized Set<AddressSpace> listAddressSpacesWithLabels(String namespace, Map<String, String> labels) {
         return null;
     }
 
     @Override
-    public void deleteAddressSpaces(String namespace) {
+    public synchronized void deleteAddressSpaces(String namespace) {
         for (AddressSpace addressSpace : new HashSet<>(addressSpaces.values())) {
             if (namespace.equals(addressSpace.getNamespace())) {
                 addressSpaces.remove(addressSpace.getName());
@@ -77,7 +77,7 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
     }
 
     @Override
-    public AddressApi withAddressSpace(AddressSpace addressSpace) {
+    public synchronized AddressApi withAddressSpace(AddressSpace addressSpace) {
         if (!addressApiMap.containsKey(addressSpace.getName())) {
             addressSpaces.put(addressSpace.getName(), addressSpace);
             addressApiMap.put(addressSpace.getName(), new TestAddressApi());
@@ -85,15 +85,15 @@ public class TestAddressSpaceApi implements AddressSpaceApi {
         return getAddressApi(addressSpace.getName());
     }
 
-    public TestAddressApi getAddressApi(String id) {
+    public synchronized TestAddressApi getAddressApi(String id) {
         return addressApiMap.get(id);
     }
 
-    public Collection<TestAddressApi> getAddressApis() {
+    public synchronized Collection<TestAddressApi> getAddressApis() {
         return addressApiMap.values();
     }
 
-    public void setAllInstancesReady(boolean ready) {
+    public synchronized void setAllInstancesReady(boolean ready) {
         addressSpaces.entrySet().stream().forEach(entry -> addressSpaces.put(
                 entry.getKey(),
                 new AddressSpace.Builder(entry.getValue()).setStatus(new AddressSpaceStatus(ready)).build()));
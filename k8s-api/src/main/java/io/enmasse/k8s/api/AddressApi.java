@@ -20,9 +20,25 @@ public interface AddressApi {
     Set<Address> listAddressesWithLabels(String namespace, Map<String, String> labels);
     void deleteAddresses(String namespace);
 
-    void createAddress(Address address);
-    boolean replaceAddress(Address address);
+    /**
+     * @return the resource version of the created address
+     */
+    String createAddress(Address address);
+
+    /**
+     * @return the resource version of the replaced address, or empty if there is no address to replace
+     */
+    Optional<String> replaceAddress(Address address);
     boolean deleteAddress(Address address);
 
+    /**
+     * Watch addresses. The addresses are shared between updates and must not be modified by the watcher.
+     */
     Watch watchAddresses(Watcher<Address> watcher, Duration resyncInterval) throws Exception;
+
+    /**
+     * Watch addresses, getting only the addresses added, modified or deleted since the previous update. The addresses
+     * are shared between updates and must not be modified by the watcher.
+     */
+    Watch watchAddressDeltas(DeltaWatcher<Address> watcher, Duration resyncInterval) throws Exception;
 }
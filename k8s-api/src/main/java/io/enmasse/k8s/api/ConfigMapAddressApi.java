@@ -22,7 +22,6 @@ import org.slf4j.LoggerFactory;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Implements the AddressApi using config maps.
@@ -30,14 +29,20 @@ import java.util.stream.Collectors;
 public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap, ConfigMapList> {
 
     private static final Logger log = LoggerFactory.getLogger(ConfigMapAddressApi.class);
+    private static final Duration queueDebounce = Duration.ofMillis(100);
+    private static final Duration queueMinInterval = Duration.ofSeconds(1);
+    private static final int listPageSize = 500;
     private final NamespacedOpenShiftClient client;
     private final String namespace;
+    private final WorkQueueMetrics queueMetrics = new WorkQueueMetrics();
+    private final PagedLister<ConfigMapList> pagedLister;
 
-    private final ObjectMapper mapper = CodecV1.getMapper();
+    private static final ObjectMapper mapper = CodecV1.getMapper();
 
     public ConfigMapAddressApi(NamespacedOpenShiftClient client, String namespace) {
         this.client = client;
         this.namespace = namespace;
+        this.pagedLister = new PagedLister<>(client, ConfigMapList.class, "api/v1/namespaces/" + namespace + "/configmaps", LabelKeys.TYPE + "=address-config");
     }
 
     @Override
@@ -51,7 +56,7 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
     }
 
     @SuppressWarnings("unchecked")
-    private Address getAddressFromConfig(ConfigMap configMap) {
+    private static Address getAddressFromConfig(ConfigMap configMap) {
         Map<String, String> data = configMap.getData();
 
         try {
@@ -62,9 +67,8 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
                 builder.setUid(configMap.getMetadata().getUid());
             }
 
-            if (address.getResourceVersion() == null) {
-                builder.setResourceVersion(configMap.getMetadata().getResourceVersion());
-            }
+            // The resource version stored with the address is outdated as soon as the config map has been written
+            builder.setResourceVersion(configMap.getMetadata().getResourceVersion());
 
             if (address.getCreationTimestamp() == null) {
                 builder.setCreationTimestamp(configMap.getMetadata().getCreationTimestamp());
@@ -111,27 +115,28 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
     }
 
     @Override
-    public void createAddress(Address address) {
+    public String createAddress(Address address) {
         String name = getConfigMapName(address.getName());
         ConfigMap map = create(address);
-        if (map != null) {
-            client.configMaps().inNamespace(namespace).withName(name).create(map);
+        if (map == null) {
+            return null;
         }
+        return client.configMaps().inNamespace(namespace).withName(name).create(map).getMetadata().getResourceVersion();
     }
 
     @Override
-    public boolean replaceAddress(Address address) {
+    public Optional<String> replaceAddress(Address address) {
         String name = getConfigMapName(address.getName());
         ConfigMap previous = client.configMaps().inNamespace(namespace).withName(name).get();
         if (previous == null) {
             log.warn("Cannot replace address {}: No previous configMap found", address.getName());
-            return false;
+            return Optional.empty();
         }
         ConfigMap newMap = create(address);
-        if (newMap != null) {
-            client.configMaps().inNamespace(namespace).withName(name).replace(newMap);
+        if (newMap == null) {
+            return Optional.of(previous.getMetadata().getResourceVersion());
         }
-        return true;
+        return Optional.of(client.configMaps().inNamespace(namespace).withName(name).replace(newMap).getMetadata().getResourceVersion());
     }
 
     private static String getConfigMapName(String name) {
@@ -171,20 +176,42 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
 
     @Override
     public Watch watchAddresses(Watcher<Address> watcher, Duration resyncInterval) {
-        WorkQueue<ConfigMap> queue = new FifoQueue<>(config -> config.getMetadata().getName());
+        DecodingCache<ConfigMap, Address> cache = new DecodingCache<>(ConfigMapAddressApi::getAddressFromConfig);
+        return watchConfigMaps(resyncInterval, configMaps -> watcher.onUpdate(cache.update(configMaps).getItems()));
+    }
+
+    @Override
+    public Watch watchAddressDeltas(DeltaWatcher<Address> watcher, Duration resyncInterval) {
+        DecodingCache<ConfigMap, Address> cache = new DecodingCache<>(ConfigMapAddressApi::getAddressFromConfig);
+        return watchConfigMaps(resyncInterval, configMaps -> {
+            boolean initial = !cache.hasSynced();
+            Delta<Address> delta = cache.update(configMaps);
+            // Resyncs without changes are not propagated, except for the initial (possibly empty) state
+            if (initial || !delta.isEmpty()) {
+                watcher.onUpdate(delta);
+            }
+        });
+    }
+
+    private Watch watchConfigMaps(Duration resyncInterval, Processor<List<ConfigMap>> processor) {
+        WorkQueue<ConfigMap> queue = new CoalescingQueue<ConfigMap>(config -> config.getMetadata().getName())
+                .setDebounce(queueDebounce)
+                .setMinInterval(queueMinInterval)
+                .setMetrics(queueMetrics);
         Reflector.Config<ConfigMap, ConfigMapList> config = new Reflector.Config<>();
         config.setClock(Clock.systemUTC());
         config.setExpectedType(ConfigMap.class);
         config.setListerWatcher(this);
         config.setResyncInterval(resyncInterval);
+        config.setListPageSize(listPageSize);
         config.setWorkQueue(queue);
         config.setProcessor(map -> {
                     if (queue.hasSynced()) {
+                        List<ConfigMap> configMaps = queue.list();
                         long start = System.nanoTime();
-                        watcher.onUpdate(queue.list().stream()
-                                .map(this::getAddressFromConfig)
-                                .collect(Collectors.toSet()));
+                        processor.process(configMaps);
                         long end = System.nanoTime();
+                        log.debug("Processed {} address configs in {} ns, queue {}", configMaps.size(), end - start, queueMetrics);
                     }
                 });
 
@@ -194,12 +221,19 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
         return controller;
     }
 
+    /**
+     * Metrics of the work queues of the watches created by this API.
+     */
+    public WorkQueueMetrics getWorkQueueMetrics() {
+        return queueMetrics;
+    }
+
     @Override
     public ConfigMapList list(ListOptions listOptions) {
-        return client.configMaps()
+        return pagedLister.list(listOptions, () -> client.configMaps()
                         .inNamespace(namespace)
                         .withLabel(LabelKeys.TYPE, "address-config")
-                        .list();
+                        .list());
     }
 
     @Override
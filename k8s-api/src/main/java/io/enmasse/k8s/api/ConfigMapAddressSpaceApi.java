@@ -29,8 +29,11 @@ import java.util.stream.Collectors;
  */
 public class ConfigMapAddressSpaceApi implements AddressSpaceApi, ListerWatcher<ConfigMap, ConfigMapList> {
     protected final Logger log = LoggerFactory.getLogger(getClass().getName());
+    private static final Duration queueDebounce = Duration.ofMillis(100);
+    private static final Duration queueMinInterval = Duration.ofSeconds(1);
     private final NamespacedOpenShiftClient client;
     private final ObjectMapper mapper = CodecV1.getMapper();
+    private final WorkQueueMetrics queueMetrics = new WorkQueueMetrics();
 
     public ConfigMapAddressSpaceApi(NamespacedOpenShiftClient client) {
         this.client = client;
@@ -158,7 +161,10 @@ public class ConfigMapAddressSpaceApi implements AddressSpaceApi, ListerWatcher<
 
     @Override
     public Watch watchAddressSpaces(Watcher<AddressSpace> watcher, Duration resyncInterval) {
-        WorkQueue<ConfigMap> queue = new FifoQueue<>(config -> config.getMetadata().getName());
+        WorkQueue<ConfigMap> queue = new CoalescingQueue<ConfigMap>(config -> config.getMetadata().getName())
+                .setDebounce(queueDebounce)
+                .setMinInterval(queueMinInterval)
+                .setMetrics(queueMetrics);
         Reflector.Config<ConfigMap, ConfigMapList> config = new Reflector.Config<>();
         config.setClock(Clock.systemUTC());
         config.setExpectedType(ConfigMap.class);
@@ -192,6 +198,13 @@ public class ConfigMapAddressSpaceApi implements AddressSpaceApi, ListerWatcher<
                 .list();
     }
 
+    /**
+     * Metrics of the work queues of the watches created by this API.
+     */
+    public WorkQueueMetrics getWorkQueueMetrics() {
+        return queueMetrics;
+    }
+
     @Override
     public ConfigMapList list(ListOptions listOptions) {
         return client.configMaps()
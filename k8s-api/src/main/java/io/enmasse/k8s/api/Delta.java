@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Changes to a set of watched items since the previous update, along with the current items.
+ */
+public class Delta<T> {
+    private final Set<T> added;
+    private final Set<T> modified;
+    private final Set<T> deleted;
+    private final Set<T> items;
+
+    public Delta(Set<T> added, Set<T> modified, Set<T> deleted, Set<T> items) {
+        this.added = Collections.unmodifiableSet(added);
+        this.modified = Collections.unmodifiableSet(modified);
+        this.deleted = Collections.unmodifiableSet(deleted);
+        this.items = Collections.unmodifiableSet(items);
+    }
+
+    public Set<T> getAdded() {
+        return added;
+    }
+
+    public Set<T> getModified() {
+        return modified;
+    }
+
+    public Set<T> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * All items known after applying this delta.
+     */
+    public Set<T> getItems() {
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "{added=" + added.size() + ", modified=" + modified.size() + ", deleted=" + deleted.size() + ", items=" + items.size() + "}";
+    }
+}
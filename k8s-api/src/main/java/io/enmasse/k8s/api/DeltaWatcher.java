@@ -0,0 +1,12 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api;
+
+/**
+ * Watcher receiving only the items added, modified and deleted since the previous update.
+ */
+public interface DeltaWatcher<T> {
+    void onUpdate(Delta<T> delta) throws Exception;
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work queue which coalesces all events received between two invocations of the processor.
+ *
+ * Events are applied to the store as they arrive and only the keys of the changed items are queued, so that a
+ * burst of events for any number of items results in a single invocation of the processor. The processor is
+ * invoked at most once every minInterval, and not before the debounce window following the first pending event
+ * has elapsed, to collect bursts arriving right after a pop. When the processor fails, the work is requeued
+ * and retried with exponential backoff.
+ */
+public class CoalescingQueue<T> implements WorkQueue<T> {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingQueue.class);
+
+    private final KeyExtractor<T> keyExtractor;
+    private final Map<String, T> store = new HashMap<>();
+    private final Set<String> pendingKeys = new LinkedHashSet<>();
+
+    private Duration debounce = Duration.ZERO;
+    private Duration minInterval = Duration.ZERO;
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(2);
+    private WorkQueueMetrics metrics = new WorkQueueMetrics();
+
+    private boolean syncPending = false;
+    private T lastChanged;
+    private long pendingSince;
+    private long lastProcessed;
+    private boolean processedOnce = false;
+    private long retryAt;
+    private int failures = 0;
+    private int reportedDepth = 0;
+
+    private volatile boolean populated = false;
+    private volatile boolean synced = false;
+
+    public CoalescingQueue(KeyExtractor<T> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Time to wait after the first pending event before invoking the processor.
+     */
+    public CoalescingQueue<T> setDebounce(Duration debounce) {
+        this.debounce = debounce;
+        return this;
+    }
+
+    /**
+     * Minimum time between the start of two invocations of the processor.
+     */
+    public CoalescingQueue<T> setMinInterval(Duration minInterval) {
+        this.minInterval = minInterval;
+        return this;
+    }
+
+    /**
+     * Delay before retrying failed processing, doubled on every consecutive failure up to maxBackoff.
+     */
+    public CoalescingQueue<T> setBackoff(Duration initialBackoff, Duration maxBackoff) {
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    public CoalescingQueue<T> setMetrics(WorkQueueMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public WorkQueueMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void pop(Processor<T> processor, long timeout, TimeUnit timeUnit) throws Exception {
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        List<String> keys;
+        T obj;
+        long queuedAt;
+
+        synchronized (this) {
+            while (true) {
+                long now = System.nanoTime();
+                if (hasPending() && now - readyAt() >= 0) {
+                    break;
+                }
+                long wakeUp = hasPending() && readyAt() - deadline < 0 ? readyAt() : deadline;
+                long wait = wakeUp - now;
+                if (wait <= 0) {
+                    log.debug("Woke up but queue has nothing ready");
+                    return;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, wait);
+            }
+
+            keys = new ArrayList<>(pendingKeys);
+            pendingKeys.clear();
+            if (syncPending) {
+                syncPending = false;
+                synced = true;
+            }
+            obj = lastChanged;
+            lastChanged = null;
+            queuedAt = pendingSince;
+            lastProcessed = System.nanoTime();
+            processedOnce = true;
+            updateDepth();
+        }
+
+        log.debug("Processing {} changed keys", keys.size());
+        long start = System.nanoTime();
+        try {
+            processor.process(obj);
+        } catch (Exception e) {
+            metrics.incrementFailures();
+            requeue(keys, obj);
+            throw e;
+        }
+        long end = System.nanoTime();
+        metrics.recordProcessed(start - queuedAt, end - start);
+
+        synchronized (this) {
+            failures = 0;
+        }
+    }
+
+    private synchronized void requeue(List<String> keys, T obj) {
+        failures++;
+        long backoff = initialBackoff.toNanos() << Math.min(failures - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoff.toNanos()) {
+            backoff = maxBackoff.toNanos();
+        }
+        log.info("Processing failed {} times, retrying in {} ms", failures, TimeUnit.NANOSECONDS.toMillis(backoff));
+        retryAt = System.nanoTime() + backoff;
+
+        if (!hasPending()) {
+            pendingSince = System.nanoTime();
+        }
+        pendingKeys.addAll(keys);
+        if (pendingKeys.isEmpty()) {
+            // Nothing changed, but the processing still has to be retried
+            syncPending = true;
+        }
+        if (lastChanged == null) {
+            lastChanged = obj;
+        }
+        updateDepth();
+        notifyAll();
+    }
+
+    private boolean hasPending() {
+        return syncPending || !pendingKeys.isEmpty();
+    }
+
+    private long readyAt() {
+        long readyAt = pendingSince + debounce.toNanos();
+        if (processedOnce && lastProcessed + minInterval.toNanos() - readyAt > 0) {
+            readyAt = lastProcessed + minInterval.toNanos();
+        }
+        if (failures > 0 && retryAt - readyAt > 0) {
+            readyAt = retryAt;
+        }
+        return readyAt;
+    }
+
+    private void updateDepth() {
+        int depth = pendingKeys.size() + (syncPending ? 1 : 0);
+        metrics.addDepth(depth - reportedDepth);
+        reportedDepth = depth;
+    }
+
+    private void markPending(String key, T obj) {
+        if (!hasPending()) {
+            pendingSince = System.nanoTime();
+        }
+        if (key != null) {
+            pendingKeys.add(key);
+        } else {
+            syncPending = true;
+        }
+        if (obj != null) {
+            lastChanged = obj;
+        }
+        populated = true;
+        metrics.incrementEvents();
+        updateDepth();
+        notifyAll();
+    }
+
+    @Override
+    public boolean hasSynced() {
+        return populated && synced;
+    }
+
+    @Override
+    public synchronized void add(T t) {
+        String key = keyExtractor.getKey(t);
+        store.put(key, t);
+        markPending(key, t);
+    }
+
+    @Override
+    public synchronized void update(T t) {
+        String key = keyExtractor.getKey(t);
+        store.put(key, t);
+        markPending(key, t);
+    }
+
+    @Override
+    public synchronized void delete(T t) {
+        String key = keyExtractor.getKey(t);
+        store.remove(key);
+        markPending(key, t);
+    }
+
+    @Override
+    public synchronized List<T> list() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public synchronized List<String> listKeys() {
+        return new ArrayList<>(store.keySet());
+    }
+
+    @Override
+    public synchronized void replace(List<T> list, String resourceVersion) {
+        Map<String, T> newItems = new HashMap<>();
+        for (T item : list) {
+            newItems.put(keyExtractor.getKey(item), item);
+        }
+        log.debug("Replacing queue with {} items. Populated {}", list.size(), populated);
+        store.clear();
+        store.putAll(newItems);
+        markPending(null, null);
+    }
+}
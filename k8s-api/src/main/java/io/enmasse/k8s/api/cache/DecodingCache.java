@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.enmasse.k8s.api.Delta;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps the objects decoded from kubernetes resources, keyed by resource name and resourceVersion, so that
+ * only resources that changed since the previous update are decoded again. The decoded objects are handed out
+ * again by later updates until their resource changes, so users must not modify them. Not thread safe.
+ */
+public class DecodingCache<T extends HasMetadata, R> {
+    private final Function<T, R> decoder;
+    private Map<String, Entry<R>> entries = new HashMap<>();
+    private boolean synced = false;
+
+    public DecodingCache(Function<T, R> decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * Update the cache with the current resources, returning what changed since the previous update.
+     */
+    public Delta<R> update(Collection<T> resources) {
+        Map<String, Entry<R>> next = new HashMap<>(Math.max(16, resources.size() * 4 / 3 + 1));
+        Set<R> added = new HashSet<>();
+        Set<R> modified = new HashSet<>();
+        Set<R> items = new HashSet<>(Math.max(16, resources.size() * 4 / 3 + 1));
+
+        for (T resource : resources) {
+            String name = resource.getMetadata().getName();
+            String resourceVersion = resource.getMetadata().getResourceVersion();
+            Entry<R> entry = entries.get(name);
+            if (entry == null) {
+                entry = new Entry<>(resourceVersion, decoder.apply(resource));
+                added.add(entry.value);
+            } else if (resourceVersion == null || !Objects.equals(resourceVersion, entry.resourceVersion)) {
+                entry = new Entry<>(resourceVersion, decoder.apply(resource));
+                modified.add(entry.value);
+            }
+            next.put(name, entry);
+            items.add(entry.value);
+        }
+
+        Set<R> deleted = new HashSet<>();
+        for (Map.Entry<String, Entry<R>> entry : entries.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                deleted.add(entry.getValue().value);
+            }
+        }
+
+        entries = next;
+        synced = true;
+        return new Delta<>(added, modified, deleted, items);
+    }
+
+    /**
+     * Returns true if the cache has been updated at least once.
+     */
+    public boolean hasSynced() {
+        return synced;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry<R> {
+        private final String resourceVersion;
+        private final R value;
+
+        private Entry(String resourceVersion, R value) {
+            this.resourceVersion = resourceVersion;
+            this.value = value;
+        }
+    }
+}
@@ -4,9 +4,14 @@
  */
 package io.enmasse.k8s.api.cache;
 
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListMeta;
+
 public class ListOptions {
     private String resourceVersion;
     private int timeoutSeconds;
+    private int limit;
+    private String continueToken;
 
     public ListOptions setResourceVersion(String resourceVersion) {
         this.resourceVersion = resourceVersion;
@@ -18,6 +23,22 @@ public class ListOptions {
         return this;
     }
 
+    /**
+     * Max number of items to return in a list, 0 for no limit.
+     */
+    public ListOptions setLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Token returned by the previous page of a limited list.
+     */
+    public ListOptions setContinue(String continueToken) {
+        this.continueToken = continueToken;
+        return this;
+    }
+
     public int getTimeoutSeconds() {
         return timeoutSeconds;
     }
@@ -25,4 +46,28 @@ public class ListOptions {
     public String getResourceVersion() {
         return resourceVersion;
     }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getContinue() {
+        return continueToken;
+    }
+
+    /**
+     * Returns the token to fetch the next page of a limited list, or null if it was the last page.
+     */
+    public static String getContinue(KubernetesResourceList list) {
+        ListMeta metadata = list.getMetadata();
+        if (metadata == null) {
+            return null;
+        }
+        // Not part of the ListMeta model of the client version in use
+        Object continueToken = metadata.getAdditionalProperties().get("continue");
+        if (continueToken == null || continueToken.toString().isEmpty()) {
+            return null;
+        }
+        return continueToken.toString();
+    }
 }
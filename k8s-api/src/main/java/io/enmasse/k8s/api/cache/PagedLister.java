@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.BaseClient;
+import io.fabric8.kubernetes.client.Client;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Lists resources a page at a time. The client DSL does not support limit/continue, so pages are requested with the
+ * HTTP client of the fabric8 client. Clients that don't expose one are listed in full instead, which the
+ * {@link Reflector} handles as a single page.
+ */
+public class PagedLister<LT extends KubernetesResourceList> {
+    private final Client client;
+    private final Class<LT> listType;
+    private final String path;
+    private final String labelSelector;
+
+    /**
+     * @param path path of the resources relative to the master URL, such as api/v1/namespaces/myns/configmaps
+     * @param labelSelector label selector of the resources to list, or null to list all
+     */
+    public PagedLister(Client client, Class<LT> listType, String path, String labelSelector) {
+        this.client = client;
+        this.listType = listType;
+        this.path = path;
+        this.labelSelector = labelSelector;
+    }
+
+    /**
+     * Lists the page requested by the options, or everything with the fallback if the options have no limit or the
+     * client can't be used for paged lists.
+     */
+    public LT list(ListOptions listOptions, Supplier<LT> fallback) {
+        OkHttpClient httpClient = getHttpClient();
+        if (listOptions.getLimit() <= 0 || httpClient == null) {
+            return fallback.get();
+        }
+
+        HttpUrl.Builder url = HttpUrl.get(client.getMasterUrl()).newBuilder()
+                .addPathSegments(path)
+                .addQueryParameter("limit", String.valueOf(listOptions.getLimit()));
+        if (labelSelector != null) {
+            url.addQueryParameter("labelSelector", labelSelector);
+        }
+        if (listOptions.getContinue() != null) {
+            url.addQueryParameter("continue", listOptions.getContinue());
+        }
+        if (listOptions.getResourceVersion() != null) {
+            url.addQueryParameter("resourceVersion", listOptions.getResourceVersion());
+        }
+
+        Request request = new Request.Builder().get().url(url.build()).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new KubernetesClientException("Error listing " + path + ": " + response.message(), response.code(), null);
+            }
+            return Serialization.unmarshal(response.body().byteStream(), listType);
+        } catch (IOException e) {
+            throw new KubernetesClientException("Error listing " + path, e);
+        }
+    }
+
+    private OkHttpClient getHttpClient() {
+        if (client instanceof BaseClient) {
+            return ((BaseClient) client).getHttpClient();
+        }
+        return null;
+    }
+}
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,7 +24,12 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
     private static final Logger log = LoggerFactory.getLogger(Reflector.class.getName());
     private static final Duration minWatchTimeout = Duration.ofMinutes(5);
 
+    private static final Duration watchCheckInterval = Duration.ofSeconds(1);
+    private static final int HTTP_GONE = 410;
+
     private final Duration resyncInterval;
+    private final Duration relistInterval;
+    private final int listPageSize;
     private final ListerWatcher<T, LT> listerWatcher;
     private final Processor<T> processor;
     private final Class expectedType;
@@ -31,11 +37,17 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
     private final Clock clock;
     private volatile Watch watch;
     private volatile Instant nextResync = Instant.MIN;
+    private volatile Instant nextRelist = Instant.MIN;
+    private volatile boolean relistRequired = true;
+    private volatile boolean watchClosed = false;
+    private final AtomicLong watchGeneration = new AtomicLong(0);
 
     private volatile String lastSyncResourceVersion;
 
     public Reflector(Config<T, LT> config) {
         this.resyncInterval = config.resyncInterval;
+        this.relistInterval = config.relistInterval;
+        this.listPageSize = config.listPageSize;
         this.expectedType = config.expectedType;
         this.listerWatcher = config.listerWatcher;
         this.processor = config.processor;
@@ -47,18 +59,27 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
     public void run() {
         try {
             Instant now = Instant.now(clock);
-            if (now.isAfter(nextResync)) {
-                resync();
+            if (relistRequired || (relistInterval != null && now.isAfter(nextRelist))) {
+                relist();
                 nextResync = Instant.now(clock).plus(resyncInterval);
+            } else {
+                if (watchClosed) {
+                    resumeWatch();
+                }
+                if (now.isAfter(nextResync)) {
+                    resync();
+                    nextResync = Instant.now(clock).plus(resyncInterval);
+                }
             }
-            long sleepTime = Math.max(1, nextResync.toEpochMilli() - now.toEpochMilli());
-            log.info("Waiting on event queue for {} ms unless notified", sleepTime);
+            // Wake up regularly to resume closed watches
+            long sleepTime = Math.max(1, Math.min(nextResync.toEpochMilli() - now.toEpochMilli(), watchCheckInterval.toMillis()));
+            log.debug("Waiting on event queue for {} ms unless notified", sleepTime);
             queue.pop(processor, sleepTime, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } catch (Exception e) {
+            // Queues supporting it (e.g. CoalescingQueue) have requeued the failed work to be retried with backoff
             log.warn("Exception doing resource update", e);
-            // TODO: We can attempt to requeue here
         }
     }
 
@@ -66,17 +87,94 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
         return lastSyncResourceVersion;
     }
 
+    /**
+     * Replace the store with a full list of the resources and start watching from there.
+     */
+    private void relist() throws InterruptedException {
+        log.info("Relist");
+        closeWatch();
+
+        List<T> items = new ArrayList<>();
+        String resourceVersion = list(items);
+        syncWith(items, resourceVersion);
+        lastSyncResourceVersion = resourceVersion;
+
+        try {
+            startWatch(resourceVersion);
+        } catch (RuntimeException e) {
+            // Keep relisting until a watch is established, the store would otherwise stop being updated
+            watchClosed = true;
+            throw e;
+        }
+        relistRequired = false;
+        if (relistInterval != null) {
+            nextRelist = Instant.now(clock).plus(relistInterval);
+        }
+    }
+
+    /**
+     * Re-establish a closed watch from the last seen resource version, without listing again.
+     */
+    private void resumeWatch() {
+        log.info("Resuming watch from version {}", lastSyncResourceVersion);
+        closeWatch();
+        try {
+            startWatch(lastSyncResourceVersion);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HTTP_GONE) {
+                log.info("Resource version {} is too old, relisting", lastSyncResourceVersion);
+                relistRequired = true;
+            } else {
+                watchClosed = true;
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            watchClosed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Process the items in the store again, without listing.
+     */
     private void resync() throws InterruptedException {
         log.info("Resync");
+        syncWith(queue.list(), lastSyncResourceVersion);
+    }
+
+    private String list(List<T> items) {
+        String continueToken = null;
+        String resourceVersion = null;
+        do {
+            ListOptions listOptions = new ListOptions();
+            if (listPageSize > 0) {
+                listOptions.setLimit(listPageSize).setContinue(continueToken);
+            }
+            LT list = listerWatcher.list(listOptions);
+            items.addAll(list.getItems());
+            // The first page defines the version of the whole list
+            if (resourceVersion == null) {
+                resourceVersion = list.getMetadata().getResourceVersion();
+            }
+            continueToken = listPageSize > 0 ? ListOptions.getContinue(list) : null;
+        } while (continueToken != null);
+        return resourceVersion;
+    }
+
+    private void closeWatch() {
+        // Invalidate the current watch so that its close is not taken as an unexpected one
+        watchGeneration.incrementAndGet();
         if (watch != null) {
             log.info("Closing existing watch");
             watch.close();
+            watch = null;
         }
+        watchClosed = false;
+    }
+
+    private void startWatch(String resourceVersion) {
         Instant start = clock.instant();
-        LT list = listerWatcher.list(new ListOptions());
-        String resourceVersion = list.getMetadata().getResourceVersion();
-        syncWith(list.getItems(), resourceVersion);
-        lastSyncResourceVersion = resourceVersion;
+        long generation = watchGeneration.get();
 
         ListOptions watchOptions = new ListOptions()
                 .setResourceVersion(resourceVersion)
@@ -130,6 +228,16 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
                 } else {
                     log.info("Watch closed");
                 }
+
+                if (generation != watchGeneration.get()) {
+                    return;
+                }
+                if (e != null && e.getCode() == HTTP_GONE) {
+                    log.info("Watch version {} is gone, relisting", lastSyncResourceVersion);
+                    relistRequired = true;
+                } else {
+                    watchClosed = true;
+                }
             }
         }, watchOptions);
     }
@@ -147,6 +255,8 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
     public static class Config<T extends HasMetadata, LT extends KubernetesResourceList> {
         private Clock clock;
         private Duration resyncInterval;
+        private Duration relistInterval;
+        private int listPageSize;
         private ListerWatcher<T, LT> listerWatcher;
         private Processor<T> processor;
         private WorkQueue<T> queue;
@@ -162,6 +272,23 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
             return this;
         }
 
+        /**
+         * Interval between full relists. If not set, resources are listed again only when the watch can't be
+         * resumed because the last seen resource version is gone.
+         */
+        public Config<T, LT> setRelistInterval(Duration relistInterval) {
+            this.relistInterval = relistInterval;
+            return this;
+        }
+
+        /**
+         * Max number of resources fetched per list request, 0 to fetch all at once.
+         */
+        public Config<T, LT> setListPageSize(int listPageSize) {
+            this.listPageSize = listPageSize;
+            return this;
+        }
+
         public Config<T, LT> setListerWatcher(ListerWatcher<T, LT> listerWatcher) {
             this.listerWatcher = listerWatcher;
             return this;
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.*;
+
+/**
+ * Index by namespace and label of the resources in a work queue kept up to date by a {@link Reflector}. Use it as
+ * the processor of the reflector: the index is rebuilt each time the reflector has applied changes to the queue, so
+ * lookups neither call the API server nor scan the whole queue.
+ */
+public class ResourceIndex<T extends HasMetadata> implements Processor<T> {
+    private final WorkQueue<T> queue;
+    private volatile Map<String, Namespace<T>> namespaces = Collections.emptyMap();
+
+    public ResourceIndex(WorkQueue<T> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public void process(T ignored) {
+        Map<String, Namespace<T>> index = new HashMap<>();
+        for (T item : queue.list()) {
+            index.computeIfAbsent(item.getMetadata().getNamespace(), ns -> new Namespace<>()).add(item);
+        }
+        namespaces = index;
+    }
+
+    /**
+     * @return true once the initial list of resources has been indexed
+     */
+    public boolean hasSynced() {
+        return queue.hasSynced();
+    }
+
+    public T get(String namespace, String name) {
+        Namespace<T> index = namespaces.get(namespace);
+        return index != null ? index.byName.get(name) : null;
+    }
+
+    public List<T> list(String namespace) {
+        Namespace<T> index = namespaces.get(namespace);
+        return index != null ? new ArrayList<>(index.byName.values()) : Collections.emptyList();
+    }
+
+    /**
+     * @return the resources in the namespace that have all the given labels
+     */
+    public List<T> list(String namespace, Map<String, String> labels) {
+        Namespace<T> index = namespaces.get(namespace);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        if (labels.isEmpty()) {
+            return new ArrayList<>(index.byName.values());
+        }
+
+        Map.Entry<String, String> first = labels.entrySet().iterator().next();
+        List<T> candidates = index.byLabel.getOrDefault(labelKey(first.getKey(), first.getValue()), Collections.emptyList());
+        List<T> result = new ArrayList<>();
+        for (T item : candidates) {
+            if (item.getMetadata().getLabels().entrySet().containsAll(labels.entrySet())) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    private static String labelKey(String key, String value) {
+        return key + "=" + value;
+    }
+
+    private static class Namespace<T extends HasMetadata> {
+        private final Map<String, T> byName = new HashMap<>();
+        private final Map<String, List<T>> byLabel = new HashMap<>();
+
+        private void add(T item) {
+            byName.put(item.getMetadata().getName(), item);
+            Map<String, String> labels = item.getMetadata().getLabels();
+            if (labels != null) {
+                for (Map.Entry<String, String> label : labels.entrySet()) {
+                    byLabel.computeIfAbsent(labelKey(label.getKey(), label.getValue()), k -> new ArrayList<>()).add(item);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.enmasse.metrics.PrometheusTextBuilder;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of a {@link CoalescingQueue}. Can be shared by multiple queues.
+ */
+public class WorkQueueMetrics {
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong queueLatencyNanos = new AtomicLong();
+    private final AtomicLong processingLatencyNanos = new AtomicLong();
+    private final AtomicLong maxProcessingLatencyNanos = new AtomicLong();
+
+    void addDepth(int delta) {
+        depth.addAndGet(delta);
+    }
+
+    void incrementEvents() {
+        events.incrementAndGet();
+    }
+
+    void recordProcessed(long queueLatency, long processingLatency) {
+        processed.incrementAndGet();
+        queueLatencyNanos.addAndGet(queueLatency);
+        processingLatencyNanos.addAndGet(processingLatency);
+        maxProcessingLatencyNanos.accumulateAndGet(processingLatency, Math::max);
+    }
+
+    void incrementFailures() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * Number of keys (and pending resyncs) waiting to be processed.
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Number of events received.
+     */
+    public long getEvents() {
+        return events.get();
+    }
+
+    /**
+     * Number of times the processor has been invoked.
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Average number of events handled by a single invocation of the processor.
+     */
+    public double getCoalescingRatio() {
+        long processed = this.processed.get();
+        return processed == 0 ? 0 : (double) events.get() / processed;
+    }
+
+    /**
+     * Average time between the first pending event and the start of its processing, in nanoseconds.
+     */
+    public long getAverageQueueLatencyNanos() {
+        long processed = this.processed.get();
+        return processed == 0 ? 0 : queueLatencyNanos.get() / processed;
+    }
+
+    /**
+     * Average time spent in the processor, in nanoseconds.
+     */
+    public long getAverageProcessingLatencyNanos() {
+        long processed = this.processed.get();
+        return processed == 0 ? 0 : processingLatencyNanos.get() / processed;
+    }
+
+    public long getMaxProcessingLatencyNanos() {
+        return maxProcessingLatencyNanos.get();
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text exposition format.
+     *
+     * @param queue name of the queue, used as label of the metrics
+     */
+    public String toPrometheusText(String queue) {
+        Map<String, String> labels = PrometheusTextBuilder.labels("queue", queue);
+        return new PrometheusTextBuilder()
+                .type("workqueue_depth", "gauge")
+                .sample("workqueue_depth", labels, getDepth())
+                .type("workqueue_events_total", "counter")
+                .sample("workqueue_events_total", labels, getEvents())
+                .type("workqueue_failures_total", "counter")
+                .sample("workqueue_failures_total", labels, getFailures())
+                .type("workqueue_queue_duration_seconds", "summary")
+                .summary("workqueue_queue_duration_seconds", labels, queueLatencyNanos.get() / 1e9, getProcessed())
+                .type("workqueue_work_duration_seconds", "summary")
+                .summary("workqueue_work_duration_seconds", labels, processingLatencyNanos.get() / 1e9, getProcessed())
+                .type("workqueue_work_duration_max_seconds", "gauge")
+                .sample("workqueue_work_duration_max_seconds", labels, getMaxProcessingLatencyNanos() / 1e9)
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return "{depth=" + getDepth() +
+                ", events=" + getEvents() +
+                ", processed=" + getProcessed() +
+                ", failures=" + getFailures() +
+                ", coalescingRatio=" + String.format("%.2f", getCoalescingRatio()) +
+                ", avgQueueLatencyNanos=" + getAverageQueueLatencyNanos() +
+                ", avgProcessingLatencyNanos=" + getAverageProcessingLatencyNanos() +
+                ", maxProcessingLatencyNanos=" + getMaxProcessingLatencyNanos() + "}";
+    }
+}
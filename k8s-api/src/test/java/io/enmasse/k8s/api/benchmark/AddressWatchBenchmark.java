@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.benchmark;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.v1.CodecV1;
+import io.enmasse.k8s.api.Delta;
+import io.enmasse.k8s.api.cache.DecodingCache;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares decoding every address config on each watch event with the decoding cache, which only
+ * decodes the config map that was modified by the event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressWatchBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int addresses;
+
+    private List<ConfigMap> configMaps;
+    private DecodingCache<ConfigMap, Address> cache;
+    private long resourceVersion;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        configMaps = new ArrayList<>(addresses);
+        for (int i = 0; i < addresses; i++) {
+            Address address = new Address.Builder()
+                    .setName("myspace.queue" + i)
+                    .setNamespace("mynamespace")
+                    .setAddress("queue" + i)
+                    .setAddressSpace("myspace")
+                    .setType("queue")
+                    .setPlan("pooled-queue")
+                    .build();
+            configMaps.add(new ConfigMapBuilder()
+                    .editOrNewMetadata()
+                    .withName(address.getName())
+                    .withResourceVersion(String.valueOf(resourceVersion++))
+                    .endMetadata()
+                    .addToData("config.json", CodecV1.getMapper().writeValueAsString(address))
+                    .build());
+        }
+        cache = new DecodingCache<>(AddressWatchBenchmark::decode);
+        cache.update(configMaps);
+    }
+
+    @Benchmark
+    public Set<Address> fullDecode() {
+        modifyOne();
+        return configMaps.stream()
+                .map(AddressWatchBenchmark::decode)
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Delta<Address> decodingCache() {
+        modifyOne();
+        return cache.update(configMaps);
+    }
+
+    /**
+     * Simulates the watch event for a single modified address
+     */
+    private void modifyOne() {
+        ConfigMap configMap = configMaps.get(next++ % addresses);
+        configMap.getMetadata().setResourceVersion(String.valueOf(resourceVersion++));
+    }
+
+    private static Address decode(ConfigMap configMap) {
+        try {
+            return CodecV1.getMapper().readValue(configMap.getData().get("config.json"), Address.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AddressWatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
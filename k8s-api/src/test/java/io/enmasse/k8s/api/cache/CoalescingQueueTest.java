@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CoalescingQueueTest {
+    @Test
+    public void testCoalescing() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s);
+        queue.replace(Arrays.asList("k1", "k2"), "1");
+        queue.update("k1");
+        queue.add("k3");
+        queue.delete("k2");
+        assertFalse(queue.hasSynced());
+        assertThat(queue.getMetrics().getDepth(), is(4));
+
+        Processor<String> mockProc = mock(Processor.class);
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(1)).process(eq("k2"));
+        assertTrue(queue.hasSynced());
+        assertThat(queue.listKeys().size(), is(2));
+        assertTrue(queue.list().contains("k1"));
+        assertTrue(queue.list().contains("k3"));
+
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(1)).process(any());
+
+        assertThat(queue.getMetrics().getDepth(), is(0));
+        assertThat(queue.getMetrics().getEvents(), is(4L));
+        assertThat(queue.getMetrics().getProcessed(), is(1L));
+        assertThat(queue.getMetrics().getCoalescingRatio(), is(4.0));
+
+        String text = queue.getMetrics().toPrometheusText("test");
+        assertThat(text, containsString("workqueue_depth{queue=\"test\"} 0\n"));
+        assertThat(text, containsString("workqueue_events_total{queue=\"test\"} 4\n"));
+        assertThat(text, containsString("workqueue_work_duration_seconds_count{queue=\"test\"} 1\n"));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s);
+        Processor<String> mockProc = mock(Processor.class);
+        queue.pop(mockProc, 10, TimeUnit.MILLISECONDS);
+        verifyZeroInteractions(mockProc);
+        assertFalse(queue.hasSynced());
+    }
+
+    @Test
+    public void testMinInterval() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<String>(s -> s)
+                .setMinInterval(Duration.ofSeconds(60));
+        Processor<String> mockProc = mock(Processor.class);
+
+        queue.add("k1");
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc).process(eq("k1"));
+
+        // Events right after processing are held back until the min interval has elapsed
+        queue.add("k2");
+        queue.add("k3");
+        queue.pop(mockProc, 50, TimeUnit.MILLISECONDS);
+        verify(mockProc, times(1)).process(any());
+        assertThat(queue.getMetrics().getDepth(), is(2));
+        assertThat(queue.listKeys().size(), is(3));
+    }
+
+    @Test
+    public void testDebounce() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<String>(s -> s)
+                .setDebounce(Duration.ofMillis(200));
+        Processor<String> mockProc = mock(Processor.class);
+
+        queue.add("k1");
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verifyZeroInteractions(mockProc);
+
+        queue.add("k2");
+        long start = System.nanoTime();
+        queue.pop(mockProc, 10, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        verify(mockProc, times(1)).process(eq("k2"));
+    }
+
+    @Test
+    public void testRequeueWithBackoff() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<String>(s -> s)
+                .setBackoff(Duration.ofMillis(100), Duration.ofMillis(200));
+        Processor<String> mockProc = mock(Processor.class);
+        doThrow(new RuntimeException("failed")).doNothing().when(mockProc).process(any());
+
+        queue.add("k1");
+        try {
+            queue.pop(mockProc, 0, TimeUnit.SECONDS);
+            fail("Expected processing to fail");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        assertThat(queue.getMetrics().getFailures(), is(1L));
+        assertThat(queue.getMetrics().getDepth(), is(1));
+
+        // Not retried before the backoff has elapsed
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(1)).process(any());
+
+        queue.pop(mockProc, 10, TimeUnit.SECONDS);
+        verify(mockProc, times(2)).process(eq("k1"));
+        assertThat(queue.getMetrics().getDepth(), is(0));
+        assertThat(queue.getMetrics().getProcessed(), is(1L));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.enmasse.k8s.api.Delta;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DecodingCacheTest {
+    private final AtomicInteger decoded = new AtomicInteger();
+    private final DecodingCache<ConfigMap, String> cache = new DecodingCache<>(map -> {
+        decoded.incrementAndGet();
+        return map.getMetadata().getName() + "@" + map.getMetadata().getResourceVersion();
+    });
+
+    @Test
+    public void testInitialUpdate() {
+        assertFalse(cache.hasSynced());
+        Delta<String> delta = cache.update(Arrays.asList(configMap("a1", "1"), configMap("a2", "1")));
+
+        assertTrue(cache.hasSynced());
+        assertThat(delta.getAdded().size(), is(2));
+        assertTrue(delta.getModified().isEmpty());
+        assertTrue(delta.getDeleted().isEmpty());
+        assertThat(delta.getItems().size(), is(2));
+        assertThat(decoded.get(), is(2));
+    }
+
+    @Test
+    public void testOnlyChangedAreDecoded() {
+        cache.update(Arrays.asList(configMap("a1", "1"), configMap("a2", "1"), configMap("a3", "1")));
+        decoded.set(0);
+
+        Delta<String> delta = cache.update(Arrays.asList(configMap("a1", "1"), configMap("a2", "2"), configMap("a4", "1")));
+
+        assertThat(decoded.get(), is(2));
+        assertThat(delta.getAdded(), is(Collections.singleton("a4@1")));
+        assertThat(delta.getModified(), is(Collections.singleton("a2@2")));
+        assertThat(delta.getDeleted(), is(Collections.singleton("a3@1")));
+        assertThat(delta.getItems().size(), is(3));
+        assertThat(delta.getItems(), hasItem("a1@1"));
+        assertThat(cache.size(), is(3));
+    }
+
+    @Test
+    public void testUnchanged() {
+        cache.update(Arrays.asList(configMap("a1", "1"), configMap("a2", "1")));
+        decoded.set(0);
+
+        Delta<String> delta = cache.update(Arrays.asList(configMap("a2", "1"), configMap("a1", "1")));
+
+        assertTrue(delta.isEmpty());
+        assertThat(delta.getItems().size(), is(2));
+        assertThat(decoded.get(), is(0));
+    }
+
+    @Test
+    public void testDecodeFailureKeepsPreviousState() {
+        DecodingCache<ConfigMap, String> failing = new DecodingCache<>(map -> {
+            if ("bad".equals(map.getMetadata().getName())) {
+                throw new IllegalArgumentException("bad");
+            }
+            return map.getMetadata().getName();
+        });
+        failing.update(Collections.singletonList(configMap("a1", "1")));
+
+        try {
+            failing.update(Arrays.asList(configMap("a2", "1"), configMap("bad", "1")));
+            fail("Expected decoding to fail");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        Delta<String> delta = failing.update(Collections.singletonList(configMap("a2", "1")));
+        assertThat(delta.getAdded(), is(Collections.singleton("a2")));
+        assertThat(delta.getDeleted(), is(Collections.singleton("a1")));
+    }
+
+    private static ConfigMap configMap(String name, String resourceVersion) {
+        return new ConfigMapBuilder()
+                .editOrNewMetadata()
+                .withName(name)
+                .withResourceVersion(resourceVersion)
+                .endMetadata()
+                .build();
+    }
+}
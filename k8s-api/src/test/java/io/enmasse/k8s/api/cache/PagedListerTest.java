@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.client.Client;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class PagedListerTest {
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    private final ConfigMapList fullList = new ConfigMapList();
+
+    @Test
+    public void testPageRequested() {
+        ConfigMapList response = new ConfigMapListBuilder()
+                .withNewMetadata().endMetadata()
+                .addToItems(new ConfigMapBuilder().withNewMetadata().withName("c1").endMetadata().build())
+                .addToItems(new ConfigMapBuilder().withNewMetadata().withName("c2").endMetadata().build())
+                .build();
+        response.getMetadata().setAdditionalProperty("continue", "token2");
+        server.expect().get()
+                .withPath("/api/v1/namespaces/myns/configmaps?limit=2&labelSelector=type%3Daddress-config&continue=token1")
+                .andReturn(200, response)
+                .once();
+        PagedLister<ConfigMapList> lister = new PagedLister<>(server.getClient(), ConfigMapList.class, "api/v1/namespaces/myns/configmaps", "type=address-config");
+
+        ConfigMapList page = lister.list(new ListOptions().setLimit(2).setContinue("token1"), () -> fullList);
+
+        assertThat(page.getItems().size(), is(2));
+        assertThat(page.getItems().get(0).getMetadata().getName(), is("c1"));
+        assertThat(ListOptions.getContinue(page), is("token2"));
+    }
+
+    @Test
+    public void testUnlimitedListUsesFallback() {
+        PagedLister<ConfigMapList> lister = new PagedLister<>(server.getClient(), ConfigMapList.class, "api/v1/namespaces/myns/configmaps", null);
+
+        assertThat(lister.list(new ListOptions(), () -> fullList), sameInstance(fullList));
+    }
+
+    @Test
+    public void testClientWithoutHttpClientUsesFallback() {
+        PagedLister<ConfigMapList> lister = new PagedLister<>(mock(Client.class), ConfigMapList.class, "api/v1/namespaces/myns/configmaps", null);
+
+        assertThat(lister.list(new ListOptions().setLimit(2), () -> fullList), sameInstance(fullList));
+    }
+}
@@ -8,6 +8,7 @@ import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.ConfigMapList;
 import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -97,6 +98,144 @@ public class ReflectorTest {
         verify(testProc, times(4)).process(any());
     }
 
+    @Test
+    public void testResumeWatch() throws Exception {
+        when(testLister.list(any())).thenReturn(new ConfigMapListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("3")
+                .endMetadata()
+                .addToItems(configMap("a1", "a2", "1"))
+                .build());
+
+        ArgumentCaptor<io.fabric8.kubernetes.client.Watcher<ConfigMap>> captor = ArgumentCaptor.forClass(io.fabric8.kubernetes.client.Watcher.class);
+        ArgumentCaptor<ListOptions> options = ArgumentCaptor.forClass(ListOptions.class);
+
+        reflector.run();
+        verify(testLister).watch(captor.capture(), options.capture());
+        assertThat(options.getValue().getResourceVersion(), is("3"));
+
+        io.fabric8.kubernetes.client.Watcher<ConfigMap> watcher = captor.getValue();
+        watcher.eventReceived(io.fabric8.kubernetes.client.Watcher.Action.MODIFIED, configMap("a1", "a3", "5"));
+        watcher.onClose(null);
+        reflector.run();
+
+        verify(testLister, times(1)).list(any());
+        verify(testLister, times(2)).watch(any(), options.capture());
+        assertThat(options.getValue().getResourceVersion(), is("5"));
+        assertConfigMap("a1", "a3");
+    }
+
+    @Test
+    public void testRelistWhenGone() throws Exception {
+        when(testLister.list(any())).thenReturn(new ConfigMapListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("3")
+                .endMetadata()
+                .addToItems(configMap("a1", "a2", "1"))
+                .build());
+
+        ArgumentCaptor<io.fabric8.kubernetes.client.Watcher<ConfigMap>> captor = ArgumentCaptor.forClass(io.fabric8.kubernetes.client.Watcher.class);
+
+        reflector.run();
+        verify(testLister).watch(captor.capture(), any());
+        captor.getValue().onClose(new KubernetesClientException("too old resource version", 410, null));
+        reflector.run();
+
+        verify(testLister, times(2)).list(any());
+        verify(testLister, times(2)).watch(any(), any());
+    }
+
+    @Test
+    public void testWatchRetriedAfterFailedStart() throws Exception {
+        when(testLister.list(any())).thenReturn(new ConfigMapListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("3")
+                .endMetadata()
+                .addToItems(configMap("a1", "a2", "1"))
+                .build());
+        when(testLister.watch(any(), any()))
+                .thenThrow(new RuntimeException("connection refused"))
+                .thenReturn(null);
+
+        reflector.run();
+        reflector.run();
+
+        ArgumentCaptor<io.fabric8.kubernetes.client.Watcher<ConfigMap>> captor = ArgumentCaptor.forClass(io.fabric8.kubernetes.client.Watcher.class);
+        verify(testLister, times(2)).watch(captor.capture(), any());
+        captor.getValue().eventReceived(io.fabric8.kubernetes.client.Watcher.Action.MODIFIED, configMap("a1", "a3", "5"));
+        reflector.run();
+        assertConfigMap("a1", "a3");
+
+        reflector.run();
+        verify(testLister, times(2)).watch(any(), any());
+    }
+
+    @Test
+    public void testResumeRetriedAfterFailedStart() throws Exception {
+        when(testLister.list(any())).thenReturn(new ConfigMapListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("3")
+                .endMetadata()
+                .addToItems(configMap("a1", "a2", "1"))
+                .build());
+        when(testLister.watch(any(), any()))
+                .thenReturn(null)
+                .thenThrow(new RuntimeException("connection refused"))
+                .thenReturn(null);
+
+        ArgumentCaptor<io.fabric8.kubernetes.client.Watcher<ConfigMap>> captor = ArgumentCaptor.forClass(io.fabric8.kubernetes.client.Watcher.class);
+        reflector.run();
+        verify(testLister).watch(captor.capture(), any());
+        captor.getValue().onClose(null);
+
+        reflector.run();
+        reflector.run();
+
+        verify(testLister, times(1)).list(any());
+        verify(testLister, times(3)).watch(captor.capture(), any());
+        captor.getValue().eventReceived(io.fabric8.kubernetes.client.Watcher.Action.MODIFIED, configMap("a1", "a3", "5"));
+        reflector.run();
+        assertConfigMap("a1", "a3");
+    }
+
+    @Test
+    public void testPagedList() throws Exception {
+        Reflector.Config<ConfigMap, ConfigMapList> config = new Reflector.Config<>();
+        config.setClock(Clock.fixed(Instant.now(), ZoneId.systemDefault()));
+        config.setListerWatcher(testLister);
+        config.setWorkQueue(testStore);
+        config.setExpectedType(ConfigMap.class);
+        config.setResyncInterval(Duration.ofSeconds(1));
+        config.setListPageSize(2);
+        config.setProcessor(testProc);
+        reflector = new Reflector<>(config);
+
+        ConfigMapList firstPage = new ConfigMapListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("3")
+                .endMetadata()
+                .addToItems(configMap("a1", "a2", "1"))
+                .addToItems(configMap("b1", "b2", "2"))
+                .build();
+        firstPage.getMetadata().setAdditionalProperty("continue", "next");
+        ConfigMapList lastPage = new ConfigMapListBuilder()
+                .editOrNewMetadata()
+                .withResourceVersion("4")
+                .endMetadata()
+                .addToItems(configMap("c1", "c2", "3"))
+                .build();
+        when(testLister.list(any())).thenReturn(firstPage, lastPage);
+
+        ArgumentCaptor<ListOptions> options = ArgumentCaptor.forClass(ListOptions.class);
+        reflector.run();
+
+        verify(testLister, times(2)).list(options.capture());
+        assertThat(options.getAllValues().get(0).getLimit(), is(2));
+        assertThat(options.getAllValues().get(1).getContinue(), is("next"));
+        assertStoreSize(3);
+        assertThat(reflector.getLastSyncResourceVersion(), is("3"));
+    }
+
     public void assertStoreSize(int expectedSize) throws InterruptedException {
         assertThat("Store contains " + testStore.listKeys(), testStore.listKeys().size(), is(expectedSize));
     }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceIndexTest {
+    @Test
+    public void testIndex() throws Exception {
+        WorkQueue<ConfigMap> queue = new FifoQueue<>(m -> m.getMetadata().getNamespace() + "/" + m.getMetadata().getName());
+        ResourceIndex<ConfigMap> index = new ResourceIndex<>(queue);
+        assertFalse(index.hasSynced());
+
+        queue.replace(Arrays.asList(
+                configMap("ns1", "a", "router"),
+                configMap("ns1", "b", "broker"),
+                configMap("ns2", "a", "router")), "1");
+        queue.pop(index, 0, TimeUnit.SECONDS);
+
+        assertTrue(index.hasSynced());
+        assertThat(index.list("ns1").size(), is(2));
+        assertThat(index.list("ns2").size(), is(1));
+        assertThat(index.list("ns3").size(), is(0));
+        assertThat(index.get("ns1", "b").getMetadata().getLabels().get("component"), is("broker"));
+        assertNull(index.get("ns2", "b"));
+
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", "enmasse");
+        labels.put("component", "router");
+        assertThat(index.list("ns1", labels).size(), is(1));
+        assertThat(index.list("ns1", labels).get(0).getMetadata().getName(), is("a"));
+        assertThat(index.list("ns1", Collections.singletonMap("app", "enmasse")).size(), is(2));
+        assertThat(index.list("ns1", Collections.singletonMap("component", "none")).size(), is(0));
+
+        queue.delete(configMap("ns1", "a", "router"));
+        queue.pop(index, 0, TimeUnit.SECONDS);
+        assertNull(index.get("ns1", "a"));
+        assertThat(index.list("ns1", labels).size(), is(0));
+    }
+
+    private static ConfigMap configMap(String namespace, String name, String component) {
+        return new ConfigMapBuilder()
+                .editOrNewMetadata()
+                .withNamespace(namespace)
+                .withName(name)
+                .addToLabels("app", "enmasse")
+                .addToLabels("component", component)
+                .endMetadata()
+                .build();
+    }
+}
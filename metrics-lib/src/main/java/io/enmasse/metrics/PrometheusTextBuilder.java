@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds metrics in the Prometheus text exposition format (version 0.0.4), shared by the components exposing a
+ * /metrics endpoint.
+ */
+public class PrometheusTextBuilder {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * Creates labels from pairs of names and values, keeping their order.
+     */
+    public static Map<String, String> labels(String... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as pairs of names and values");
+        }
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            labels.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return labels;
+    }
+
+    /**
+     * Declares the type of a metric, before its samples.
+     *
+     * @param type counter, gauge, summary or histogram
+     */
+    public PrometheusTextBuilder type(String name, String type) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusTextBuilder sample(String name, long value) {
+        return sample(name, Collections.emptyMap(), value);
+    }
+
+    public PrometheusTextBuilder sample(String name, double value) {
+        return sample(name, Collections.emptyMap(), value);
+    }
+
+    public PrometheusTextBuilder sample(String name, Map<String, String> labels, long value) {
+        appendName(name, labels);
+        sb.append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusTextBuilder sample(String name, Map<String, String> labels, double value) {
+        appendName(name, labels);
+        sb.append(formatDouble(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Adds the sum and count samples of a summary.
+     */
+    public PrometheusTextBuilder summary(String name, Map<String, String> labels, double sum, long count) {
+        sample(name + "_sum", labels, sum);
+        sample(name + "_count", labels, count);
+        return this;
+    }
+
+    /**
+     * Adds the bucket, sum and count samples of a histogram.
+     *
+     * @param upperBounds upper bound of each bucket, in increasing order
+     * @param bucketCounts number of observations in each bucket, not cumulative
+     */
+    public PrometheusTextBuilder histogram(String name, Map<String, String> labels, double[] upperBounds, long[] bucketCounts, double sum, long count) {
+        if (upperBounds.length != bucketCounts.length) {
+            throw new IllegalArgumentException("Expected a count for each of the " + upperBounds.length + " buckets");
+        }
+        long cumulative = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            cumulative += bucketCounts[i];
+            sample(name + "_bucket", withLabel(labels, "le", formatDouble(upperBounds[i])), cumulative);
+        }
+        if (upperBounds.length == 0 || upperBounds[upperBounds.length - 1] != Double.POSITIVE_INFINITY) {
+            sample(name + "_bucket", withLabel(labels, "le", "+Inf"), count);
+        }
+        return summary(name, labels, sum, count);
+    }
+
+    public String build() {
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return build();
+    }
+
+    private void appendName(String name, Map<String, String> labels) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append(label.getKey()).append("=\"");
+                escape(label.getValue());
+                sb.append('"');
+                first = false;
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    private static Map<String, String> withLabel(Map<String, String> labels, String name, String value) {
+        Map<String, String> result = new LinkedHashMap<>(labels);
+        result.put(name, value);
+        return result;
+    }
+
+    private static String formatDouble(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            return "-Inf";
+        } else if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.metrics;
+
+import org.junit.Test;
+
+import static io.enmasse.metrics.PrometheusTextBuilder.labels;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PrometheusTextBuilderTest {
+
+    @Test
+    public void testSamples() {
+        String text = new PrometheusTextBuilder()
+                .type("requests_total", "counter")
+                .sample("requests_total", labels("kind", "a", "result", "hit"), 3)
+                .sample("requests_total", labels("kind", "a", "result", "miss"), 1)
+                .type("ratio", "gauge")
+                .sample("ratio", 0.75)
+                .build();
+
+        assertThat(text, is("# TYPE requests_total counter\n" +
+                "requests_total{kind=\"a\",result=\"hit\"} 3\n" +
+                "requests_total{kind=\"a\",result=\"miss\"} 1\n" +
+                "# TYPE ratio gauge\n" +
+                "ratio 0.75\n"));
+    }
+
+    @Test
+    public void testLabelValuesEscaped() {
+        String text = new PrometheusTextBuilder()
+                .sample("m", labels("path", "a\\b \"c\"\nd"), 1)
+                .build();
+
+        assertThat(text, is("m{path=\"a\\\\b \\\"c\\\"\\nd\"} 1\n"));
+    }
+
+    @Test
+    public void testHistogram() {
+        String text = new PrometheusTextBuilder()
+                .histogram("duration_seconds", labels("phase", "total"), new double[] {0.1, 1.0}, new long[] {2, 1}, 1.5, 4)
+                .build();
+
+        assertThat(text, is("duration_seconds_bucket{phase=\"total\",le=\"0.1\"} 2\n" +
+                "duration_seconds_bucket{phase=\"total\",le=\"1.0\"} 3\n" +
+                "duration_seconds_bucket{phase=\"total\",le=\"+Inf\"} 4\n" +
+                "duration_seconds_sum{phase=\"total\"} 1.5\n" +
+                "duration_seconds_count{phase=\"total\"} 4\n"));
+    }
+
+    @Test
+    public void testSpecialValues() {
+        String text = new PrometheusTextBuilder()
+                .sample("a", Double.NaN)
+                .sample("b", Double.POSITIVE_INFINITY)
+                .build();
+
+        assertThat(text, is("a NaN\nb +Inf\n"));
+    }
+}
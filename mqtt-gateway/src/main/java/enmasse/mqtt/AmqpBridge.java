@@ -16,6 +16,7 @@ import enmasse.mqtt.endpoints.AmqpReceiver;
 import enmasse.mqtt.endpoints.AmqpReceiverEndpoint;
 import enmasse.mqtt.endpoints.AmqpSubscriptionServiceEndpoint;
 import enmasse.mqtt.endpoints.AmqpLwtServiceEndpoint;
+import enmasse.mqtt.endpoints.PublisherCacheStats;
 import enmasse.mqtt.messages.AmqpCloseMessage;
 import enmasse.mqtt.messages.AmqpListMessage;
 import enmasse.mqtt.messages.AmqpPublishMessage;
@@ -45,15 +46,14 @@ import io.vertx.proton.ProtonDelivery;
 import io.vertx.proton.ProtonLinkOptions;
 import io.vertx.proton.ProtonReceiver;
 import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSession;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -83,6 +83,9 @@ public class AmqpBridge {
 
     private ProtonClient client;
     private ProtonConnection connection;
+    private ProtonSession session;
+    // not null when the connection is shared with other bridges
+    private AmqpConnectionPool.Lease connectionLease;
 
 
     // endpoint for handling communication with Last Will and Testament Service (LWTS)
@@ -98,10 +101,16 @@ public class AmqpBridge {
     private Handler<AmqpBridge> mqttEndpointCloseHandler;
 
     // topic subscriptions with granted QoS levels
-    private Map<String, MqttQoS> grantedQoSLevels;
+    private final SubscriptionTrie grantedQoSLevels = new SubscriptionTrie();
 
     private boolean detachForced = true;
 
+    // bounds for the publishers attached on topics (see AmqpPublishEndpoint)
+    private int maxPublishers;
+    private long publisherIdleTimeout;
+    private PublisherCacheStats publisherCacheStats = new PublisherCacheStats();
+    private long publisherIdleTimer = -1;
+
     /**
      * Constructor
      *
@@ -135,7 +144,6 @@ public class AmqpBridge {
         //        otherwise it provides PLAIN with username/password provided here
         this.client.connect(clientOptions, address, port, userName, password, done -> {
 
-            String clientIdentifier = this.mqttEndpoint.clientIdentifier();
             if (done.succeeded()) {
 
                 this.connection = done.result();
@@ -144,163 +152,214 @@ public class AmqpBridge {
                         .disconnectHandler(this::handleRemoteDisconnect)
                         .open();
 
-                // setup MQTT endpoint handlers and AMQP endpoints
-                this.setupMqttEndpoint();
-                this.setupAmqpEndpoits();
+                this.handleConnectionOpened(openHandler);
 
-                // setup a Future for completed connection steps with all services
-                // with AMQP_WILL and AMQP_LIST/AMQP_SUBSCRIPTIONS or AMQP_CLOSE handled
-                Future<AmqpSubscriptionsMessage> connectionFuture = Future.future();
-                connectionFuture.setHandler(ar -> {
+            } else {
 
-                    try {
-                        if (ar.succeeded()) {
+                this.handleConnectionFailed(done.cause(), openHandler);
+            }
 
-                            this.rcvEndpoint.publishHandler(this::publishHandler);
-                            this.rcvEndpoint.pubrelHandler(this::pubrelHandler);
+        });
 
-                            AmqpSubscriptionsMessage amqpSubscriptionsMessage = ar.result();
+    }
 
-                            if (amqpSubscriptionsMessage != null) {
-                                this.mqttEndpoint.accept(!amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
-                                // added topic subscriptions of a previous session in the local collection
-                                this.grantedQoSLevels = amqpSubscriptionsMessage.topicSubscriptions()
-                                        .stream()
-                                        .collect(Collectors.toMap(amqpTopicSubscription -> amqpTopicSubscription.topic(),
-                                                amqpTopicSubscription -> amqpTopicSubscription.qos()));
+    /**
+     * Open the bridge on a connection to the AMQP service provider shared with other bridges
+     *
+     * @param connectionPool    pool providing the shared connection
+     * @param openHandler   handler called when the open is completed (with success or not)
+     */
+    public void open(AmqpConnectionPool connectionPool, Handler<AsyncResult<AmqpBridge>> openHandler) {
 
-                            } else {
-                                this.mqttEndpoint.accept(false);
-                                this.grantedQoSLevels = new HashMap<>();
-                            }
-                            LOG.info("CONNACK [{}] to MQTT client {} at {}", CONNECTION_ACCEPTED.ordinal(),
-                                     clientIdentifier, this.remoteAddress);
+        String userName = (this.mqttEndpoint.auth() != null) ? this.mqttEndpoint.auth().userName() : null;
+        String password = (this.mqttEndpoint.auth() != null) ? this.mqttEndpoint.auth().password() : null;
+        connectionPool.acquire(userName, password, this::handleSharedConnectionFailure, done -> {
 
-                            // open unique client publish address receiver
-                            this.rcvEndpoint.openPublish();
+            if (done.succeeded()) {
 
-                            openHandler.handle(Future.succeededFuture(AmqpBridge.this));
+                this.connectionLease = done.result();
+                this.connection = this.connectionLease.connection();
 
-                        } else {
+                this.handleConnectionOpened(openHandler);
 
-                            this.mqttEndpoint.reject(CONNECTION_REFUSED_SERVER_UNAVAILABLE);
-                            LOG.error("CONNACK [{}] to MQTT client {} at {}", CONNECTION_REFUSED_SERVER_UNAVAILABLE.ordinal(),
-                                      clientIdentifier, this.remoteAddress);
+            } else {
 
-                            openHandler.handle(Future.failedFuture(ar.cause()));
-                        }
-                    }
-                    finally
-                    {
-                        openedFuture.complete();
-                    }
-                });
+                this.handleConnectionFailed(done.cause(), openHandler);
+            }
+        });
+    }
 
-                // step 1 : send AMQP_WILL to Last Will and Testament Service
-                Future<ProtonDelivery> willFuture = Future.future();
-                // if remote MQTT has specified the will
-                if (this.mqttEndpoint.will().isWillFlag()) {
+    /**
+     * Complete the bridge opening when the connection to the AMQP service provider is available
+     *
+     * @param openHandler   handler called when the open is completed (with success or not)
+     */
+    private void handleConnectionOpened(Handler<AsyncResult<AmqpBridge>> openHandler) {
+
+        String clientIdentifier = this.mqttEndpoint.clientIdentifier();
+
+        // each bridge has its own session, so that links are isolated when the connection is shared
+        this.session = this.connection.createSession();
+        this.session.open();
 
-                    // sending AMQP_WILL
-                    MqttWill will = this.mqttEndpoint.will();
+        // setup MQTT endpoint handlers and AMQP endpoints
+        this.setupMqttEndpoint();
+        this.setupAmqpEndpoits();
 
-                    AmqpWillMessage amqpWillMessage =
-                            new AmqpWillMessage(will.isWillRetain(),
-                                    will.willTopic(),
-                                    MqttQoS.valueOf(will.willQos()),
-                                    Buffer.buffer(will.willMessage()));
+        // setup a Future for completed connection steps with all services
+        // with AMQP_WILL and AMQP_LIST/AMQP_SUBSCRIPTIONS or AMQP_CLOSE handled
+        Future<AmqpSubscriptionsMessage> connectionFuture = Future.future();
+        connectionFuture.setHandler(ar -> {
+
+            try {
+                if (ar.succeeded()) {
+
+                    this.rcvEndpoint.publishHandler(this::publishHandler);
+                    this.rcvEndpoint.pubrelHandler(this::pubrelHandler);
+
+                    AmqpSubscriptionsMessage amqpSubscriptionsMessage = ar.result();
+
+                    if (amqpSubscriptionsMessage != null) {
+                        this.mqttEndpoint.accept(!amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
+                        // added topic subscriptions of a previous session in the local collection
+                        amqpSubscriptionsMessage.topicSubscriptions().forEach(amqpTopicSubscription -> {
+                            this.grantedQoSLevels.add(amqpTopicSubscription.topic(), amqpTopicSubscription.qos());
+                        });
 
-                    // specified link name for the Last Will and Testament Service as MQTT clientid
-                    ProtonLinkOptions linkOptions = new ProtonLinkOptions();
-                    linkOptions.setLinkName(clientIdentifier);
+                    } else {
+                        this.mqttEndpoint.accept(false);
+                    }
+                    LOG.info("CONNACK [{}] to MQTT client {} at {}", CONNECTION_ACCEPTED.ordinal(),
+                             clientIdentifier, this.remoteAddress);
 
-                    // setup and open AMQP endpoints to Last Will and Testament Service
-                    ProtonSender wsSender = this.connection.createSender(AmqpLwtServiceEndpoint.LWT_SERVICE_ENDPOINT, linkOptions);
-                    this.lwtEndpoint = new AmqpLwtServiceEndpoint(wsSender);
+                    // open unique client publish address receiver
+                    this.rcvEndpoint.openPublish();
 
-                    this.lwtEndpoint.open();
-                    this.lwtEndpoint.sendWill(amqpWillMessage, willFuture.completer());
+                    openHandler.handle(Future.succeededFuture(AmqpBridge.this));
 
                 } else {
 
-                    // otherwise just complete the Future
-                    willFuture.complete();
+                    this.mqttEndpoint.reject(CONNECTION_REFUSED_SERVER_UNAVAILABLE);
+                    LOG.error("CONNACK [{}] to MQTT client {} at {}", CONNECTION_REFUSED_SERVER_UNAVAILABLE.ordinal(),
+                              clientIdentifier, this.remoteAddress);
+
+                    openHandler.handle(Future.failedFuture(ar.cause()));
                 }
+            }
+            finally
+            {
+                openedFuture.complete();
+            }
+        });
 
-                willFuture.compose(v -> {
+        // step 1 : send AMQP_WILL to Last Will and Testament Service
+        Future<ProtonDelivery> willFuture = Future.future();
+        // if remote MQTT has specified the will
+        if (this.mqttEndpoint.will().isWillFlag()) {
 
-                    // handling AMQP_SUBSCRIPTIONS reply from Subscription Service
-                    this.rcvEndpoint.subscriptionsHandler(amqpSubscriptionsMessage -> {
+            // sending AMQP_WILL
+            MqttWill will = this.mqttEndpoint.will();
 
-                        LOG.info("Session present: {}", !amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
-                        LOG.info(amqpSubscriptionsMessage.toString());
+            AmqpWillMessage amqpWillMessage =
+                    new AmqpWillMessage(will.isWillRetain(),
+                            will.willTopic(),
+                            MqttQoS.valueOf(will.willQos()),
+                            Buffer.buffer(will.willMessage()));
 
-                        connectionFuture.complete(amqpSubscriptionsMessage);
-                    });
+            // specified link name for the Last Will and Testament Service as MQTT clientid
+            ProtonLinkOptions linkOptions = new ProtonLinkOptions();
+            linkOptions.setLinkName(clientIdentifier);
 
-                    // step 2 : send AMQP_CLOSE or AMQP_LIST (based on "clean session" flag) to Subscription Service
-                    Future<ProtonDelivery> sessionFuture = Future.future();
+            // setup and open AMQP endpoints to Last Will and Testament Service
+            ProtonSender wsSender = this.session.createSender(AmqpLwtServiceEndpoint.LWT_SERVICE_ENDPOINT, linkOptions);
+            this.lwtEndpoint = new AmqpLwtServiceEndpoint(wsSender);
 
-                    if (this.mqttEndpoint.isCleanSession()) {
+            this.lwtEndpoint.open();
+            this.lwtEndpoint.sendWill(amqpWillMessage, willFuture.completer());
 
-                        // sending AMQP_CLOSE
-                        AmqpCloseMessage amqpCloseMessage =
-                                new AmqpCloseMessage(clientIdentifier);
+        } else {
 
-                        this.ssEndpoint.sendClose(amqpCloseMessage, closeAsyncResult -> {
+            // otherwise just complete the Future
+            willFuture.complete();
+        }
 
-                            // in case of AMQP_CLOSE, the connection completes on its disposition
-                            // no other AMQP message will be delivered by Subscription Service (i.e. AMQP_SUBSCRIPTIONS)
-                            if (closeAsyncResult.succeeded()) {
-                                connectionFuture.complete();
-                            } else {
-                                connectionFuture.fail(closeAsyncResult.cause());
-                            }
-                        });
+        willFuture.compose(v -> {
 
-                    } else {
+            // handling AMQP_SUBSCRIPTIONS reply from Subscription Service
+            this.rcvEndpoint.subscriptionsHandler(amqpSubscriptionsMessage -> {
 
-                        // sending AMQP_LIST
-                        AmqpListMessage amqpListMessage =
-                                new AmqpListMessage(clientIdentifier);
+                LOG.info("Session present: {}", !amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
+                LOG.info(amqpSubscriptionsMessage.toString());
 
-                        this.ssEndpoint.sendList(amqpListMessage, sessionFuture.completer());
-                    }
+                connectionFuture.complete(amqpSubscriptionsMessage);
+            });
+
+            // step 2 : send AMQP_CLOSE or AMQP_LIST (based on "clean session" flag) to Subscription Service
+            Future<ProtonDelivery> sessionFuture = Future.future();
 
-                    return sessionFuture;
+            if (this.mqttEndpoint.isCleanSession()) {
 
-                }).compose(v -> {
-                    // nothing here !??
-                }, connectionFuture);
+                // sending AMQP_CLOSE
+                AmqpCloseMessage amqpCloseMessage =
+                        new AmqpCloseMessage(clientIdentifier);
 
-                // timeout for the overall connection process
-                vertx.setTimer(AMQP_SERVICES_CONNECTION_TIMEOUT, timer -> {
-                   if (!connectionFuture.isComplete()) {
-                       connectionFuture.fail("Timeout on connecting to AMQP services");
-                   }
+                this.ssEndpoint.sendClose(amqpCloseMessage, closeAsyncResult -> {
+
+                    // in case of AMQP_CLOSE, the connection completes on its disposition
+                    // no other AMQP message will be delivered by Subscription Service (i.e. AMQP_SUBSCRIPTIONS)
+                    if (closeAsyncResult.succeeded()) {
+                        connectionFuture.complete();
+                    } else {
+                        connectionFuture.fail(closeAsyncResult.cause());
+                    }
                 });
 
             } else {
 
-                LOG.error("Error connecting to AMQP services ...", done.cause());
-                final MqttConnectReturnCode code;
-                if (done.cause() instanceof SecurityException) {
-                    // error on the SASL mechanism side
-                    code = CONNECTION_REFUSED_NOT_AUTHORIZED;
-                } else {
-                    code = CONNECTION_REFUSED_SERVER_UNAVAILABLE;
+                // sending AMQP_LIST
+                AmqpListMessage amqpListMessage =
+                        new AmqpListMessage(clientIdentifier);
 
-                }
-                this.mqttEndpoint.reject(code);
+                this.ssEndpoint.sendList(amqpListMessage, sessionFuture.completer());
+            }
 
-                openHandler.handle(Future.failedFuture(done.cause()));
+            return sessionFuture;
 
-                LOG.info("CONNACK [{}] to MQTT client {} at {}", code.ordinal(),
-                         clientIdentifier, this.remoteAddress);
-            }
+        }).compose(v -> {
+            // nothing here !??
+        }, connectionFuture);
 
+        // timeout for the overall connection process
+        vertx.setTimer(AMQP_SERVICES_CONNECTION_TIMEOUT, timer -> {
+           if (!connectionFuture.isComplete()) {
+               connectionFuture.fail("Timeout on connecting to AMQP services");
+           }
         });
+    }
 
+    /**
+     * Reject the MQTT client when the connection to the AMQP service provider can't be opened
+     *
+     * @param cause the failure cause
+     * @param openHandler   handler called when the open is completed (with success or not)
+     */
+    private void handleConnectionFailed(Throwable cause, Handler<AsyncResult<AmqpBridge>> openHandler) {
+
+        LOG.error("Error connecting to AMQP services ...", cause);
+        final MqttConnectReturnCode code;
+        if (cause instanceof SecurityException) {
+            // error on the SASL mechanism side
+            code = CONNECTION_REFUSED_NOT_AUTHORIZED;
+        } else {
+            code = CONNECTION_REFUSED_SERVER_UNAVAILABLE;
+
+        }
+        this.mqttEndpoint.reject(code);
+
+        openHandler.handle(Future.failedFuture(cause));
+
+        LOG.info("CONNACK [{}] to MQTT client {} at {}", code.ordinal(),
+                 this.mqttEndpoint.clientIdentifier(), this.remoteAddress);
     }
 
     /**
@@ -323,15 +382,19 @@ public class AmqpBridge {
                         if (this.rcvEndpoint != null) {
                             this.rcvEndpoint.close();
                         }
+                        if (this.publisherIdleTimer != -1) {
+                            this.vertx.cancelTimer(this.publisherIdleTimer);
+                        }
                         if (this.pubEndpoint != null) {
                             this.pubEndpoint.close();
                         }
-                        if (this.connection != null) {
+                        if (this.connectionLease != null) {
+                            this.session.close();
+                            this.connectionLease.release();
+                        } else if (this.connection != null) {
                             this.connection.close();
                         }
-                        if (this.grantedQoSLevels != null) {
-                            this.grantedQoSLevels.clear();
-                        }
+                        this.grantedQoSLevels.clear();
 
                         try {
                             this.mqttEndpoint.close();
@@ -384,8 +447,8 @@ public class AmqpBridge {
         if (!this.pubEndpoint.isPublisher(publish.topicName())) {
 
             // create two sender for publishing QoS 0/1 and QoS 2 messages
-            ProtonSender senderQoS01 = this.connection.createSender(publish.topicName());
-            ProtonSender senderQoS2 = this.connection.createSender(publish.topicName());
+            ProtonSender senderQoS01 = this.session.createSender(publish.topicName());
+            ProtonSender senderQoS2 = this.session.createSender(publish.topicName());
 
             this.pubEndpoint.addPublisher(publish.topicName(), new AmqpPublisher(senderQoS01, senderQoS2));
         }
@@ -434,16 +497,15 @@ public class AmqpBridge {
         // see https://github.com/EnMasseProject/subserv/issues/8
 
         // try to get subscribed topic (that could have wildcards) that matches the publish topic
-        String topic = (this.grantedQoSLevels.size() == 0) ? null :
-                TopicMatcher.match(this.grantedQoSLevels.keySet().stream().collect(Collectors.toList()), publish.topic());
+        AmqpTopicSubscription subscription = this.grantedQoSLevels.match(publish.topic());
 
-        if (topic != null) {
+        if (subscription != null) {
 
             // MQTT 3.1.1 spec :  The QoS of Payload Messages sent in response to a Subscription MUST be
             // the minimum of the QoS of the originally published message and the maximum QoS granted by the Server
-            MqttQoS qos = (publish.qos().value() < this.grantedQoSLevels.get(topic).value()) ?
+            MqttQoS qos = (publish.qos().value() < subscription.qos().value()) ?
                     publish.qos() :
-                    this.grantedQoSLevels.get(topic);
+                    subscription.qos();
 
             this.mqttEndpoint.publish(publish.topic(), publish.payload(), qos, publish.isDup(), publish.isRetain());
             // the the message identifier assigned to the published message
@@ -511,7 +573,7 @@ public class AmqpBridge {
 
                     // add accepted topic subscriptions to the local collection
                     amqpSubscribeMessage.topicSubscriptions().stream().forEach(amqpTopicSubscription -> {
-                        this.grantedQoSLevels.put(amqpTopicSubscription.topic(), amqpTopicSubscription.qos());
+                        this.grantedQoSLevels.add(amqpTopicSubscription.topic(), amqpTopicSubscription.qos());
                     });
 
                 } else {
@@ -674,23 +736,42 @@ public class AmqpBridge {
         //        connection is established (and CONNACK sent to the MQTT client)
 
         // setup and open AMQP endpoint for receiving on unique client control/publish addresses
-        ProtonReceiver receiverControl = this.connection.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_CONTROL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
-        ProtonReceiver receiverPublish = this.connection.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_PUBLISH_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
+        ProtonReceiver receiverControl = this.session.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_CONTROL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
+        ProtonReceiver receiverPublish = this.session.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_PUBLISH_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
         this.rcvEndpoint = new AmqpReceiverEndpoint(new AmqpReceiver(receiverControl, receiverPublish));
 
         // setup and open AMQP endpoint to Subscription Service
-        ProtonSender ssSender = this.connection.createSender(AmqpSubscriptionServiceEndpoint.SUBSCRIPTION_SERVICE_ENDPOINT);
+        ProtonSender ssSender = this.session.createSender(AmqpSubscriptionServiceEndpoint.SUBSCRIPTION_SERVICE_ENDPOINT);
         this.ssEndpoint = new AmqpSubscriptionServiceEndpoint(ssSender);
 
         // setup and open AMQP endpoint for publishing
-        ProtonSender senderPubrel = this.connection.createSender(String.format(AmqpPublishEndpoint.AMQP_CLIENT_PUBREL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
-        this.pubEndpoint = new AmqpPublishEndpoint(senderPubrel);
+        ProtonSender senderPubrel = this.session.createSender(String.format(AmqpPublishEndpoint.AMQP_CLIENT_PUBREL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
+        this.pubEndpoint = new AmqpPublishEndpoint(senderPubrel, this.maxPublishers, this.publisherIdleTimeout, this.publisherCacheStats);
+        if (this.publisherIdleTimeout > 0) {
+            this.publisherIdleTimer = this.vertx.setPeriodic(this.publisherIdleTimeout, timer -> this.pubEndpoint.evictIdle());
+        }
 
         this.rcvEndpoint.openControl();
         this.ssEndpoint.open();
         this.pubEndpoint.open();
     }
 
+    /**
+     * Set the bounds for the publishers attached on topics
+     *
+     * @param maxPublishers max number of publishers attached at same time (0 for no limit)
+     * @param publisherIdleTimeout  time (in ms) after which a not used publisher is detached (0 for no limit)
+     * @param stats counters for the publishers cache
+     * @return  the current AmqpBridge instance
+     */
+    public AmqpBridge publisherCache(int maxPublishers, long publisherIdleTimeout, PublisherCacheStats stats) {
+
+        this.maxPublishers = maxPublishers;
+        this.publisherIdleTimeout = publisherIdleTimeout;
+        this.publisherCacheStats = stats;
+        return this;
+    }
+
     /**
      * Set the session handler called when MQTT client closes connection
      *
@@ -755,6 +836,22 @@ public class AmqpBridge {
         }
     }
 
+    /**
+     * Handle the failure of the connection shared with other bridges
+     *
+     * @param cause the failure cause (could be null)
+     */
+    private void handleSharedConnectionFailure(Throwable cause) {
+
+        LOG.info("Shared AMQP connection failed for MQTT client {}", this.mqttEndpoint.clientIdentifier(), cause);
+
+        try {
+            this.mqttEndpoint.close();
+        } catch (IllegalStateException e) {
+            LOG.warn("MQTT endpoint for client {} already closed", this.mqttEndpoint.clientIdentifier());
+        }
+    }
+
     /**
      * AMQP bridge identifier
      *
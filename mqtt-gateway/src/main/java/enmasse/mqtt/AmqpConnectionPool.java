@@ -0,0 +1,288 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonClientOptions;
+import io.vertx.proton.ProtonConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded pool of AMQP connections to the messaging service shared by the AMQP bridges.
+ *
+ * Connections are shared only between bridges of MQTT clients providing the same credentials,
+ * so that the authentication on the messaging service side is preserved. For each credentials,
+ * up to "maxConnections" connections are opened and then a new bridge is assigned to the least used one.
+ * Each bridge works on its own session on the shared connection. When a shared connection fails,
+ * all the bridges on it are notified.
+ *
+ * The pool is not thread safe : it has to be used from the event loop of the MQTT gateway verticle.
+ */
+public class AmqpConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AmqpConnectionPool.class);
+
+    private final String host;
+    private final int port;
+    private final int maxConnections;
+    private final ProtonClient client;
+
+    // credentials -> connections opened with them
+    private final Map<Credentials, List<PooledConnection>> connections = new HashMap<>();
+
+    private boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance
+     * @param host  AMQP service provider address
+     * @param port  AMQP service provider port
+     * @param maxConnections    max number of connections for the same credentials
+     */
+    public AmqpConnectionPool(Vertx vertx, String host, int port, int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Max number of pooled connections must be greater than 0");
+        }
+        this.host = host;
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.client = ProtonClient.create(vertx);
+    }
+
+    /**
+     * Acquire a connection to the AMQP service provider for a bridge
+     *
+     * @param userName  MQTT client username (could be null)
+     * @param password  MQTT client password (could be null)
+     * @param failureHandler    handler called if the connection fails after being acquired
+     * @param acquireHandler    handler called when the connection is available (or the open fails)
+     */
+    public void acquire(String userName, String password,
+                        Handler<Throwable> failureHandler,
+                        Handler<AsyncResult<Lease>> acquireHandler) {
+
+        if (this.closed) {
+            acquireHandler.handle(Future.failedFuture(new IllegalStateException("AMQP connection pool closed")));
+            return;
+        }
+
+        Credentials credentials = new Credentials(userName, password);
+        List<PooledConnection> pooled = this.connections.computeIfAbsent(credentials, c -> new ArrayList<>());
+
+        PooledConnection connection;
+        if (pooled.size() < this.maxConnections) {
+            connection = this.connect(credentials);
+            pooled.add(connection);
+        } else {
+            connection = pooled.get(0);
+            for (PooledConnection candidate : pooled) {
+                if (candidate.users.size() < connection.users.size()) {
+                    connection = candidate;
+                }
+            }
+        }
+
+        PooledConnection acquired = connection;
+        Lease lease = new Lease(acquired);
+        acquired.users.put(lease, failureHandler);
+
+        // the connection could be still opening, so more bridges could be waiting for it
+        this.whenConnected(acquired, ar -> {
+            if (ar.succeeded()) {
+                acquireHandler.handle(Future.succeededFuture(lease));
+            } else {
+                acquired.users.remove(lease);
+                acquireHandler.handle(Future.failedFuture(ar.cause()));
+            }
+        });
+    }
+
+    /**
+     * Close the pool and all the pooled connections
+     */
+    public void close() {
+
+        this.closed = true;
+        this.connections.values().forEach(pooled -> pooled.forEach(connection -> {
+            if (connection.connected.succeeded()) {
+                connection.connected.result().close();
+            }
+        }));
+        this.connections.clear();
+    }
+
+    /**
+     * @return  number of connections currently pooled
+     */
+    public int size() {
+        return this.connections.values().stream().mapToInt(List::size).sum();
+    }
+
+    private PooledConnection connect(Credentials credentials) {
+
+        PooledConnection pooledConnection = new PooledConnection(credentials);
+
+        // NOTE : if username/password are null then Vert.x Proton just provides SASL ANONYMOUS as supported mechanism
+        //        otherwise it provides PLAIN with username/password provided here
+        this.client.connect(new ProtonClientOptions(), this.host, this.port, credentials.userName, credentials.password, done -> {
+
+            if (done.succeeded()) {
+
+                ProtonConnection connection = done.result();
+                connection
+                        .closeHandler(remoteClose -> {
+                            if (remoteClose.succeeded()) {
+                                LOG.info("Pooled AMQP connection closed with {}", connection.getRemoteContainer());
+                            } else {
+                                LOG.info("Pooled AMQP connection closed with {} with error", connection.getRemoteContainer(), remoteClose.cause());
+                            }
+                            connection.close();
+                            this.handleFailure(pooledConnection, remoteClose.cause());
+                        })
+                        .disconnectHandler(conn -> {
+                            LOG.info("Pooled AMQP disconnection with {}", conn.getRemoteContainer());
+                            conn.disconnect();
+                            this.handleFailure(pooledConnection, null);
+                        })
+                        .open();
+
+                pooledConnection.connected.complete(connection);
+
+            } else {
+
+                LOG.error("Error opening pooled connection to AMQP services ...", done.cause());
+                this.remove(pooledConnection);
+                pooledConnection.connected.fail(done.cause());
+            }
+
+            List<Handler<AsyncResult<ProtonConnection>>> waiters = new ArrayList<>(pooledConnection.waiters);
+            pooledConnection.waiters.clear();
+            waiters.forEach(waiter -> waiter.handle(pooledConnection.connected));
+        });
+
+        return pooledConnection;
+    }
+
+    private void whenConnected(PooledConnection pooledConnection, Handler<AsyncResult<ProtonConnection>> handler) {
+
+        if (pooledConnection.connected.isComplete()) {
+            handler.handle(pooledConnection.connected);
+        } else {
+            pooledConnection.waiters.add(handler);
+        }
+    }
+
+    private void handleFailure(PooledConnection pooledConnection, Throwable cause) {
+
+        this.remove(pooledConnection);
+
+        // propagate the failure to all the bridges using the connection
+        List<Handler<Throwable>> failureHandlers = new ArrayList<>(pooledConnection.users.values());
+        pooledConnection.users.clear();
+        failureHandlers.forEach(handler -> handler.handle(cause));
+    }
+
+    private void release(PooledConnection pooledConnection, Lease lease) {
+
+        if (pooledConnection.users.remove(lease) != null && pooledConnection.users.isEmpty()) {
+            // not used anymore, closing it avoids to keep connections for credentials not used anymore
+            this.remove(pooledConnection);
+            pooledConnection.connected.result().close();
+        }
+    }
+
+    private void remove(PooledConnection pooledConnection) {
+
+        List<PooledConnection> pooled = this.connections.get(pooledConnection.credentials);
+        if (pooled != null) {
+            pooled.remove(pooledConnection);
+            if (pooled.isEmpty()) {
+                this.connections.remove(pooledConnection.credentials);
+            }
+        }
+    }
+
+    /**
+     * A connection in the pool with the bridges using it
+     */
+    private static final class PooledConnection {
+
+        private final Credentials credentials;
+        private final Future<ProtonConnection> connected = Future.future();
+        // lease -> handler to call on connection failure
+        private final Map<Lease, Handler<Throwable>> users = new LinkedHashMap<>();
+        // handlers waiting for the connection to be opened
+        private final List<Handler<AsyncResult<ProtonConnection>>> waiters = new ArrayList<>();
+
+        PooledConnection(Credentials credentials) {
+            this.credentials = credentials;
+        }
+    }
+
+    /**
+     * The use of a pooled connection by a bridge
+     */
+    public final class Lease {
+
+        private final PooledConnection pooledConnection;
+
+        private Lease(PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+
+        /**
+         * @return  the shared AMQP connection
+         */
+        public ProtonConnection connection() {
+            return this.pooledConnection.connected.result();
+        }
+
+        /**
+         * Give back the connection to the pool
+         */
+        public void release() {
+            AmqpConnectionPool.this.release(this.pooledConnection, this);
+        }
+    }
+
+    private static final class Credentials {
+
+        private final String userName;
+        private final String password;
+
+        Credentials(String userName, String password) {
+            this.userName = userName;
+            this.password = password;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Credentials that = (Credentials) o;
+            return Objects.equals(userName, that.userName) &&
+                    Objects.equals(password, that.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userName, password);
+        }
+    }
+}
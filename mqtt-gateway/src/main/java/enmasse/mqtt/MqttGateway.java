@@ -5,9 +5,12 @@
 
 package enmasse.mqtt;
 
+import enmasse.mqtt.endpoints.PublisherCacheStats;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.net.PemKeyCertOptions;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.mqtt.MqttEndpoint;
@@ -42,6 +45,13 @@ public class MqttGateway extends AbstractVerticle {
     // connection info to the messaging service
     private String messagingServiceHost;
     private int messagingServicePort;
+    // max number of shared AMQP connections for the same credentials (0 for a connection per client)
+    private int amqpConnectionPoolSize;
+    // bounds for the publishers attached on topics by each client
+    private int maxPublishers;
+    private int publisherIdleTimeout;
+    // interval (in seconds) for logging the publishers cache counters (0 for no logging)
+    private int publisherStatsInterval;
 
     // SSL/TLS support stuff
     private boolean ssl;
@@ -49,6 +59,10 @@ public class MqttGateway extends AbstractVerticle {
     private String keyFile;
 
     private MqttServer server;
+    private AmqpConnectionPool connectionPool;
+    private final PublisherCacheStats publisherCacheStats = new PublisherCacheStats();
+    private long publisherStatsTimer = -1;
+    private String lastPublisherStats;
 
     private final Map<String, AmqpBridge> bridges = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, Semaphore> clientIdSemaphores = new ConcurrentHashMap<>();
@@ -113,6 +127,69 @@ public class MqttGateway extends AbstractVerticle {
         return this;
     }
 
+    /**
+     * Set the max number of AMQP connections shared by the MQTT clients with the same credentials.
+     * With 0, each MQTT client has its own AMQP connection to the messaging service
+     *
+     * @param amqpConnectionPoolSize    max number of shared AMQP connections
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.amqpconnectionpoolsize:0}")
+    public MqttGateway setAmqpConnectionPoolSize(int amqpConnectionPoolSize) {
+        this.amqpConnectionPoolSize = amqpConnectionPoolSize;
+        return this;
+    }
+
+    /**
+     * Set the max number of publishers (AMQP links on topics) attached at same time for each MQTT client.
+     * When reached, the least recently used publisher is detached. With 0, there is no limit
+     *
+     * @param maxPublishers max number of publishers for each MQTT client
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.maxpublishers:100}")
+    public MqttGateway setMaxPublishers(int maxPublishers) {
+        this.maxPublishers = maxPublishers;
+        return this;
+    }
+
+    /**
+     * Set the time after which a publisher (AMQP links on a topic) not used is detached. With 0, there is no limit
+     *
+     * @param publisherIdleTimeout  idle timeout in seconds
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.publisheridletimeout:300}")
+    public MqttGateway setPublisherIdleTimeout(int publisherIdleTimeout) {
+        this.publisherIdleTimeout = publisherIdleTimeout;
+        return this;
+    }
+
+    /**
+     * Set the interval for logging the counters of the publishers attached on topics by all the MQTT clients.
+     * With 0, the counters are not logged
+     *
+     * @param publisherStatsInterval    logging interval in seconds
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.publisherstatsinterval:60}")
+    public MqttGateway setPublisherStatsInterval(int publisherStatsInterval) {
+        this.publisherStatsInterval = publisherStatsInterval;
+        return this;
+    }
+
+    /**
+     * Log the publishers cache counters, if they changed since the last time
+     */
+    private void logPublisherStats() {
+
+        String stats = this.publisherCacheStats.toString();
+        if (!stats.equals(this.lastPublisherStats)) {
+            LOG.info("AMQP publishers cache {}", stats);
+            this.lastPublisherStats = stats;
+        }
+    }
+
     /**
      * Set the SSL/TLS support needed for the MQTT connections
      *
@@ -208,7 +285,8 @@ public class MqttGateway extends AbstractVerticle {
                                                                          s -> new Semaphore(1));
 
         if (clientIdSemaphore.tryAcquire()) {
-            AmqpBridge bridge = new AmqpBridge(this.vertx, mqttEndpoint);
+            AmqpBridge bridge = new AmqpBridge(this.vertx, mqttEndpoint)
+                    .publisherCache(this.maxPublishers, this.publisherIdleTimeout * 1000L, this.publisherCacheStats);
 
             bridge.mqttEndpointCloseHandler(amqpBridge -> {
 
@@ -217,7 +295,9 @@ public class MqttGateway extends AbstractVerticle {
                 } finally {
                     clientIdSemaphores.remove(clientIdentifier, clientIdSemaphore);
                 }
-            }).open(this.messagingServiceHost, this.messagingServicePort, done -> {
+            });
+
+            Handler<AsyncResult<AmqpBridge>> openHandler = done -> {
                 if (done.succeeded()) {
                     AmqpBridge newBridge = done.result();
                     this.bridges.put(newBridge.id(), newBridge);
@@ -225,7 +305,13 @@ public class MqttGateway extends AbstractVerticle {
                     LOG.info("Error opening the AMQP bridge ...", done.cause());
                     clientIdSemaphores.remove(clientIdentifier, clientIdSemaphore);
                 }
-            });
+            };
+
+            if (this.connectionPool != null) {
+                bridge.open(this.connectionPool, openHandler);
+            } else {
+                bridge.open(this.messagingServiceHost, this.messagingServicePort, openHandler);
+            }
         } else {
             AmqpBridge existingBridge = bridges.get(clientIdentifier);
             if (existingBridge == null) {
@@ -253,6 +339,13 @@ public class MqttGateway extends AbstractVerticle {
     public void start(Future<Void> startFuture) throws Exception {
 
         LOG.info("Starting MQTT gateway verticle...");
+        if (this.amqpConnectionPoolSize > 0) {
+            LOG.info("Sharing up to {} AMQP connections between MQTT clients with the same credentials", this.amqpConnectionPoolSize);
+            this.connectionPool = new AmqpConnectionPool(this.vertx, this.messagingServiceHost, this.messagingServicePort, this.amqpConnectionPoolSize);
+        }
+        if (this.publisherStatsInterval > 0) {
+            this.publisherStatsTimer = this.vertx.setPeriodic(this.publisherStatsInterval * 1000L, timer -> this.logPublisherStats());
+        }
         this.bindMqttServer(startFuture);
     }
 
@@ -261,6 +354,11 @@ public class MqttGateway extends AbstractVerticle {
 
         LOG.info("Stopping MQTT gateway verticle ...");
 
+        if (this.publisherStatsTimer != -1) {
+            this.vertx.cancelTimer(this.publisherStatsTimer);
+            this.logPublisherStats();
+        }
+
         Future<Void> shutdownTracker = Future.future();
         shutdownTracker.setHandler(done -> {
            if (done.succeeded()) {
@@ -279,6 +377,9 @@ public class MqttGateway extends AbstractVerticle {
                                                     .collect(Collectors.toList());
 
             CompositeFuture.all(closeFutures).setHandler(done -> {
+                if (this.connectionPool != null) {
+                    this.connectionPool.close();
+                }
                 this.server.close(shutdownTracker.completer());
             });
         } else {
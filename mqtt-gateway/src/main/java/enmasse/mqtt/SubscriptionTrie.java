@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.messages.AmqpTopicSubscription;
+import io.netty.handler.codec.mqtt.MqttQoS;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the topic subscriptions of a single client, organized as a trie of topic levels.
+ *
+ * Matching a published topic walks only the levels of that topic (handling "+" and "#" wildcards)
+ * and doesn't allocate, unlike the {@link TopicMatcher} which compiles a regular expression for
+ * every subscription. Not thread safe : it's meant to be used from the bridge's event loop.
+ */
+public class SubscriptionTrie {
+
+    private static final char LEVEL_SEPARATOR = '/';
+    private static final String PLUS_WILDCARD = "+";
+    private static final String SHARP_WILDCARD = "#";
+
+    private final Node root = new Node(null);
+    private int size;
+
+    /**
+     * Add (or replace) a subscription with the granted QoS level
+     *
+     * @param topic topic with wildcards (for subscription)
+     * @param qos   granted QoS level
+     */
+    public void add(String topic, MqttQoS qos) {
+
+        Node node = this.root;
+        int start = 0;
+        for (;;) {
+            int end = levelEnd(topic, start);
+            node = node.getOrCreate(topic.substring(start, end));
+            if (end == topic.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        if (node.subscription == null) {
+            this.size++;
+        }
+        node.subscription = new AmqpTopicSubscription(topic, qos);
+    }
+
+    /**
+     * Remove a subscription
+     *
+     * @param topic topic with wildcards (for subscription)
+     * @return  if the subscription was present
+     */
+    public boolean remove(String topic) {
+
+        if (remove(this.root, topic, 0)) {
+            this.size--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return the subscription which matches the published topic. When more subscriptions match,
+     * the one with the highest granted QoS level is returned, preferring the most specific one
+     * on the same QoS level.
+     *
+     * @param topic fixed topic (for publishing)
+     * @return  the matching subscription, null if there is no match
+     */
+    public AmqpTopicSubscription match(String topic) {
+
+        if (this.size == 0) {
+            return null;
+        }
+        return match(this.root, topic, 0, null);
+    }
+
+    /**
+     * Remove all subscriptions
+     */
+    public void clear() {
+        this.root.clear();
+        this.size = 0;
+    }
+
+    /**
+     * @return  number of subscriptions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return  if there are no subscriptions
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private static AmqpTopicSubscription match(Node node, String topic, int start, AmqpTopicSubscription best) {
+
+        // all topic levels consumed
+        if (start > topic.length()) {
+            return best(best, node.subscription);
+        }
+
+        int end = levelEnd(topic, start);
+
+        Node child = node.child(topic, start, end);
+        if (child != null) {
+            best = match(child, topic, end + 1, best);
+        }
+
+        // "+" matches exactly one not empty level
+        if (node.plus != null && end > start && !isMaxQoS(best)) {
+            best = match(node.plus, topic, end + 1, best);
+        }
+
+        // "#" matches all the remaining levels (at least one)
+        if (node.sharp != null) {
+            best = best(best, node.sharp.subscription);
+        }
+
+        return best;
+    }
+
+    private static boolean remove(Node node, String topic, int start) {
+
+        int end = levelEnd(topic, start);
+        Node child = node.get(topic.substring(start, end));
+        if (child == null) {
+            return false;
+        }
+
+        boolean removed;
+        if (end == topic.length()) {
+            removed = child.subscription != null;
+            child.subscription = null;
+        } else {
+            removed = remove(child, topic, end + 1);
+        }
+
+        if (removed && child.isEmpty()) {
+            node.prune(child);
+        }
+        return removed;
+    }
+
+    private static AmqpTopicSubscription best(AmqpTopicSubscription best, AmqpTopicSubscription candidate) {
+
+        if (candidate == null) {
+            return best;
+        }
+        return (best == null || candidate.qos().value() > best.qos().value()) ? candidate : best;
+    }
+
+    private static boolean isMaxQoS(AmqpTopicSubscription subscription) {
+        return subscription != null && subscription.qos() == MqttQoS.EXACTLY_ONCE;
+    }
+
+    private static int levelEnd(String topic, int start) {
+        int end = topic.indexOf(LEVEL_SEPARATOR, start);
+        return (end < 0) ? topic.length() : end;
+    }
+
+    /**
+     * Same as {@link String#hashCode()} computed on the topic level without extracting it
+     */
+    private static int hash(String topic, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + topic.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * A topic level in the trie
+     */
+    private static final class Node {
+
+        private static final Node[] EMPTY = new Node[0];
+
+        private final String level;
+        private final int hash;
+
+        // literal levels, the table mirrors the map for allocation free lookups
+        private final Map<String, Node> children = new HashMap<>();
+        private Node[] table = EMPTY;
+
+        private Node plus;
+        private Node sharp;
+
+        private AmqpTopicSubscription subscription;
+
+        Node(String level) {
+            this.level = level;
+            this.hash = (level != null) ? level.hashCode() : 0;
+        }
+
+        Node get(String level) {
+            switch (level) {
+                case PLUS_WILDCARD:
+                    return this.plus;
+                case SHARP_WILDCARD:
+                    return this.sharp;
+                default:
+                    return this.children.get(level);
+            }
+        }
+
+        Node getOrCreate(String level) {
+            switch (level) {
+                case PLUS_WILDCARD:
+                    if (this.plus == null) {
+                        this.plus = new Node(level);
+                    }
+                    return this.plus;
+                case SHARP_WILDCARD:
+                    if (this.sharp == null) {
+                        this.sharp = new Node(level);
+                    }
+                    return this.sharp;
+                default:
+                    Node child = this.children.get(level);
+                    if (child == null) {
+                        child = new Node(level);
+                        this.children.put(level, child);
+                        this.rehash();
+                    }
+                    return child;
+            }
+        }
+
+        Node child(String topic, int start, int end) {
+
+            Node[] table = this.table;
+            if (table.length == 0) {
+                return null;
+            }
+
+            int length = end - start;
+            int h = hash(topic, start, end);
+            int mask = table.length - 1;
+            for (int i = spread(h) & mask; ; i = (i + 1) & mask) {
+                Node node = table[i];
+                if (node == null) {
+                    return null;
+                }
+                if (node.hash == h && node.level.length() == length && topic.regionMatches(start, node.level, 0, length)) {
+                    return node;
+                }
+            }
+        }
+
+        void prune(Node child) {
+            if (child == this.plus) {
+                this.plus = null;
+            } else if (child == this.sharp) {
+                this.sharp = null;
+            } else if (this.children.remove(child.level) != null) {
+                this.rehash();
+            }
+        }
+
+        boolean isEmpty() {
+            return this.subscription == null && this.children.isEmpty() && this.plus == null && this.sharp == null;
+        }
+
+        void clear() {
+            this.children.clear();
+            this.table = EMPTY;
+            this.plus = null;
+            this.sharp = null;
+            this.subscription = null;
+        }
+
+        private void rehash() {
+
+            if (this.children.isEmpty()) {
+                this.table = EMPTY;
+                return;
+            }
+
+            // at least half of the slots are always free so that lookups always terminate
+            int capacity = Integer.highestOneBit(this.children.size() * 2 - 1) << 1;
+            Node[] table = new Node[capacity];
+            int mask = capacity - 1;
+            for (Node node : this.children.values()) {
+                int i = spread(node.hash) & mask;
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = node;
+            }
+            this.table = table;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
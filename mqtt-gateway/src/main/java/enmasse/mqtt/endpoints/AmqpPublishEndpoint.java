@@ -19,6 +19,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -32,18 +34,41 @@ public class AmqpPublishEndpoint {
 
     // all delivery for published messages if they need settlement (messageId -> delivery)
     private Map<Object, ProtonDelivery> deliveries;
-    // links for publishing message on topic (topic -> link/senders couple)
+    // publishers of the deliveries waiting for settlement (messageId -> publisher)
+    private Map<Object, AmqpPublisher> deliveryPublishers;
+    // links for publishing message on topic (topic -> link/senders couple), in least recently used order
     private Map<String, AmqpPublisher> publishers;
     // sender for PUBREL messages
     private ProtonSender senderPubrel;
 
+    // max number of publishers attached at same time (0 for no limit)
+    private final int maxPublishers;
+    // time (in ms) after which a not used publisher is detached (0 for no limit)
+    private final long publisherIdleTimeout;
+    private final PublisherCacheStats stats;
+
     /**
      * Constructor
      *
      * @param senderPubrel  ProtonSender instance related to client PUBREL address
      */
     public AmqpPublishEndpoint(ProtonSender senderPubrel) {
+        this(senderPubrel, 0, 0, new PublisherCacheStats());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param senderPubrel  ProtonSender instance related to client PUBREL address
+     * @param maxPublishers max number of publishers attached at same time (0 for no limit)
+     * @param publisherIdleTimeout  time (in ms) after which a not used publisher is detached (0 for no limit)
+     * @param stats counters for the publishers cache
+     */
+    public AmqpPublishEndpoint(ProtonSender senderPubrel, int maxPublishers, long publisherIdleTimeout, PublisherCacheStats stats) {
         this.senderPubrel = senderPubrel;
+        this.maxPublishers = maxPublishers;
+        this.publisherIdleTimeout = publisherIdleTimeout;
+        this.stats = stats;
     }
 
     /**
@@ -52,7 +77,9 @@ public class AmqpPublishEndpoint {
     public void open() {
 
         this.deliveries = new HashMap<>();
-        this.publishers = new HashMap<>();
+        this.deliveryPublishers = new HashMap<>();
+        // access order, for detaching the least recently used publishers first
+        this.publishers = new LinkedHashMap<>(16, 0.75f, true);
     }
 
     /**
@@ -63,7 +90,13 @@ public class AmqpPublishEndpoint {
      */
     public boolean isPublisher(String topic) {
 
-        return this.publishers.containsKey(topic);
+        AmqpPublisher publisher = this.publishers.get(topic);
+        if (publisher != null) {
+            this.stats.hit();
+            return true;
+        }
+        this.stats.miss();
+        return false;
     }
 
     /**
@@ -77,9 +110,55 @@ public class AmqpPublishEndpoint {
         if (this.publishers.containsKey(topic)) {
             throw new IllegalStateException(String.format("AMQP publisher for %s already exists !", topic));
         }
+
+        // make room for the new publisher
+        if (this.maxPublishers > 0 && this.publishers.size() >= this.maxPublishers) {
+
+            Iterator<Map.Entry<String, AmqpPublisher>> it = this.publishers.entrySet().iterator();
+            while (it.hasNext() && this.publishers.size() >= this.maxPublishers) {
+                Map.Entry<String, AmqpPublisher> entry = it.next();
+                if (!entry.getValue().hasUnsettled()) {
+                    it.remove();
+                    this.evict(entry.getKey(), entry.getValue());
+                }
+            }
+        }
         this.publishers.put(topic, amqpPublisher);
     }
 
+    /**
+     * Detach the publishers not used for more than the idle timeout
+     */
+    public void evictIdle() {
+
+        if (this.publisherIdleTimeout <= 0) {
+            return;
+        }
+
+        long idleSince = System.currentTimeMillis() - this.publisherIdleTimeout;
+        Iterator<Map.Entry<String, AmqpPublisher>> it = this.publishers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, AmqpPublisher> entry = it.next();
+            // publishers are in least recently used order, so the following ones aren't idle
+            if (entry.getValue().lastUsed() > idleSince) {
+                break;
+            }
+            if (!entry.getValue().hasUnsettled()) {
+                it.remove();
+                this.evict(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void evict(String topic, AmqpPublisher publisher) {
+
+        LOG.debug("Detaching AMQP publisher for {}", topic);
+        if (publisher.isOpen()) {
+            publisher.close();
+        }
+        this.stats.eviction();
+    }
+
     /**
      * Send the AMQP_PUBLISH to the attached topic/address
      * @param amqpPublishMessage    AMQP_PUBLISH message
@@ -92,6 +171,7 @@ public class AmqpPublishEndpoint {
         // send AMQP_PUBLISH message
 
         AmqpPublisher publisher = this.publishers.get(amqpPublishMessage.topic());
+        publisher.touch();
 
         // use sender for QoS 0/1 messages
         if (amqpPublishMessage.qos() != MqttQoS.EXACTLY_ONCE) {
@@ -113,8 +193,10 @@ public class AmqpPublishEndpoint {
 
             } else {
 
+                publisher.addUnsettled();
                 publisher.senderQoS01().send(amqpPublishMessage.toAmqp(), delivery -> {
 
+                    publisher.removeUnsettled();
                     if (delivery.getRemoteState() == Accepted.getInstance()) {
                         LOG.info("AMQP publish delivery {}", delivery.getRemoteState());
                         handler.handle(Future.succeededFuture(delivery));
@@ -138,6 +220,7 @@ public class AmqpPublishEndpoint {
                 // TODO: think about starting a timer for inactivity on this link for detaching ?
             }
 
+            publisher.addUnsettled();
             publisher.senderQoS2().send(amqpPublishMessage.toAmqp(), delivery -> {
 
                 if (delivery.getRemoteState() == Accepted.getInstance()) {
@@ -146,10 +229,14 @@ public class AmqpPublishEndpoint {
                     // received disposition not settled, store for future settlement
                     if (!delivery.remotelySettled()) {
                         this.deliveries.put(mqttPacketId, delivery);
+                        this.deliveryPublishers.put(mqttPacketId, publisher);
+                    } else {
+                        publisher.removeUnsettled();
                     }
 
                     handler.handle(Future.succeededFuture(delivery));
                 } else {
+                    publisher.removeUnsettled();
                     handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
                 }
             });
@@ -207,6 +294,7 @@ public class AmqpPublishEndpoint {
 
         this.publishers.clear();
         this.deliveries.clear();
+        this.deliveryPublishers.clear();
     }
 
     /**
@@ -219,6 +307,11 @@ public class AmqpPublishEndpoint {
         if (this.deliveries.containsKey(messageId)) {
             ProtonDelivery delivery = this.deliveries.remove(messageId);
             delivery.disposition(Accepted.getInstance(), true);
+
+            AmqpPublisher publisher = this.deliveryPublishers.remove(messageId);
+            if (publisher != null) {
+                publisher.removeUnsettled();
+            }
         }
     }
 }
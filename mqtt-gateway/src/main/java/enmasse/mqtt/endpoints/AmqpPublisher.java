@@ -15,6 +15,11 @@ public class AmqpPublisher {
     private final ProtonSender senderQoS01;
     private final ProtonSender senderQoS2;
 
+    // deliveries sent and not settled yet, the publisher can't be detached until they are settled
+    private int unsettled;
+    // last time (in ms) the publisher was used
+    private long lastUsed = System.currentTimeMillis();
+
     /**
      * Constructor
      *
@@ -49,6 +54,43 @@ public class AmqpPublisher {
         return (this.senderQoS01.isOpen() || this.senderQoS2.isOpen());
     }
 
+    /**
+     * Mark the publisher as used now
+     */
+    public void touch() {
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Last time the publisher was used
+     * @return
+     */
+    public long lastUsed() {
+        return this.lastUsed;
+    }
+
+    /**
+     * Track a delivery sent through the publisher, waiting for settlement
+     */
+    public void addUnsettled() {
+        this.unsettled++;
+    }
+
+    /**
+     * Track the settlement of a delivery sent through the publisher
+     */
+    public void removeUnsettled() {
+        this.unsettled--;
+    }
+
+    /**
+     * If the publisher has deliveries waiting for settlement
+     * @return
+     */
+    public boolean hasUnsettled() {
+        return this.unsettled > 0;
+    }
+
     /**
      * ProtonSender instance related to the publishing address for QoS 0 and 1
      * @return
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt.endpoints;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the per topic publishers cached by the publish endpoints
+ */
+public class PublisherCacheStats {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    void hit() {
+        this.hits.incrementAndGet();
+    }
+
+    void miss() {
+        this.misses.incrementAndGet();
+    }
+
+    void eviction() {
+        this.evictions.incrementAndGet();
+    }
+
+    /**
+     * Number of publishes on a topic with an already attached publisher
+     *
+     * @return
+     */
+    public long hits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Number of publishes which needed to attach a new publisher
+     *
+     * @return
+     */
+    public long misses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Number of publishers detached because of the cache bounds
+     *
+     * @return
+     */
+    public long evictions() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public String toString() {
+
+        return "PublisherCacheStats{" +
+                "hits=" + this.hits +
+                ", misses=" + this.misses +
+                ", evictions=" + this.evictions +
+                "}";
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.endpoints.AmqpPublishEndpoint;
+import enmasse.mqtt.endpoints.AmqpPublisher;
+import enmasse.mqtt.endpoints.PublisherCacheStats;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Tests related to the publishers cached by the publisher endpoint
+ */
+@RunWith(VertxUnitRunner.class)
+public class AmqpPublishEndpointTest {
+
+    private static final int TIMEOUT = 10000;
+
+    private Vertx vertx;
+    private ProtonServer server;
+    private ProtonConnection connection;
+    private Context clientContext;
+    private PublisherCacheStats stats;
+
+    @Before
+    public void before(TestContext context) {
+
+        this.vertx = Vertx.vertx();
+        this.stats = new PublisherCacheStats();
+
+        Async async = context.async();
+
+        // AMQP peer accepting the publishers links
+        this.server = ProtonServer.create(this.vertx).connectHandler(connection -> {
+
+            connection
+                    .openHandler(o -> connection.open())
+                    .sessionOpenHandler(session -> session.open())
+                    .receiverOpenHandler(receiver -> {
+                        receiver.setTarget(receiver.getRemoteTarget())
+                                .closeHandler(ar -> receiver.close())
+                                .open();
+                    });
+
+        }).listen(0, context.asyncAssertSuccess(s -> {
+
+            ProtonClient.create(this.vertx).connect("localhost", this.server.actualPort(), context.asyncAssertSuccess(connection -> {
+
+                this.connection = connection;
+                this.clientContext = Vertx.currentContext();
+                connection.openHandler(o -> async.complete()).open();
+            }));
+        }));
+
+        async.awaitSuccess(TIMEOUT);
+    }
+
+    @After
+    public void after(TestContext context) {
+
+        Async async = context.async();
+
+        this.vertx.close(context.asyncAssertSuccess(v -> async.complete()));
+
+        async.awaitSuccess(TIMEOUT);
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction(TestContext context) throws Exception {
+
+        AmqpPublishEndpoint endpoint = this.createEndpoint(2, 0);
+
+        AmqpPublisher a = this.onClient(() -> this.addPublisher(endpoint, "a"));
+        AmqpPublisher b = this.onClient(() -> this.addPublisher(endpoint, "b"));
+
+        // "a" used again, so "b" is the least recently used one
+        context.assertTrue(this.onClient(() -> endpoint.isPublisher("a")));
+
+        AmqpPublisher c = this.onClient(() -> this.addPublisher(endpoint, "c"));
+
+        context.assertTrue(this.onClient(a::isOpen));
+        context.assertFalse(this.onClient(b::isOpen));
+        context.assertTrue(this.onClient(c::isOpen));
+        context.assertTrue(this.onClient(() -> endpoint.isPublisher("a")));
+        context.assertFalse(this.onClient(() -> endpoint.isPublisher("b")));
+
+        context.assertEquals(1L, this.stats.evictions());
+        context.assertEquals(2L, this.stats.hits());
+        // one for each added publisher and the evicted "b"
+        context.assertEquals(4L, this.stats.misses());
+    }
+
+    @Test
+    public void unsettledNotEvicted(TestContext context) throws Exception {
+
+        AmqpPublishEndpoint endpoint = this.createEndpoint(1, 0);
+
+        AmqpPublisher a = this.onClient(() -> this.addPublisher(endpoint, "a"));
+        this.onClient(() -> {
+            a.addUnsettled();
+            return null;
+        });
+
+        // the bound is exceeded rather than detaching a publisher with deliveries in flight
+        AmqpPublisher b = this.onClient(() -> this.addPublisher(endpoint, "b"));
+
+        context.assertTrue(this.onClient(a::isOpen));
+        context.assertTrue(this.onClient(b::isOpen));
+        context.assertEquals(0L, this.stats.evictions());
+
+        this.onClient(() -> {
+            a.removeUnsettled();
+            return null;
+        });
+        AmqpPublisher c = this.onClient(() -> this.addPublisher(endpoint, "c"));
+
+        context.assertFalse(this.onClient(a::isOpen));
+        context.assertFalse(this.onClient(b::isOpen));
+        context.assertTrue(this.onClient(c::isOpen));
+        context.assertEquals(2L, this.stats.evictions());
+    }
+
+    @Test
+    public void idleEviction(TestContext context) throws Exception {
+
+        AmqpPublishEndpoint endpoint = this.createEndpoint(0, 200);
+
+        AmqpPublisher a = this.onClient(() -> this.addPublisher(endpoint, "a"));
+        AmqpPublisher b = this.onClient(() -> this.addPublisher(endpoint, "b"));
+        AmqpPublisher c = this.onClient(() -> this.addPublisher(endpoint, "c"));
+        this.onClient(() -> {
+            c.addUnsettled();
+            return null;
+        });
+
+        Thread.sleep(300);
+
+        // "b" used again, so it isn't idle anymore
+        this.onClient(() -> {
+            endpoint.isPublisher("b");
+            b.touch();
+            endpoint.evictIdle();
+            return null;
+        });
+
+        context.assertFalse(this.onClient(a::isOpen));
+        context.assertTrue(this.onClient(b::isOpen));
+        // idle but with deliveries in flight
+        context.assertTrue(this.onClient(c::isOpen));
+        context.assertEquals(1L, this.stats.evictions());
+        context.assertFalse(this.onClient(() -> endpoint.isPublisher("a")));
+        context.assertTrue(this.onClient(() -> endpoint.isPublisher("c")));
+    }
+
+    @Test
+    public void noIdleEvictionWithoutTimeout(TestContext context) throws Exception {
+
+        AmqpPublishEndpoint endpoint = this.createEndpoint(0, 0);
+
+        AmqpPublisher a = this.onClient(() -> this.addPublisher(endpoint, "a"));
+
+        Thread.sleep(50);
+
+        this.onClient(() -> {
+            endpoint.evictIdle();
+            return null;
+        });
+
+        context.assertTrue(this.onClient(a::isOpen));
+        context.assertEquals(0L, this.stats.evictions());
+    }
+
+    private AmqpPublishEndpoint createEndpoint(int maxPublishers, long publisherIdleTimeout) throws Exception {
+
+        return this.onClient(() -> {
+            AmqpPublishEndpoint endpoint = new AmqpPublishEndpoint(this.connection.createSender("pubrel"), maxPublishers, publisherIdleTimeout, this.stats);
+            endpoint.open();
+            return endpoint;
+        });
+    }
+
+    private AmqpPublisher addPublisher(AmqpPublishEndpoint endpoint, String topic) {
+
+        // as done by the bridge, a publisher is added when there isn't one for the topic
+        if (endpoint.isPublisher(topic)) {
+            throw new IllegalStateException("Publisher for " + topic + " already exists");
+        }
+        AmqpPublisher publisher = new AmqpPublisher(this.connection.createSender(topic), this.connection.createSender(topic));
+        publisher.senderQoS01().open();
+        endpoint.addPublisher(topic, publisher);
+        return publisher;
+    }
+
+    private <T> T onClient(Supplier<T> supplier) throws Exception {
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.clientContext.runOnContext(v -> {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.messages.AmqpTopicSubscription;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests related to the subscriptions index
+ */
+public class SubscriptionTrieTest {
+
+    @Test
+    public void testFixedTopicMatch() {
+
+        SubscriptionTrie trie = new SubscriptionTrie();
+        trie.add("mytopic/foo", MqttQoS.AT_LEAST_ONCE);
+
+        AmqpTopicSubscription subscription = trie.match("mytopic/foo");
+        assertNotNull(subscription);
+        assertEquals("mytopic/foo", subscription.topic());
+        assertEquals(MqttQoS.AT_LEAST_ONCE, subscription.qos());
+
+        assertNull(trie.match("mytopic/bar"));
+        assertNull(trie.match("mytopic"));
+        assertNull(trie.match("mytopic/foo/bar"));
+    }
+
+    @Test
+    public void testTopicSharpWildcard() {
+
+        SubscriptionTrie trie = new SubscriptionTrie();
+        trie.add("mytopic/#", MqttQoS.AT_MOST_ONCE);
+
+        assertNotNull(trie.match("mytopic/foo"));
+        assertNotNull(trie.match("mytopic/foo/bar"));
+        assertNull(trie.match("mytopic"));
+        assertNull(trie.match("another/foo"));
+    }
+
+    @Test
+    public void testTopicPlusWildcard() {
+
+        SubscriptionTrie trie = new SubscriptionTrie();
+        trie.add("mytopic/+/bar", MqttQoS.AT_MOST_ONCE);
+        trie.add("mytopic/+/bar/+/foo", MqttQoS.AT_MOST_ONCE);
+
+        assertEquals("mytopic/+/bar", trie.match("mytopic/foo/bar").topic());
+        assertEquals("mytopic/+/bar", trie.match("mytopic/another/bar").topic());
+        assertEquals("mytopic/+/bar/+/foo", trie.match("mytopic/a/bar/b/foo").topic());
+
+        assertNull(trie.match("mytopic/bar"));
+        assertNull(trie.match("mytopic//bar"));
+        assertNull(trie.match("mytopic/a/bar/b/foo/c"));
+    }
+
+    @Test
+    public void testHighestQoSMatch() {
+
+        SubscriptionTrie trie = new SubscriptionTrie();
+        trie.add("mytopic/#", MqttQoS.EXACTLY_ONCE);
+        trie.add("mytopic/+", MqttQoS.AT_LEAST_ONCE);
+        trie.add("mytopic/foo", MqttQoS.AT_MOST_ONCE);
+
+        assertEquals("mytopic/#", trie.match("mytopic/foo").topic());
+
+        trie.remove("mytopic/#");
+        assertEquals("mytopic/+", trie.match("mytopic/foo").topic());
+
+        // on the same QoS level, the most specific subscription wins
+        trie.add("mytopic/foo", MqttQoS.AT_LEAST_ONCE);
+        assertEquals("mytopic/foo", trie.match("mytopic/foo").topic());
+    }
+
+    @Test
+    public void testAddRemove() {
+
+        SubscriptionTrie trie = new SubscriptionTrie();
+        for (int i = 0; i < 100; i++) {
+            trie.add("devices/" + i + "/+", MqttQoS.AT_LEAST_ONCE);
+        }
+        trie.add("devices/10/+", MqttQoS.EXACTLY_ONCE);
+        assertEquals(100, trie.size());
+        assertEquals(MqttQoS.EXACTLY_ONCE, trie.match("devices/10/temperature").qos());
+
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(trie.remove("devices/" + i + "/+"));
+        }
+        assertFalse(trie.remove("devices/0/+"));
+        assertFalse(trie.remove("devices/1"));
+        assertEquals(50, trie.size());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 != 0, trie.match("devices/" + i + "/temperature") != null);
+        }
+
+        trie.clear();
+        assertTrue(trie.isEmpty());
+        assertNull(trie.match("devices/1/temperature"));
+    }
+}
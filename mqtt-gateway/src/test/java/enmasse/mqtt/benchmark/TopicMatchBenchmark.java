@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt.benchmark;
+
+import enmasse.mqtt.SubscriptionTrie;
+import enmasse.mqtt.TopicMatcher;
+import enmasse.mqtt.messages.AmqpTopicSubscription;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regex based {@link TopicMatcher} with the {@link SubscriptionTrie}
+ * on a client with many wildcard subscriptions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicMatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int subscriptions;
+
+    private Map<String, MqttQoS> grantedQoSLevels;
+    private SubscriptionTrie trie;
+    private String[] topics;
+    private int next;
+
+    @Setup
+    public void setup() {
+
+        this.grantedQoSLevels = new HashMap<>();
+        this.trie = new SubscriptionTrie();
+
+        for (int i = 0; i < this.subscriptions; i++) {
+            String topic = (i % 2 == 0) ? "devices/" + i + "/+/temperature" : "devices/" + i + "/#";
+            MqttQoS qos = MqttQoS.valueOf(i % 3);
+            this.grantedQoSLevels.put(topic, qos);
+            this.trie.add(topic, qos);
+        }
+
+        this.topics = new String[64];
+        for (int i = 0; i < this.topics.length; i++) {
+            this.topics[i] = "devices/" + (i * 31 % this.subscriptions) + "/room" + i + "/temperature";
+        }
+    }
+
+    @Benchmark
+    public String regexMatcher() {
+
+        String topic = this.topics[this.next++ & (this.topics.length - 1)];
+        List<String> wildcardedTopics = new ArrayList<>(this.grantedQoSLevels.keySet());
+        return TopicMatcher.match(wildcardedTopics, topic);
+    }
+
+    @Benchmark
+    public AmqpTopicSubscription subscriptionTrie() {
+
+        String topic = this.topics[this.next++ & (this.topics.length - 1)];
+        return this.trie.match(topic);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(TopicMatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
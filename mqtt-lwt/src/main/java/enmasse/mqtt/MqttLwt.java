@@ -41,6 +41,9 @@ public class MqttLwt extends AbstractVerticle {
     private String host;
     private int normalPort;
     private int routeContainerPort;
+    // max number of will publishes waiting for a disposition at same time
+    private int maxInFlight = AmqpPublishEndpoint.DEFAULT_MAX_IN_FLIGHT;
+    private long publishTimeout = AmqpPublishEndpoint.DEFAULT_PUBLISH_TIMEOUT;
 
     private ProtonClient client;
 
@@ -125,7 +128,7 @@ public class MqttLwt extends AbstractVerticle {
                     connection.setContainer(CONTAINER_ID);
 
                     // TODO
-                    this.publishEndpoint = new AmqpPublishEndpoint(connection);
+                    this.publishEndpoint = new AmqpPublishEndpoint(this.vertx, connection, this.maxInFlight, this.publishTimeout);
                     this.publishEndpoint.open();
 
                     connection.openHandler(o -> {
@@ -196,19 +199,13 @@ public class MqttLwt extends AbstractVerticle {
 
     private void handleWill(WillData willData) {
 
-        // will message received, check for updating or adding
-        this.lwtStorage.get(willData.clientId(), done -> {
+        // will message received, adding or updating it
+        this.lwtStorage.upsert(willData.clientId(), willData.amqpWillMessage(), ar -> {
 
-            if (done.succeeded()) {
-                this.lwtStorage.update(willData.clientId(), willData.amqpWillMessage(), ar -> {
-
-                    LOG.info("Updated will for client {}", willData.clientId());
-                });
+            if (ar.succeeded()) {
+                LOG.debug("Stored will for client {}", willData.clientId());
             } else {
-                this.lwtStorage.add(willData.clientId(), willData.amqpWillMessage(), ar -> {
-
-                    LOG.info("Added will for client {}", willData.clientId());
-                });
+                LOG.error("Error storing will for client {}", willData.clientId(), ar.cause());
             }
         });
     }
@@ -220,7 +217,7 @@ public class MqttLwt extends AbstractVerticle {
 
             this.lwtStorage.delete(disconnectionData.clientId(), done -> {
 
-                LOG.info("Deleted will for client {}", disconnectionData.clientId());
+                LOG.debug("Deleted will for client {}", disconnectionData.clientId());
             });
         } else {
 
@@ -238,11 +235,11 @@ public class MqttLwt extends AbstractVerticle {
 
                         if (ar1.succeeded()) {
 
-                            LOG.info("Published will message for client {}", disconnectionData.clientId());
+                            LOG.debug("Published will message for client {}", disconnectionData.clientId());
 
                             this.lwtStorage.delete(disconnectionData.clientId(), ar2 -> {
 
-                                LOG.info("Deleted will for client {}", disconnectionData.clientId());
+                                LOG.debug("Deleted will for client {}", disconnectionData.clientId());
                             });
                         }
                     });
@@ -300,6 +297,30 @@ public class MqttLwt extends AbstractVerticle {
         return this;
     }
 
+    /**
+     * Set the max number of will publishes waiting for a disposition at same time
+     *
+     * @param maxInFlight   max number of will publishes in flight
+     * @return  current MQTT LWT instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.maxinflight:1000}")
+    public MqttLwt setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Set the time to wait for the disposition of a will publish before failing it
+     *
+     * @param publishTimeout    publish timeout (in ms)
+     * @return  current MQTT LWT instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.publishtimeout:10000}")
+    public MqttLwt setPublishTimeout(long publishTimeout) {
+        this.publishTimeout = publishTimeout;
+        return this;
+    }
+
     /**
      * Set the LWT Storage service implementation to use
      *
@@ -110,7 +110,7 @@ public class AmqpLwtEndpoint {
 
             AmqpWillMessage amqpWillMessage = AmqpWillMessage.from(message);
 
-            LOG.info("Received will on topic [{}] by client [{}]", amqpWillMessage.topic(), receiver.getName());
+            LOG.debug("Received will on topic [{}] by client [{}]", amqpWillMessage.topic(), receiver.getName());
 
             // TODO : having a callback to check if handling went well and send right disposition ?
             this.willHandler.handle(new WillData(receiver.getName(), amqpWillMessage));
@@ -138,14 +138,14 @@ public class AmqpLwtEndpoint {
         // link detached without error, so the "will" should be cleared and not sent
         if (ar.succeeded()) {
 
-            LOG.info("Clean disconnection from {}", receiver.getName());
+            LOG.debug("Clean disconnection from {}", receiver.getName());
 
             // TODO: for now nothing to do ?
 
         // link detached with error, so the "will" should be sent
         } else {
 
-            LOG.info("Brute disconnection from {}", receiver.getName());
+            LOG.debug("Brute disconnection from {}", receiver.getName());
 
             ErrorCondition errorCondition = new ErrorCondition(receiver.getRemoteCondition().getCondition(),
                     String.format("client detached with: %s", receiver.getRemoteCondition().getDescription()));
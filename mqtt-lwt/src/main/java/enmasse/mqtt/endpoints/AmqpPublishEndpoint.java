@@ -10,6 +10,7 @@ import io.netty.handler.codec.mqtt.MqttQoS;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.proton.ProtonConnection;
 import io.vertx.proton.ProtonDelivery;
 import io.vertx.proton.ProtonQoS;
@@ -18,22 +19,73 @@ import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
 /**
  * Publisher endpoint
+ *
+ * Publishes are pipelined : up to "maxInFlight" of them wait for a disposition at same time, the others
+ * are queued. The sender on a topic is shared by all the publishes in flight on it and it's detached
+ * when no more publishes are in flight, so a mass disconnection doesn't need an attach/detach per will.
+ *
+ * A publish leaves the in flight window when its disposition arrives, when it times out or when the link
+ * it was sent on is closed/detached by the remote, so a lost disposition can't shrink the window for good.
  */
 public class AmqpPublishEndpoint {
 
     private static final Logger LOG = LoggerFactory.getLogger(AmqpPublishEndpoint.class);
 
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+    public static final long DEFAULT_PUBLISH_TIMEOUT = 10000;
+
+    private final Vertx vertx;
     private ProtonConnection connection;
 
+    private final int maxInFlight;
+    private final long publishTimeout;
+    private int inFlight;
+    private boolean closed;
+    // publishes waiting for room in the in flight window
+    private final Queue<PendingPublish> pending = new ArrayDeque<>();
+    // senders with publishes in flight (topic -> sender)
+    private final Map<String, TopicSender> senders = new HashMap<>();
+
     /**
      * Constructor
      *
+     * @param vertx         Vert.x instance used for the publish timers
      * @param connection    ProtonConnection instance
      */
-    public AmqpPublishEndpoint(ProtonConnection connection) {
+    public AmqpPublishEndpoint(Vertx vertx, ProtonConnection connection) {
+        this(vertx, connection, DEFAULT_MAX_IN_FLIGHT, DEFAULT_PUBLISH_TIMEOUT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx             Vert.x instance used for the publish timers
+     * @param connection        ProtonConnection instance
+     * @param maxInFlight       max number of publishes waiting for a disposition at same time
+     * @param publishTimeout    time (in ms) to wait for the disposition of a publish before failing it
+     */
+    public AmqpPublishEndpoint(Vertx vertx, ProtonConnection connection, int maxInFlight, long publishTimeout) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max number of publishes in flight must be greater than 0");
+        }
+        if (publishTimeout <= 0) {
+            throw new IllegalArgumentException("Publish timeout must be greater than 0");
+        }
+        this.vertx = vertx;
         this.connection = connection;
+        this.maxInFlight = maxInFlight;
+        this.publishTimeout = publishTimeout;
     }
 
     /**
@@ -53,56 +105,242 @@ public class AmqpPublishEndpoint {
      */
     public void publish(AmqpPublishMessage amqpPublishMessage, Handler<AsyncResult<ProtonDelivery>> handler) {
 
+        if (this.closed) {
+            handler.handle(Future.failedFuture("AMQP publish endpoint closed"));
+            return;
+        }
+
         // send AMQP_PUBLISH message
 
-        LOG.info("Will ready for publishing on topic [{}]", amqpPublishMessage.topic());
+        LOG.debug("Will ready for publishing on topic [{}]", amqpPublishMessage.topic());
 
         // use sender for QoS 0/1 messages
         if (amqpPublishMessage.qos() != MqttQoS.EXACTLY_ONCE) {
 
-            ProtonSender sender = this.connection.createSender(amqpPublishMessage.topic());
+            this.pending.add(new PendingPublish(amqpPublishMessage, handler));
+            this.drain();
+
+        // use sender for QoS 2 messages
+        } else {
+
+            // TODO
+        }
+    }
+
+    /**
+     * Number of publishes waiting for a disposition
+     *
+     * @return
+     */
+    public int inFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * Number of publishes waiting for room in the in flight window
+     *
+     * @return
+     */
+    public int pending() {
+        return this.pending.size();
+    }
+
+    /**
+     * Send the queued publishes while there is room in the in flight window
+     */
+    private void drain() {
+
+        while (!this.closed && this.inFlight < this.maxInFlight && !this.pending.isEmpty()) {
+            this.send(this.pending.poll());
+        }
+    }
+
+    private void send(PendingPublish publish) {
+
+        AmqpPublishMessage amqpPublishMessage = publish.amqpPublishMessage;
+        String topic = amqpPublishMessage.topic();
 
+        TopicSender topicSender = this.senders.get(topic);
+        if (topicSender == null) {
+
+            ProtonSender sender = this.connection.createSender(topic);
+            TopicSender created = new TopicSender(topic, sender);
             sender.setQoS(ProtonQoS.AT_LEAST_ONCE)
+                  .closeHandler(ar -> this.linkLost(created))
+                  .detachHandler(ar -> this.linkLost(created))
                   .open();
 
-            if (amqpPublishMessage.qos() == MqttQoS.AT_MOST_ONCE) {
+            topicSender = created;
+            this.senders.put(topic, topicSender);
+        }
 
-                sender.send(amqpPublishMessage.toAmqp());
-                sender.close();
-                LOG.info("AMQP published on {}", amqpPublishMessage.topic());
+        if (amqpPublishMessage.qos() == MqttQoS.AT_MOST_ONCE) {
 
-                handler.handle(Future.succeededFuture(null));
+            topicSender.sender.send(amqpPublishMessage.toAmqp());
+            LOG.debug("AMQP published on {}", topic);
+            this.releaseIfUnused(topicSender);
 
-            } else {
+            publish.handler.handle(Future.succeededFuture(null));
 
-                sender.send(amqpPublishMessage.toAmqp(), delivery -> {
+        } else {
 
-                    if (delivery.getRemoteState() == Accepted.getInstance()) {
-                        LOG.info("AMQP publish delivery {}", delivery.getRemoteState());
-                        handler.handle(Future.succeededFuture(delivery));
-                    } else {
-                        handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
-                    }
+            TopicSender inFlightSender = topicSender;
+            InFlightPublish inFlightPublish = new InFlightPublish(publish.handler);
+            inFlightSender.inFlight.add(inFlightPublish);
+            this.inFlight++;
 
-                    sender.close();
-                });
-            }
+            inFlightPublish.timerId = this.vertx.setTimer(this.publishTimeout, id -> {
 
-        // use sender for QoS 2 messages
-        } else {
+                if (this.release(inFlightSender, inFlightPublish)) {
+                    LOG.warn("AMQP publish on {} timed out", topic);
+                    inFlightPublish.handler.handle(Future.failedFuture(String.format("AMQP publish on %s timed out", topic)));
+                    this.drain();
+                }
+            });
 
-            // TODO
+            inFlightSender.sender.send(amqpPublishMessage.toAmqp(), delivery -> {
+
+                // the publish could be already failed by a timeout
+                if (!this.release(inFlightSender, inFlightPublish)) {
+                    return;
+                }
+                this.vertx.cancelTimer(inFlightPublish.timerId);
+
+                if (delivery.getRemoteState() == Accepted.getInstance()) {
+                    LOG.debug("AMQP publish delivery {}", delivery.getRemoteState());
+                    inFlightPublish.handler.handle(Future.succeededFuture(delivery));
+                } else {
+                    inFlightPublish.handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
+                }
+
+                this.drain();
+            });
+        }
+    }
+
+    /**
+     * Release the room taken by a publish in the in flight window
+     *
+     * @return  false if the publish was already released
+     */
+    private boolean release(TopicSender topicSender, InFlightPublish inFlightPublish) {
+
+        if (!topicSender.inFlight.remove(inFlightPublish)) {
+            return false;
+        }
+        this.inFlight--;
+        this.releaseIfUnused(topicSender);
+        return true;
+    }
+
+    private void releaseIfUnused(TopicSender topicSender) {
+
+        if (topicSender.inFlight.isEmpty()) {
+            this.senders.remove(topicSender.topic, topicSender);
+            topicSender.close();
         }
     }
 
     /**
-     * Close the endpoint, closing the connection
+     * Handle the sender closed/detached by the remote, failing the publishes in flight on it
+     */
+    private void linkLost(TopicSender topicSender) {
+
+        this.senders.remove(topicSender.topic, topicSender);
+        topicSender.close();
+
+        List<InFlightPublish> lost = this.failInFlight(topicSender, "AMQP link on %s lost");
+        if (!lost.isEmpty()) {
+            LOG.warn("AMQP link on {} lost with {} publishes in flight", topicSender.topic, lost.size());
+            this.drain();
+        }
+    }
+
+    private List<InFlightPublish> failInFlight(TopicSender topicSender, String reason) {
+
+        List<InFlightPublish> failed = new ArrayList<>(topicSender.inFlight);
+        topicSender.inFlight.clear();
+        this.inFlight -= failed.size();
+
+        for (InFlightPublish inFlightPublish : failed) {
+            this.vertx.cancelTimer(inFlightPublish.timerId);
+            inFlightPublish.handler.handle(Future.failedFuture(String.format(reason, topicSender.topic)));
+        }
+        return failed;
+    }
+
+    /**
+     * Close the endpoint, failing the queued and in flight publishes and closing the connection
      */
     public void close() {
 
-        // TODO : check what to close other than connection while this class evolves
+        this.closed = true;
+
+        List<TopicSender> topicSenders = new ArrayList<>(this.senders.values());
+        this.senders.clear();
+        for (TopicSender topicSender : topicSenders) {
+            topicSender.close();
+            this.failInFlight(topicSender, "AMQP publish endpoint closed with publish on %s in flight");
+        }
+
+        List<PendingPublish> dropped = new ArrayList<>(this.pending);
+        this.pending.clear();
+        for (PendingPublish publish : dropped) {
+            publish.handler.handle(Future.failedFuture("AMQP publish endpoint closed"));
+        }
+
         if (this.connection != null) {
             this.connection.close();
         }
     }
+
+    /**
+     * A publish waiting for room in the in flight window
+     */
+    private static final class PendingPublish {
+
+        private final AmqpPublishMessage amqpPublishMessage;
+        private final Handler<AsyncResult<ProtonDelivery>> handler;
+
+        PendingPublish(AmqpPublishMessage amqpPublishMessage, Handler<AsyncResult<ProtonDelivery>> handler) {
+            this.amqpPublishMessage = amqpPublishMessage;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * A publish waiting for a disposition with the timer failing it
+     */
+    private static final class InFlightPublish {
+
+        private final Handler<AsyncResult<ProtonDelivery>> handler;
+        private long timerId;
+
+        InFlightPublish(Handler<AsyncResult<ProtonDelivery>> handler) {
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * A sender on a topic with the publishes in flight on it
+     */
+    private static final class TopicSender {
+
+        private final String topic;
+        private final ProtonSender sender;
+        private final Set<InFlightPublish> inFlight = new LinkedHashSet<>();
+        private boolean closed;
+
+        TopicSender(String topic, ProtonSender sender) {
+            this.topic = topic;
+            this.sender = sender;
+        }
+
+        void close() {
+            if (!this.closed) {
+                this.closed = true;
+                this.sender.close();
+            }
+        }
+    }
 }
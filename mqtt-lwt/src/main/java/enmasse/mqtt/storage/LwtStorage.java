@@ -47,6 +47,15 @@ public interface LwtStorage {
      */
     void update(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler);
 
+    /**
+     * Store the provided "will" information, adding it or updating the one already existing for the client
+     *
+     * @param clientId  client identifier for the "will" information
+     * @param willMessage   "will" information to store
+     * @param handler   handler called with the result code
+     */
+    void upsert(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler);
+
     /**
      * Delete "will" information for the specified client
      *
@@ -0,0 +1,561 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt.storage.impl;
+
+import enmasse.mqtt.messages.AmqpWillMessage;
+import enmasse.mqtt.storage.LwtStorage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent implementation of the LWT Storage service, based on a local memory-mapped append-only log.
+ *
+ * Every change is appended to the log as a record (a "put" with the full will or a "delete") and an
+ * in-memory index keeps the offset of the last "put" record for each client. On open, the log is replayed
+ * for rebuilding the index (decoding only the client identifiers), stopping at the first incomplete or
+ * corrupted record, so a crash during a write loses only that write. When most of the log is made of
+ * records not referenced by the index anymore, the live records are copied to a new log which atomically
+ * replaces the current one.
+ *
+ * The operations can block on the disk (flushing, growing or compacting the log), so when called from a Vert.x
+ * context they run in order on a worker thread and their handlers are called back on the calling context.
+ *
+ * Record layout : length (int) | crc32 of the body (int) | body
+ * Body layout : type (byte) | client id length (short) | client id
+ *               and for "put" : retain (byte) | qos (byte) | topic length (short) | topic | payload length (int, -1 if null) | payload
+ */
+@Component
+@ConditionalOnProperty(name = "enmasse.mqtt.lwt.storage", havingValue = "file")
+public class FileLwtStorage implements LwtStorage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileLwtStorage.class);
+
+    static final String LOG_FILE = "wills.log";
+    private static final String COMPACT_FILE = "wills.log.compact";
+
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_DELETE = 2;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MIN_CAPACITY = 1024 * 1024;
+
+    private String directory;
+    private int initialCapacity = 64 * 1024 * 1024;
+    private int compactionThreshold = 16 * 1024 * 1024;
+    private boolean sync;
+
+    private FileChannel channel;
+    private MappedByteBuffer log;
+    // position for the next record
+    private int tail;
+    // bytes used by the records referenced by the index
+    private long liveBytes;
+
+    // client identifier -> offset of the current will record
+    private Map<String, Integer> index;
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Set the directory containing the log
+     *
+     * @param directory directory path
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.dir:/var/lib/mqtt-lwt}")
+    public FileLwtStorage setDirectory(String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    /**
+     * Set the initial size of the log
+     *
+     * @param initialCapacity   initial size in bytes
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.initialcapacity:67108864}")
+    public FileLwtStorage setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = Math.max(initialCapacity, MIN_CAPACITY);
+        return this;
+    }
+
+    /**
+     * Set the minimum size of the log before compacting it
+     *
+     * @param compactionThreshold   size in bytes
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.compactionthreshold:16777216}")
+    public FileLwtStorage setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    /**
+     * Set if every change has to be flushed to the disk before completing.
+     * Without it, changes survive a crash of the process but not of the node
+     *
+     * @param sync  if flushing every change
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.sync:false}")
+    public FileLwtStorage setSync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    @Override
+    public void open(Handler<AsyncResult<Void>> handler) {
+
+        this.execute(future -> {
+
+            synchronized (this) {
+
+                try {
+
+                    Path dir = Paths.get(this.directory);
+                    Files.createDirectories(dir);
+                    // a compaction interrupted before replacing the log
+                    Files.deleteIfExists(dir.resolve(COMPACT_FILE));
+
+                    long start = System.nanoTime();
+                    this.map(dir.resolve(LOG_FILE));
+                    this.replay();
+                    LOG.info("Replayed {} wills from {} in {} ms", this.index.size(), dir.resolve(LOG_FILE),
+                            (System.nanoTime() - start) / 1_000_000);
+
+                    future.complete();
+
+                } catch (IOException | RuntimeException e) {
+
+                    LOG.error("Error opening the LWT storage log", e);
+                    this.closeChannel();
+                    future.fail(e);
+                }
+            }
+
+        }, handler);
+    }
+
+    @Override
+    public void add(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
+
+        this.execute(future -> {
+
+            synchronized (this) {
+
+                if (this.index.containsKey(clientId)) {
+                    LOG.warn("Will already existing for the client {}", clientId);
+                    future.fail(new IllegalArgumentException("Will already existing for the client"));
+                } else {
+                    this.write(clientId, willMessage, future);
+                }
+            }
+
+        }, handler);
+    }
+
+    @Override
+    public void get(String clientId, Handler<AsyncResult<AmqpWillMessage>> handler) {
+
+        this.execute(future -> {
+
+            synchronized (this) {
+
+                Integer offset = this.index.get(clientId);
+                if (offset == null) {
+                    LOG.warn("No will for the client {}", clientId);
+                    future.fail(new IllegalArgumentException("No will for the client"));
+                } else {
+                    LOG.debug("Will retrieved for the client {}", clientId);
+                    future.complete(this.readWill(offset));
+                }
+            }
+
+        }, handler);
+    }
+
+    @Override
+    public void update(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
+
+        this.execute(future -> {
+
+            synchronized (this) {
+
+                if (!this.index.containsKey(clientId)) {
+                    LOG.warn("No will for the client {}", clientId);
+                    future.fail(new IllegalArgumentException("No will for the client"));
+                } else {
+                    this.write(clientId, willMessage, future);
+                }
+            }
+
+        }, handler);
+    }
+
+    @Override
+    public void upsert(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
+
+        this.execute(future -> {
+
+            synchronized (this) {
+                this.write(clientId, willMessage, future);
+            }
+
+        }, handler);
+    }
+
+    @Override
+    public void delete(String clientId, Handler<AsyncResult<Integer>> handler) {
+
+        this.execute(future -> {
+
+            synchronized (this) {
+
+                if (!this.index.containsKey(clientId)) {
+                    LOG.warn("No will for the client {}", clientId);
+                    future.fail(new IllegalArgumentException("No will for the client"));
+                } else {
+                    this.write(clientId, null, future);
+                }
+            }
+
+        }, handler);
+    }
+
+    @Override
+    public void close() {
+
+        // after the operations already started; with sync, every record has been flushed when appended
+        this.execute(future -> {
+
+            synchronized (this) {
+
+                this.closeChannel();
+                if (this.index != null) {
+                    this.index.clear();
+                }
+                future.complete();
+            }
+
+        }, ar -> { });
+    }
+
+    /**
+     * Run an operation on a worker thread, in order with the other ones, when called from a Vert.x context.
+     * Otherwise it's run in the calling thread
+     */
+    private <T> void execute(Handler<Future<T>> operation, Handler<AsyncResult<T>> handler) {
+
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            Future<T> future = Future.future();
+            operation.handle(future);
+            handler.handle(future);
+        } else {
+            context.executeBlocking(operation, true, handler);
+        }
+    }
+
+    /**
+     * Append a "put" record (or a "delete" one if willMessage is null) and update the index
+     */
+    private void write(String clientId, AmqpWillMessage willMessage, Future<Integer> future) {
+
+        try {
+
+            byte[] body = encode(clientId, willMessage);
+            int offset = this.append(body);
+
+            Integer previous = (willMessage != null) ? this.index.put(clientId, offset) : this.index.remove(clientId);
+            if (previous != null) {
+                this.liveBytes -= this.recordSize(previous);
+            }
+            if (willMessage != null) {
+                this.liveBytes += RECORD_HEADER_SIZE + body.length;
+            }
+
+            LOG.debug("Will {} for the client {}", (willMessage != null) ? "stored" : "deleted", clientId);
+            future.complete();
+
+        } catch (IOException | RuntimeException e) {
+
+            LOG.error("Error writing will for the client {}", clientId, e);
+            future.fail(e);
+        }
+    }
+
+    private int append(byte[] body) throws IOException {
+
+        int size = RECORD_HEADER_SIZE + body.length;
+        if ((long) this.tail + size > this.log.capacity()) {
+            this.makeRoom(size);
+        }
+
+        int offset = this.tail;
+        this.crc.reset();
+        this.crc.update(body, 0, body.length);
+
+        // the length is written last : until then, the record is ignored by a replay
+        ByteBuffer record = this.log.duplicate();
+        record.position(offset + 4);
+        record.putInt((int) this.crc.getValue());
+        record.put(body);
+        this.log.putInt(offset, body.length);
+
+        if (this.sync) {
+            this.log.force();
+        }
+
+        this.tail += size;
+        return offset;
+    }
+
+    /**
+     * Compact the log, or grow it if it's mostly made of live records
+     */
+    private void makeRoom(int size) throws IOException {
+
+        Path dir = Paths.get(this.directory);
+        if (this.tail >= this.compactionThreshold && this.liveBytes < this.tail / 2) {
+            this.compact(dir);
+        }
+
+        if ((long) this.tail + size > this.log.capacity()) {
+            long capacity = this.log.capacity();
+            while ((long) this.tail + size > capacity) {
+                capacity *= 2;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("LWT storage log is full");
+            }
+            this.log = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /**
+     * Copy the live records to a new log, which then replaces the current one
+     */
+    private void compact(Path dir) throws IOException {
+
+        long start = System.nanoTime();
+        Path compactPath = dir.resolve(COMPACT_FILE);
+        Map<String, Integer> compactIndex = new HashMap<>(this.index.size() * 4 / 3 + 1);
+
+        int capacity = this.capacityFor(this.liveBytes * 2);
+        try (FileChannel compactChannel = FileChannel.open(compactPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            MappedByteBuffer compactLog = compactChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            int position = 0;
+            for (Map.Entry<String, Integer> entry : this.index.entrySet()) {
+                int offset = entry.getValue();
+                int size = this.recordSize(offset);
+                ByteBuffer record = this.log.duplicate();
+                record.position(offset).limit(offset + size);
+                compactLog.position(position);
+                compactLog.put(record);
+                compactIndex.put(entry.getKey(), position);
+                position += size;
+            }
+            compactLog.force();
+
+            this.closeChannel();
+            Files.move(compactPath, dir.resolve(LOG_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            this.map(dir.resolve(LOG_FILE));
+            this.index = compactIndex;
+            this.tail = position;
+            this.liveBytes = position;
+        }
+        LOG.info("Compacted LWT storage log with {} wills in {} ms", this.index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void map(Path path) throws IOException {
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long capacity = Math.max(this.channel.size(), this.initialCapacity);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("LWT storage log too big");
+        }
+        this.log = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Rebuild the index reading the records in the log
+     */
+    private void replay() {
+
+        this.index = new HashMap<>();
+        this.liveBytes = 0;
+
+        int capacity = this.log.capacity();
+        ByteBuffer view = this.log.duplicate();
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+
+            int length = this.log.getInt(position);
+            if (length <= 0 || (long) position + RECORD_HEADER_SIZE + length > capacity) {
+                break;
+            }
+
+            view.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+            this.crc.reset();
+            this.crc.update(view);
+            if ((int) this.crc.getValue() != this.log.getInt(position + 4)) {
+                break;
+            }
+
+            byte type = this.log.get(position + RECORD_HEADER_SIZE);
+            String clientId = this.readClientId(view, position);
+            Integer previous = (type == RECORD_PUT) ? this.index.put(clientId, position) : this.index.remove(clientId);
+            if (previous != null) {
+                this.liveBytes -= this.recordSize(previous);
+            }
+            if (type == RECORD_PUT) {
+                this.liveBytes += RECORD_HEADER_SIZE + length;
+            }
+
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        this.tail = position;
+
+        // something not valid after the last record : leftover of an interrupted write, to wipe out
+        // so that it can't be mistaken for valid records when new records are appended
+        if (this.tail + 4 <= capacity && this.log.getInt(this.tail) != 0) {
+            LOG.warn("Discarding incomplete record at offset {} of the LWT storage log", this.tail);
+            for (int i = this.tail; i < capacity; i++) {
+                this.log.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private int recordSize(int offset) {
+        return RECORD_HEADER_SIZE + this.log.getInt(offset);
+    }
+
+    private String readClientId(ByteBuffer view, int offset) {
+
+        int position = offset + RECORD_HEADER_SIZE + 1;
+        int length = this.log.getShort(position) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        view.position(position + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private AmqpWillMessage readWill(int offset) {
+
+        ByteBuffer buffer = this.log.duplicate();
+        buffer.position(offset + RECORD_HEADER_SIZE + 1);
+        // skip client identifier
+        int clientIdLength = buffer.getShort() & 0xFFFF;
+        buffer.position(buffer.position() + clientIdLength);
+
+        boolean isRetain = buffer.get() != 0;
+        MqttQoS qos = MqttQoS.valueOf(buffer.get());
+        byte[] topic = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(topic);
+        int payloadLength = buffer.getInt();
+        Buffer payload = null;
+        if (payloadLength >= 0) {
+            byte[] bytes = new byte[payloadLength];
+            buffer.get(bytes);
+            payload = Buffer.buffer(bytes);
+        }
+        return new AmqpWillMessage(isRetain, new String(topic, StandardCharsets.UTF_8), qos, payload);
+    }
+
+    private static byte[] encode(String clientId, AmqpWillMessage willMessage) {
+
+        byte[] clientIdBytes = clientId.getBytes(StandardCharsets.UTF_8);
+        if (clientIdBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Client identifier too long");
+        }
+
+        if (willMessage == null) {
+            return ByteBuffer.allocate(1 + 2 + clientIdBytes.length)
+                    .put(RECORD_DELETE)
+                    .putShort((short) clientIdBytes.length)
+                    .put(clientIdBytes)
+                    .array();
+        }
+
+        byte[] topicBytes = willMessage.topic().getBytes(StandardCharsets.UTF_8);
+        if (topicBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Will topic too long");
+        }
+        byte[] payloadBytes = (willMessage.payload() != null) ? willMessage.payload().getBytes() : null;
+
+        ByteBuffer body = ByteBuffer.allocate(1 + 2 + clientIdBytes.length + 1 + 1 + 2 + topicBytes.length + 4 +
+                ((payloadBytes != null) ? payloadBytes.length : 0));
+        body.put(RECORD_PUT)
+                .putShort((short) clientIdBytes.length)
+                .put(clientIdBytes)
+                .put((byte) (willMessage.isRetain() ? 1 : 0))
+                .put((byte) willMessage.qos().value())
+                .putShort((short) topicBytes.length)
+                .put(topicBytes);
+        if (payloadBytes != null) {
+            body.putInt(payloadBytes.length).put(payloadBytes);
+        } else {
+            body.putInt(-1);
+        }
+        return body.array();
+    }
+
+    private int capacityFor(long size) throws IOException {
+
+        long capacity = this.initialCapacity;
+        while (capacity < size) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("LWT storage log too big");
+        }
+        return (int) capacity;
+    }
+
+    private void closeChannel() {
+
+        this.log = null;
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                LOG.warn("Error closing the LWT storage log", e);
+            }
+            this.channel = null;
+        }
+    }
+}
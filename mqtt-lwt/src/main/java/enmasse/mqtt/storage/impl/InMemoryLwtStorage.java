@@ -12,6 +12,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -19,20 +20,40 @@ import java.util.Map;
 
 /**
  * In memory implementation of the LWT Storage service
+ *
+ * Wills are spread across shards, each one guarded by its own lock, so that the storage
+ * can be used by more verticle instances at same time without contending on a single lock.
  */
 @Component
+@ConditionalOnProperty(name = "enmasse.mqtt.lwt.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryLwtStorage implements LwtStorage {
 
     public static final Logger LOG = LoggerFactory.getLogger(InMemoryLwtStorage.class);
 
-    Map<String, AmqpWillMessage> wills;
+    private static final int DEFAULT_SHARDS = 16;
 
-    @Override
-    public void open(Handler<AsyncResult<Void>> handler) {
+    private final Shard[] shards;
+
+    public InMemoryLwtStorage() {
+        this(DEFAULT_SHARDS);
+    }
 
-        if (wills == null) {
-            wills = new HashMap<>();
+    /**
+     * Constructor
+     *
+     * @param shards    number of shards (rounded up to a power of 2)
+     */
+    public InMemoryLwtStorage(int shards) {
+
+        int size = Integer.highestOneBit(Math.max(1, shards - 1)) << 1;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            this.shards[i] = new Shard();
         }
+    }
+
+    @Override
+    public void open(Handler<AsyncResult<Void>> handler) {
 
         handler.handle(Future.succeededFuture());
     }
@@ -40,12 +61,17 @@ public class InMemoryLwtStorage implements LwtStorage {
     @Override
     public void add(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
 
-        if (this.wills.containsKey(clientId)) {
+        Shard shard = this.shard(clientId);
+        boolean added;
+        synchronized (shard) {
+            added = shard.wills.putIfAbsent(clientId, willMessage) == null;
+        }
+
+        if (!added) {
             LOG.warn("Will already existing for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("Will already existing for the client")));
         } else {
-            this.wills.put(clientId, willMessage);
-            LOG.info("Will added for the client {}", clientId);
+            LOG.debug("Will added for the client {}", clientId);
             handler.handle(Future.succeededFuture());
         }
     }
@@ -53,37 +79,65 @@ public class InMemoryLwtStorage implements LwtStorage {
     @Override
     public void get(String clientId, Handler<AsyncResult<AmqpWillMessage>> handler) {
 
-        if (!this.wills.containsKey(clientId)) {
+        Shard shard = this.shard(clientId);
+        AmqpWillMessage willMessage;
+        synchronized (shard) {
+            willMessage = shard.wills.get(clientId);
+        }
+
+        if (willMessage == null) {
             LOG.warn("No will for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
         } else {
-            LOG.info("Will retrieved for the client {}", clientId);
-            handler.handle(Future.succeededFuture(this.wills.get(clientId)));
+            LOG.debug("Will retrieved for the client {}", clientId);
+            handler.handle(Future.succeededFuture(willMessage));
         }
     }
 
     @Override
     public void update(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
 
-        if (!this.wills.containsKey(clientId)) {
+        Shard shard = this.shard(clientId);
+        boolean updated;
+        synchronized (shard) {
+            updated = shard.wills.replace(clientId, willMessage) != null;
+        }
+
+        if (!updated) {
             LOG.warn("No will for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
         } else {
-            this.wills.put(clientId, willMessage);
-            LOG.info("Will updated for the client {}", clientId);
+            LOG.debug("Will updated for the client {}", clientId);
             handler.handle(Future.succeededFuture());
         }
     }
 
+    @Override
+    public void upsert(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
+
+        Shard shard = this.shard(clientId);
+        synchronized (shard) {
+            shard.wills.put(clientId, willMessage);
+        }
+
+        LOG.debug("Will stored for the client {}", clientId);
+        handler.handle(Future.succeededFuture());
+    }
+
     @Override
     public void delete(String clientId, Handler<AsyncResult<Integer>> handler) {
 
-        if (!this.wills.containsKey(clientId)) {
+        Shard shard = this.shard(clientId);
+        boolean deleted;
+        synchronized (shard) {
+            deleted = shard.wills.remove(clientId) != null;
+        }
+
+        if (!deleted) {
             LOG.warn("No will for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
         } else {
-            this.wills.remove(clientId);
-            LOG.error("Will deleted for the client {}", clientId);
+            LOG.debug("Will deleted for the client {}", clientId);
             handler.handle(Future.succeededFuture());
         }
     }
@@ -91,9 +145,24 @@ public class InMemoryLwtStorage implements LwtStorage {
     @Override
     public void close() {
 
-        // TODO
-        if (wills != null) {
-            wills.clear();
+        for (Shard shard : this.shards) {
+            synchronized (shard) {
+                shard.wills.clear();
+            }
         }
     }
+
+    private Shard shard(String clientId) {
+
+        int h = clientId.hashCode();
+        return this.shards[(h ^ (h >>> 16)) & (this.shards.length - 1)];
+    }
+
+    /**
+     * A subset of the wills, guarded by its own lock
+     */
+    private static final class Shard {
+
+        private final Map<String, AmqpWillMessage> wills = new HashMap<>();
+    }
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.endpoints.AmqpPublishEndpoint;
+import enmasse.mqtt.messages.AmqpPublishMessage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonReceiver;
+import io.vertx.proton.ProtonServer;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Test related to the in flight window and the senders of the publisher endpoint
+ */
+@RunWith(VertxUnitRunner.class)
+public class AmqpPublishEndpointTest {
+
+    private static final int TIMEOUT = 10000;
+
+    private Vertx vertx;
+    private ProtonServer server;
+    private AmqpPublishEndpoint endpoint;
+    private volatile Context serverContext;
+    private volatile Context clientContext;
+
+    // accessed on the server context only
+    private boolean settle;
+    private final List<ProtonDelivery> unsettled = new ArrayList<>();
+    private final List<ProtonReceiver> receivers = new ArrayList<>();
+
+    private final AtomicInteger received = new AtomicInteger();
+    private final Map<String, AtomicInteger> attached = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> detached = new ConcurrentHashMap<>();
+    private final List<AsyncResult<ProtonDelivery>> results = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void before(TestContext context) {
+
+        this.vertx = Vertx.vertx();
+
+        Async async = context.async();
+
+        // AMQP peer receiving the publishes, settling them on demand
+        this.server = ProtonServer.create(this.vertx).connectHandler(connection -> {
+
+            this.serverContext = Vertx.currentContext();
+
+            connection
+                    .openHandler(o -> connection.open())
+                    .sessionOpenHandler(session -> session.open())
+                    .receiverOpenHandler(receiver -> {
+
+                        String address = receiver.getRemoteTarget().getAddress();
+                        count(this.attached, address).incrementAndGet();
+
+                        receiver.setTarget(receiver.getRemoteTarget())
+                                .setAutoAccept(false)
+                                .closeHandler(ar -> {
+                                    count(this.detached, address).incrementAndGet();
+                                    this.receivers.remove(receiver);
+                                    receiver.close();
+                                })
+                                .handler((delivery, message) -> {
+                                    this.received.incrementAndGet();
+                                    if (this.settle) {
+                                        delivery.disposition(Accepted.getInstance(), true);
+                                    } else {
+                                        this.unsettled.add(delivery);
+                                    }
+                                })
+                                .open();
+
+                        this.receivers.add(receiver);
+                    });
+
+        }).listen(0, context.asyncAssertSuccess(s -> async.complete()));
+
+        async.awaitSuccess(TIMEOUT);
+    }
+
+    @After
+    public void after(TestContext context) {
+
+        Async async = context.async();
+
+        this.vertx.close(context.asyncAssertSuccess(v -> async.complete()));
+
+        async.awaitSuccess(TIMEOUT);
+    }
+
+    @Test
+    public void windowLimit(TestContext context) throws Exception {
+
+        this.connect(context, 2, TIMEOUT);
+
+        for (int i = 0; i < 5; i++) {
+            this.publish("will");
+        }
+
+        this.waitUntil(context, () -> this.received.get() == 2);
+        context.assertEquals(2, this.onClient(this.endpoint::inFlight));
+        context.assertEquals(3, this.onClient(this.endpoint::pending));
+
+        this.onServer(this::settleAll);
+
+        this.waitUntil(context, () -> this.results.size() == 5);
+        for (AsyncResult<ProtonDelivery> result : this.results) {
+            context.assertTrue(result.succeeded());
+        }
+        context.assertEquals(5, this.received.get());
+        context.assertEquals(0, this.onClient(this.endpoint::inFlight));
+    }
+
+    @Test
+    public void windowReleasedOnLinkLoss(TestContext context) throws Exception {
+
+        this.connect(context, 2, TIMEOUT);
+
+        for (int i = 0; i < 3; i++) {
+            this.publish("will");
+        }
+
+        this.waitUntil(context, () -> this.received.get() == 2);
+
+        // the peer detaches the link with two publishes in flight on it
+        this.onServer(() -> {
+            this.settle = true;
+            new ArrayList<>(this.receivers).forEach(ProtonReceiver::close);
+        });
+
+        this.waitUntil(context, () -> this.results.size() == 3);
+        context.assertTrue(this.results.get(0).failed());
+        context.assertTrue(this.results.get(1).failed());
+        context.assertTrue(this.results.get(2).succeeded());
+
+        // the queued publish is sent on a new link
+        context.assertEquals(2, count(this.attached, "will").get());
+        context.assertEquals(0, this.onClient(this.endpoint::inFlight));
+        context.assertEquals(0, this.onClient(this.endpoint::pending));
+    }
+
+    @Test
+    public void windowReleasedOnTimeout(TestContext context) throws Exception {
+
+        this.connect(context, 1, 200);
+
+        this.publish("will");
+        this.publish("will");
+
+        this.waitUntil(context, () -> this.results.size() == 2);
+        for (AsyncResult<ProtonDelivery> result : this.results) {
+            context.assertTrue(result.failed());
+            context.assertTrue(result.cause().getMessage().contains("timed out"));
+        }
+        context.assertEquals(2, this.received.get());
+        context.assertEquals(0, this.onClient(this.endpoint::inFlight));
+
+        // late dispositions are ignored
+        this.onServer(this::settleAll);
+        this.publish("will");
+
+        this.waitUntil(context, () -> this.results.size() == 3);
+        context.assertTrue(this.results.get(2).succeeded());
+        context.assertEquals(0, this.onClient(this.endpoint::inFlight));
+    }
+
+    @Test
+    public void topicSharding(TestContext context) throws Exception {
+
+        this.connect(context, 10, TIMEOUT);
+
+        this.publish("will/a");
+        this.publish("will/a");
+        this.publish("will/a");
+        this.publish("will/b");
+        this.publish("will/b");
+
+        this.waitUntil(context, () -> this.received.get() == 5);
+        context.assertEquals(5, this.onClient(this.endpoint::inFlight));
+
+        // one sender per topic, shared by the publishes in flight on it
+        context.assertEquals(1, count(this.attached, "will/a").get());
+        context.assertEquals(1, count(this.attached, "will/b").get());
+        context.assertEquals(0, count(this.detached, "will/a").get());
+
+        this.onServer(this::settleAll);
+
+        this.waitUntil(context, () -> this.results.size() == 5);
+        for (AsyncResult<ProtonDelivery> result : this.results) {
+            context.assertTrue(result.succeeded());
+        }
+
+        // senders are detached when no more publishes are in flight on them
+        this.waitUntil(context, () -> count(this.detached, "will/a").get() == 1 && count(this.detached, "will/b").get() == 1);
+    }
+
+    @Test
+    public void closeFailsPublishes(TestContext context) throws Exception {
+
+        this.connect(context, 1, TIMEOUT);
+
+        for (int i = 0; i < 3; i++) {
+            this.publish("will");
+        }
+
+        this.waitUntil(context, () -> this.received.get() == 1);
+
+        this.clientContext.runOnContext(v -> this.endpoint.close());
+
+        this.waitUntil(context, () -> this.results.size() == 3);
+        for (AsyncResult<ProtonDelivery> result : this.results) {
+            context.assertTrue(result.failed());
+        }
+    }
+
+    private void connect(TestContext context, int maxInFlight, long publishTimeout) {
+
+        Async async = context.async();
+
+        ProtonClient.create(this.vertx).connect("localhost", this.server.actualPort(), context.asyncAssertSuccess(connection -> {
+
+            this.clientContext = Vertx.currentContext();
+
+            connection.openHandler(o -> async.complete());
+
+            this.endpoint = new AmqpPublishEndpoint(this.vertx, connection, maxInFlight, publishTimeout);
+            this.endpoint.open();
+        }));
+
+        async.awaitSuccess(TIMEOUT);
+    }
+
+    private void publish(String topic) {
+
+        AmqpPublishMessage amqpPublishMessage =
+                new AmqpPublishMessage(MqttQoS.AT_LEAST_ONCE, false, false, topic, Buffer.buffer("Will on EnMasse"));
+
+        this.clientContext.runOnContext(v -> this.endpoint.publish(amqpPublishMessage, this.results::add));
+    }
+
+    private void settleAll() {
+
+        this.settle = true;
+        for (ProtonDelivery delivery : this.unsettled) {
+            delivery.disposition(Accepted.getInstance(), true);
+        }
+        this.unsettled.clear();
+    }
+
+    private <T> T onClient(Supplier<T> supplier) throws Exception {
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.clientContext.runOnContext(v -> result.complete(supplier.get()));
+        return result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void onServer(Runnable action) throws Exception {
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        this.serverContext.runOnContext(v -> {
+            action.run();
+            result.complete(null);
+        });
+        result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void waitUntil(TestContext context, BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        context.assertTrue(condition.getAsBoolean());
+    }
+
+    private static AtomicInteger count(Map<String, AtomicInteger> counters, String address) {
+        return counters.computeIfAbsent(address, a -> new AtomicInteger());
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.messages.AmqpWillMessage;
+import enmasse.mqtt.storage.impl.FileLwtStorage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests related to the persistent LWT storage service, mainly about restart and recovery
+ */
+@RunWith(VertxUnitRunner.class)
+public class FileLwtStorageTest {
+
+    private static final AmqpWillMessage WILL_MESSAGE =
+            new AmqpWillMessage(true, "will_topic", MqttQoS.AT_MOST_ONCE, Buffer.buffer("Hello"));
+
+    private static final String CLIENT_ID = "client_id";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileLwtStorage lwtStorage;
+
+    @Before
+    public void before(TestContext context) {
+
+        this.lwtStorage = this.open(context);
+    }
+
+    @After
+    public void after(TestContext context) {
+        this.lwtStorage.close();
+    }
+
+    @Test
+    public void willSurvivesRestart(TestContext context) {
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, context.asyncAssertSuccess());
+
+        this.restart(context);
+
+        assertWill(context, WILL_MESSAGE, this.get(CLIENT_ID).result());
+    }
+
+    @Test
+    public void upsertLastWinsAfterRestart(TestContext context) {
+
+        AmqpWillMessage willMessage1 = new AmqpWillMessage(false, "will_topic_1", MqttQoS.AT_LEAST_ONCE, Buffer.buffer("Hello_1"));
+
+        this.lwtStorage.upsert(CLIENT_ID, WILL_MESSAGE, context.asyncAssertSuccess());
+        this.lwtStorage.upsert(CLIENT_ID, willMessage1, context.asyncAssertSuccess());
+        assertWill(context, willMessage1, this.get(CLIENT_ID).result());
+
+        this.restart(context);
+
+        assertWill(context, willMessage1, this.get(CLIENT_ID).result());
+    }
+
+    @Test
+    public void deleteSurvivesRestart(TestContext context) {
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, context.asyncAssertSuccess());
+        this.lwtStorage.add("other_client_id", WILL_MESSAGE, context.asyncAssertSuccess());
+        this.lwtStorage.delete(CLIENT_ID, context.asyncAssertSuccess());
+
+        this.restart(context);
+
+        context.assertTrue(this.get(CLIENT_ID).failed());
+        context.assertTrue(this.get("other_client_id").succeeded());
+        this.lwtStorage.delete(CLIENT_ID, context.asyncAssertFailure());
+    }
+
+    @Test
+    public void emptyPayload(TestContext context) {
+
+        AmqpWillMessage willMessage = new AmqpWillMessage(false, "will_topic", MqttQoS.EXACTLY_ONCE, null);
+        this.lwtStorage.add(CLIENT_ID, willMessage, context.asyncAssertSuccess());
+
+        this.restart(context);
+
+        assertWill(context, willMessage, this.get(CLIENT_ID).result());
+    }
+
+    @Test
+    public void incompleteRecordDiscarded(TestContext context) throws IOException {
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, context.asyncAssertSuccess());
+        this.lwtStorage.add("broken_client_id", WILL_MESSAGE, context.asyncAssertSuccess());
+        this.lwtStorage.close();
+
+        // corrupt the second record, as an interrupted write would do
+        try (RandomAccessFile file = new RandomAccessFile(new File(this.folder.getRoot(), "wills.log"), "rw")) {
+            int secondRecord = 8 + file.readInt();
+            file.seek(secondRecord + 12);
+            file.writeByte(0x7F);
+        }
+
+        this.lwtStorage = this.open(context);
+        assertWill(context, WILL_MESSAGE, this.get(CLIENT_ID).result());
+        context.assertTrue(this.get("broken_client_id").failed());
+
+        // the log is usable again after the recovery
+        AmqpWillMessage willMessage1 = new AmqpWillMessage(false, "will_topic_1", MqttQoS.AT_LEAST_ONCE, Buffer.buffer("Hello_1"));
+        this.lwtStorage.add("new_client_id", willMessage1, context.asyncAssertSuccess());
+
+        this.restart(context);
+
+        assertWill(context, WILL_MESSAGE, this.get(CLIENT_ID).result());
+        assertWill(context, willMessage1, this.get("new_client_id").result());
+        context.assertTrue(this.get("broken_client_id").failed());
+    }
+
+    @Test
+    public void compactionKeepsLiveWills(TestContext context) {
+
+        this.lwtStorage.close();
+        this.lwtStorage = this.open(context, 0);
+
+        Buffer payload = Buffer.buffer(new byte[10 * 1024]);
+        for (int i = 0; i < 10; i++) {
+            this.lwtStorage.upsert("client_id_" + i, new AmqpWillMessage(false, "will_topic", MqttQoS.AT_LEAST_ONCE, payload), context.asyncAssertSuccess());
+        }
+        // many more updates than the log can keep without compacting
+        for (int i = 0; i < 1000; i++) {
+            this.lwtStorage.upsert(CLIENT_ID, new AmqpWillMessage(false, "will_topic_" + i, MqttQoS.AT_LEAST_ONCE, payload), context.asyncAssertSuccess());
+        }
+
+        context.assertEquals(1024L * 1024, new File(this.folder.getRoot(), "wills.log").length());
+
+        this.restart(context);
+
+        context.assertEquals("will_topic_999", this.get(CLIENT_ID).result().topic());
+        for (int i = 0; i < 10; i++) {
+            context.assertTrue(this.get("client_id_" + i).succeeded());
+        }
+    }
+
+    @Test
+    public void operationsOffEventLoop(TestContext context) {
+
+        Vertx vertx = Vertx.vertx();
+        Async async = context.async();
+
+        vertx.runOnContext(v -> {
+
+            Context eventLoop = Vertx.currentContext();
+            AtomicBoolean returned = new AtomicBoolean();
+
+            this.lwtStorage.upsert(CLIENT_ID, WILL_MESSAGE, ar -> {
+
+                // completed by a worker, then called back on the event loop
+                context.assertTrue(ar.succeeded());
+                context.assertTrue(returned.get());
+                context.assertEquals(eventLoop, Vertx.currentContext());
+                context.assertTrue(Context.isOnEventLoopThread());
+
+                this.lwtStorage.get(CLIENT_ID, ar2 -> {
+                    assertWill(context, WILL_MESSAGE, ar2.result());
+                    async.complete();
+                });
+            });
+            returned.set(true);
+        });
+
+        async.awaitSuccess();
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void replayManyClients(TestContext context) {
+
+        int clients = 10_000;
+        for (int i = 0; i < clients; i++) {
+            this.lwtStorage.upsert("client_id_" + i, WILL_MESSAGE, context.asyncAssertSuccess());
+        }
+        for (int i = 0; i < clients; i += 2) {
+            this.lwtStorage.delete("client_id_" + i, context.asyncAssertSuccess());
+        }
+
+        this.restart(context);
+
+        for (int i = 0; i < clients; i++) {
+            context.assertEquals(i % 2 != 0, this.get("client_id_" + i).succeeded());
+        }
+    }
+
+    private FileLwtStorage open(TestContext context) {
+        return this.open(context, 16 * 1024 * 1024);
+    }
+
+    private FileLwtStorage open(TestContext context, int compactionThreshold) {
+
+        FileLwtStorage lwtStorage = new FileLwtStorage()
+                .setDirectory(this.folder.getRoot().getAbsolutePath())
+                .setInitialCapacity(1024 * 1024)
+                .setCompactionThreshold(compactionThreshold);
+        lwtStorage.open(context.asyncAssertSuccess());
+        return lwtStorage;
+    }
+
+    private void restart(TestContext context) {
+
+        this.lwtStorage.close();
+        this.lwtStorage = this.open(context);
+    }
+
+    private AsyncResult<AmqpWillMessage> get(String clientId) {
+
+        // the storage completes the operations synchronously
+        AtomicReference<AsyncResult<AmqpWillMessage>> result = new AtomicReference<>();
+        this.lwtStorage.get(clientId, result::set);
+        return result.get();
+    }
+
+    private static void assertWill(TestContext context, AmqpWillMessage expected, AmqpWillMessage actual) {
+
+        context.assertEquals(expected.isRetain(), actual.isRetain());
+        context.assertEquals(expected.topic(), actual.topic());
+        context.assertEquals(expected.qos(), actual.qos());
+        context.assertEquals(expected.payload(), actual.payload());
+    }
+}
@@ -8,9 +8,12 @@ import io.enmasse.amqp.Artemis;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -38,12 +41,7 @@ public class ArtemisAdapter implements Broker {
     @Override
     public void createQueue(String address) throws TimeoutException {
         artemis.createQueue(address, address);
-        Map<String, String> connectorParams = new HashMap<>();
-        connectorParams.put("host", messagingHost);
-        connectorParams.put("port", messagingPort);
-        connectorParams.put("containerId", address);
-        connectorParams.put("clusterId", address);
-        artemis.createConnectorService(address, connectorParams);
+        artemis.createConnectorService(address, getConnectorParams(address));
     }
 
     @Override
@@ -51,4 +49,80 @@ public class ArtemisAdapter implements Broker {
         artemis.destroyConnectorService(address);
         artemis.destroyQueue(address);
     }
+
+    @Override
+    public Map<String, Throwable> createQueues(Collection<String> addresses) {
+        log.info("Creating {} queues", addresses.size());
+        return artemis.doBulk(addresses, address ->
+                artemis.createQueueAsync(address, address)
+                        .thenCompose(v -> createConnectorServiceOrRollback(address)));
+    }
+
+    /**
+     * Removes the queue again if its connector service can't be created, so that retrying the failed address
+     * starts from scratch instead of failing on the queue that already exists.
+     */
+    private CompletableFuture<Void> createConnectorServiceOrRollback(String address) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        artemis.createConnectorServiceAsync(address, getConnectorParams(address)).whenComplete((v, error) -> {
+            if (error == null) {
+                result.complete(null);
+            } else {
+                artemis.destroyQueueAsync(address).whenComplete((d, destroyError) -> {
+                    if (destroyError != null) {
+                        log.warn("Error removing queue {} after failing to create its connector service", address, destroyError);
+                    }
+                    result.completeExceptionally(error);
+                });
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, Throwable> deleteQueues(Collection<String> addresses) {
+        log.info("Deleting {} queues", addresses.size());
+        return artemis.doBulk(addresses, address ->
+                artemis.destroyConnectorServiceAsync(address)
+                        .thenCompose(v -> artemis.destroyQueueAsync(address)));
+    }
+
+    @Override
+    public void detachQueue(String address) throws TimeoutException {
+        artemis.destroyConnectorService(address);
+    }
+
+    @Override
+    public void attachQueue(String address) throws TimeoutException {
+        artemis.createConnectorService(address, getConnectorParams(address));
+    }
+
+    @Override
+    public void deleteDetachedQueue(String address) throws TimeoutException {
+        artemis.destroyQueue(address);
+    }
+
+    @Override
+    public Map<String, QueueStats> getQueueStats(Collection<String> queueNames) {
+        Map<String, QueueStats> stats = new ConcurrentHashMap<>();
+        Map<String, Throwable> failures = artemis.doBulk(queueNames, queueName ->
+                artemis.getQueueMessageCountAsync(queueName)
+                        .thenCombine(artemis.getQueueMessagesAddedAsync(queueName), (messageCount, messagesAdded) -> {
+                            stats.put(queueName, new QueueStats(messageCount, messagesAdded));
+                            return (Void) null;
+                        }));
+        if (!failures.isEmpty()) {
+            log.info("Unable to sample {} of {} queues", failures.size(), queueNames.size());
+        }
+        return stats;
+    }
+
+    private static Map<String, String> getConnectorParams(String address) {
+        Map<String, String> connectorParams = new HashMap<>();
+        connectorParams.put("host", messagingHost);
+        connectorParams.put("port", messagingPort);
+        connectorParams.put("containerId", address);
+        connectorParams.put("clusterId", address);
+        return connectorParams;
+    }
 }
@@ -5,6 +5,10 @@
 
 package io.enmasse.queue.scheduler;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeoutException;
 
@@ -15,4 +19,67 @@ public interface Broker {
     Set<String> getQueueNames() throws TimeoutException;
     void createQueue(String address) throws TimeoutException;
     void deleteQueue(String address) throws TimeoutException;
+
+    /**
+     * Create queues for all addresses, continuing with the remaining ones if some fail.
+     *
+     * @return the failures by address, empty if all queues were created
+     */
+    default Map<String, Throwable> createQueues(Collection<String> addresses) {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (String address : addresses) {
+            try {
+                createQueue(address);
+            } catch (Exception e) {
+                failures.put(address, e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Delete queues for all addresses, continuing with the remaining ones if some fail.
+     *
+     * @return the failures by address, empty if all queues were deleted
+     */
+    default Map<String, Throwable> deleteQueues(Collection<String> addresses) {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (String address : addresses) {
+            try {
+                deleteQueue(address);
+            } catch (Exception e) {
+                failures.put(address, e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Stop routing messages to and from the queue, keeping the queue and its messages. Brokers that don't route
+     * messages themselves have nothing to do.
+     */
+    default void detachQueue(String address) throws TimeoutException {
+    }
+
+    /**
+     * Resume routing messages to and from a queue stopped with {@link #detachQueue(String)}.
+     */
+    default void attachQueue(String address) throws TimeoutException {
+    }
+
+    /**
+     * Delete a queue stopped with {@link #detachQueue(String)}.
+     */
+    default void deleteDetachedQueue(String address) throws TimeoutException {
+        deleteQueue(address);
+    }
+
+    /**
+     * Sample the load of the queues. Brokers that can't report it return no stats.
+     *
+     * @return the stats by queue name, for the queues that could be sampled
+     */
+    default Map<String, QueueStats> getQueueStats(Collection<String> queueNames) throws TimeoutException {
+        return Collections.emptyMap();
+    }
 }
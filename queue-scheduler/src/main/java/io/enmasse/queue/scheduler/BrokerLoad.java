@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The queues of a broker along with the latest sampled stats of those queues, as seen by a {@link PlacementStrategy}.
+ */
+public class BrokerLoad {
+    private final String brokerId;
+    private final Set<String> queueNames;
+    private final Map<String, QueueStats> queueStats;
+
+    public BrokerLoad(String brokerId, Set<String> queueNames, Map<String, QueueStats> queueStats) {
+        this.brokerId = brokerId;
+        this.queueNames = Collections.unmodifiableSet(queueNames);
+        this.queueStats = Collections.unmodifiableMap(queueStats);
+    }
+
+    public String getBrokerId() {
+        return brokerId;
+    }
+
+    public Set<String> getQueueNames() {
+        return queueNames;
+    }
+
+    /**
+     * Returns the stats of a queue on this broker, or null if it has not been sampled yet.
+     */
+    public QueueStats getQueueStats(String queueName) {
+        return queueStats.get(queueName);
+    }
+
+    public int getNumQueues() {
+        return queueNames.size();
+    }
+}
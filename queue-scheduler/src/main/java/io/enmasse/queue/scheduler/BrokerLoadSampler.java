@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Samples the load of the queues on all brokers known to the scheduler state, and computes their enqueue rate from
+ * the previous sample. The brokers are queried without holding the lock of the scheduler state.
+ */
+public class BrokerLoadSampler {
+    private static final Logger log = LoggerFactory.getLogger(BrokerLoadSampler.class);
+    private final SchedulerState schedulerState;
+    private final Map<String, Sample> previousSamples = new HashMap<>();
+
+    public BrokerLoadSampler(SchedulerState schedulerState) {
+        this.schedulerState = schedulerState;
+    }
+
+    public synchronized void sample() {
+        Map<SchedulerState.BrokerInventory, Set<String>> inventory = schedulerState.snapshotInventory();
+        Map<String, Sample> samples = new HashMap<>();
+        for (Map.Entry<SchedulerState.BrokerInventory, Set<String>> entry : inventory.entrySet()) {
+            String brokerId = entry.getKey().brokerId;
+            Map<String, QueueStats> stats;
+            try {
+                stats = entry.getKey().broker.getQueueStats(entry.getValue());
+            } catch (Exception e) {
+                log.warn("Error sampling queues of broker {}", brokerId, e);
+                continue;
+            }
+            long now = System.nanoTime();
+
+            Sample previous = previousSamples.get(brokerId);
+            Map<String, QueueStats> withRates = new HashMap<>();
+            for (Map.Entry<String, QueueStats> queue : stats.entrySet()) {
+                QueueStats current = queue.getValue();
+                if (previous != null) {
+                    current = current.withRateSince(previous.stats.get(queue.getKey()), (now - previous.nanoTime) / 1_000_000_000.0);
+                }
+                withRates.put(queue.getKey(), current);
+            }
+            samples.put(brokerId, new Sample(now, withRates));
+            schedulerState.updateQueueStats(brokerId, withRates);
+        }
+        previousSamples.clear();
+        previousSamples.putAll(samples);
+    }
+
+    private static class Sample {
+        final long nanoTime;
+        final Map<String, QueueStats> stats;
+
+        private Sample(long nanoTime, Map<String, QueueStats> stats) {
+            this.nanoTime = nanoTime;
+            this.stats = stats;
+        }
+    }
+}
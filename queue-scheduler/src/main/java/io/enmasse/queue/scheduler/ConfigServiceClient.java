@@ -8,11 +8,12 @@ import io.enmasse.address.model.Address;
 import io.enmasse.k8s.api.ConfigMapAddressApi;
 import io.enmasse.k8s.api.Watch;
 import io.enmasse.k8s.api.Watcher;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import io.vertx.core.AbstractVerticle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -25,17 +26,19 @@ public class ConfigServiceClient extends AbstractVerticle implements Watcher<Add
     private static final Logger log = LoggerFactory.getLogger(ConfigServiceClient.class.getName());
     private final ConfigListener configListener;
     private final ConfigMapAddressApi addressApi;
+    private final Duration resyncInterval;
     private volatile Watch watch;
 
-    public ConfigServiceClient(ConfigListener configListener, KubernetesClient kubernetesClient, String namespace) {
-        this.addressApi = new ConfigMapAddressApi(kubernetesClient, namespace);
+    public ConfigServiceClient(ConfigListener configListener, NamespacedOpenShiftClient client, String namespace, Duration resyncInterval) {
+        this.addressApi = new ConfigMapAddressApi(client, namespace);
         this.configListener = configListener;
+        this.resyncInterval = resyncInterval;
     }
 
     @Override
     public void start() {
         try {
-            this.watch = addressApi.watchAddresses(this, false);
+            this.watch = addressApi.watchAddresses(this, resyncInterval);
         } catch (Exception e) {
             stop();
             vertx.setTimer(5000, id -> {
@@ -89,7 +92,7 @@ public class ConfigServiceClient extends AbstractVerticle implements Watcher<Add
     }
 
     @Override
-    public void resourcesUpdated(Set<Address> resources) throws Exception {
+    public void onUpdate(Set<Address> resources) throws Exception {
         Map<String, Set<Address>> addressConfig = groupByClusterId(resources);
 
         configListener.addressesChanged(addressConfig);
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import java.util.*;
+
+/**
+ * Places queues on the least loaded broker, where the load of a queue is a weighted sum of a fixed cost per queue,
+ * the messages stored in it and its enqueue rate. Queues that have not been sampled yet, including the ones being
+ * placed, are assumed to have the average load of the sampled queues.
+ *
+ * When rebalancing, empty queues are moved from the most loaded broker to the least loaded one until no broker is
+ * loaded more than the threshold above the average. Queues with stored messages are never moved, as the messages
+ * would be lost.
+ */
+public class LoadAwarePlacement implements PlacementStrategy {
+    private final double queueWeight;
+    private final double messageWeight;
+    private final double rateWeight;
+    private final double rebalanceThreshold;
+    private final int maxMigrations;
+
+    public LoadAwarePlacement() {
+        this(1.0, 0.001, 0.1, 0.25, 10);
+    }
+
+    /**
+     * @param queueWeight load of a queue without any traffic
+     * @param messageWeight load of each message stored in a queue
+     * @param rateWeight load of each message per second enqueued to a queue
+     * @param rebalanceThreshold how much above the average load a broker may be before queues are moved off it
+     * @param maxMigrations max number of queues moved by a single rebalance
+     */
+    public LoadAwarePlacement(double queueWeight, double messageWeight, double rateWeight, double rebalanceThreshold, int maxMigrations) {
+        this.queueWeight = queueWeight;
+        this.messageWeight = messageWeight;
+        this.rateWeight = rateWeight;
+        this.rebalanceThreshold = rebalanceThreshold;
+        this.maxMigrations = maxMigrations;
+    }
+
+    @Override
+    public Map<String, List<String>> place(List<BrokerLoad> brokers, List<String> queueNames) {
+        Map<String, List<String>> placement = new LinkedHashMap<>();
+        if (brokers.isEmpty()) {
+            return placement;
+        }
+
+        double estimate = estimateQueueLoad(brokers);
+        PriorityQueue<Slot> brokerByLoad = new PriorityQueue<>(brokers.size(), Comparator.comparingDouble((Slot slot) -> slot.load));
+        for (BrokerLoad broker : brokers) {
+            brokerByLoad.add(new Slot(broker, getLoad(broker, estimate)));
+        }
+
+        for (String queueName : queueNames) {
+            Slot slot = brokerByLoad.poll();
+            placement.computeIfAbsent(slot.broker.getBrokerId(), b -> new ArrayList<>()).add(queueName);
+            slot.load += estimate;
+            brokerByLoad.offer(slot);
+        }
+        return placement;
+    }
+
+    @Override
+    public Map<String, String> rebalance(List<BrokerLoad> brokers) {
+        Map<String, String> migrations = new LinkedHashMap<>();
+        if (brokers.size() < 2) {
+            return migrations;
+        }
+
+        double estimate = estimateQueueLoad(brokers);
+        List<Slot> slots = new ArrayList<>();
+        double total = 0;
+        for (BrokerLoad broker : brokers) {
+            Slot slot = new Slot(broker, getLoad(broker, estimate));
+            slots.add(slot);
+            total += slot.load;
+        }
+        double limit = (total / slots.size()) * (1 + rebalanceThreshold);
+
+        while (migrations.size() < maxMigrations) {
+            Slot max = Collections.max(slots, Comparator.comparingDouble((Slot slot) -> slot.load));
+            Slot min = Collections.min(slots, Comparator.comparingDouble((Slot slot) -> slot.load));
+            if (max.load <= limit) {
+                break;
+            }
+
+            // Move the largest queue which does not make the target more loaded than the source was
+            String candidate = null;
+            double candidateLoad = 0;
+            for (String queueName : max.broker.getQueueNames()) {
+                QueueStats stats = max.broker.getQueueStats(queueName);
+                if (stats == null || stats.getMessageCount() > 0 || migrations.containsKey(queueName)) {
+                    continue;
+                }
+                double load = getLoad(stats);
+                if (load > candidateLoad && load < max.load - min.load) {
+                    candidate = queueName;
+                    candidateLoad = load;
+                }
+            }
+            if (candidate == null) {
+                break;
+            }
+            migrations.put(candidate, min.broker.getBrokerId());
+            max.load -= candidateLoad;
+            min.load += candidateLoad;
+        }
+        return migrations;
+    }
+
+    private double getLoad(QueueStats stats) {
+        return queueWeight + messageWeight * stats.getMessageCount() + rateWeight * stats.getEnqueueRate();
+    }
+
+    private double getLoad(BrokerLoad broker, double estimate) {
+        double load = 0;
+        for (String queueName : broker.getQueueNames()) {
+            QueueStats stats = broker.getQueueStats(queueName);
+            load += stats != null ? getLoad(stats) : estimate;
+        }
+        return load;
+    }
+
+    private double estimateQueueLoad(List<BrokerLoad> brokers) {
+        double total = 0;
+        int sampled = 0;
+        for (BrokerLoad broker : brokers) {
+            for (String queueName : broker.getQueueNames()) {
+                QueueStats stats = broker.getQueueStats(queueName);
+                if (stats != null) {
+                    total += getLoad(stats);
+                    sampled++;
+                }
+            }
+        }
+        return sampled > 0 ? total / sampled : queueWeight;
+    }
+
+    private static class Slot {
+        final BrokerLoad broker;
+        double load;
+
+        private Slot(BrokerLoad broker, double load) {
+            this.broker = broker;
+            this.load = load;
+        }
+    }
+}
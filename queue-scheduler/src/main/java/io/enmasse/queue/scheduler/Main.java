@@ -7,11 +7,13 @@ package io.enmasse.queue.scheduler;
 
 import io.enmasse.amqp.Artemis;
 import io.enmasse.amqp.ExternalSaslAuthenticator;
-import io.fabric8.kubernetes.client.DefaultKubernetesClient;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.openshift.client.DefaultOpenShiftClient;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 
+import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 public class Main {
@@ -21,29 +23,52 @@ public class Main {
         int listenPort = Integer.parseInt(getEnvOrThrow("LISTEN_PORT"));
         String requestTimeoutStr = System.getenv("DEFAULT_BROKER_REQUEST_TIMEOUT");
         Long requestTimeout = requestTimeoutStr != null ? Long.parseLong(requestTimeoutStr) : null;
+        String reconcileIntervalStr = System.getenv("BROKER_INVENTORY_RECONCILE_INTERVAL");
+        String placementStrategy = System.getenv().getOrDefault("PLACEMENT_STRATEGY", "queue-count");
+        String loadSampleIntervalStr = System.getenv("LOAD_SAMPLE_INTERVAL");
+        boolean rebalancing = Boolean.parseBoolean(System.getenv("QUEUE_REBALANCING"));
+        Duration resyncInterval = Optional.ofNullable(System.getenv("RESYNC_INTERVAL"))
+                .map(i -> Duration.ofSeconds(Long.parseLong(i)))
+                .orElse(Duration.ofMinutes(5));
+
+        SchedulerState schedulerState = new SchedulerState();
+        if ("load-aware".equals(placementStrategy)) {
+            schedulerState.setPlacementStrategy(new LoadAwarePlacement());
+        } else if (!"queue-count".equals(placementStrategy)) {
+            throw new IllegalArgumentException("Unknown placement strategy " + placementStrategy);
+        }
 
         QueueScheduler scheduler = new QueueScheduler(
                 connection -> {
                     Future<Broker> broker = Future.future();
-                    Future<Artemis> artemis = Artemis.createFromConnection(vertx, connection);
-                    artemis.setHandler(result -> {
-                        if (result.succeeded()) {
-                            Artemis a = result.result();
+                    Artemis.createFromConnection(vertx, connection).whenComplete((artemis, error) -> {
+                        if (error == null) {
                             if (requestTimeout != null) {
-                                a.setRequestTimeout(requestTimeout, TimeUnit.SECONDS);
+                                artemis.setRequestTimeout(requestTimeout, TimeUnit.SECONDS);
                             }
-                            broker.complete(new ArtemisAdapter(a));
+                            broker.complete(new ArtemisAdapter(artemis));
                         } else {
-                            broker.fail(result.cause());
+                            broker.fail(error);
                         }
                     });
                     return broker;
                 },
-                new SchedulerState(),
+                schedulerState,
                 listenPort,
                 certDir);
 
 
+        if (reconcileIntervalStr != null) {
+            scheduler.setInventoryReconcileInterval(Duration.ofSeconds(Long.parseLong(reconcileIntervalStr)));
+        }
+
+        if (loadSampleIntervalStr != null) {
+            scheduler.setLoadSampleInterval(Duration.ofSeconds(Long.parseLong(loadSampleIntervalStr)));
+        } else if ("load-aware".equals(placementStrategy)) {
+            scheduler.setLoadSampleInterval(Duration.ofSeconds(30));
+        }
+        scheduler.setRebalancing(rebalancing);
+
         if (certDir != null) {
             scheduler.setProtonSaslAuthenticatorFactory(ExternalSaslAuthenticator::new);
         } else {
@@ -51,8 +76,8 @@ public class Main {
         }
 
 
-        KubernetesClient kubernetesClient = new DefaultKubernetesClient();
-        ConfigServiceClient configServiceClient = new ConfigServiceClient(scheduler, kubernetesClient, getEnvOrThrow("NAMESPACE"));
+        NamespacedOpenShiftClient openShiftClient = new DefaultOpenShiftClient();
+        ConfigServiceClient configServiceClient = new ConfigServiceClient(scheduler, openShiftClient, getEnvOrThrow("NAMESPACE"), resyncInterval);
 
         vertx.deployVerticle(configServiceClient);
         vertx.deployVerticle(scheduler);
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides on which broker of a group queues are placed.
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Place new queues on the brokers. The queues are not present on any of the brokers.
+     *
+     * @return the queues to create by broker id
+     */
+    Map<String, List<String>> place(List<BrokerLoad> brokers, List<String> queueNames);
+
+    /**
+     * Decide which queues to move off overloaded brokers. The default is to never move queues.
+     *
+     * @return the broker id to move each queue to
+     */
+    default Map<String, String> rebalance(List<BrokerLoad> brokers) {
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import java.util.*;
+
+/**
+ * Places each queue on the broker with the fewest queues.
+ */
+public class QueueCountPlacement implements PlacementStrategy {
+
+    @Override
+    public Map<String, List<String>> place(List<BrokerLoad> brokers, List<String> queueNames) {
+        Map<String, List<String>> placement = new LinkedHashMap<>();
+        if (brokers.isEmpty()) {
+            return placement;
+        }
+
+        PriorityQueue<Slot> brokerByNumQueues = new PriorityQueue<>(brokers.size(), Comparator.comparingInt((Slot slot) -> slot.numQueues));
+        for (BrokerLoad broker : brokers) {
+            brokerByNumQueues.add(new Slot(broker.getBrokerId(), broker.getNumQueues()));
+        }
+
+        for (String queueName : queueNames) {
+            Slot slot = brokerByNumQueues.poll();
+            placement.computeIfAbsent(slot.brokerId, b -> new ArrayList<>()).add(queueName);
+            slot.numQueues++;
+            brokerByNumQueues.offer(slot);
+        }
+        return placement;
+    }
+
+    private static class Slot {
+        final String brokerId;
+        int numQueues;
+
+        private Slot(String brokerId, int numQueues) {
+            this.brokerId = brokerId;
+            this.numQueues = numQueues;
+        }
+    }
+}
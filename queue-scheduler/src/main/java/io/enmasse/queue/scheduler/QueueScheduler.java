@@ -20,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -35,6 +36,11 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
     private final BrokerFactory brokerFactory;
     private ProtonSaslAuthenticatorFactory saslAuthenticatorFactory;
     private volatile ProtonServer server;
+    private Duration inventoryReconcileInterval = Duration.ofMinutes(5);
+    private Duration loadSampleInterval;
+    private boolean rebalancing = false;
+    private long reconcileTimer;
+    private Long sampleTimer;
 
     private final int port;
     private final String certDir;
@@ -51,6 +57,24 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
         this.saslAuthenticatorFactory = saslAuthenticatorFactory;
     }
 
+    public void setInventoryReconcileInterval(Duration inventoryReconcileInterval) {
+        this.inventoryReconcileInterval = inventoryReconcileInterval;
+    }
+
+    /**
+     * Sample the load of the queues periodically for the placement strategy. Not sampled by default.
+     */
+    public void setLoadSampleInterval(Duration loadSampleInterval) {
+        this.loadSampleInterval = loadSampleInterval;
+    }
+
+    /**
+     * Move queues off overloaded brokers after each load sample.
+     */
+    public void setRebalancing(boolean rebalancing) {
+        this.rebalancing = rebalancing;
+    }
+
     private static String getGroupId(ProtonConnection connection) {
         Map<Symbol, Object> connectionProperties = connection.getRemoteProperties();
         if (connectionProperties.containsKey(groupSymbol)) {
@@ -101,6 +125,20 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
                 log.error("Error starting queue scheduler", event.cause());
             }
         });
+
+        reconcileTimer = vertx.setPeriodic(inventoryReconcileInterval.toMillis(), id ->
+                executeBlocking(schedulerState::reconcileInventory, "Error reconciling broker inventory"));
+
+        if (loadSampleInterval != null) {
+            BrokerLoadSampler sampler = new BrokerLoadSampler(schedulerState);
+            // Sampling does not hold the state lock, so it does not need to wait for other tasks
+            sampleTimer = vertx.setPeriodic(loadSampleInterval.toMillis(), id -> executeBlocking(() -> {
+                sampler.sample();
+                if (rebalancing) {
+                    schedulerState.rebalance();
+                }
+            }, false, "Error sampling broker load"));
+        }
     }
 
     private void connectionOpened(ProtonConnection connection) {
@@ -118,6 +156,10 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
     @Override
     public void stop() {
         log.info("Stopping server!");
+        vertx.cancelTimer(reconcileTimer);
+        if (sampleTimer != null) {
+            vertx.cancelTimer(sampleTimer);
+        }
         if (server != null) {
             server.close();
         }
@@ -129,6 +171,10 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
     }
 
     private void executeBlocking(Task task, String errorMessage) {
+        executeBlocking(task, true, errorMessage);
+    }
+
+    private void executeBlocking(Task task, boolean ordered, String errorMessage) {
         vertx.executeBlocking(promise -> {
             try {
                 task.run();
@@ -136,7 +182,7 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
             } catch (Exception e) {
                 promise.fail(e);
             }
-        }, true, result -> {
+        }, ordered, result -> {
             if (result.failed()) {
                 log.error(errorMessage, result.cause());
             }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+/**
+ * Load of a single queue as sampled from its broker.
+ */
+public class QueueStats {
+    private final long messageCount;
+    private final long messagesAdded;
+    private final double enqueueRate;
+
+    public QueueStats(long messageCount, long messagesAdded) {
+        this(messageCount, messagesAdded, 0);
+    }
+
+    public QueueStats(long messageCount, long messagesAdded, double enqueueRate) {
+        this.messageCount = messageCount;
+        this.messagesAdded = messagesAdded;
+        this.enqueueRate = enqueueRate;
+    }
+
+    /**
+     * Number of messages currently stored in the queue.
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Number of messages added to the queue since it was created, as reported by the broker.
+     */
+    public long getMessagesAdded() {
+        return messagesAdded;
+    }
+
+    /**
+     * Messages added per second since the previous sample, 0 if unknown.
+     */
+    public double getEnqueueRate() {
+        return enqueueRate;
+    }
+
+    /**
+     * Returns these stats with the enqueue rate computed from a previous sample of the same queue.
+     */
+    public QueueStats withRateSince(QueueStats previous, double elapsedSeconds) {
+        if (previous == null || elapsedSeconds <= 0 || messagesAdded < previous.messagesAdded) {
+            return this;
+        }
+        return new QueueStats(messageCount, messagesAdded, (messagesAdded - previous.messagesAdded) / elapsedSeconds);
+    }
+
+    @Override
+    public String toString() {
+        return "{messageCount=" + messageCount + ", messagesAdded=" + messagesAdded + ", enqueueRate=" + enqueueRate + "}";
+    }
+}
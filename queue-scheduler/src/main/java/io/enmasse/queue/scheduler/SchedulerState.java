@@ -10,18 +10,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Contains the mapping from queue to broker and ensures there is only one modifying the state at a time.
+ *
+ * The queues of each broker are kept in a local inventory, updated from the queues created and deleted by the
+ * scheduler, so that scheduling decisions don't need to query the brokers. The inventory is corrected from the
+ * brokers by {@link #reconcileInventory()}.
+ *
+ * Where new queues are placed is decided by the {@link PlacementStrategy}, using the latest queue stats reported
+ * through {@link #updateQueueStats(String, Map)}. The same strategy decides which queues {@link #rebalance()} moves.
  */
 public class SchedulerState implements StateListener {
     private static final Logger log = LoggerFactory.getLogger(SchedulerState.class.getName());
-    private final Map<String, Map<String, Broker>> brokerGroupMap = new LinkedHashMap<>();
+    private final Map<String, Map<String, BrokerInventory>> brokerGroupMap = new LinkedHashMap<>();
     private final Map<String, Set<Address>> addressMap = new LinkedHashMap<>();
+    private final Map<String, Map<String, QueueStats>> queueStats = new ConcurrentHashMap<>();
     private final StateListener chainedListener;
+    private final Object rebalanceLock = new Object();
+    private PlacementStrategy placementStrategy = new QueueCountPlacement();
 
     public SchedulerState(StateListener chainedListener) {
         this.chainedListener = chainedListener;
@@ -31,6 +41,30 @@ public class SchedulerState implements StateListener {
         this(null);
     }
 
+    public synchronized void setPlacementStrategy(PlacementStrategy placementStrategy) {
+        this.placementStrategy = placementStrategy;
+    }
+
+    /**
+     * Replace the latest sampled stats of the queues of a broker.
+     */
+    public void updateQueueStats(String brokerId, Map<String, QueueStats> stats) {
+        queueStats.put(brokerId, stats);
+    }
+
+    /**
+     * Returns a copy of the queues of each broker.
+     */
+    synchronized Map<BrokerInventory, Set<String>> snapshotInventory() {
+        Map<BrokerInventory, Set<String>> snapshot = new LinkedHashMap<>();
+        for (Map<String, BrokerInventory> brokerMap : brokerGroupMap.values()) {
+            for (BrokerInventory inventory : brokerMap.values()) {
+                snapshot.put(inventory, new HashSet<>(inventory.queueNames));
+            }
+        }
+        return snapshot;
+    }
+
     public synchronized void addressesChanged(Map<String, Set<Address>> updatedMap) throws TimeoutException {
         Set<String> removedGroups = new HashSet<>(addressMap.keySet());
         removedGroups.removeAll(updatedMap.keySet());
@@ -66,40 +100,39 @@ public class SchedulerState implements StateListener {
     }
 
 
-    public synchronized void brokerAdded(String groupId, String brokerId, Broker broker) throws TimeoutException {
-        if (!brokerGroupMap.containsKey(groupId)) {
-            brokerGroupMap.put(groupId, new LinkedHashMap<>());
-        }
-
-        if (brokerGroupMap.get(groupId).containsKey(brokerId)) {
-            throw new IllegalArgumentException("Broker with id " + brokerId + " already exists in group " + groupId);
-        }
-        brokerGroupMap.get(groupId).put(brokerId, broker);
+    public void brokerAdded(String groupId, String brokerId, Broker broker) throws TimeoutException {
+        // The initial inventory is retrieved without holding the lock
+        Set<String> queueNames = broker.getQueueNames();
 
-        Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
-        log.info("Broker " + brokerId + " in group " + groupId + " was added, distributing addresses: " + addresses);
-        if (addresses.size() == 1) {
-            deployQueue(broker, addresses.iterator().next().getAddress());
-        } else {
-            distributeAddressesByNumQueues(groupId, addresses);
-        }
-        if (chainedListener != null) {
-            chainedListener.brokerAdded(groupId, brokerId, broker);
-        }
-    }
+        synchronized (this) {
+            if (!brokerGroupMap.containsKey(groupId)) {
+                brokerGroupMap.put(groupId, new LinkedHashMap<>());
+            }
 
-    private static void deployQueue(Broker broker, String address) throws TimeoutException {
-        broker.createQueue(address);
-    }
+            if (brokerGroupMap.get(groupId).containsKey(brokerId)) {
+                throw new IllegalArgumentException("Broker with id " + brokerId + " already exists in group " + groupId);
+            }
+            BrokerInventory inventory = new BrokerInventory(brokerId, broker, queueNames);
+            brokerGroupMap.get(groupId).put(brokerId, inventory);
 
-    private static void deleteQueue(Broker broker, String address) throws TimeoutException {
-        broker.deleteQueue(address);
+            Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
+            log.info("Broker " + brokerId + " in group " + groupId + " was added, distributing addresses: " + addresses);
+            if (addresses.size() == 1) {
+                distributeAddressesAll(groupId, addresses);
+            } else {
+                distributeAddressesByNumQueues(groupId, addresses);
+            }
+            if (chainedListener != null) {
+                chainedListener.brokerAdded(groupId, brokerId, broker);
+            }
+        }
     }
 
     public synchronized void brokerRemoved(String groupId, String brokerId) throws TimeoutException {
-        Map<String, Broker> brokerMap = brokerGroupMap.get(groupId);
+        Map<String, BrokerInventory> brokerMap = brokerGroupMap.get(groupId);
         if (brokerMap != null && brokerMap.containsKey(brokerId)) {
             brokerMap.remove(brokerId);
+            queueStats.remove(brokerId);
             if (brokerMap.isEmpty()) {
                 brokerGroupMap.remove(groupId);
             }
@@ -117,6 +150,66 @@ public class SchedulerState implements StateListener {
         }
     }
 
+    /**
+     * Corrects the inventory from the queues actually present on the brokers, and recreates queues that are missing.
+     * The brokers are queried without holding the lock. If the scheduler modified the queues of a broker in the
+     * meantime, that broker is reconciled on the next run instead.
+     */
+    public void reconcileInventory() {
+        Map<BrokerInventory, String> groupByBroker = new LinkedHashMap<>();
+        Map<BrokerInventory, Long> versions = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, Map<String, BrokerInventory>> group : brokerGroupMap.entrySet()) {
+                for (BrokerInventory inventory : group.getValue().values()) {
+                    groupByBroker.put(inventory, group.getKey());
+                    versions.put(inventory, inventory.version);
+                }
+            }
+        }
+
+        Set<String> driftedGroups = new LinkedHashSet<>();
+        for (Map.Entry<BrokerInventory, String> entry : groupByBroker.entrySet()) {
+            BrokerInventory inventory = entry.getKey();
+            String groupId = entry.getValue();
+            Set<String> queueNames;
+            try {
+                queueNames = inventory.broker.getQueueNames();
+            } catch (Exception e) {
+                log.warn("Error retrieving queues of broker {} in group {}", inventory.brokerId, groupId, e);
+                continue;
+            }
+
+            synchronized (this) {
+                Map<String, BrokerInventory> brokerMap = brokerGroupMap.get(groupId);
+                boolean current = brokerMap != null && brokerMap.get(inventory.brokerId) == inventory;
+                if (current && inventory.version == versions.get(inventory) && !inventory.queueNames.equals(queueNames)) {
+                    log.info("Queues of broker {} in group {} differ from the inventory, updating", inventory.brokerId, groupId);
+                    inventory.reset(queueNames);
+                    driftedGroups.add(groupId);
+                }
+            }
+        }
+
+        for (String groupId : driftedGroups) {
+            synchronized (this) {
+                try {
+                    ensureAddresses(groupId);
+                } catch (TimeoutException e) {
+                    log.warn("Error recreating queues for {}", groupId, e);
+                }
+            }
+        }
+    }
+
+    private void ensureAddresses(String groupId) throws TimeoutException {
+        Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
+        if (addresses.size() > 1) {
+            distributeAddressesByNumQueues(groupId, addresses);
+        } else if (addresses.size() == 1) {
+            distributeAddressesAll(groupId, addresses);
+        }
+    }
+
     private void addAddresses(String groupId, Set<Address> addresses, Set<Address> added) throws TimeoutException {
 
         // TODO: Fetch this information from somewhere, but assume > 1 address means shared flavor
@@ -128,69 +221,299 @@ public class SchedulerState implements StateListener {
     }
 
     private void distributeAddressesByNumQueues(String groupId, Set<Address> addresses) throws TimeoutException {
-        Map<String, Broker> brokerMap = brokerGroupMap.get(groupId);
+        Map<String, BrokerInventory> brokerMap = brokerGroupMap.get(groupId);
         if (brokerMap == null) {
             return;
         }
 
+        // Queues that already exist on one of the brokers are not placed again, so that changes in the broker
+        // list don't affect where queues are scheduled
+        List<String> queueNames = new ArrayList<>();
+        for (String queueName : addresses.stream().map(Address::getAddress).collect(Collectors.toCollection(LinkedHashSet::new))) {
+            if (!isDeployed(brokerMap.values(), queueName)) {
+                queueNames.add(queueName);
+            }
+        }
+        if (queueNames.isEmpty()) {
+            return;
+        }
 
-        Map<String, Address> addressesToDeploy = addresses.stream().collect(Collectors.toMap(Address::getAddress, Function.identity()));
+        Map<String, List<String>> placement = placementStrategy.place(getBrokerLoads(brokerMap), queueNames);
 
-        // Remove addresses that are already distributed. This is to avoid changes in broker list to affect where queues are scheduler
+        List<String> failed = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : placement.entrySet()) {
+            failed.addAll(createQueues(brokerMap.get(entry.getKey()), entry.getValue()));
+        }
+        throwIfFailed(groupId, "create", failed);
+    }
 
-        List<BrokerInfo> brokerInfos = new ArrayList<>();
-        for (Map.Entry<String, Broker> entry : brokerMap.entrySet()) {
-            BrokerInfo brokerInfo = new BrokerInfo(entry.getKey(), entry.getValue(), entry.getValue().getQueueNames());
-            addressesToDeploy.keySet().removeAll(brokerInfo.queueNames);
-            brokerInfos.add(brokerInfo);
+    /**
+     * Move queues off overloaded brokers in groups of colocated queues, as decided by the placement strategy. Only
+     * empty queues are moved, see {@link #migrateQueue(Migration, Map)}.
+     *
+     * The moves are planned while holding the lock, but the brokers are only modified without it, so that updates
+     * of the addresses and brokers don't wait for the migrations. A move is only committed to the inventory if the
+     * brokers involved were not changed in the meantime, otherwise it is rolled back.
+     */
+    public void rebalance() {
+        synchronized (rebalanceLock) {
+            Map<BrokerInventory, Long> versions = new HashMap<>();
+            for (Migration migration : planMigrations(versions)) {
+                migrateQueue(migration, versions);
+            }
         }
+    }
 
-        PriorityQueue<BrokerInfo> brokerByNumQueues = new PriorityQueue<>(brokerInfos.size(), (a, b) -> {
-            if (a.queueNames.size() < b.queueNames.size()) {
-                return -1;
-            } else if (a.queueNames.size() > b.queueNames.size()) {
-                return 1;
-            } else {
-                return 0;
+    private synchronized List<Migration> planMigrations(Map<BrokerInventory, Long> versions) {
+        List<Migration> planned = new ArrayList<>();
+        for (Map.Entry<String, Map<String, BrokerInventory>> group : brokerGroupMap.entrySet()) {
+            String groupId = group.getKey();
+            Map<String, BrokerInventory> brokerMap = group.getValue();
+            if (addressMap.getOrDefault(groupId, Collections.emptySet()).size() <= 1) {
+                continue;
+            }
+            for (BrokerInventory inventory : brokerMap.values()) {
+                versions.put(inventory, inventory.version);
             }
-        });
 
-        brokerByNumQueues.addAll(brokerInfos);
+            Map<String, String> migrations = placementStrategy.rebalance(getBrokerLoads(brokerMap));
+            for (Map.Entry<String, String> migration : migrations.entrySet()) {
+                String queueName = migration.getKey();
+                BrokerInventory target = brokerMap.get(migration.getValue());
+                BrokerInventory source = null;
+                for (BrokerInventory inventory : brokerMap.values()) {
+                    if (inventory.queueNames.contains(queueName)) {
+                        source = inventory;
+                    }
+                }
+                if (source != null && target != null && source != target) {
+                    planned.add(new Migration(groupId, queueName, source, target));
+                }
+            }
+        }
+        return planned;
+    }
 
-        for (Address address : addressesToDeploy.values()) {
-            BrokerInfo brokerInfo = brokerByNumQueues.poll();
-            Broker broker = brokerInfo.broker;
-            deployQueue(broker, address.getAddress());
-            brokerInfo.queueNames.add(address.getAddress());
-            brokerByNumQueues.offer(brokerInfo);
+    /**
+     * Moves an empty queue to another broker. Messages are routed to the old queue until it is detached, so it is
+     * only deleted if it is still empty once detached; otherwise it is attached again and the queue is kept there.
+     * The queue is unavailable between detaching the old queue and creating the new one.
+     */
+    private void migrateQueue(Migration migration, Map<BrokerInventory, Long> versions) {
+        String queueName = migration.queueName;
+        BrokerInventory source = migration.source;
+        BrokerInventory target = migration.target;
+        if (!isEmpty(source, queueName)) {
+            log.info("Queue {} on broker {} is not empty, keeping it there", queueName, source.brokerId);
+            return;
+        }
+
+        log.info("Moving queue {} in group {} from broker {} to {}", queueName, migration.groupId, source.brokerId, target.brokerId);
+        try {
+            source.broker.detachQueue(queueName);
+        } catch (Exception e) {
+            log.warn("Error detaching queue {} on broker {}", queueName, source.brokerId, e);
+            return;
+        }
+
+        if (!isEmpty(source, queueName)) {
+            log.info("Queue {} on broker {} is not empty anymore, keeping it there", queueName, source.brokerId);
+            attachQueue(source, queueName);
+            return;
+        }
+
+        Map<String, Throwable> failures = target.broker.createQueues(Collections.singletonList(queueName));
+        if (!checkFailures(target.brokerId, "creating", failures).isEmpty()) {
+            attachQueue(source, queueName);
+            return;
+        }
+
+        if (!commitMigration(migration, versions)) {
+            log.info("Brokers of group {} changed while moving queue {}, keeping it on broker {}", migration.groupId, queueName, source.brokerId);
+            checkFailures(target.brokerId, "deleting", target.broker.deleteQueues(Collections.singletonList(queueName)));
+            attachQueue(source, queueName);
+            return;
+        }
+
+        try {
+            source.broker.deleteDetachedQueue(queueName);
+        } catch (Exception e) {
+            log.warn("Error deleting queue {} on broker {}", queueName, source.brokerId, e);
         }
     }
 
-    private static class BrokerInfo {
-        final String brokerId;
-        final Broker broker;
-        final Set<String> queueNames;
+    /**
+     * Moves the queue in the inventory, unless the brokers were changed by others since the migration was planned.
+     */
+    private synchronized boolean commitMigration(Migration migration, Map<BrokerInventory, Long> versions) {
+        BrokerInventory source = migration.source;
+        BrokerInventory target = migration.target;
+        Map<String, BrokerInventory> brokerMap = brokerGroupMap.get(migration.groupId);
+        boolean current = brokerMap != null
+                && brokerMap.get(source.brokerId) == source
+                && brokerMap.get(target.brokerId) == target
+                && source.version == versions.get(source)
+                && target.version == versions.get(target);
+        if (current) {
+            source.remove(migration.queueName);
+            target.add(migration.queueName);
+            versions.put(source, source.version);
+            versions.put(target, target.version);
+        }
+        return current;
+    }
 
-        private BrokerInfo(String brokerId, Broker broker, Set<String> queueNames) {
-            this.brokerId = brokerId;
-            this.broker = broker;
-            this.queueNames = new HashSet<>(queueNames);
+    private static boolean isEmpty(BrokerInventory inventory, String queueName) {
+        try {
+            QueueStats stats = inventory.broker.getQueueStats(Collections.singletonList(queueName)).get(queueName);
+            return stats != null && stats.getMessageCount() == 0;
+        } catch (Exception e) {
+            log.warn("Error checking queue {} on broker {}", queueName, inventory.brokerId, e);
+            return false;
+        }
+    }
+
+    private static void attachQueue(BrokerInventory inventory, String queueName) {
+        try {
+            inventory.broker.attachQueue(queueName);
+        } catch (Exception e) {
+            log.warn("Error attaching queue {} on broker {}", queueName, inventory.brokerId, e);
+        }
+    }
+
+    private List<BrokerLoad> getBrokerLoads(Map<String, BrokerInventory> brokerMap) {
+        List<BrokerLoad> loads = new ArrayList<>(brokerMap.size());
+        for (BrokerInventory inventory : brokerMap.values()) {
+            loads.add(new BrokerLoad(inventory.brokerId, inventory.queueNames, queueStats.getOrDefault(inventory.brokerId, Collections.emptyMap())));
+        }
+        return loads;
+    }
+
+    private static boolean isDeployed(Collection<BrokerInventory> brokers, String queueName) {
+        for (BrokerInventory inventory : brokers) {
+            if (inventory.queueNames.contains(queueName)) {
+                return true;
+            }
         }
+        return false;
     }
 
+    /**
+     * Creates the queues on all brokers of the group. The queues a broker already has are skipped, so that retrying
+     * after a partial failure only creates the queues that failed.
+     */
     private void distributeAddressesAll(String groupId, Set<Address> addresses) throws TimeoutException {
-        for (Address address : addresses) {
-            for (Broker  broker : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).values()) {
-                deployQueue(broker, address.getAddress());
+        List<String> failed = new ArrayList<>();
+        for (BrokerInventory inventory : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).values()) {
+            List<String> queueNames = addresses.stream()
+                    .map(Address::getAddress)
+                    .filter(queueName -> !inventory.queueNames.contains(queueName))
+                    .collect(Collectors.toList());
+            if (!queueNames.isEmpty()) {
+                failed.addAll(createQueues(inventory, queueNames));
             }
         }
+        throwIfFailed(groupId, "create", failed);
     }
 
+    /**
+     * Deletes the queues from the brokers of the group that have them, so that retrying after a partial failure only
+     * deletes the queues that failed.
+     */
     private void deleteAddresses(String groupId, Set<Address> removed) throws TimeoutException {
-        for (Broker broker : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).values()) {
-            for (Address address : removed) {
-                deleteQueue(broker, address.getAddress());
+        List<String> failed = new ArrayList<>();
+        for (BrokerInventory inventory : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).values()) {
+            List<String> queueNames = removed.stream()
+                    .map(Address::getAddress)
+                    .filter(inventory.queueNames::contains)
+                    .collect(Collectors.toList());
+            if (queueNames.isEmpty()) {
+                continue;
             }
+            Map<String, Throwable> failures = inventory.broker.deleteQueues(queueNames);
+            for (String queueName : queueNames) {
+                if (!failures.containsKey(queueName)) {
+                    inventory.remove(queueName);
+                }
+            }
+            failed.addAll(checkFailures(inventory.brokerId, "deleting", failures));
+        }
+        throwIfFailed(groupId, "delete", failed);
+    }
+
+    private static Set<String> createQueues(BrokerInventory inventory, List<String> queueNames) {
+        Map<String, Throwable> failures = inventory.broker.createQueues(queueNames);
+        for (String queueName : queueNames) {
+            if (!failures.containsKey(queueName)) {
+                inventory.add(queueName);
+            }
+        }
+        return checkFailures(inventory.brokerId, "creating", failures);
+    }
+
+    private static Set<String> checkFailures(String brokerId, String operation, Map<String, Throwable> failures) {
+        for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+            log.warn("Error {} queue {} on broker {}", operation, failure.getKey(), brokerId, failure.getValue());
+        }
+        return failures.keySet();
+    }
+
+    /**
+     * Fails the update so that it is retried, as the state is only updated when all operations succeed.
+     */
+    private static void throwIfFailed(String groupId, String operation, Collection<String> failed) throws TimeoutException {
+        if (!failed.isEmpty()) {
+            throw new TimeoutException("Failed to " + operation + " queues " + failed + " for " + groupId);
+        }
+    }
+
+    /**
+     * A queue to move from one broker to another.
+     */
+    private static class Migration {
+        final String groupId;
+        final String queueName;
+        final BrokerInventory source;
+        final BrokerInventory target;
+
+        Migration(String groupId, String queueName, BrokerInventory source, BrokerInventory target) {
+            this.groupId = groupId;
+            this.queueName = queueName;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    /**
+     * The queues known to be present on a broker.
+     */
+    static class BrokerInventory {
+        final String brokerId;
+        final Broker broker;
+        final Set<String> queueNames;
+        // Incremented on every change made by the scheduler
+        long version = 0;
+
+        BrokerInventory(String brokerId, Broker broker, Set<String> queueNames) {
+            this.brokerId = brokerId;
+            this.broker = broker;
+            this.queueNames = new HashSet<>(queueNames);
+        }
+
+        void add(String queueName) {
+            queueNames.add(queueName);
+            version++;
+        }
+
+        void remove(String queueName) {
+            queueNames.remove(queueName);
+            version++;
+        }
+
+        void reset(Set<String> actualQueueNames) {
+            queueNames.clear();
+            queueNames.addAll(actualQueueNames);
+            version++;
         }
     }
 }
@@ -11,12 +11,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import io.enmasse.address.model.Address;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.internal.util.collections.Sets;
@@ -28,15 +29,15 @@ public class ConfigServiceClientTest {
     @Before
     public void setup() throws Exception {
         listener = new TestListener();
-        KubernetesClient kubeClient = mock(KubernetesClient.class);
+        NamespacedOpenShiftClient openShiftClient = mock(NamespacedOpenShiftClient.class);
 
-        client = new ConfigServiceClient(listener, kubeClient, "default");
+        client = new ConfigServiceClient(listener, openShiftClient, "default", Duration.ofMinutes(5));
     }
 
     @Test
     public void testClientUpdatesListener() throws Exception {
         assertNull(listener.addressMap);
-        client.resourcesUpdated(Sets.newSet(
+        client.onUpdate(Sets.newSet(
                 createAddress("queue1", "queue", "pooled-inmemory"),
                 createAddress("queue2", "queue", "pooled-inmemory"),
                 createAddress("queue3", "queue", "inmemory"),
@@ -54,6 +55,9 @@ public class ConfigServiceClientTest {
     private Address createAddress(String name, String type, String planName) {
         return new Address.Builder()
                 .setName(name)
+                .setAddress(name)
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
                 .setType(type)
                 .setPlan(planName)
                 .build();
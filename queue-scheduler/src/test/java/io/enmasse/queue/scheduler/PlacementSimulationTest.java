@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import io.enmasse.address.model.Address;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays a synthetic load through the scheduler state to compare placement strategies. Queues are created and
+ * deleted in batches, with enqueue rates following a long tailed distribution, and the load is sampled after every
+ * batch. The result is the imbalance of the brokers: the enqueue rate of the most loaded broker relative to the
+ * average, averaged over runs with different random seeds.
+ */
+public class PlacementSimulationTest {
+    private static final Logger log = LoggerFactory.getLogger(PlacementSimulationTest.class);
+    private static final String GROUP = "pooled-inmemory";
+    private static final int BROKERS = 10;
+    private static final int BATCHES = 20;
+    private static final int QUEUES_PER_BATCH = 100;
+    private static final double DELETED_PER_BATCH = 0.2;
+    private static final int RUNS = 10;
+
+    @Test
+    public void testLoadAwarePlacement() throws Exception {
+        double queueCount = 0;
+        double loadAware = 0;
+        double rebalanced = 0;
+        for (int seed = 1; seed <= RUNS; seed++) {
+            queueCount += simulate(new QueueCountPlacement(), false, seed) / RUNS;
+            loadAware += simulate(new LoadAwarePlacement(), false, seed) / RUNS;
+            rebalanced += simulate(new LoadAwarePlacement(), true, seed) / RUNS;
+        }
+
+        log.info("Broker imbalance with queue count placement: {}, load aware placement: {}, load aware placement and rebalancing: {}",
+                queueCount, loadAware, rebalanced);
+
+        assertTrue("Load aware imbalance " + loadAware + " not below queue count imbalance " + queueCount, loadAware < queueCount);
+        assertTrue("Rebalanced imbalance " + rebalanced + " above load aware imbalance " + loadAware, rebalanced <= loadAware);
+    }
+
+    private static double simulate(PlacementStrategy strategy, boolean rebalance, long seed) throws Exception {
+        Random random = new Random(seed);
+        Map<String, Double> rates = new HashMap<>();
+        SchedulerState state = new SchedulerState();
+        state.setPlacementStrategy(strategy);
+        List<SimulatedBroker> brokers = new ArrayList<>();
+        for (int i = 0; i < BROKERS; i++) {
+            SimulatedBroker broker = new SimulatedBroker("broker" + i, rates);
+            brokers.add(broker);
+            state.brokerAdded(GROUP, broker.id, broker);
+        }
+
+        Set<Address> addresses = new HashSet<>();
+        int nextQueue = 0;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            List<Address> existing = new ArrayList<>(addresses);
+            Collections.shuffle(existing, random);
+            for (int i = 0; i < existing.size() * DELETED_PER_BATCH; i++) {
+                addresses.remove(existing.get(i));
+            }
+            for (int i = 0; i < QUEUES_PER_BATCH; i++) {
+                String queueName = "queue" + nextQueue++;
+                // A few hot queues and many almost idle ones
+                rates.put(queueName, 1000.0 / (1 + random.nextInt(QUEUES_PER_BATCH)));
+                addresses.add(createQueue(queueName));
+            }
+            state.addressesChanged(Collections.singletonMap(GROUP, new HashSet<>(addresses)));
+
+            for (SimulatedBroker broker : brokers) {
+                state.updateQueueStats(broker.id, broker.getQueueStats(broker.queueNames));
+            }
+            if (rebalance) {
+                state.rebalance();
+            }
+        }
+
+        double max = 0;
+        double total = 0;
+        for (SimulatedBroker broker : brokers) {
+            double load = broker.getLoad();
+            max = Math.max(max, load);
+            total += load;
+        }
+        return max / (total / brokers.size());
+    }
+
+    private static Address createQueue(String name) {
+        return new Address.Builder()
+                .setName(name)
+                .setAddress(name)
+                .setAddressSpace("myspace")
+                .setNamespace("mynamespace")
+                .setType("queue")
+                .setPlan("pooled-inmemory")
+                .build();
+    }
+
+    private static class SimulatedBroker implements Broker {
+        final String id;
+        final Map<String, Double> rates;
+        final Set<String> queueNames = new HashSet<>();
+
+        SimulatedBroker(String id, Map<String, Double> rates) {
+            this.id = id;
+            this.rates = rates;
+        }
+
+        double getLoad() {
+            return queueNames.stream().mapToDouble(rates::get).sum();
+        }
+
+        @Override
+        public Set<String> getQueueNames() {
+            return new HashSet<>(queueNames);
+        }
+
+        @Override
+        public void createQueue(String address) {
+            queueNames.add(address);
+        }
+
+        @Override
+        public void deleteQueue(String address) {
+            queueNames.remove(address);
+        }
+
+        @Override
+        public Map<String, QueueStats> getQueueStats(Collection<String> names) {
+            Map<String, QueueStats> stats = new HashMap<>();
+            for (String name : names) {
+                if (queueNames.contains(name)) {
+                    stats.put(name, new QueueStats(0, 0, rates.get(name)));
+                }
+            }
+            return stats;
+        }
+    }
+}
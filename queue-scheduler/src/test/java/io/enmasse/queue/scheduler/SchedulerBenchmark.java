@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.queue.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the placement decision of each strategy on the local broker inventory, placing new queues on brokers
+ * which already hold many sampled queues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    @Param({"50"})
+    private int brokers;
+
+    @Param({"10000"})
+    private int queuesPerBroker;
+
+    @Param({"1", "1000"})
+    private int newQueues;
+
+    @Param({"queue-count", "load-aware"})
+    private String strategy;
+
+    private PlacementStrategy placementStrategy;
+    private List<BrokerLoad> brokerLoads;
+    private List<String> toSchedule;
+
+    @Setup
+    public void setup() {
+        placementStrategy = "load-aware".equals(strategy) ? new LoadAwarePlacement() : new QueueCountPlacement();
+        Random random = new Random(1);
+        brokerLoads = new ArrayList<>(brokers);
+        for (int b = 0; b < brokers; b++) {
+            Set<String> queueNames = new HashSet<>();
+            Map<String, QueueStats> stats = new HashMap<>();
+            for (int q = 0; q < queuesPerBroker; q++) {
+                String queueName = "broker" + b + ".queue" + q;
+                queueNames.add(queueName);
+                stats.put(queueName, new QueueStats(random.nextInt(100), 0, random.nextDouble() * 100));
+            }
+            brokerLoads.add(new BrokerLoad("broker" + b, queueNames, stats));
+        }
+
+        toSchedule = new ArrayList<>(newQueues);
+        for (int i = 0; i < newQueues; i++) {
+            toSchedule.add("new.queue" + i);
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<String>> place() {
+        return placementStrategy.place(brokerLoads, toSchedule);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SchedulerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
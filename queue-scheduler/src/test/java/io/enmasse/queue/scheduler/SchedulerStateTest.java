@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import io.enmasse.address.model.Address;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SchedulerStateTest {
+    private static final String GROUP = "pooled-inmemory";
+
+    @Test
+    public void testSchedulingUsesInventory() throws Exception {
+        SchedulerState state = new SchedulerState();
+        InMemoryBroker br1 = new InMemoryBroker();
+        InMemoryBroker br2 = new InMemoryBroker();
+        state.brokerAdded(GROUP, "br1", br1);
+        state.brokerAdded(GROUP, "br2", br2);
+
+        state.addressesChanged(Collections.singletonMap(GROUP, createQueues(0, 10)));
+        state.addressesChanged(Collections.singletonMap(GROUP, createQueues(0, 20)));
+
+        assertThat(br1.queueNames.size(), is(10));
+        assertThat(br2.queueNames.size(), is(10));
+        // Only queried when added
+        assertThat(br1.numQueueNamesRequests, is(1));
+        assertThat(br2.numQueueNamesRequests, is(1));
+
+        state.addressesChanged(Collections.singletonMap(GROUP, createQueues(0, 15)));
+        assertThat(br1.queueNames.size() + br2.queueNames.size(), is(15));
+        assertThat(br1.numQueueNamesRequests, is(1));
+    }
+
+    @Test
+    public void testReconcileRecreatesMissingQueues() throws Exception {
+        SchedulerState state = new SchedulerState();
+        InMemoryBroker br1 = new InMemoryBroker();
+        state.brokerAdded(GROUP, "br1", br1);
+        state.addressesChanged(Collections.singletonMap(GROUP, createQueues(0, 5)));
+        assertThat(br1.queueNames.size(), is(5));
+
+        br1.queueNames.remove("queue3");
+        state.reconcileInventory();
+
+        assertThat(br1.queueNames.size(), is(5));
+        assertThat(br1.queueNames, hasItem("queue3"));
+    }
+
+    @Test
+    public void testRetryCreatesOnlyFailedQueues() throws Exception {
+        SchedulerState state = new SchedulerState();
+        InMemoryBroker br1 = new InMemoryBroker();
+        InMemoryBroker br2 = new InMemoryBroker();
+        state.brokerAdded("queue0", "br1", br1);
+        state.brokerAdded("queue0", "br2", br2);
+
+        br2.failCreate = true;
+        try {
+            state.addressesChanged(Collections.singletonMap("queue0", createQueues(0, 1)));
+            fail("Expected update to fail");
+        } catch (TimeoutException e) {
+            assertThat(br1.queueNames, hasItem("queue0"));
+        }
+
+        br2.failCreate = false;
+        state.addressesChanged(Collections.singletonMap("queue0", createQueues(0, 1)));
+
+        assertThat(br2.queueNames, hasItem("queue0"));
+        assertThat(br1.numCreates, is(1));
+        assertThat(br2.numCreates, is(1));
+    }
+
+    @Test
+    public void testRebalanceMovesEmptyQueue() throws Exception {
+        InMemoryBroker br1 = new InMemoryBroker();
+        InMemoryBroker br2 = new InMemoryBroker();
+        SchedulerState state = createRebalancingState(br1, br2);
+
+        state.rebalance();
+
+        assertThat(br1.queueNames, not(hasItem("queue0")));
+        assertThat(br2.queueNames, hasItem("queue0"));
+        assertThat(br1.operations, is(Arrays.asList("detach queue0", "delete detached queue0")));
+    }
+
+    @Test
+    public void testRebalanceKeepsQueueReceivingMessages() throws Exception {
+        InMemoryBroker br1 = new InMemoryBroker();
+        InMemoryBroker br2 = new InMemoryBroker();
+        SchedulerState state = createRebalancingState(br1, br2);
+
+        // A message is routed to the queue after it was found empty, but before it is detached
+        br1.beforeDetach = () -> br1.messageCounts.put("queue0", 1L);
+        state.rebalance();
+
+        assertThat(br1.queueNames, hasItem("queue0"));
+        assertThat(br2.queueNames, not(hasItem("queue0")));
+        assertThat(br1.operations, is(Arrays.asList("detach queue0", "attach queue0")));
+    }
+
+    @Test
+    public void testRebalanceKeepsNonEmptyQueue() throws Exception {
+        InMemoryBroker br1 = new InMemoryBroker();
+        InMemoryBroker br2 = new InMemoryBroker();
+        SchedulerState state = createRebalancingState(br1, br2);
+
+        br1.messageCounts.put("queue0", 1L);
+        state.rebalance();
+
+        assertThat(br1.queueNames, hasItem("queue0"));
+        assertThat(br2.queueNames, not(hasItem("queue0")));
+        assertThat(br1.operations.size(), is(0));
+    }
+
+    @Test
+    public void testRebalanceRolledBackOnConcurrentChange() throws Exception {
+        InMemoryBroker br1 = new InMemoryBroker();
+        InMemoryBroker br2 = new InMemoryBroker();
+        SchedulerState state = createRebalancingState(br1, br2);
+
+        // The target broker is removed by another thread while the queue is moved, which must not wait for the move
+        br1.beforeDetach = () -> {
+            CompletableFuture<Void> removed = CompletableFuture.runAsync(() -> {
+                try {
+                    state.brokerRemoved(GROUP, "br2");
+                } catch (TimeoutException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            removed.join();
+        };
+        state.rebalance();
+
+        assertThat(br1.queueNames, hasItem("queue0"));
+        assertThat(br2.queueNames, not(hasItem("queue0")));
+        assertThat(br1.operations, is(Arrays.asList("detach queue0", "attach queue0")));
+    }
+
+    private static SchedulerState createRebalancingState(InMemoryBroker br1, InMemoryBroker br2) throws Exception {
+        SchedulerState state = new SchedulerState();
+        state.brokerAdded(GROUP, "br1", br1);
+        state.addressesChanged(Collections.singletonMap(GROUP, createQueues(0, 2)));
+        state.brokerAdded(GROUP, "br2", br2);
+        state.setPlacementStrategy(new QueueCountPlacement() {
+            @Override
+            public Map<String, String> rebalance(List<BrokerLoad> brokers) {
+                return Collections.singletonMap("queue0", "br2");
+            }
+        });
+        return state;
+    }
+
+    private static Set<Address> createQueues(int from, int to) {
+        Set<Address> addresses = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            addresses.add(new Address.Builder()
+                    .setName("queue" + i)
+                    .setAddress("queue" + i)
+                    .setAddressSpace("myspace")
+                    .setNamespace("mynamespace")
+                    .setType("queue")
+                    .setPlan("pooled-inmemory")
+                    .build());
+        }
+        return addresses;
+    }
+
+    private static class InMemoryBroker implements Broker {
+        final Set<String> queueNames = new HashSet<>();
+        final Map<String, Long> messageCounts = new HashMap<>();
+        final List<String> operations = new ArrayList<>();
+        Runnable beforeDetach = () -> { };
+        boolean failCreate = false;
+        int numQueueNamesRequests = 0;
+        int numCreates = 0;
+
+        @Override
+        public Set<String> getQueueNames() {
+            numQueueNamesRequests++;
+            return new HashSet<>(queueNames);
+        }
+
+        @Override
+        public void createQueue(String address) throws TimeoutException {
+            if (failCreate) {
+                throw new TimeoutException("Timed out creating " + address);
+            }
+            numCreates++;
+            queueNames.add(address);
+        }
+
+        @Override
+        public void deleteQueue(String address) {
+            queueNames.remove(address);
+        }
+
+        @Override
+        public void detachQueue(String address) {
+            beforeDetach.run();
+            operations.add("detach " + address);
+        }
+
+        @Override
+        public void attachQueue(String address) {
+            operations.add("attach " + address);
+        }
+
+        @Override
+        public void deleteDetachedQueue(String address) {
+            operations.add("delete detached " + address);
+            deleteQueue(address);
+        }
+
+        @Override
+        public Map<String, QueueStats> getQueueStats(Collection<String> names) {
+            Map<String, QueueStats> stats = new HashMap<>();
+            for (String name : names) {
+                if (queueNames.contains(name)) {
+                    stats.put(name, new QueueStats(messageCounts.getOrDefault(name, 0L), 0));
+                }
+            }
+            return stats;
+        }
+    }
+}
@@ -7,8 +7,11 @@ package io.enmasse.osb;
 
 import io.enmasse.api.auth.AllowAllAuthInterceptor;
 import io.enmasse.api.auth.AuthApi;
+import io.enmasse.api.auth.AuthCacheMetrics;
 import io.enmasse.api.auth.AuthInterceptor;
+import io.enmasse.api.auth.CachingAuthApi;
 import io.enmasse.api.common.DefaultExceptionMapper;
+import io.enmasse.api.common.HttpMetricsService;
 import io.enmasse.api.common.JacksonConfig;
 import io.enmasse.api.common.SchemaProvider;
 import io.enmasse.k8s.api.AddressSpaceApi;
@@ -68,6 +71,7 @@ public class HTTPServer extends AbstractVerticle {
             log.info("Enabling RBAC for REST API");
             deployment.getProviderFactory().registerProviderInstance(new AuthInterceptor(authApi, path ->
                     path.startsWith(HttpHealthService.BASE_URI) ||
+                    path.startsWith(HttpMetricsService.BASE_URI) ||
                     path.startsWith(HttpConsoleService.BASE_URI)));
         } else {
             log.info("Disabling authentication and authorization for REST API");
@@ -75,6 +79,10 @@ public class HTTPServer extends AbstractVerticle {
         }
 
         deployment.getRegistry().addSingletonResource(new HttpHealthService());
+        if (authApi instanceof CachingAuthApi) {
+            AuthCacheMetrics authCacheMetrics = ((CachingAuthApi) authApi).getMetrics();
+            deployment.getRegistry().addSingletonResource(new HttpMetricsService(authCacheMetrics::toPrometheusText));
+        }
         deployment.getRegistry().addSingletonResource(new HttpConsoleService(authApi.getNamespace(), addressSpaceApi));
         deployment.getRegistry().addSingletonResource(new OSBCatalogService(addressSpaceApi, authApi, schemaProvider));
         deployment.getRegistry().addSingletonResource(new OSBProvisioningService(addressSpaceApi, authApi, schemaProvider, consolePrefix));
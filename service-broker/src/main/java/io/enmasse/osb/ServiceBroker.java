@@ -6,6 +6,7 @@
 package io.enmasse.osb;
 
 import io.enmasse.api.auth.AuthApi;
+import io.enmasse.api.auth.CachingAuthApi;
 import io.enmasse.api.auth.KubeAuthApi;
 import io.enmasse.api.common.CachingSchemaProvider;
 import io.enmasse.k8s.api.AddressSpaceApi;
@@ -55,7 +56,7 @@ public class ServiceBroker extends AbstractVerticle {
         schemaApi.watchSchema(schemaProvider, options.getResyncInterval());
 
         AddressSpaceApi addressSpaceApi = new ConfigMapAddressSpaceApi(controllerClient);
-        AuthApi authApi = new KubeAuthApi(controllerClient, options.getImpersonateUser(), controllerClient.getConfiguration().getOauthToken());
+        AuthApi authApi = new CachingAuthApi(new KubeAuthApi(controllerClient, options.getImpersonateUser(), controllerClient.getConfiguration().getOauthToken()), options.getAuthCacheOptions());
         KeycloakApi keycloakApi = createKeycloakApi(options);
 
         vertx.deployVerticle(new HTTPServer(addressSpaceApi, schemaProvider, authApi, options.getCertDir(), options.getEnableRbac(), keycloakApi, options.getListenPort(), options.getConsolePrefix()),
@@ -4,6 +4,8 @@
  */
 package io.enmasse.osb;
 
+import io.enmasse.api.auth.AuthCacheOptions;
+
 import java.time.Duration;
 import java.util.Map;
 
@@ -18,6 +20,7 @@ public class ServiceBrokerOptions {
     private String keycloakCa = null;
     private String consolePrefix = null;
     private int listenPort = 8080;
+    private AuthCacheOptions authCacheOptions = new AuthCacheOptions();
 
     public Duration getResyncInterval() {
         return resyncInterval;
@@ -105,6 +108,15 @@ public class ServiceBrokerOptions {
         return this;
     }
 
+    public AuthCacheOptions getAuthCacheOptions() {
+        return authCacheOptions;
+    }
+
+    private ServiceBrokerOptions setAuthCacheOptions(AuthCacheOptions authCacheOptions) {
+        this.authCacheOptions = authCacheOptions;
+        return this;
+    }
+
     public static ServiceBrokerOptions fromEnv(Map<String, String> env) {
         ServiceBrokerOptions options = new ServiceBrokerOptions();
 
@@ -139,6 +151,8 @@ public class ServiceBrokerOptions {
             options.setListenPort(Integer.parseInt(listenPort));
         }
 
+        options.setAuthCacheOptions(AuthCacheOptions.fromEnv(env));
+
         return options;
     }
 
@@ -38,8 +38,29 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
     private final SchemaProvider schemaProvider;
     private final Duration recheckInterval;
     private final Duration resyncInterval;
+    private final Duration fullReconcileInterval;
+    private final Duration routerCheckTimeout;
+    private RouterStatusCollector routerStatusCollector;
+    private final ReconcileMetrics metrics = new ReconcileMetrics();
+
+    // State of the previous reconcile, used to only re-evaluate what changed since then
+    private final Map<String, Address> reconciledAddresses = new HashMap<>();
+    private Map<String, Map<String, UsageInfo>> usageState = new HashMap<>();
+    private Schema reconciledSchema;
+    private long nextFullReconcile;
+    private boolean fullReconcileRequired = true;
 
     public AddressController(String addressSpaceName, AddressApi addressApi, Kubernetes kubernetes, BrokerSetGenerator clusterGenerator, String certDir, EventLogger eventLogger, SchemaProvider schemaProvider, Duration recheckInterval, Duration resyncInterval) {
+        this(addressSpaceName, addressApi, kubernetes, clusterGenerator, certDir, eventLogger, schemaProvider, recheckInterval, resyncInterval, Duration.ZERO, Duration.ofSeconds(10));
+    }
+
+    /**
+     * @param fullReconcileInterval interval between full reconciles of all addresses, reconciles in between only
+     *                              re-evaluate the addresses that changed. With zero, every reconcile is a full one.
+     * @param routerCheckTimeout time to wait for the status of each router, routers not responding in time are
+     *                           left out of the status check
+     */
+    public AddressController(String addressSpaceName, AddressApi addressApi, Kubernetes kubernetes, BrokerSetGenerator clusterGenerator, String certDir, EventLogger eventLogger, SchemaProvider schemaProvider, Duration recheckInterval, Duration resyncInterval, Duration fullReconcileInterval, Duration routerCheckTimeout) {
         this.addressSpaceName = addressSpaceName;
         this.addressApi = addressApi;
         this.kubernetes = kubernetes;
@@ -49,6 +70,8 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         this.schemaProvider = schemaProvider;
         this.recheckInterval = recheckInterval;
         this.resyncInterval = resyncInterval;
+        this.fullReconcileInterval = fullReconcileInterval;
+        this.routerCheckTimeout = routerCheckTimeout;
     }
 
     @Override
@@ -76,10 +99,13 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         if (watch != null) {
             watch.close();
         }
+        if (routerStatusCollector != null) {
+            routerStatusCollector.close();
+        }
     }
 
     @Override
-    public void onUpdate(Set<Address> addressSet) throws Exception {
+    public void onUpdate(Set<Address> watchedAddresses) throws Exception {
         long start = System.nanoTime();
         Schema schema = schemaProvider.getSchema();
         if (schema == null) {
@@ -93,13 +119,21 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
             return;
         }
 
+        // The watched addresses are shared with the watch, which hands out the same instances until their config
+        // maps change, so the reconcile updates copies of them
+        Set<Address> addressSet = new HashSet<>(watchedAddresses.size() * 4 / 3 + 1);
         Map<String, Status> previousStatus = new HashMap<>();
-        for (Address address : addressSet) {
+        for (Address address : watchedAddresses) {
+            addressSet.add(new Address.Builder(address).build());
             previousStatus.put(address.getAddress(), new Status(address.getStatus()));
         }
 
         AddressSpacePlan addressSpacePlan = addressSpaceType.getPlans().get(0);
 
+        // The state kept between reconciles is only valid for the schema it was computed with
+        boolean full = fullReconcileRequired || schema != reconciledSchema || start - nextFullReconcile >= 0;
+        fullReconcileRequired = true;
+
         long resolvedPlan = System.nanoTime();
         AddressProvisioner provisioner = new AddressProvisioner(addressResolver, addressSpacePlan, clusterGenerator, kubernetes, eventLogger);
 
@@ -112,7 +146,16 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
             log.debug("Addresses in pending : {}", filterByPhases(addressSet, Arrays.asList(Pending)));
         }
 
-        Map<String, Map<String, UsageInfo>> usageMap = provisioner.checkUsage(filterByNotPhases(addressSet, Arrays.asList(Pending)));
+        if (full) {
+            reconciledAddresses.clear();
+            usageState = new HashMap<>();
+        }
+        // Usage of the addresses which are not pending, updated only for the addresses changed since the previous reconcile.
+        // The addresses are compared as they were watched, before this reconcile changes them, so that the next
+        // reconcile sees a change only when the watch gives a different address, such as one with a written status.
+        Set<Address> changedAddresses = new HashSet<>();
+        int removedAddresses = updateReconciledState(provisioner, addressSet, changedAddresses);
+        Map<String, Map<String, UsageInfo>> usageMap = usageState;
 
         long calculatedUsage = System.nanoTime();
         Set<Address> pendingAddresses = filterByPhases(addressSet, Arrays.asList(Pending));
@@ -122,23 +165,38 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
 
         long checkedQuota = System.nanoTime();
 
-        List<BrokerCluster> clusterList = kubernetes.listClusters();
-        RouterCluster routerCluster = kubernetes.getRouterCluster();
+        // Brokers only need to be provisioned or deleted when addresses are added, changed or removed
+        List<BrokerCluster> clusterList = null;
+        if (full || !pendingAddresses.isEmpty() || !changedAddresses.isEmpty() || removedAddresses > 0) {
+            clusterList = kubernetes.listClusters();
+        }
         long listClusters = System.nanoTime();
 
-        provisioner.provisionResources(routerCluster, clusterList, neededMap, pendingAddresses);
+        if (clusterList != null) {
+            RouterCluster routerCluster = kubernetes.getRouterCluster();
+            provisioner.provisionResources(routerCluster, clusterList, neededMap, pendingAddresses);
+        }
 
         long provisionResources = System.nanoTime();
 
-        checkStatuses(filterByPhases(addressSet, Arrays.asList(Status.Phase.Configuring, Status.Phase.Active)), addressResolver);
+        // Active addresses that did not change are only checked again by the full reconcile
+        Set<Address> checkedAddresses = full
+                ? filterByPhases(addressSet, Arrays.asList(Status.Phase.Configuring, Status.Phase.Active))
+                : addressSet.stream()
+                    .filter(address -> Configuring.equals(address.getStatus().getPhase())
+                            || (Active.equals(address.getStatus().getPhase()) && changedAddresses.contains(address)))
+                    .collect(Collectors.toSet());
+        checkStatuses(checkedAddresses, addressResolver);
         long checkStatuses = System.nanoTime();
-        for (Address address : filterByPhases(addressSet, Arrays.asList(Status.Phase.Configuring, Status.Phase.Active))) {
+        for (Address address : checkedAddresses) {
             if (address.getStatus().isReady()) {
                 address.getStatus().setPhase(Active);
             }
         }
 
-        deprovisionUnused(clusterList, filterByNotPhases(addressSet, Arrays.asList(Terminating)));
+        if (clusterList != null) {
+            deprovisionUnused(clusterList, filterByNotPhases(addressSet, Arrays.asList(Terminating)));
+        }
         long deprovisionUnused = System.nanoTime();
 
         for (Address address : addressSet) {
@@ -150,8 +208,83 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         long replaceAddresses = System.nanoTime();
         garbageCollectTerminating(filterByPhases(addressSet, Arrays.asList(Status.Phase.Terminating)), addressResolver);
         long gcTerminating = System.nanoTime();
+
+        reconciledSchema = schema;
+        fullReconcileRequired = false;
+        if (full) {
+            nextFullReconcile = System.nanoTime() + fullReconcileInterval.toNanos();
+        }
+
+        metrics.recordReconcile(full, full ? addressSet.size() : changedAddresses.size());
+        metrics.recordPhase("total", gcTerminating - start);
+        metrics.recordPhase("resolvedPlan", resolvedPlan - start);
+        metrics.recordPhase("calculatedUsage", calculatedUsage - resolvedPlan);
+        metrics.recordPhase("checkedQuota", checkedQuota - calculatedUsage);
+        metrics.recordPhase("listClusters", listClusters - checkedQuota);
+        metrics.recordPhase("provisionResources", provisionResources - listClusters);
+        metrics.recordPhase("checkStatuses", checkStatuses - provisionResources);
+        metrics.recordPhase("deprovisionUnused", deprovisionUnused - checkStatuses);
+        metrics.recordPhase("replaceAddresses", replaceAddresses - deprovisionUnused);
+        metrics.recordPhase("gcTerminating", gcTerminating - replaceAddresses);
+
+        log.info("{} reconcile of {} changed addresses", full ? "Full" : "Incremental", full ? addressSet.size() : changedAddresses.size());
         log.info("total: {} ns, resolvedPlan: {} ns, calculatedUsage: {} ns, checkedQuota: {} ns, listClusters: {} ns, provisionResources: {} ns, checkStatuses: {} ns, deprovisionUnused: {} ns, replaceAddresses: {} ns, gcTerminating: {} ns", gcTerminating - start, resolvedPlan - start, calculatedUsage - resolvedPlan,  checkedQuota  - calculatedUsage, listClusters - checkedQuota, provisionResources - listClusters, checkStatuses - provisionResources, deprovisionUnused - checkStatuses, replaceAddresses - deprovisionUnused, gcTerminating - replaceAddresses);
+        if (full) {
+            log.info("Reconcile timings: {}", metrics);
+        }
+    }
 
+    /**
+     * Compares the addresses with the ones seen by the previous reconcile, updating the usage of the addresses which
+     * are not pending for the ones that were added, changed or removed.
+     *
+     * @return number of removed addresses
+     */
+    private int updateReconciledState(AddressProvisioner provisioner, Set<Address> addressSet, Set<Address> changedAddresses) {
+        Set<String> current = new HashSet<>();
+        for (Address address : addressSet) {
+            current.add(address.getAddress());
+            Address reconciled = reconciledAddresses.get(address.getAddress());
+            if (reconciled != null && isUnchanged(reconciled, address)) {
+                continue;
+            }
+            if (reconciled != null && !Pending.equals(reconciled.getStatus().getPhase())) {
+                provisioner.removeUsage(usageState, reconciled);
+            }
+            Address snapshot = new Address.Builder(address).build();
+            if (!Pending.equals(snapshot.getStatus().getPhase())) {
+                provisioner.addUsage(usageState, snapshot);
+            }
+            reconciledAddresses.put(address.getAddress(), snapshot);
+            changedAddresses.add(address);
+        }
+
+        int removed = 0;
+        Iterator<Map.Entry<String, Address>> it = reconciledAddresses.entrySet().iterator();
+        while (it.hasNext()) {
+            Address reconciled = it.next().getValue();
+            if (!current.contains(reconciled.getAddress())) {
+                if (!Pending.equals(reconciled.getStatus().getPhase())) {
+                    provisioner.removeUsage(usageState, reconciled);
+                }
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isUnchanged(Address reconciled, Address address) {
+        return Objects.equals(reconciled.getType(), address.getType()) &&
+                Objects.equals(reconciled.getPlan(), address.getPlan()) &&
+                Objects.equals(reconciled.getTopic(), address.getTopic()) &&
+                reconciled.getAnnotations().equals(address.getAnnotations()) &&
+                reconciled.getLabels().equals(address.getLabels()) &&
+                reconciled.getStatus().equals(address.getStatus());
+    }
+
+    public ReconcileMetrics getMetrics() {
+        return metrics;
     }
 
     private void deprovisionUnused(List<BrokerCluster> clusters, Set<Address> addressSet) {
@@ -219,20 +352,21 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         }
         // TODO: Instead of going to the routers directly, list routers, and perform a request against the
         // router agent to do the check
-        RouterStatusCollector routerStatusCollector = new RouterStatusCollector(vertx, certDir);
-        List<RouterStatus> routerStatusList = new ArrayList<>();
+        List<Pod> readyRouters = new ArrayList<>();
         for (Pod router : kubernetes.listRouters()) {
             if (Readiness.isPodReady(router)) {
-                try {
-                    RouterStatus routerStatus = routerStatusCollector.collect(router);
-                    if (routerStatus != null) {
-                        routerStatusList.add(routerStatus);
-                    }
-                } catch (Exception e) {
-                    log.info("Error requesting router status from {}. Ignoring", router.getMetadata().getName(), e);
-                    eventLogger.log(RouterCheckFailed, e.getMessage(), Warning, AddressSpace, addressSpaceName);
-                }
+                readyRouters.add(router);
+            }
+        }
+        List<RouterStatus> routerStatusList = new ArrayList<>();
+        if (!readyRouters.isEmpty()) {
+            if (routerStatusCollector == null) {
+                routerStatusCollector = new RouterStatusCollector(vertx, certDir, routerCheckTimeout);
             }
+            routerStatusList = routerStatusCollector.collect(readyRouters, (router, e) -> {
+                log.info("Error requesting router status from {}. Ignoring", router.getMetadata().getName(), e);
+                eventLogger.log(RouterCheckFailed, e.getMessage(), Warning, AddressSpace, addressSpaceName);
+            });
         }
 
         Map<String, Integer> clusterOk = new HashMap<>();
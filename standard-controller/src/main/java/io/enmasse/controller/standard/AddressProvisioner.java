@@ -68,7 +68,25 @@ public class AddressProvisioner {
         return usageMap;
     }
 
+    /**
+     * Adds the resource usage of an address to a usage map previously computed with {@link #checkUsage(Set)}
+     */
+    public void addUsage(Map<String, Map<String, UsageInfo>> usageMap, Address address) {
+        addToUsage(usageMap, address);
+    }
+
+    /**
+     * Removes the resource usage of an address from a usage map it was added to
+     */
+    public void removeUsage(Map<String, Map<String, UsageInfo>> usageMap, Address address) {
+        updateUsage(usageMap, address, false);
+    }
+
     private void addToUsage(Map<String, Map<String, UsageInfo>> usageMap, Address address) {
+        updateUsage(usageMap, address, true);
+    }
+
+    private void updateUsage(Map<String, Map<String, UsageInfo>> usageMap, Address address, boolean add) {
         AddressType addressType = addressResolver.getType(address);
         AddressPlan addressPlan = addressResolver.getPlan(addressType, address);
 
@@ -99,7 +117,18 @@ public class AddressProvisioner {
             }
             Map<String, UsageInfo> resourceUsage = usageMap.computeIfAbsent(resourceName, k -> new HashMap<>());
             UsageInfo info = resourceUsage.computeIfAbsent(instanceId, i -> new UsageInfo());
-            info.addUsed(resourceRequest.getAmount());
+            if (add) {
+                info.addUsed(resourceRequest.getAmount());
+            } else {
+                info.removeUsed(resourceRequest.getAmount());
+                // Drop instances not used anymore, as if the usage had been computed from scratch
+                if (info.getUsed() <= 0) {
+                    resourceUsage.remove(instanceId);
+                    if (resourceUsage.isEmpty()) {
+                        usageMap.remove(resourceName);
+                    }
+                }
+            }
         }
     }
 
@@ -5,6 +5,7 @@
 package io.enmasse.controller.standard;
 
 import io.enmasse.k8s.api.*;
+import io.enmasse.metrics.PrometheusTextBuilder;
 import io.fabric8.openshift.client.DefaultOpenShiftClient;
 import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import io.vertx.core.Vertx;
@@ -45,6 +46,14 @@ public class Main {
                 .map(i -> Duration.ofSeconds(Long.parseLong(i)))
                 .orElse(Duration.ofSeconds(30));
 
+        Duration fullReconcileInterval = getEnv(env, "FULL_RECONCILE_INTERVAL")
+                .map(i -> Duration.ofSeconds(Long.parseLong(i)))
+                .orElse(Duration.ofMinutes(10));
+
+        Duration routerCheckTimeout = getEnv(env, "ROUTER_CHECK_TIMEOUT")
+                .map(i -> Duration.ofSeconds(Long.parseLong(i)))
+                .orElse(Duration.ofSeconds(10));
+
         NamespacedOpenShiftClient openShiftClient = new DefaultOpenShiftClient();
         SchemaApi schemaApi = new ConfigMapSchemaApi(openShiftClient, openShiftClient.getNamespace());
         CachingSchemaProvider schemaProvider = new CachingSchemaProvider();
@@ -58,16 +67,19 @@ public class Main {
                 : new LogEventLogger();
 
 
+        ConfigMapAddressApi addressApi = new ConfigMapAddressApi(openShiftClient, openShiftClient.getNamespace());
         AddressController addressController = new AddressController(
                 addressSpace,
-                new ConfigMapAddressApi(openShiftClient, openShiftClient.getNamespace()),
+                addressApi,
                 kubernetes,
                 clusterGenerator,
                 certDir,
                 eventLogger,
                 schemaProvider,
                 recheckInterval,
-                resyncInterval
+                resyncInterval,
+                fullReconcileInterval,
+                routerCheckTimeout
         );
 
         log.info("Deploying address space controller for " + addressSpace);
@@ -80,7 +92,17 @@ public class Main {
             }
         });
         vertx.createHttpServer()
-                .requestHandler(request -> request.response().setStatusCode(200).end()).listen(8889);
+                .requestHandler(request -> {
+                    if ("/metrics".equals(request.path())) {
+                        request.response()
+                                .putHeader("Content-Type", PrometheusTextBuilder.CONTENT_TYPE)
+                                .setStatusCode(200)
+                                .end(addressController.getMetrics().toPrometheusText() +
+                                        addressApi.getWorkQueueMetrics().toPrometheusText("addresses"));
+                    } else {
+                        request.response().setStatusCode(200).end();
+                    }
+                }).listen(8889);
     }
 
     private static Optional<String> getEnv(Map<String, String> env, String envVar) {
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.metrics.PrometheusTextBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings of the phases of the address reconciliation, one histogram per phase.
+ */
+public class ReconcileMetrics {
+    private final Map<String, TimingHistogram> phases = new ConcurrentSkipListMap<>();
+    private final AtomicLong fullReconciles = new AtomicLong();
+    private final AtomicLong incrementalReconciles = new AtomicLong();
+    private final AtomicLong reevaluatedAddresses = new AtomicLong();
+
+    public void recordPhase(String phase, long nanos) {
+        phases.computeIfAbsent(phase, p -> new TimingHistogram()).record(nanos);
+    }
+
+    public void recordReconcile(boolean full, int reevaluated) {
+        if (full) {
+            fullReconciles.incrementAndGet();
+        } else {
+            incrementalReconciles.incrementAndGet();
+        }
+        reevaluatedAddresses.addAndGet(reevaluated);
+    }
+
+    TimingHistogram getPhase(String phase) {
+        return phases.get(phase);
+    }
+
+    public long getFullReconciles() {
+        return fullReconciles.get();
+    }
+
+    public long getIncrementalReconciles() {
+        return incrementalReconciles.get();
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text exposition format.
+     */
+    public String toPrometheusText() {
+        PrometheusTextBuilder builder = new PrometheusTextBuilder()
+                .type("address_reconcile_total", "counter")
+                .sample("address_reconcile_total", PrometheusTextBuilder.labels("mode", "full"), fullReconciles.get())
+                .sample("address_reconcile_total", PrometheusTextBuilder.labels("mode", "incremental"), incrementalReconciles.get())
+                .type("address_reconcile_reevaluated_total", "counter")
+                .sample("address_reconcile_reevaluated_total", reevaluatedAddresses.get())
+                .type("address_reconcile_phase_seconds", "histogram");
+        for (Map.Entry<String, TimingHistogram> entry : phases.entrySet()) {
+            TimingHistogram histogram = entry.getValue();
+            double[] bounds = new double[histogram.getNumBuckets()];
+            long[] counts = new long[histogram.getNumBuckets()];
+            for (int i = 0; i < histogram.getNumBuckets(); i++) {
+                long bound = histogram.getBucketBoundNanos(i);
+                bounds[i] = bound == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : bound / 1e9;
+                counts[i] = histogram.getBucketCount(i);
+            }
+            builder.histogram("address_reconcile_phase_seconds", PrometheusTextBuilder.labels("phase", entry.getKey()),
+                    bounds, counts, histogram.getSumNanos() / 1e9, histogram.getCount());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{full=").append(fullReconciles.get())
+                .append(", incremental=").append(incrementalReconciles.get());
+        for (Map.Entry<String, TimingHistogram> entry : phases.entrySet()) {
+            TimingHistogram histogram = entry.getValue();
+            sb.append(", ").append(entry.getKey())
+                    .append(": {p50=").append(histogram.getPercentileNanos(50))
+                    .append(" ns, p99=").append(histogram.getPercentileNanos(99))
+                    .append(" ns, max=").append(histogram.getMaxNanos()).append(" ns}");
+        }
+        return sb.append("}").toString();
+    }
+}
@@ -28,6 +28,22 @@ class RouterStatus {
         return routerId;
     }
 
+    List<String> getAddresses() {
+        return addresses;
+    }
+
+    List<List<String>> getAutoLinks() {
+        return autoLinks;
+    }
+
+    List<List<String>> getLinkRoutes() {
+        return linkRoutes;
+    }
+
+    List<String> getConnections() {
+        return connections;
+    }
+
     public int checkAddress(Address address) {
         int ok = 0;
         boolean found = addresses.contains(address.getAddress());
@@ -4,13 +4,10 @@
  */
 package io.enmasse.controller.standard;
 
-import com.sun.corba.se.impl.orbutil.concurrent.Sync;
-import io.enmasse.amqp.ProtonRequestClient;
-import io.enmasse.amqp.SyncRequestClient;
+import io.enmasse.amqp.AsyncRequestClient;
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ContainerPort;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.net.PemKeyCertOptions;
 import io.vertx.core.net.PemTrustOptions;
@@ -23,21 +20,78 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
-class RouterStatusCollector {
+/**
+ * Collects the status of the routers, keeping a management connection open to each of them across checks.
+ * All routers are queried in parallel, and a router not responding within the timeout is left out of the results.
+ */
+class RouterStatusCollector implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(RouterStatusCollector.class);
+    private static final String MANAGEMENT_ADDRESS = "$management";
     private final Vertx vertx;
     private final String certDir;
+    private final Duration routerTimeout;
+    private final Map<String, RouterClient> clients = new HashMap<>();
 
-    public RouterStatusCollector(Vertx vertx, String certDir) {
+    /**
+     * @param certDir directory with the certificates for connecting to the routers, or null for connecting without TLS
+     */
+    public RouterStatusCollector(Vertx vertx, String certDir, Duration routerTimeout) {
         this.vertx = vertx;
         this.certDir = certDir;
+        this.routerTimeout = routerTimeout;
+    }
+
+    /**
+     * Collect the status of the routers
+     *
+     * @param routers routers to check
+     * @param errorHandler called for each router whose status could not be collected within the timeout
+     * @return the status of the routers which responded in time
+     */
+    public synchronized List<RouterStatus> collect(List<Pod> routers, BiConsumer<Pod, Throwable> errorHandler) throws InterruptedException {
+        Map<Pod, CompletableFuture<RouterStatus>> results = new LinkedHashMap<>();
+        Set<String> current = new HashSet<>();
+        for (Pod router : routers) {
+            current.add(router.getMetadata().getName());
+            results.put(router, collect(router));
+        }
+        closeRemoved(current);
+
+        try {
+            CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0]))
+                    .get(routerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Failures are reported per router below
+        }
+
+        List<RouterStatus> statuses = new ArrayList<>();
+        for (Map.Entry<Pod, CompletableFuture<RouterStatus>> entry : results.entrySet()) {
+            CompletableFuture<RouterStatus> result = entry.getValue();
+            if (!result.isDone()) {
+                result.completeExceptionally(new TimeoutException("Timed out collecting status of router " + entry.getKey().getMetadata().getName()));
+            }
+            try {
+                RouterStatus status = result.getNow(null);
+                if (status != null) {
+                    statuses.add(status);
+                }
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errorHandler.accept(entry.getKey(), cause);
+            }
+        }
+        return statuses;
     }
 
-    public RouterStatus collect(Pod router) throws Exception {
+    private CompletableFuture<RouterStatus> collect(Pod router) {
         int port = 0;
         for (Container container : router.getSpec().getContainers()) {
             if (container.getName().equals("router")) {
@@ -49,10 +103,64 @@ class RouterStatusCollector {
             }
         }
 
-        if (port != 0) {
-            log.debug("Checking router status of router " + router.getStatus().getPodIP());
-            ProtonClientOptions clientOptions = new ProtonClientOptions()
-                    .setSsl(true)
+        if (port == 0) {
+            log.info("Unable to find appropriate router port, skipping address check");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.debug("Checking router status of router " + router.getStatus().getPodIP());
+        RouterClient client = getClient(router.getMetadata().getName(), router.getStatus().getPodIP(), port);
+        long timeout = routerTimeout.toMillis();
+
+        // The queries are pipelined on the same connection
+        CompletableFuture<List<List<String>>> addresses = collectRouter(client, "org.apache.qpid.dispatch.router.config.address",
+                Arrays.asList("prefix"), timeout);
+        CompletableFuture<List<List<String>>> autoLinks = collectRouter(client, "org.apache.qpid.dispatch.router.config.autoLink",
+                Arrays.asList("addr", "containerId", "dir", "operStatus"), timeout);
+        CompletableFuture<List<List<String>>> linkRoutes = collectRouter(client, "org.apache.qpid.dispatch.router.config.linkRoute",
+                Arrays.asList("prefix", "containerId", "dir", "operStatus"), timeout);
+        CompletableFuture<List<List<String>>> connections = collectRouter(client, "org.apache.qpid.dispatch.connection",
+                Arrays.asList("container"), timeout);
+
+        String routerId = router.getMetadata().getName();
+        return CompletableFuture.allOf(addresses, autoLinks, linkRoutes, connections)
+                .thenApply(v -> new RouterStatus(routerId,
+                        filterOnAttribute(addresses.join(), 0),
+                        autoLinks.join(),
+                        linkRoutes.join(),
+                        filterOnAttribute(connections.join(), 0)));
+    }
+
+    private RouterClient getClient(String name, String host, int port) {
+        RouterClient client = clients.get(name);
+        if (client != null && (client.isClosed() || !client.host.equals(host) || client.port != port)) {
+            client.close();
+            client = null;
+        }
+        if (client == null) {
+            log.debug("Connecting to router {}:{}", host, port);
+            client = new RouterClient(host, port, new AsyncRequestClient(vertx));
+            client.requestClient.connect(host, port, createClientOptions(), MANAGEMENT_ADDRESS, client.connected);
+            clients.put(name, client);
+        }
+        return client;
+    }
+
+    private void closeRemoved(Set<String> current) {
+        Iterator<Map.Entry<String, RouterClient>> it = clients.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, RouterClient> entry = it.next();
+            if (!current.contains(entry.getKey())) {
+                entry.getValue().close();
+                it.remove();
+            }
+        }
+    }
+
+    private ProtonClientOptions createClientOptions() {
+        ProtonClientOptions clientOptions = new ProtonClientOptions();
+        if (certDir != null) {
+            clientOptions.setSsl(true)
                     .addEnabledSaslMechanism("EXTERNAL")
                     .setHostnameVerificationAlgorithm("")
                     .setPemTrustOptions(new PemTrustOptions()
@@ -60,31 +168,17 @@ class RouterStatusCollector {
                     .setPemKeyCertOptions(new PemKeyCertOptions()
                             .setCertPath(new File(certDir, "tls.crt").getAbsolutePath())
                             .setKeyPath(new File(certDir, "tls.key").getAbsolutePath()));
-            try (ProtonRequestClient client = new ProtonRequestClient(vertx)) {
-                CompletableFuture<Void> promise = new CompletableFuture<>();
-                client.connect(router.getStatus().getPodIP(), port, clientOptions, "$management", promise);
-
-                promise.get(10, TimeUnit.SECONDS);
-
-
-                List<String> addresses = filterOnAttribute(collectRouter(client, "org.apache.qpid.dispatch.router.config.address",
-                        Arrays.asList("prefix")), 0);
-
-                List<List<String>> autoLinks = collectRouter(client, "org.apache.qpid.dispatch.router.config.autoLink",
-                        Arrays.asList("addr", "containerId", "dir", "operStatus"));
-                List<List<String>> linkRoutes = collectRouter(client, "org.apache.qpid.dispatch.router.config.linkRoute",
-                        Arrays.asList("prefix", "containerId", "dir", "operStatus"));
-                List<String> connections = filterOnAttribute(collectRouter(client, "org.apache.qpid.dispatch.connection",
-                        Arrays.asList("container")), 0);
-
+        }
+        clientOptions.setConnectTimeout((int) routerTimeout.toMillis());
+        return clientOptions;
+    }
 
-                String routerId = router.getMetadata().getName();
-                return new RouterStatus(routerId, addresses, autoLinks, linkRoutes, connections);
-            }
-        } else {
-            log.info("Unable to find appropriate router port, skipping address check");
-            return null;
+    @Override
+    public synchronized void close() {
+        for (RouterClient client : clients.values()) {
+            client.close();
         }
+        clients.clear();
     }
 
     private static List<String> filterOnAttribute(List<List<String>> list, int attrNum) {
@@ -95,7 +189,8 @@ class RouterStatusCollector {
         return filtered;
     }
 
-    private static List<List<String>> collectRouter(SyncRequestClient client, String entityType, List<String> attributeNames) throws Exception {
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<List<List<String>>> collectRouter(RouterClient client, String entityType, List<String> attributeNames, long timeout) {
         Map<String, Object> properties = new LinkedHashMap<>();
         properties.put("operation", "QUERY");
         properties.put("entityType", entityType);
@@ -107,10 +202,39 @@ class RouterStatusCollector {
         message.setApplicationProperties(new ApplicationProperties(properties));
         message.setBody(new AmqpValue(body));
 
-        Message response = client.request(message, 10, TimeUnit.SECONDS);
-        AmqpValue value = (AmqpValue) response.getBody();
-        Map values = (Map) value.getValue();
-        List<List<String>> results = (List<List<String>>) values.get("results");
-        return results;
+        return client.connected
+                .thenCompose(v -> client.requestClient.request(message, timeout, TimeUnit.MILLISECONDS))
+                .thenApply(response -> {
+                    AmqpValue value = (AmqpValue) response.getBody();
+                    Map values = (Map) value.getValue();
+                    return (List<List<String>>) values.get("results");
+                });
+    }
+
+    /**
+     * Management connection to a router, kept open across checks
+     */
+    private static class RouterClient {
+        private final String host;
+        private final int port;
+        private final AsyncRequestClient requestClient;
+        private final CompletableFuture<Void> connected = new CompletableFuture<>();
+
+        private RouterClient(String host, int port, AsyncRequestClient requestClient) {
+            this.host = host;
+            this.port = port;
+            this.requestClient = requestClient;
+        }
+
+        /**
+         * Returns true if the connection failed or was closed, and a new client has to be created.
+         */
+        private boolean isClosed() {
+            return connected.isCompletedExceptionally() || requestClient.isClosed();
+        }
+
+        private void close() {
+            requestClient.close();
+        }
     }
 }
@@ -5,7 +5,11 @@
 package io.enmasse.controller.standard;
 
 class UsageInfo {
-    private double used;
+    // Usage is kept in integer units, so that adding and removing the usage of addresses in any order gives the
+    // same result as computing it from scratch
+    private static final long UNITS = 1_000_000_000L;
+
+    private long used;
     private int needed;
 
     public UsageInfo() {
@@ -19,17 +23,26 @@ class UsageInfo {
     }
 
     public void addUsed(double added) {
-        this.used += added;
-        needed = (int) Math.ceil(used);
+        this.used += toUnits(added);
+        needed = (int) ((used + UNITS - 1) / UNITS);
+    }
+
+    public void removeUsed(double removed) {
+        this.used -= toUnits(removed);
+        needed = (int) ((used + UNITS - 1) / UNITS);
+    }
+
+    private static long toUnits(double amount) {
+        return Math.round(amount * UNITS);
     }
 
     @Override
     public String toString() {
-        return "{used=" + used + ", needed=" + needed + "}";
+        return "{used=" + getUsed() + ", needed=" + needed + "}";
     }
 
     public double getUsed() {
-        return used;
+        return (double) used / UNITS;
     }
 
     public int getNeeded() {
@@ -17,11 +17,17 @@ import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
 import io.fabric8.openshift.client.OpenShiftClient;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.internal.util.collections.Sets;
 
 import java.time.Duration;
 import java.util.*;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 
 public class AddressControllerTest {
@@ -71,6 +77,31 @@ public class AddressControllerTest {
         verify(mockApi).deleteAddress(eq(terminating));
     }
 
+    @Test
+    public void testWatchedAddressesNotModified() throws Exception {
+        Address pending = new Address.Builder()
+                .setName("q1")
+                .setAddress("q1")
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
+                .setType("queue")
+                .setPlan("small-queue")
+                .setStatus(new Status(false).setPhase(Status.Phase.Pending))
+                .build();
+        when(mockHelper.listClusters()).thenReturn(new ArrayList<>());
+        when(mockGenerator.generateCluster(eq("broker"), any(), anyInt(), any())).thenReturn(new BrokerCluster("broker", new KubernetesList()));
+
+        controller.onUpdate(Collections.unmodifiableSet(Sets.newSet(pending)));
+
+        ArgumentCaptor<Address> replaced = ArgumentCaptor.forClass(Address.class);
+        verify(mockApi).replaceAddress(replaced.capture());
+        assertThat(replaced.getValue(), not(sameInstance(pending)));
+        assertThat(replaced.getValue().getStatus(), not(pending.getStatus()));
+        assertThat(pending.getStatus().getPhase(), is(Status.Phase.Pending));
+        assertThat(pending.getStatus().getMessages().size(), is(0));
+        assertNull(pending.getAnnotations().get(AnnotationKeys.CLUSTER_ID));
+    }
+
     @Test
     public void testDeleteUnusedClusters() throws Exception {
         Address alive = new Address.Builder()
@@ -101,4 +132,57 @@ public class AddressControllerTest {
         verify(mockHelper).delete(any());
         verify(mockHelper).delete(eq(oldList));
     }
+
+    @Test
+    public void testIncrementalReconcile() throws Exception {
+        EventLogger eventLogger = mock(EventLogger.class);
+        StandardControllerSchema standardControllerSchema = new StandardControllerSchema();
+        controller = new AddressController("me", mockApi, mockHelper, mockGenerator, null, eventLogger, standardControllerSchema::getSchema, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofHours(1), Duration.ofSeconds(10));
+
+        Address alive = new Address.Builder()
+                .setName("q1")
+                .setAddress("q1")
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
+                .setType("queue")
+                .setPlan("small-queue")
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-0")
+                .putAnnotation(AnnotationKeys.CLUSTER_ID, "broker")
+                .setStatus(new Status(true).setPhase(Status.Phase.Active))
+                .build();
+        Address other = new Address.Builder()
+                .setName("q2")
+                .setAddress("q2")
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
+                .setType("queue")
+                .setPlan("small-queue")
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-0")
+                .putAnnotation(AnnotationKeys.CLUSTER_ID, "other")
+                .setStatus(new Status(true).setPhase(Status.Phase.Active))
+                .build();
+        KubernetesList otherList = new KubernetesList();
+        when(mockHelper.listClusters()).thenReturn(Arrays.asList(
+                new BrokerCluster("broker", new KubernetesList()),
+                new BrokerCluster("other", otherList)));
+        when(mockHelper.isDestinationClusterReady(any())).thenReturn(true);
+
+        controller.onUpdate(Sets.newSet(alive, other));
+        verify(mockHelper, times(1)).listClusters();
+        verify(mockHelper, times(2)).isDestinationClusterReady(any());
+
+        // Nothing changed, so brokers and statuses are not checked again
+        controller.onUpdate(Sets.newSet(alive, other));
+        verify(mockHelper, times(1)).listClusters();
+        verify(mockHelper, times(2)).isDestinationClusterReady(any());
+        verify(mockHelper, never()).delete(any());
+
+        // A removed address triggers the deletion of its broker
+        controller.onUpdate(Sets.newSet(alive));
+        verify(mockHelper, times(2)).listClusters();
+        verify(mockHelper).delete(eq(otherList));
+
+        assertThat(controller.getMetrics().getFullReconciles(), is(1L));
+        assertThat(controller.getMetrics().getIncrementalReconciles(), is(2L));
+    }
 }
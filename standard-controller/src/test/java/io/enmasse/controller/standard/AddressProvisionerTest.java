@@ -106,6 +106,65 @@ public class AddressProvisionerTest {
         assertEquals(0.8, usageMap.get("broker").get("broker-0").getUsed(), 0.01);
     }
 
+    @Test
+    public void testIncrementalUsage() {
+        Address anycast = new Address.Builder()
+                .setAddress("a1")
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
+                .setPlan("small-anycast")
+                .setType("anycast")
+                .build();
+        Address queue = new Address.Builder()
+                .setAddress("q1")
+                .setAddressSpace("myspace")
+                .setNamespace("ns")
+                .setPlan("small-queue")
+                .setType("queue")
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-0")
+                .build();
+        AddressProvisioner provisioner = createProvisioner();
+        Map<String, Map<String, UsageInfo>> usageMap = provisioner.checkUsage(singleton(anycast));
+
+        provisioner.addUsage(usageMap, queue);
+        Map<String, Map<String, UsageInfo>> expected = provisioner.checkUsage(Sets.newSet(anycast, queue));
+        assertEquals(expected.get("router").get("all").getUsed(), usageMap.get("router").get("all").getUsed(), 0.01);
+        assertEquals(expected.get("broker").get("broker-0").getUsed(), usageMap.get("broker").get("broker-0").getUsed(), 0.01);
+
+        provisioner.removeUsage(usageMap, queue);
+        assertNull(usageMap.get("broker"));
+        assertEquals(0.2, usageMap.get("router").get("all").getUsed(), 0.01);
+
+        provisioner.removeUsage(usageMap, anycast);
+        assertTrue(usageMap.isEmpty());
+    }
+
+    @Test
+    public void testIncrementalUsageMatchesRecompute() {
+        List<Address> addresses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // Router usage of 0.1, 0.2, 0.1, 0.2, 0.1, 0.2, 0.1, 0.1
+            if (i % 2 == 1 && i < 6) {
+                addresses.add(createAddress("a" + i, "anycast", "small-anycast"));
+            } else {
+                addresses.add(createAddress("t" + i, "topic", "small-topic", annotations -> annotations.put(AnnotationKeys.BROKER_ID, "broker-0")));
+            }
+        }
+
+        AddressProvisioner provisioner = createProvisioner();
+        Map<String, Map<String, UsageInfo>> usageMap = new HashMap<>();
+        for (Address address : addresses) {
+            provisioner.addUsage(usageMap, address);
+        }
+        provisioner.removeUsage(usageMap, addresses.get(0));
+
+        Map<String, Map<String, UsageInfo>> expected = provisioner.checkUsage(new HashSet<>(addresses.subList(1, addresses.size())));
+        assertEquals(1, expected.get("router").get("all").getNeeded());
+        assertEquals(expected.get("router").get("all").getUsed(), usageMap.get("router").get("all").getUsed(), 0.0);
+        assertEquals(expected.get("router").get("all").getNeeded(), usageMap.get("router").get("all").getNeeded());
+        assertEquals(expected.get("broker").get("broker-0").getNeeded(), usageMap.get("broker").get("broker-0").getNeeded());
+    }
+
     @Test
     public void testQuotaCheck() {
         Set<Address> addresses = new HashSet<>();
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonSession;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class RouterStatusCollectorTest {
+    private Vertx vertx;
+    private RouterStatusCollector collector;
+    private final Map<Pod, Throwable> errors = new ConcurrentHashMap<>();
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void teardown() {
+        if (collector != null) {
+            collector.close();
+        }
+        vertx.close();
+    }
+
+    @Test
+    public void testResponsesCorrelated() throws Exception {
+        FakeRouter routerA = FakeRouter.start(vertx, "router-a");
+        FakeRouter routerB = FakeRouter.start(vertx, "router-b");
+        collector = new RouterStatusCollector(vertx, null, Duration.ofSeconds(5));
+
+        List<RouterStatus> statuses = collector.collect(Arrays.asList(routerA.pod(), routerB.pod()), errors::put);
+
+        assertTrue(errors.isEmpty());
+        assertThat(statuses.size(), is(2));
+        assertStatus(statuses.get(0), "router-a");
+        assertStatus(statuses.get(1), "router-b");
+    }
+
+    @Test
+    public void testPartialCollection() throws Exception {
+        FakeRouter routerA = FakeRouter.start(vertx, "router-a");
+        FakeRouter routerB = FakeRouter.start(vertx, "router-b");
+        routerB.setMode(FakeRouter.Mode.HOLD);
+        Pod noPort = new PodBuilder()
+                .editOrNewMetadata().withName("router-c").endMetadata()
+                .editOrNewSpec().addNewContainer().withName("router").endContainer().endSpec()
+                .editOrNewStatus().withPodIP("127.0.0.1").endStatus()
+                .build();
+        collector = new RouterStatusCollector(vertx, null, Duration.ofMillis(500));
+
+        List<RouterStatus> statuses = collector.collect(Arrays.asList(routerA.pod(), routerB.pod(), noPort), errors::put);
+
+        // router-b did not answer in time, router-c can't be checked and is skipped
+        assertThat(statuses.size(), is(1));
+        assertStatus(statuses.get(0), "router-a");
+        assertThat(errors.size(), is(1));
+        assertThat(errors.get(routerB.pod()), instanceOf(TimeoutException.class));
+    }
+
+    @Test
+    public void testTimedOutRequestsCleanedUp() throws Exception {
+        FakeRouter routerA = FakeRouter.start(vertx, "router-a");
+        FakeRouter routerB = FakeRouter.start(vertx, "router-b");
+        routerB.setMode(FakeRouter.Mode.HOLD);
+        collector = new RouterStatusCollector(vertx, null, Duration.ofMillis(500));
+
+        collector.collect(Arrays.asList(routerA.pod(), routerB.pod()), errors::put);
+        assertThat(errors.size(), is(1));
+        errors.clear();
+
+        // late responses to the timed out requests are dropped, not taken for responses to the new ones
+        routerB.releaseHeld();
+        routerB.setMode(FakeRouter.Mode.RESPOND);
+        Thread.sleep(100);
+
+        List<RouterStatus> statuses = collector.collect(Arrays.asList(routerA.pod(), routerB.pod()), errors::put);
+
+        assertTrue(errors.isEmpty());
+        assertThat(statuses.size(), is(2));
+        assertStatus(statuses.get(0), "router-a");
+        assertStatus(statuses.get(1), "router-b");
+
+        // the management connections are kept across checks
+        assertThat(routerA.getConnections(), is(1));
+        assertThat(routerB.getConnections(), is(1));
+    }
+
+    private static void assertStatus(RouterStatus status, String router) {
+        assertThat(status.getRouterId(), is(router));
+        assertThat(status.getAddresses(), is(Collections.singletonList(router + "-address")));
+        assertThat(status.getAutoLinks().get(0).get(0), is(router + "-autoLink"));
+        assertThat(status.getLinkRoutes().get(0).get(0), is(router + "-linkRoute"));
+        assertThat(status.getConnections(), is(Collections.singletonList(router + "-connection")));
+    }
+
+    /**
+     * Router management peer. Responds to the queries of a check in reverse order, with results naming the router
+     * and the queried entity type, or holds them until released.
+     */
+    private static class FakeRouter {
+        private static final int QUERIES_PER_CHECK = 4;
+
+        enum Mode {
+            RESPOND,
+            HOLD
+        }
+
+        private final String name;
+        private final ProtonServer server;
+        private final AtomicInteger connections = new AtomicInteger();
+        private volatile Mode mode = Mode.RESPOND;
+        private volatile Context context;
+
+        // accessed on the connection context only
+        private final List<Message> batch = new ArrayList<>();
+        private final List<Message> held = new ArrayList<>();
+        private ProtonSender replySender;
+
+        private FakeRouter(Vertx vertx, String name) {
+            this.name = name;
+            this.server = ProtonServer.create(vertx);
+        }
+
+        static FakeRouter start(Vertx vertx, String name) throws Exception {
+            FakeRouter router = new FakeRouter(vertx, name);
+            CompletableFuture<Void> listening = new CompletableFuture<>();
+            router.server.connectHandler(conn -> {
+                router.connections.incrementAndGet();
+                router.context = Vertx.currentContext();
+                conn.openHandler(o -> conn.open());
+                conn.sessionOpenHandler(ProtonSession::open);
+                conn.receiverOpenHandler(receiver -> {
+                    receiver.setTarget(receiver.getRemoteTarget());
+                    receiver.handler((delivery, message) -> router.handleRequest(message));
+                    receiver.open();
+                });
+                conn.senderOpenHandler(sender -> {
+                    sender.setSource(sender.getRemoteSource());
+                    sender.open();
+                    router.replySender = sender;
+                });
+            }).listen(0, "127.0.0.1", result -> {
+                if (result.succeeded()) {
+                    listening.complete(null);
+                } else {
+                    listening.completeExceptionally(result.cause());
+                }
+            });
+            listening.get(10, TimeUnit.SECONDS);
+            return router;
+        }
+
+        void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        int getConnections() {
+            return connections.get();
+        }
+
+        Pod pod() {
+            return new PodBuilder()
+                    .editOrNewMetadata()
+                    .withName(name)
+                    .endMetadata()
+                    .editOrNewSpec()
+                    .addNewContainer()
+                    .withName("router")
+                    .addNewPort()
+                    .withName("amqps-normal")
+                    .withContainerPort(server.actualPort())
+                    .endPort()
+                    .endContainer()
+                    .endSpec()
+                    .editOrNewStatus()
+                    .withPodIP("127.0.0.1")
+                    .endStatus()
+                    .build();
+        }
+
+        private void handleRequest(Message request) {
+            if (mode == Mode.HOLD) {
+                held.add(request);
+                return;
+            }
+            batch.add(request);
+            if (batch.size() == QUERIES_PER_CHECK) {
+                Collections.reverse(batch);
+                for (Message message : batch) {
+                    respond(message, name);
+                }
+                batch.clear();
+            }
+        }
+
+        /**
+         * Respond to the held requests with results of another router.
+         */
+        void releaseHeld() throws Exception {
+            CompletableFuture<Void> released = new CompletableFuture<>();
+            context.runOnContext(v -> {
+                for (Message message : held) {
+                    respond(message, "stale");
+                }
+                held.clear();
+                released.complete(null);
+            });
+            released.get(10, TimeUnit.SECONDS);
+        }
+
+        private void respond(Message request, String router) {
+            String entityType = (String) request.getApplicationProperties().getValue().get("entityType");
+            String entity = entityType.substring(entityType.lastIndexOf('.') + 1);
+            List<String> result = new ArrayList<>();
+            result.add(router + "-" + entity);
+            if (entity.equals("autoLink") || entity.equals("linkRoute")) {
+                result.add("broker-0");
+                result.add("in");
+                result.add("active");
+            }
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("results", Collections.singletonList(result));
+            Message response = Message.Factory.create();
+            response.setBody(new AmqpValue(body));
+            response.setCorrelationId(request.getCorrelationId());
+            response.setAddress(request.getReplyTo());
+            replySender.send(response);
+        }
+    }
+}
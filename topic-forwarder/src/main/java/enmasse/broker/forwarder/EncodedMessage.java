@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import org.apache.qpid.proton.codec.WritableBuffer;
+import org.apache.qpid.proton.message.impl.MessageImpl;
+
+import java.nio.BufferOverflowException;
+
+/**
+ * A message which has already been encoded. Sending it copies the encoded bytes instead of encoding the message
+ * sections again. Only the encoding is available, all section getters return null.
+ */
+class EncodedMessage extends MessageImpl {
+    private final byte[] data;
+    private final int length;
+
+    EncodedMessage(byte[] data, int length) {
+        this.data = data;
+        this.length = length;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    @Override
+    public int encode(byte[] target, int offset, int length) {
+        if (length < this.length) {
+            throw new BufferOverflowException();
+        }
+        System.arraycopy(data, 0, target, offset, this.length);
+        return this.length;
+    }
+
+    /**
+     * Like {@link MessageImpl#encode2(byte[], int, int)}, returns the encoded size even if it does not fit in the
+     * target, in which case nothing is written.
+     */
+    @Override
+    public int encode2(byte[] target, int offset, int length) {
+        if (length >= this.length) {
+            System.arraycopy(data, 0, target, offset, this.length);
+        }
+        return this.length;
+    }
+
+    @Override
+    public int encode(WritableBuffer buffer) {
+        buffer.put(data, 0, length);
+        return length;
+    }
+}
@@ -16,16 +16,22 @@ import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
 import org.apache.qpid.proton.amqp.messaging.Source;
 import org.apache.qpid.proton.amqp.messaging.Target;
 import org.apache.qpid.proton.amqp.messaging.TerminusDurability;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
 import org.apache.qpid.proton.message.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * A forwarder forwards AMQP messages from one host to another, using durable subscriptions, flow control and linked acknowledgement.
+ *
+ * The source is given credit for a fixed window of messages, which is topped up once refillThreshold messages of it
+ * have been settled, rather than after every message. Source deliveries may be settled in batches.
  */
 public class Forwarder extends AbstractVerticle {
     private static final Logger log = LoggerFactory.getLogger(Forwarder.class.getName());
@@ -41,17 +47,37 @@ public class Forwarder extends AbstractVerticle {
     private static Symbol replicated = Symbol.getSymbol("replicated");
     private static Symbol topic = Symbol.getSymbol("topic");
     private final String certDir;
+    private final ForwarderOptions options;
+    private final ForwarderMetrics metrics;
+    private final MessageEncoder encoder = new MessageEncoder();
+
+    private final List<Settlement> pendingSettlements = new ArrayList<>();
+    private ProtonReceiver currentReceiver;
+    private int inFlight;
+    private long settleTimer = -1;
+    private long sampleTimer = -1;
 
     public Forwarder(Endpoint from, Endpoint to, String address, long connectionRetryInterval, String certDir) {
+        this(from, to, address, connectionRetryInterval, certDir, new ForwarderOptions());
+    }
+
+    public Forwarder(Endpoint from, Endpoint to, String address, long connectionRetryInterval, String certDir, ForwarderOptions options) {
         this.from = from;
         this.to = to;
         this.address = address;
         this.connectionRetryInterval = connectionRetryInterval;
         this.certDir = certDir;
+        this.options = options;
+        this.metrics = new ForwarderMetrics(address, to.hostname() + ":" + to.port());
+    }
+
+    public ForwarderMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
     public void start() {
+        sampleTimer = vertx.setPeriodic(5000, id -> metrics.sample(System.nanoTime()));
         startSender();
     }
 
@@ -86,8 +112,9 @@ public class Forwarder extends AbstractVerticle {
                         vertx.setTimer(connectionRetryInterval, timerId -> startReceiver(sender, containerId));
                     }
                 });
+                resetFlow(receiver);
                 receiver.setPrefetch(0);
-                receiver.flow(sender.getCredit());
+                receiver.flow(options.getCreditWindow());
                 receiver.setSource(source);
                 receiver.handler(((delivery, message) -> handleMessage(sender, receiver, delivery, message)));
                 receiver.open();
@@ -132,6 +159,11 @@ public class Forwarder extends AbstractVerticle {
                 connection.open();
                 senderConnection = Optional.of(connection);
                 ProtonSender sender = connection.createSender(address);
+                sender.sendQueueDrainHandler(s -> {
+                    if (currentReceiver != null) {
+                        refill(sender, currentReceiver);
+                    }
+                });
                 sender.openHandler(handler -> {
                     log.info(this + ": sender opened to " + connection.getRemoteContainer());
                     startReceiver(sender, connection.getRemoteContainer());
@@ -170,35 +202,135 @@ public class Forwarder extends AbstractVerticle {
         if (log.isDebugEnabled()) {
             log.debug(this + ": forwarding message");
         }
+        metrics.messageReceived();
         if (!isMessageReplicated(message)) {
             forwardMessage(protonSender, protonReceiver, protonDelivery, message);
         } else {
             protonDelivery.disposition(Accepted.getInstance(), true);
+            metrics.messageSkipped();
+            refill(protonSender, protonReceiver);
         }
     }
 
     private void forwardMessage(ProtonSender protonSender, ProtonReceiver protonReceiver, ProtonDelivery sourceDelivery, Message message) {
-        MessageAnnotations annotations = message.getMessageAnnotations();
-        if (annotations == null) {
-            annotations = new MessageAnnotations(Collections.singletonMap(replicated, true));
-        } else {
-            annotations.getValue().put(replicated, true);
-        }
-        message.setMessageAnnotations(annotations);
-        protonSender.send(message, protonDelivery -> {
-            sourceDelivery.disposition(protonDelivery.getRemoteState(), protonDelivery.remotelySettled());
-            protonReceiver.flow(protonSender.getCredit() - protonReceiver.getCredit());
+        markReplicated(message);
+        Message forwarded = options.isPassThrough() ? encoder.encode(message) : message;
+        long receivedTime = System.nanoTime();
+        inFlight++;
+        metrics.setInFlight(inFlight);
+        protonSender.send(forwarded, protonDelivery -> {
+            // The source delivery has already been released if the receiver was recreated in the meantime
+            if (protonReceiver != currentReceiver) {
+                return;
+            }
+            inFlight--;
+            metrics.setInFlight(inFlight);
+            metrics.messageForwarded(System.nanoTime() - receivedTime);
+            settle(protonSender, protonReceiver, new Settlement(sourceDelivery, protonDelivery.getRemoteState(), protonDelivery.remotelySettled()));
         });
     }
 
+    private void settle(ProtonSender protonSender, ProtonReceiver protonReceiver, Settlement settlement) {
+        if (options.getSettleBatchSize() <= 1) {
+            settlement.apply();
+            refill(protonSender, protonReceiver);
+            return;
+        }
+
+        pendingSettlements.add(settlement);
+        metrics.setPendingSettlement(pendingSettlements.size());
+        if (pendingSettlements.size() >= options.getSettleBatchSize()) {
+            flushSettlements(protonSender, protonReceiver);
+        } else if (settleTimer == -1) {
+            settleTimer = vertx.setTimer(Math.max(1, options.getSettleBatchTimeout().toMillis()), id -> {
+                settleTimer = -1;
+                flushSettlements(protonSender, protonReceiver);
+            });
+        }
+    }
+
+    private void flushSettlements(ProtonSender protonSender, ProtonReceiver protonReceiver) {
+        if (settleTimer != -1) {
+            vertx.cancelTimer(settleTimer);
+            settleTimer = -1;
+        }
+        if (protonReceiver != currentReceiver) {
+            return;
+        }
+        for (Settlement settlement : pendingSettlements) {
+            settlement.apply();
+        }
+        pendingSettlements.clear();
+        metrics.setPendingSettlement(0);
+        refill(protonSender, protonReceiver);
+    }
+
+    /**
+     * Give the source credit for the free part of the window, once at least refillThreshold messages of it are free
+     * and the target is not holding up the sender.
+     */
+    private void refill(ProtonSender protonSender, ProtonReceiver protonReceiver) {
+        if (protonReceiver != currentReceiver || protonSender.sendQueueFull()) {
+            return;
+        }
+        int free = options.getCreditWindow() - protonReceiver.getCredit() - inFlight - pendingSettlements.size();
+        if (free >= options.getRefillThreshold()) {
+            protonReceiver.flow(free);
+        }
+    }
+
+    /**
+     * Start flow control over for a new source link.
+     */
+    private void resetFlow(ProtonReceiver receiver) {
+        if (settleTimer != -1) {
+            vertx.cancelTimer(settleTimer);
+            settleTimer = -1;
+        }
+        currentReceiver = receiver;
+        inFlight = 0;
+        pendingSettlements.clear();
+        metrics.setInFlight(0);
+        metrics.setPendingSettlement(0);
+    }
+
     @Override
     public void stop() {
+        if (sampleTimer != -1) {
+            vertx.cancelTimer(sampleTimer);
+        }
         receiverConnection.ifPresent(ProtonConnection::close);
         senderConnection.ifPresent(ProtonConnection::close);
     }
 
-    private static boolean isMessageReplicated(Message message) {
+    static void markReplicated(Message message) {
+        MessageAnnotations annotations = message.getMessageAnnotations();
+        if (annotations == null) {
+            annotations = new MessageAnnotations(Collections.singletonMap(replicated, true));
+        } else {
+            annotations.getValue().put(replicated, true);
+        }
+        message.setMessageAnnotations(annotations);
+    }
+
+    static boolean isMessageReplicated(Message message) {
         MessageAnnotations annotations = message.getMessageAnnotations();
         return annotations != null && annotations.getValue().containsKey(replicated);
     }
+
+    private static class Settlement {
+        private final ProtonDelivery delivery;
+        private final DeliveryState state;
+        private final boolean settled;
+
+        private Settlement(ProtonDelivery delivery, DeliveryState state, boolean settled) {
+            this.delivery = delivery;
+            this.state = state;
+            this.settled = settled;
+        }
+
+        private void apply() {
+            delivery.disposition(state, settled);
+        }
+    }
 }
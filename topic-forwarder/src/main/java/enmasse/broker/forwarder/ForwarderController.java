@@ -7,6 +7,7 @@ package enmasse.broker.forwarder;
 
 import enmasse.discovery.DiscoveryListener;
 import enmasse.discovery.Host;
+import io.enmasse.metrics.PrometheusTextBuilder;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.AbstractVerticle;
 import org.slf4j.Logger;
@@ -16,6 +17,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Maintains a set of {@link Forwarder} instances from a given host based on discovered hosts.
@@ -29,17 +31,33 @@ public class ForwarderController extends AbstractVerticle implements DiscoveryLi
     private final String address;
     private final long connectionRetryInterval = 5000;
     private final String certDir;
+    private final ForwarderOptions options;
+    private final Map<Host, ForwarderMetrics> metrics = new ConcurrentHashMap<>();
 
     public ForwarderController(Host localHost, String address, String certDir) {
+        this(localHost, address, certDir, new ForwarderOptions());
+    }
+
+    public ForwarderController(Host localHost, String address, String certDir, ForwarderOptions options) {
         this.localHost = localHost;
         this.address = address;
         this.certDir = certDir;
+        this.options = options;
     }
 
     @Override
     public void start() {
         vertx.createHttpServer()
-                .requestHandler(request -> request.response().setStatusCode(HttpResponseStatus.OK.code()).end())
+                .requestHandler(request -> {
+                    if ("/metrics".equals(request.path())) {
+                        request.response()
+                                .putHeader("Content-Type", PrometheusTextBuilder.CONTENT_TYPE)
+                                .setStatusCode(HttpResponseStatus.OK.code())
+                                .end(ForwarderMetrics.toPrometheusText(metrics.values()));
+                    } else {
+                        request.response().setStatusCode(HttpResponseStatus.OK.code()).end();
+                    }
+                })
                 .listen(8088);
     }
 
@@ -67,17 +85,19 @@ public class ForwarderController extends AbstractVerticle implements DiscoveryLi
 
     private void deleteForwarder(Host host) {
         String forwarder = replicatedHosts.remove(host);
+        metrics.remove(host);
         log.info("Deleting forwarder " + forwarder);
         assert (forwarder != null);
         vertx.undeploy(forwarder);
     }
 
     private void createForwarder(Host host) {
-        Forwarder forwarder = new Forwarder(localHost.amqpEndpoint(), host.amqpEndpoint(), address, connectionRetryInterval, certDir);
+        Forwarder forwarder = new Forwarder(localHost.amqpEndpoint(), host.amqpEndpoint(), address, connectionRetryInterval, certDir, options);
         log.info("Creating forwarder " + forwarder);
         vertx.deployVerticle(forwarder, result -> {
             if (result.succeeded()) {
                 replicatedHosts.put(host, result.result());
+                metrics.put(host, forwarder.getMetrics());
             }
         });
     }
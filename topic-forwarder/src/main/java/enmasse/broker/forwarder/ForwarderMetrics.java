@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import io.enmasse.metrics.PrometheusTextBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Throughput and lag of a single {@link Forwarder}. Updated from the forwarder context, read from any thread.
+ */
+public class ForwarderMetrics {
+    private final String address;
+    private final String target;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+    private volatile int inFlight;
+    private volatile int pendingSettlement;
+    private volatile double throughput;
+    private long lastSampleTime;
+    private long lastSampleForwarded;
+
+    public ForwarderMetrics(String address, String target) {
+        this.address = address;
+        this.target = target;
+        this.lastSampleTime = System.nanoTime();
+    }
+
+    void messageReceived() {
+        received.incrementAndGet();
+    }
+
+    void messageSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    /**
+     * @param latency nanos from receiving the message until the target settled it
+     */
+    void messageForwarded(long latency) {
+        forwarded.incrementAndGet();
+        latencyNanos.addAndGet(latency);
+    }
+
+    void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    void setPendingSettlement(int pendingSettlement) {
+        this.pendingSettlement = pendingSettlement;
+    }
+
+    /**
+     * Update the throughput from the messages forwarded since the previous sample.
+     */
+    void sample(long now) {
+        long count = forwarded.get();
+        double elapsedSeconds = (now - lastSampleTime) / 1e9;
+        if (elapsedSeconds > 0) {
+            throughput = (count - lastSampleForwarded) / elapsedSeconds;
+        }
+        lastSampleTime = now;
+        lastSampleForwarded = count;
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getForwarded() {
+        return forwarded.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getPendingSettlement() {
+        return pendingSettlement;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Formats the metrics of all forwarders in the Prometheus text exposition format.
+     */
+    public static String toPrometheusText(Collection<ForwarderMetrics> metrics) {
+        PrometheusTextBuilder builder = new PrometheusTextBuilder();
+        append(builder, "forwarder_received_total", "counter", metrics, m -> m.received.get());
+        append(builder, "forwarder_forwarded_total", "counter", metrics, m -> m.forwarded.get());
+        append(builder, "forwarder_skipped_total", "counter", metrics, m -> m.skipped.get());
+        builder.type("forwarder_forward_latency_seconds", "summary");
+        for (ForwarderMetrics m : metrics) {
+            builder.summary("forwarder_forward_latency_seconds", m.labels(), m.latencyNanos.get() / 1e9, m.forwarded.get());
+        }
+        append(builder, "forwarder_in_flight", "gauge", metrics, m -> m.inFlight);
+        append(builder, "forwarder_pending_settlement", "gauge", metrics, m -> m.pendingSettlement);
+        builder.type("forwarder_throughput_messages_per_second", "gauge");
+        for (ForwarderMetrics m : metrics) {
+            builder.sample("forwarder_throughput_messages_per_second", m.labels(), m.throughput);
+        }
+        return builder.build();
+    }
+
+    private Map<String, String> labels() {
+        return PrometheusTextBuilder.labels("address", address, "target", target);
+    }
+
+    private static void append(PrometheusTextBuilder builder, String name, String type, Collection<ForwarderMetrics> metrics, ToLongFunction<ForwarderMetrics> value) {
+        builder.type(name, type);
+        for (ForwarderMetrics m : metrics) {
+            builder.sample(name, m.labels(), value.applyAsLong(m));
+        }
+    }
+}
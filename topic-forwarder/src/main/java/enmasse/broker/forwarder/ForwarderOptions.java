@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Flow control and encoding options of a {@link Forwarder}.
+ */
+public class ForwarderOptions {
+    private boolean passThrough = false;
+    private int creditWindow = 100;
+    private int refillThreshold = 50;
+    private int settleBatchSize = 1;
+    private Duration settleBatchTimeout = Duration.ofMillis(10);
+
+    public static ForwarderOptions fromEnv(Map<String, String> env) {
+        ForwarderOptions options = new ForwarderOptions();
+
+        getEnv(env, "FORWARDER_PASS_THROUGH").map(Boolean::parseBoolean).ifPresent(options::setPassThrough);
+        getEnv(env, "FORWARDER_CREDIT_WINDOW").map(Integer::parseInt).ifPresent(window -> {
+            options.setCreditWindow(window);
+            options.setRefillThreshold(Math.max(1, window / 2));
+        });
+        getEnv(env, "FORWARDER_REFILL_THRESHOLD").map(Integer::parseInt).ifPresent(options::setRefillThreshold);
+        getEnv(env, "FORWARDER_SETTLE_BATCH_SIZE").map(Integer::parseInt).ifPresent(options::setSettleBatchSize);
+        getEnv(env, "FORWARDER_SETTLE_BATCH_TIMEOUT")
+                .map(i -> Duration.ofMillis(Long.parseLong(i)))
+                .ifPresent(options::setSettleBatchTimeout);
+
+        if (options.getRefillThreshold() < 1 || options.getRefillThreshold() > options.getCreditWindow()) {
+            throw new IllegalArgumentException("Refill threshold must be between 1 and the credit window " + options.getCreditWindow());
+        }
+        return options;
+    }
+
+    private static Optional<String> getEnv(Map<String, String> env, String envVar) {
+        return Optional.ofNullable(env.get(envVar));
+    }
+
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
+    /**
+     * If true, messages are encoded once into a reused buffer and sent pre-encoded, instead of being encoded by the
+     * sender for every delivery.
+     */
+    public ForwarderOptions setPassThrough(boolean passThrough) {
+        this.passThrough = passThrough;
+        return this;
+    }
+
+    public int getCreditWindow() {
+        return creditWindow;
+    }
+
+    /**
+     * Max number of messages given credit for, received or waiting to be settled at the source at any time.
+     */
+    public ForwarderOptions setCreditWindow(int creditWindow) {
+        this.creditWindow = creditWindow;
+        return this;
+    }
+
+    public int getRefillThreshold() {
+        return refillThreshold;
+    }
+
+    /**
+     * Credit is only given once at least this many messages of the window have been settled.
+     */
+    public ForwarderOptions setRefillThreshold(int refillThreshold) {
+        this.refillThreshold = refillThreshold;
+        return this;
+    }
+
+    public int getSettleBatchSize() {
+        return settleBatchSize;
+    }
+
+    /**
+     * Number of source deliveries to settle together. With 1, each source delivery is settled as soon as the target
+     * has settled it.
+     */
+    public ForwarderOptions setSettleBatchSize(int settleBatchSize) {
+        this.settleBatchSize = settleBatchSize;
+        return this;
+    }
+
+    public Duration getSettleBatchTimeout() {
+        return settleBatchTimeout;
+    }
+
+    /**
+     * Max time a source delivery waits for its settlement batch to fill up.
+     */
+    public ForwarderOptions setSettleBatchTimeout(Duration settleBatchTimeout) {
+        this.settleBatchTimeout = settleBatchTimeout;
+        return this;
+    }
+}
@@ -29,9 +29,10 @@ public class Main {
         String address = getAddress(env);
 
         String certDir = System.getenv("CERT_DIR");
+        ForwarderOptions options = ForwarderOptions.fromEnv(env);
 
         DiscoveryClient discoveryClient = new DiscoveryClient( labelFilter, annotationFilter, "broker");
-        ForwarderController replicator = new ForwarderController(localHost, address, certDir);
+        ForwarderController replicator = new ForwarderController(localHost, address, certDir, options);
         discoveryClient.addListener(replicator);
 
         Vertx vertx = Vertx.vertx();
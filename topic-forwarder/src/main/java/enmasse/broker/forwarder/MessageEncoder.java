@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import org.apache.qpid.proton.message.Message;
+import org.apache.qpid.proton.message.impl.MessageImpl;
+
+/**
+ * Encodes messages into a buffer which is reused between messages, and which grows to fit the largest message seen
+ * up to maxRetainedSize. The returned {@link EncodedMessage} is only valid until the next call, so it must be sent
+ * right away. Not thread safe.
+ */
+class MessageEncoder {
+    private final int maxRetainedSize;
+    private byte[] buffer;
+
+    MessageEncoder() {
+        this(1024, 1024 * 1024);
+    }
+
+    MessageEncoder(int initialSize, int maxRetainedSize) {
+        this.buffer = new byte[initialSize];
+        this.maxRetainedSize = maxRetainedSize;
+    }
+
+    EncodedMessage encode(Message message) {
+        MessageImpl msg = (MessageImpl) message;
+        int length = msg.encode2(buffer, 0, buffer.length);
+        if (length <= buffer.length) {
+            return new EncodedMessage(buffer, length);
+        }
+
+        byte[] data = new byte[Math.max(length, Math.min(buffer.length * 2, maxRetainedSize))];
+        length = msg.encode(data, 0, data.length);
+        if (data.length <= maxRetainedSize) {
+            buffer = data;
+        }
+        return new EncodedMessage(data, length);
+    }
+}
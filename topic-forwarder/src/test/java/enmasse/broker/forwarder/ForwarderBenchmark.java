@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+import org.apache.qpid.proton.message.impl.MessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of forwarding a message received from the local broker, with and without pass-through encoding,
+ * for different payload sizes. Both include decoding the message, which the receiver always does. The send step
+ * mirrors how the vertx-proton sender encodes a message: into a 1 KiB buffer first, and again into a buffer of the
+ * right size if the message did not fit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwarderBenchmark {
+    @Param({"100", "10000", "1000000"})
+    private int payloadSize;
+
+    private byte[] received;
+    private MessageEncoder encoder;
+
+    @Setup
+    public void setup() {
+        Message message = Proton.message();
+        message.setAddress("mytopic");
+        message.setMessageId("id-1");
+        message.setApplicationProperties(new ApplicationProperties(Collections.singletonMap("key", "value")));
+        message.setBody(new Data(new Binary(new byte[payloadSize])));
+
+        received = new byte[payloadSize + 1024];
+        int length = message.encode(received, 0, received.length);
+        received = Arrays.copyOf(received, length);
+        encoder = new MessageEncoder();
+    }
+
+    @Benchmark
+    public byte[] forward() {
+        Message message = decode();
+        Forwarder.markReplicated(message);
+        return send(message);
+    }
+
+    @Benchmark
+    public byte[] forwardPassThrough() {
+        Message message = decode();
+        Forwarder.markReplicated(message);
+        return send(encoder.encode(message));
+    }
+
+    private Message decode() {
+        Message message = Proton.message();
+        message.decode(received, 0, received.length);
+        return message;
+    }
+
+    private static byte[] send(Message message) {
+        byte[] encoded = new byte[1024];
+        MessageImpl msg = (MessageImpl) message;
+        int length = msg.encode2(encoded, 0, encoded.length);
+        if (length > encoded.length) {
+            encoded = new byte[length];
+            msg.encode(encoded, 0, length);
+        }
+        return encoded;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ForwarderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ForwarderMetricsTest {
+    @Test
+    public void testMetrics() {
+        ForwarderMetrics metricsB = new ForwarderMetrics("mytopic", "hostb:5673");
+        ForwarderMetrics metricsC = new ForwarderMetrics("mytopic", "hostc:5673");
+        metricsB.sample(0);
+
+        for (int i = 0; i < 10; i++) {
+            metricsB.messageReceived();
+            metricsB.messageForwarded(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        metricsB.messageReceived();
+        metricsB.messageSkipped();
+        metricsB.setInFlight(3);
+        metricsB.sample(TimeUnit.SECONDS.toNanos(2));
+
+        assertThat(metricsB.getReceived(), is(11L));
+        assertThat(metricsB.getForwarded(), is(10L));
+        assertThat(metricsB.getSkipped(), is(1L));
+        assertThat(metricsB.getThroughput(), is(5.0));
+
+        String text = ForwarderMetrics.toPrometheusText(Arrays.asList(metricsB, metricsC));
+        assertThat(text, containsString("# TYPE forwarder_forwarded_total counter\n"));
+        assertThat(text, containsString("forwarder_forwarded_total{address=\"mytopic\",target=\"hostb:5673\"} 10\n"));
+        assertThat(text, containsString("forwarder_forwarded_total{address=\"mytopic\",target=\"hostc:5673\"} 0\n"));
+        assertThat(text, containsString("forwarder_forward_latency_seconds_sum{address=\"mytopic\",target=\"hostb:5673\"} 0.05\n"));
+        assertThat(text, containsString("forwarder_in_flight{address=\"mytopic\",target=\"hostb:5673\"} 3\n"));
+        assertThat(text, containsString("forwarder_throughput_messages_per_second{address=\"mytopic\",target=\"hostb:5673\"} 5.0\n"));
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import enmasse.discovery.Endpoint;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonSession;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Tests of the flow control and settlement of a single forwarder, between a source and a target peer
+ */
+@RunWith(VertxUnitRunner.class)
+public class ForwarderTest {
+    private static final int TIMEOUT = 10000;
+    private static final String ADDRESS = "mytopic";
+
+    private Vertx vertx;
+    private ProtonServer source;
+    private ProtonServer target;
+    private volatile Context sourceContext;
+    private volatile Context targetContext;
+
+    // replaced when the forwarder attaches again, accessed on the source context
+    private volatile ProtonSender sourceSender;
+    // accessed on the target context only
+    private final List<ProtonDelivery> targetUnsettled = new ArrayList<>();
+
+    private final AtomicInteger sourceAttaches = new AtomicInteger();
+    private final AtomicInteger sourceSettled = new AtomicInteger();
+    private final AtomicInteger targetReceived = new AtomicInteger();
+
+    @Before
+    public void setup(TestContext context) {
+        vertx = Vertx.vertx();
+
+        Async sourceListening = context.async();
+        source = ProtonServer.create(vertx).connectHandler(connection -> {
+            sourceContext = Vertx.currentContext();
+            connection.openHandler(o -> connection.open());
+            connection.sessionOpenHandler(ProtonSession::open);
+            connection.senderOpenHandler(sender -> {
+                sender.setSource(sender.getRemoteSource());
+                sender.open();
+                sourceSender = sender;
+                sourceAttaches.incrementAndGet();
+            });
+        }).listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> sourceListening.complete()));
+
+        Async targetListening = context.async();
+        target = ProtonServer.create(vertx).connectHandler(connection -> {
+            targetContext = Vertx.currentContext();
+            connection.openHandler(o -> connection.open());
+            connection.sessionOpenHandler(ProtonSession::open);
+            connection.receiverOpenHandler(receiver -> {
+                receiver.setTarget(receiver.getRemoteTarget())
+                        .setAutoAccept(false)
+                        .handler((delivery, message) -> {
+                            targetReceived.incrementAndGet();
+                            targetUnsettled.add(delivery);
+                        })
+                        .open();
+            });
+        }).listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> targetListening.complete()));
+
+        sourceListening.awaitSuccess(TIMEOUT);
+        targetListening.awaitSuccess(TIMEOUT);
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        Async async = context.async();
+        vertx.close(context.asyncAssertSuccess(v -> async.complete()));
+        async.awaitSuccess(TIMEOUT);
+    }
+
+    @Test
+    public void testCreditRefilledAtThreshold(TestContext context) throws Exception {
+        deployForwarder(context, new ForwarderOptions()
+                .setCreditWindow(10)
+                .setRefillThreshold(5));
+
+        sendFromSource(10);
+        waitUntil(context, () -> targetReceived.get() == 10);
+        context.assertEquals(0, onSource(() -> sourceSender.getCredit()));
+
+        // below the threshold, no credit is given back yet
+        settleAtTarget(4);
+        waitUntil(context, () -> sourceSettled.get() == 4);
+        context.assertEquals(0, onSource(() -> sourceSender.getCredit()));
+
+        settleAtTarget(1);
+        waitUntil(context, () -> sourceSettled.get() == 5);
+        waitUntil(context, () -> onSourceUnchecked(() -> sourceSender.getCredit()) == 5);
+
+        settleAtTarget(5);
+        waitUntil(context, () -> onSourceUnchecked(() -> sourceSender.getCredit()) == 10);
+    }
+
+    @Test
+    public void testSettlementBatchFlushedWhenFull(TestContext context) throws Exception {
+        Forwarder forwarder = deployForwarder(context, new ForwarderOptions()
+                .setCreditWindow(10)
+                .setRefillThreshold(1)
+                .setSettleBatchSize(3)
+                .setSettleBatchTimeout(Duration.ofMinutes(1)));
+
+        sendFromSource(3);
+        waitUntil(context, () -> targetReceived.get() == 3);
+
+        settleAtTarget(2);
+        waitUntil(context, () -> forwarder.getMetrics().getPendingSettlement() == 2);
+        context.assertEquals(0, sourceSettled.get());
+
+        settleAtTarget(1);
+        waitUntil(context, () -> sourceSettled.get() == 3);
+        context.assertEquals(0, forwarder.getMetrics().getPendingSettlement());
+        waitUntil(context, () -> onSourceUnchecked(() -> sourceSender.getCredit()) == 10);
+    }
+
+    @Test
+    public void testSettlementBatchFlushedByTimer(TestContext context) throws Exception {
+        Forwarder forwarder = deployForwarder(context, new ForwarderOptions()
+                .setCreditWindow(10)
+                .setRefillThreshold(1)
+                .setSettleBatchSize(10)
+                .setSettleBatchTimeout(Duration.ofMillis(200)));
+
+        sendFromSource(2);
+        waitUntil(context, () -> targetReceived.get() == 2);
+
+        settleAtTarget(2);
+        waitUntil(context, () -> sourceSettled.get() == 2);
+        context.assertEquals(0, forwarder.getMetrics().getPendingSettlement());
+        waitUntil(context, () -> onSourceUnchecked(() -> sourceSender.getCredit()) == 10);
+    }
+
+    @Test
+    public void testSettlementAfterSourceLinkClosed(TestContext context) throws Exception {
+        Forwarder forwarder = deployForwarder(context, new ForwarderOptions()
+                .setCreditWindow(10)
+                .setRefillThreshold(1)
+                .setSettleBatchSize(10)
+                .setSettleBatchTimeout(Duration.ofMinutes(1)));
+
+        sendFromSource(4);
+        waitUntil(context, () -> targetReceived.get() == 4);
+
+        // two settlements wait in the batch, two messages are still in flight at the target
+        settleAtTarget(2);
+        waitUntil(context, () -> forwarder.getMetrics().getPendingSettlement() == 2);
+
+        onSource(() -> {
+            sourceSender.setCondition(new ErrorCondition(Symbol.getSymbol("amqp:internal-error"), "link lost"));
+            sourceSender.close();
+            return null;
+        });
+
+        // the forwarder attaches again, with the full window and nothing left of the old link
+        waitUntil(context, () -> sourceAttaches.get() == 2);
+        waitUntil(context, () -> onSourceUnchecked(() -> sourceSender.getCredit()) == 10);
+        context.assertEquals(0, forwarder.getMetrics().getPendingSettlement());
+        context.assertEquals(0, forwarder.getMetrics().getInFlight());
+
+        // late settlements of messages from the old link don't give credit on the new one
+        settleAtTarget(2);
+        Thread.sleep(200);
+        context.assertEquals(10, onSource(() -> sourceSender.getCredit()));
+        context.assertEquals(0, forwarder.getMetrics().getInFlight());
+        context.assertEquals(0, sourceSettled.get());
+
+        sendFromSource(1);
+        waitUntil(context, () -> targetReceived.get() == 5);
+        context.assertEquals(1, forwarder.getMetrics().getInFlight());
+    }
+
+    private Forwarder deployForwarder(TestContext context, ForwarderOptions options) throws InterruptedException {
+        Forwarder forwarder = new Forwarder(new Endpoint("127.0.0.1", source.actualPort()),
+                new Endpoint("127.0.0.1", target.actualPort()), ADDRESS, 100, null, options);
+        Async async = context.async();
+        vertx.deployVerticle(forwarder, context.asyncAssertSuccess(id -> async.complete()));
+        async.awaitSuccess(TIMEOUT);
+
+        waitUntil(context, () -> sourceAttaches.get() == 1);
+        waitUntil(context, () -> onSourceUnchecked(() -> sourceSender.getCredit()) == options.getCreditWindow());
+        return forwarder;
+    }
+
+    private void sendFromSource(int count) throws Exception {
+        onSource(() -> {
+            for (int i = 0; i < count; i++) {
+                Message message = Message.Factory.create();
+                message.setAddress(ADDRESS);
+                message.setBody(new AmqpValue("message-" + i));
+                sourceSender.send(message, delivery -> {
+                    if (delivery.remotelySettled()) {
+                        sourceSettled.incrementAndGet();
+                    }
+                });
+            }
+            return null;
+        });
+    }
+
+    private void settleAtTarget(int count) throws Exception {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        targetContext.runOnContext(v -> {
+            for (int i = 0; i < count; i++) {
+                targetUnsettled.remove(0).disposition(Accepted.getInstance(), true);
+            }
+            result.complete(null);
+        });
+        result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T onSource(Supplier<T> supplier) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        sourceContext.runOnContext(v -> result.complete(supplier.get()));
+        return result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T onSourceUnchecked(Supplier<T> supplier) {
+        try {
+            return onSource(supplier);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(TestContext context, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        context.assertTrue(condition.getAsBoolean());
+    }
+}
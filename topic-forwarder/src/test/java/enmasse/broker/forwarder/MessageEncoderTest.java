@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.broker.forwarder;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class MessageEncoderTest {
+    @Test
+    public void testEncodedMessageMatchesMessage() {
+        MessageEncoder encoder = new MessageEncoder(16, 1024);
+        for (int size : new int[] {0, 100, 1000, 5000}) {
+            Message message = createMessage(size);
+            EncodedMessage encoded = encoder.encode(message);
+
+            byte[] expected = new byte[size + 1024];
+            int expectedLength = message.encode(expected, 0, expected.length);
+            assertThat(encoded.getLength(), is(expectedLength));
+
+            // Encodes the same way the sender does
+            byte[] small = new byte[16];
+            int length = encoded.encode2(small, 0, small.length);
+            assertThat(length, is(expectedLength));
+            byte[] actual = new byte[length];
+            encoded.encode(actual, 0, length);
+            assertTrue(Arrays.equals(Arrays.copyOf(expected, expectedLength), actual));
+
+            Message decoded = Proton.message();
+            decoded.decode(actual, 0, actual.length);
+            assertTrue(Forwarder.isMessageReplicated(decoded));
+            assertThat(((Data) decoded.getBody()).getValue().getLength(), is(size));
+        }
+    }
+
+    private static Message createMessage(int size) {
+        Message message = Proton.message();
+        message.setAddress("mytopic");
+        message.setBody(new Data(new Binary(new byte[size])));
+        Forwarder.markReplicated(message);
+        return message;
+    }
+}